@@ -0,0 +1,102 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.api.model;
+
+import java.util.Objects;
+
+/**
+ * Key level invalidation of a named cache, distributed to all application nodes.
+ */
+public class CacheInvalidation {
+
+   public static final String ID = "id";
+   public static final String ORIGIN = "origin";
+   public static final String CACHE_NAME = "cacheName";
+   public static final String KEY = "key";
+
+   /**
+    * Key that invalidates the whole cache.
+    */
+   public static final String ALL_KEYS = "*";
+
+   private String id;
+   private final String origin;
+   private final String cacheName;
+   private final String key;
+
+   public CacheInvalidation(final String origin, final String cacheName, final String key) {
+      this.origin = origin;
+      this.cacheName = cacheName;
+      this.key = key;
+   }
+
+   public String getId() {
+      return id;
+   }
+
+   public void setId(final String id) {
+      this.id = id;
+   }
+
+   public String getOrigin() {
+      return origin;
+   }
+
+   public String getCacheName() {
+      return cacheName;
+   }
+
+   public String getKey() {
+      return key;
+   }
+
+   public boolean isAllKeys() {
+      return ALL_KEYS.equals(key);
+   }
+
+   @Override
+   public boolean equals(final Object o) {
+      if (this == o) {
+         return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+         return false;
+      }
+      final CacheInvalidation that = (CacheInvalidation) o;
+      return Objects.equals(id, that.id) &&
+            Objects.equals(origin, that.origin) &&
+            Objects.equals(cacheName, that.cacheName) &&
+            Objects.equals(key, that.key);
+   }
+
+   @Override
+   public int hashCode() {
+      return Objects.hash(id, origin, cacheName, key);
+   }
+
+   @Override
+   public String toString() {
+      return "CacheInvalidation{" +
+            "id='" + id + '\'' +
+            ", origin='" + origin + '\'' +
+            ", cacheName='" + cacheName + '\'' +
+            ", key='" + key + '\'' +
+            '}';
+   }
+}
@@ -25,10 +25,24 @@ public class Pagination {
 
    private final Integer page;
    private final Integer pageSize;
+   private final String after;
 
    public Pagination(final Integer page, final Integer pageSize) {
+      this(page, pageSize, null);
+   }
+
+   /**
+    * @param page
+    *       Page number for offset pagination, null for keyset pagination.
+    * @param pageSize
+    *       Maximum number of results.
+    * @param after
+    *       Id of the last result of the previous page when using keyset pagination, null for the first page.
+    */
+   public Pagination(final Integer page, final Integer pageSize, final String after) {
       this.page = page;
       this.pageSize = pageSize;
+      this.after = after;
    }
 
    public Integer getPage() {
@@ -38,4 +52,18 @@ public class Pagination {
    public Integer getPageSize() {
       return pageSize;
    }
+
+   public String getAfter() {
+      return after;
+   }
+
+   /**
+    * Keyset pagination orders the results by id and continues after the last id of the previous page
+    * instead of skipping the previous pages.
+    *
+    * @return True when only the page size is set.
+    */
+   public boolean isKeyset() {
+      return page == null && pageSize != null;
+   }
 }
@@ -25,6 +25,7 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -35,16 +36,30 @@ public class Query {
    private final Set<String> fulltexts;
    private final Integer page;
    private final Integer pageSize;
+   private final String after;
+   private final Map<String, Set<String>> projection;
 
    @JsonCreator
    public Query(@JsonProperty("stems") final List<QueryStem> stems,
          @JsonProperty("fulltexts") final Set<String> fulltexts,
          @JsonProperty("page") final Integer page,
-         @JsonProperty("pageSize") final Integer pageSize) {
+         @JsonProperty("pageSize") final Integer pageSize,
+         @JsonProperty("after") final String after,
+         @JsonProperty("projection") final Map<String, Set<String>> projection) {
       this.stems = stems != null ? stems : Collections.emptyList();
       this.fulltexts = fulltexts != null ? fulltexts : Collections.emptySet();
       this.page = page;
       this.pageSize = pageSize;
+      this.after = after;
+      this.projection = projection != null ? projection : Collections.emptyMap();
+   }
+
+   public Query(final List<QueryStem> stems, final Set<String> fulltexts, final Integer page, final Integer pageSize, final String after) {
+      this(stems, fulltexts, page, pageSize, after, null);
+   }
+
+   public Query(final List<QueryStem> stems, final Set<String> fulltexts, final Integer page, final Integer pageSize) {
+      this(stems, fulltexts, page, pageSize, null);
    }
 
    public Query(List<QueryStem> stems) {
@@ -85,6 +100,42 @@ public class Query {
       return pageSize;
    }
 
+   /**
+    * Gets the continuation token returned with the previous page of results when using keyset pagination.
+    *
+    * @return Continuation token, null for the first page.
+    */
+   public String getAfter() {
+      return after;
+   }
+
+   /**
+    * Gets the attributes to be read for the individual collections and link types. Resources missing in the projection
+    * are read with all their attributes.
+    *
+    * @return Map of collection or link type ids to the ids of their attributes to read.
+    */
+   public Map<String, Set<String>> getProjection() {
+      return projection;
+   }
+
+   /**
+    * Gets the attributes to be read for the given collection or link type.
+    *
+    * @param resourceId
+    *       Id of the collection or link type.
+    * @return Ids of the attributes to read, null to read all of them.
+    */
+   @JsonIgnore
+   public Set<String> getProjection(final String resourceId) {
+      return projection.get(resourceId);
+   }
+
+   @JsonIgnore
+   public boolean isKeysetPagination() {
+      return page == null && pageSize != null;
+   }
+
    @JsonIgnore
    public Pagination getPagination() {
       return new Pagination(page, pageSize);
@@ -141,12 +192,14 @@ public class Query {
       return Objects.equals(stems, query.stems) &&
             Objects.equals(fulltexts, query.fulltexts) &&
             Objects.equals(page, query.page) &&
-            Objects.equals(pageSize, query.pageSize);
+            Objects.equals(pageSize, query.pageSize) &&
+            Objects.equals(after, query.after) &&
+            Objects.equals(projection, query.projection);
    }
 
    @Override
    public int hashCode() {
-      return Objects.hash(stems, fulltexts, page, pageSize);
+      return Objects.hash(stems, fulltexts, page, pageSize, after, projection);
    }
 
    @Override
@@ -156,6 +209,8 @@ public class Query {
             ", fulltexts=" + fulltexts +
             ", page=" + page +
             ", pageSize=" + pageSize +
+            ", after='" + after + '\'' +
+            ", projection=" + projection +
             '}';
    }
 }
@@ -28,7 +28,9 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonView;
 
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -224,6 +226,25 @@ public class User {
             '}';
    }
 
+   public User copy() {
+      final User o = new User(id, name, email, null, wishes != null ? new ArrayList<>(wishes) : null, agreement, agreementDate, newsletter, wizardDismissed);
+
+      if (groups != null) {
+         o.groups = new HashMap<>();
+         groups.forEach((organizationId, organizationGroups) -> o.groups.put(organizationId, organizationGroups != null ? new HashSet<>(organizationGroups) : null));
+      }
+      o.authIds = authIds != null ? new HashSet<>(authIds) : null;
+      o.lastLoggedIn = lastLoggedIn;
+
+      if (defaultWorkspace != null) {
+         o.defaultWorkspace = new DefaultWorkspace(defaultWorkspace.getOrganizationId(), defaultWorkspace.getProjectId());
+         o.defaultWorkspace.setOrganizationCode(defaultWorkspace.getOrganizationCode());
+         o.defaultWorkspace.setProjectCode(defaultWorkspace.getProjectCode());
+      }
+
+      return o;
+   }
+
    @Override
    public boolean equals(final Object o) {
       if (this == o) {
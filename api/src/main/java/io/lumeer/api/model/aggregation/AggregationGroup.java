@@ -0,0 +1,90 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.api.model.aggregation;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.Objects;
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * Attribute whose values form the groups of an aggregation.
+ */
+@Immutable
+public class AggregationGroup {
+
+   private final String collectionId;
+   private final String attributeId;
+   private final DateBucket bucket;
+
+   @JsonCreator
+   public AggregationGroup(@JsonProperty("collectionId") final String collectionId,
+         @JsonProperty("attributeId") final String attributeId,
+         @JsonProperty("bucket") final String bucket) {
+      this.collectionId = collectionId;
+      this.attributeId = attributeId;
+      this.bucket = DateBucket.fromString(bucket);
+   }
+
+   public String getCollectionId() {
+      return collectionId;
+   }
+
+   public String getAttributeId() {
+      return attributeId;
+   }
+
+   /**
+    * Gets the granularity of date values, the values are grouped as they are when null.
+    *
+    * @return Date bucket or null.
+    */
+   public DateBucket getBucket() {
+      return bucket;
+   }
+
+   @Override
+   public boolean equals(final Object o) {
+      if (this == o) {
+         return true;
+      }
+      if (!(o instanceof AggregationGroup)) {
+         return false;
+      }
+      final AggregationGroup that = (AggregationGroup) o;
+      return Objects.equals(collectionId, that.collectionId) &&
+            Objects.equals(attributeId, that.attributeId) &&
+            bucket == that.bucket;
+   }
+
+   @Override
+   public int hashCode() {
+      return Objects.hash(collectionId, attributeId, bucket);
+   }
+
+   @Override
+   public String toString() {
+      return "AggregationGroup{" +
+            "collectionId='" + collectionId + '\'' +
+            ", attributeId='" + attributeId + '\'' +
+            ", bucket=" + bucket +
+            '}';
+   }
+}
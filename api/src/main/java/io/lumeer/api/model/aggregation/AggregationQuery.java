@@ -0,0 +1,115 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.api.model.aggregation;
+
+import io.lumeer.api.model.CollectionAttributeFilter;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * Groups the documents of a collection by the values of some attributes and aggregates other attributes within
+ * the groups. With a link type, every document is paired with each of its linked documents, and the attributes
+ * of both collections can be used.
+ */
+@Immutable
+public class AggregationQuery {
+
+   private final String collectionId;
+   private final String linkTypeId;
+   private final Set<CollectionAttributeFilter> filters;
+   private final List<AggregationGroup> groups;
+   private final List<AggregationValue> values;
+
+   @JsonCreator
+   public AggregationQuery(@JsonProperty("collectionId") final String collectionId,
+         @JsonProperty("linkTypeId") final String linkTypeId,
+         @JsonProperty("filters") final Set<CollectionAttributeFilter> filters,
+         @JsonProperty("groups") final List<AggregationGroup> groups,
+         @JsonProperty("values") final List<AggregationValue> values) {
+      this.collectionId = collectionId;
+      this.linkTypeId = linkTypeId;
+      this.filters = filters != null ? filters : Collections.emptySet();
+      this.groups = groups != null ? groups : Collections.emptyList();
+      this.values = values != null ? values : Collections.emptyList();
+   }
+
+   public String getCollectionId() {
+      return collectionId;
+   }
+
+   public String getLinkTypeId() {
+      return linkTypeId;
+   }
+
+   /**
+    * Gets the filters of the aggregated documents, only the filters of the collection are applied.
+    *
+    * @return Attribute filters.
+    */
+   public Set<CollectionAttributeFilter> getFilters() {
+      return filters;
+   }
+
+   public List<AggregationGroup> getGroups() {
+      return groups;
+   }
+
+   public List<AggregationValue> getValues() {
+      return values;
+   }
+
+   @Override
+   public boolean equals(final Object o) {
+      if (this == o) {
+         return true;
+      }
+      if (!(o instanceof AggregationQuery)) {
+         return false;
+      }
+      final AggregationQuery that = (AggregationQuery) o;
+      return Objects.equals(collectionId, that.collectionId) &&
+            Objects.equals(linkTypeId, that.linkTypeId) &&
+            Objects.equals(filters, that.filters) &&
+            Objects.equals(groups, that.groups) &&
+            Objects.equals(values, that.values);
+   }
+
+   @Override
+   public int hashCode() {
+      return Objects.hash(collectionId, linkTypeId, filters, groups, values);
+   }
+
+   @Override
+   public String toString() {
+      return "AggregationQuery{" +
+            "collectionId='" + collectionId + '\'' +
+            ", linkTypeId='" + linkTypeId + '\'' +
+            ", filters=" + filters +
+            ", groups=" + groups +
+            ", values=" + values +
+            '}';
+   }
+}
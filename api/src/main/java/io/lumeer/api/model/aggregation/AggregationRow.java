@@ -0,0 +1,79 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.api.model.aggregation;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/**
+ * Single group of an aggregation result.
+ */
+public class AggregationRow {
+
+   private final List<Object> keys;
+   private final List<Object> values;
+   private final long count;
+
+   @JsonCreator
+   public AggregationRow(@JsonProperty("keys") final List<Object> keys,
+         @JsonProperty("values") final List<Object> values,
+         @JsonProperty("count") final long count) {
+      this.keys = keys;
+      this.values = values;
+      this.count = count;
+   }
+
+   /**
+    * Gets the values of the group attributes, in the order of the groups of the query.
+    *
+    * @return Group key.
+    */
+   public List<Object> getKeys() {
+      return keys;
+   }
+
+   /**
+    * Gets the aggregated values, in the order of the values of the query.
+    *
+    * @return Aggregated values.
+    */
+   public List<Object> getValues() {
+      return values;
+   }
+
+   /**
+    * Gets the number of documents, or pairs of linked documents, in the group.
+    *
+    * @return Number of rows in the group.
+    */
+   public long getCount() {
+      return count;
+   }
+
+   @Override
+   public String toString() {
+      return "AggregationRow{" +
+            "keys=" + keys +
+            ", values=" + values +
+            ", count=" + count +
+            '}';
+   }
+}
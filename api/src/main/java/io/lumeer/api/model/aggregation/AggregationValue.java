@@ -0,0 +1,85 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.api.model.aggregation;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.Objects;
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * Attribute aggregated within each group.
+ */
+@Immutable
+public class AggregationValue {
+
+   private final String collectionId;
+   private final String attributeId;
+   private final AggregationFunction function;
+
+   @JsonCreator
+   public AggregationValue(@JsonProperty("collectionId") final String collectionId,
+         @JsonProperty("attributeId") final String attributeId,
+         @JsonProperty("function") final String function) {
+      this.collectionId = collectionId;
+      this.attributeId = attributeId;
+      this.function = AggregationFunction.fromString(function);
+   }
+
+   public String getCollectionId() {
+      return collectionId;
+   }
+
+   public String getAttributeId() {
+      return attributeId;
+   }
+
+   public AggregationFunction getFunction() {
+      return function;
+   }
+
+   @Override
+   public boolean equals(final Object o) {
+      if (this == o) {
+         return true;
+      }
+      if (!(o instanceof AggregationValue)) {
+         return false;
+      }
+      final AggregationValue that = (AggregationValue) o;
+      return Objects.equals(collectionId, that.collectionId) &&
+            Objects.equals(attributeId, that.attributeId) &&
+            function == that.function;
+   }
+
+   @Override
+   public int hashCode() {
+      return Objects.hash(collectionId, attributeId, function);
+   }
+
+   @Override
+   public String toString() {
+      return "AggregationValue{" +
+            "collectionId='" + collectionId + '\'' +
+            ", attributeId='" + attributeId + '\'' +
+            ", function=" + function +
+            '}';
+   }
+}
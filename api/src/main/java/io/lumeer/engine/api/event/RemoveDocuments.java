@@ -0,0 +1,47 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.engine.api.event;
+
+import io.lumeer.api.model.Collection;
+import io.lumeer.api.model.Document;
+
+import java.util.List;
+
+/**
+ * CDI event that is fired once when a batch of documents of a single collection is removed.
+ * Replaces the {@link RemoveDocument} events of the individual documents.
+ */
+public class RemoveDocuments {
+
+   private final Collection collection;
+   private final List<Document> documents;
+
+   public RemoveDocuments(final Collection collection, final List<Document> documents) {
+      this.collection = collection;
+      this.documents = documents;
+   }
+
+   public Collection getCollection() {
+      return collection;
+   }
+
+   public List<Document> getDocuments() {
+      return documents;
+   }
+}
@@ -0,0 +1,47 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.engine.api.event;
+
+import io.lumeer.api.model.LinkInstance;
+import io.lumeer.api.model.LinkType;
+
+import java.util.List;
+
+/**
+ * CDI event that is fired once when a batch of link instances of a single link type is removed.
+ * Replaces the {@link RemoveLinkInstance} events of the individual link instances.
+ */
+public class RemoveLinkInstances {
+
+   private final LinkType linkType;
+   private final List<LinkInstance> linkInstances;
+
+   public RemoveLinkInstances(final LinkType linkType, final List<LinkInstance> linkInstances) {
+      this.linkType = linkType;
+      this.linkInstances = linkInstances;
+   }
+
+   public LinkType getLinkType() {
+      return linkType;
+   }
+
+   public List<LinkInstance> getLinkInstances() {
+      return linkInstances;
+   }
+}
@@ -23,7 +23,10 @@ import io.lumeer.api.model.Organization;
 import io.lumeer.api.model.Project;
 import io.lumeer.api.model.ServiceLimits;
 import io.lumeer.core.cache.WorkspaceCache;
+import io.lumeer.core.migration.IndexMigration;
 
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
 import javax.enterprise.context.RequestScoped;
 import javax.inject.Inject;
@@ -34,9 +37,15 @@ public class WorkspaceKeeper implements SelectedWorkspace {
    private String organizationId;
    private String projectId;
 
+   // service limits depend on the current time, they are kept for a single request only
+   private final Map<String, ServiceLimits> serviceLimits = new HashMap<>();
+
    @Inject
    private WorkspaceCache workspaceCache;
 
+   @Inject
+   private IndexMigration indexMigration;
+
    @Override
    public Optional<Organization> getOrganization() {
       if (organizationId == null) {
@@ -53,6 +62,10 @@ public class WorkspaceKeeper implements SelectedWorkspace {
       return Optional.of(workspaceCache.getProject(projectId));
    }
 
+   public String getProjectId() {
+      return projectId;
+   }
+
    public void setOrganization(String organizationId) {
       this.organizationId = organizationId;
    }
@@ -64,17 +77,21 @@ public class WorkspaceKeeper implements SelectedWorkspace {
    public void setWorkspace(String organizationId, String projectId) {
       setOrganization(organizationId);
       setProject(projectId);
+
+      if (organizationId != null && projectId != null) {
+         indexMigration.migrateSelectedOrganization(organizationId);
+      }
    }
 
    public void setServiceLimits(final Organization organization, final ServiceLimits serviceLimits) {
       if (organization != null) {
-         workspaceCache.setServiceLimits(organization.getId(), serviceLimits);
+         this.serviceLimits.put(organization.getId(), serviceLimits);
       }
    }
 
    public ServiceLimits getServiceLimits(final Organization organization) {
       if (organization != null) {
-         return workspaceCache.getServiceLimits(organization.getId());
+         return serviceLimits.get(organization.getId());
       }
 
       return null;
@@ -82,7 +99,7 @@ public class WorkspaceKeeper implements SelectedWorkspace {
 
    public void clearServiceLimits(final Organization organization) {
       if (organization != null) {
-         workspaceCache.removeServiceLimits(organization.getId());
+         serviceLimits.remove(organization.getId());
       }
    }
 }
@@ -69,6 +69,8 @@ public class Auth0Filter implements Filter {
    private static final String VIEW_ID = "view_id";
    private static final String CORRELATION_ID = "correlation_id";
    private static final String TIMESTAMP_HEADER = "X-Lumeer-Start-Timestamp";
+   public static final String CONTINUATION_TOKEN_HEADER = "X-Lumeer-Continuation-Token";
+   public static final String SERVER_TIMING_HEADER = "Server-Timing";
 
    @Inject
    private Logger log;
@@ -331,7 +333,7 @@ public class Auth0Filter implements Filter {
          res.addHeader("Access-Control-Allow-Origin", req.getHeader("Origin"));
          res.addHeader("Access-Control-Allow-Methods", "GET, POST, PUT, DELETE, PATCH");
          res.addHeader("Access-Control-Allow-Credentials", "true");
-         res.addHeader("Access-Control-Expose-Headers", TIMESTAMP_HEADER);
+         res.addHeader("Access-Control-Expose-Headers", String.join(", ", TIMESTAMP_HEADER, CONTINUATION_TOKEN_HEADER, SERVER_TIMING_HEADER));
          String reqHeader = req.getHeader("Access-Control-Request-Headers");
          if (reqHeader != null && !reqHeader.isEmpty()) {
             res.addHeader("Access-Control-Allow-Headers", reqHeader);
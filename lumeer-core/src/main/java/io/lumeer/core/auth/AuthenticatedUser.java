@@ -103,32 +103,36 @@ public class AuthenticatedUser implements Serializable {
    }
 
    public User getCurrentUser() {
+      return userCache.getUser(getCheckedUserEmail());
+   }
+
+   public String getCurrentUserId() {
+      return userCache.getUserId(getCheckedUserEmail());
+   }
+
+   private String getCheckedUserEmail() {
       if (authUserInfo.user == null) {
          checkLocalUser(DEFAULT_EMAIL);
       }
 
-      String userEmail = getUserEmail();
-      return userCache.getUser(userEmail);
-   }
-
-   public String getCurrentUserId() {
-      return getCurrentUser().getId();
+      return getUserEmail();
    }
 
    private void checkUserInProduction(String authId, String email, String name) {
       User userByAuthId = userDao.getUserByAuthId(authId);
       if (userByAuthId != null) {
          if (!userByAuthId.getEmail().equals(email)) {
+            userCache.removeUser(userByAuthId.getEmail());
             userByAuthId.setName(name);
             userByAuthId.setEmail(email);
             createDemoWorkspaceIfNeeded(userByAuthId);
-            userDao.updateUser(userByAuthId.getId(), userByAuthId);
+            updateUser(userByAuthId);
          } else {
             createDemoWorkspaceIfNeeded(userByAuthId);
             if (userByAuthId.getName() == null || !userByAuthId.getName().equals(name)) {
                userByAuthId.setName(name);
             }
-            userDao.updateUser(userByAuthId.getId(), userByAuthId);
+            updateUser(userByAuthId);
          }
          userLoginDao.userLoggedIn(userByAuthId.getId());
       } else {
@@ -141,18 +145,23 @@ public class AuthenticatedUser implements Serializable {
                userByEmail.setAuthIds(new HashSet<>(Collections.singletonList(authId)));
             }
             createDemoWorkspaceIfNeeded(userByEmail);
-            userDao.updateUser(userByEmail.getId(), userByEmail);
+            updateUser(userByEmail);
             userLoginDao.userLoggedIn(userByEmail.getId());
          } else {
             User createdUser = createNewUser(email, authId);
             createdUser.setName(name);
             createDemoWorkspaceIfNeeded(createdUser);
-            userDao.updateUser(createdUser.getId(), createdUser);
+            updateUser(createdUser);
             userLoginDao.userLoggedIn(createdUser.getId());
          }
       }
    }
 
+   private void updateUser(User user) {
+      final User updatedUser = userDao.updateUser(user.getId(), user);
+      userCache.updateUser(updatedUser.getEmail(), updatedUser);
+   }
+
    private void checkLocalUser(String email) {
       User userByEmail = userDao.getUserByEmail(email);
       if (userByEmail == null) {
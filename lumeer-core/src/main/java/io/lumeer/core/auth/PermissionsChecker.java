@@ -32,6 +32,7 @@ import io.lumeer.api.model.View;
 import io.lumeer.api.model.common.Resource;
 import io.lumeer.api.util.ResourceUtils;
 import io.lumeer.core.WorkspaceKeeper;
+import io.lumeer.core.cache.WorkspaceCache;
 import io.lumeer.core.exception.NoPermissionException;
 import io.lumeer.core.exception.ServiceLimitsExceededException;
 import io.lumeer.core.facade.CollectionFacade;
@@ -42,7 +43,6 @@ import io.lumeer.core.util.QueryUtils;
 import io.lumeer.core.util.Utils;
 import io.lumeer.engine.annotation.UserDataStorage;
 import io.lumeer.engine.api.data.DataStorage;
-import io.lumeer.storage.api.dao.LinkTypeDao;
 import io.lumeer.storage.api.dao.UserDao;
 import io.lumeer.storage.api.dao.ViewDao;
 import io.lumeer.storage.api.exception.ResourceNotFoundException;
@@ -74,13 +74,13 @@ public class PermissionsChecker {
    private WorkspaceKeeper workspaceKeeper;
 
    @Inject
-   private OrganizationFacade organizationFacade;
+   private WorkspaceCache workspaceCache;
 
    @Inject
-   private CollectionFacade collectionFacade;
+   private OrganizationFacade organizationFacade;
 
    @Inject
-   private LinkTypeDao linkTypeDao;
+   private CollectionFacade collectionFacade;
 
    @Inject
    private ViewDao viewDao;
@@ -271,7 +271,7 @@ public class PermissionsChecker {
 
    private List<LinkType> getLinkTypes() {
       if (this.linkTypes == null) {
-         this.linkTypes = this.linkTypeDao.getAllLinkTypes();
+         this.linkTypes = this.workspaceCache.getLinkTypes();
       }
       return this.linkTypes;
    }
@@ -432,6 +432,16 @@ public class PermissionsChecker {
     *       The list of documents that are about to be created.
     */
    public void checkDocumentLimits(final List<Document> documents) {
+      checkDocumentLimits((long) documents.size());
+   }
+
+   /**
+    * Checks whether it is possible to create more documents.
+    *
+    * @param newDocumentsCount
+    *       The number of documents that are about to be created.
+    */
+   public void checkDocumentLimits(final long newDocumentsCount) {
       if (skipLimits()) {
          return;
       }
@@ -439,7 +449,7 @@ public class PermissionsChecker {
       final ServiceLimits limits = getServiceLimits();
       final long documentsCount = countDocuments();
 
-      if (limits.getDocuments() > 0 && documentsCount + documents.size() > limits.getDocuments()) {
+      if (limits.getDocuments() > 0 && documentsCount + newDocumentsCount > limits.getDocuments()) {
          final Optional<Organization> organization = workspaceKeeper.getOrganization();
          freshdeskFacade.logLimitsExceeded(authenticatedUser.getCurrentUser(), "DOCUMENT", organization.isPresent() ? organization.get().getId() : "<empty>");
          throw new ServiceLimitsExceededException(limits.getDocuments(), documentsCount, null);
@@ -0,0 +1,237 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.cache;
+
+import io.lumeer.api.model.CacheInvalidation;
+import io.lumeer.api.model.ResourceType;
+import io.lumeer.api.model.common.Resource;
+import io.lumeer.core.facade.configuration.DefaultConfigurationProducer;
+import io.lumeer.engine.api.event.CreateOrUpdatePayment;
+import io.lumeer.engine.api.event.CreateOrUpdateUser;
+import io.lumeer.engine.api.event.RemoveResource;
+import io.lumeer.engine.api.event.RemoveUser;
+import io.lumeer.engine.api.event.UpdateResource;
+import io.lumeer.engine.api.event.UpdateServiceLimits;
+import io.lumeer.engine.api.event.UserEvent;
+import io.lumeer.storage.api.dao.CacheInvalidationDao;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.enterprise.concurrent.ManagedScheduledExecutorService;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+
+/**
+ * Invalidates application wide caches on all nodes of a cluster. Caches register a listener for their name and
+ * the bus calls it with the invalidated key both for local changes and for changes published by other nodes.
+ */
+@ApplicationScoped
+public class CacheInvalidationBus {
+
+   public static final String CHANNEL_LOCAL = "local";
+   public static final String CHANNEL_MONGODB = "mongodb";
+
+   public static final String WORKSPACE_CACHES = "workspaceCaches";
+   public static final String ORGANIZATIONS = "organizations";
+   public static final String PROJECTS = "projects";
+   public static final String COLLECTIONS = "collections";
+   public static final String LINK_TYPES = "linkTypes";
+   public static final String VIEWS = "views";
+   public static final String USERS = "users";
+   public static final String SERVICE_LIMITS = "serviceLimits";
+   public static final String FUNCTION_GRAPHS = "functionGraphs";
+
+   private static final long DEFAULT_POLL_INTERVAL_MILLIS = 1000;
+
+   private static final Logger log = Logger.getLogger(CacheInvalidationBus.class.getName());
+
+   private final String nodeId = UUID.randomUUID().toString();
+
+   private final Map<String, List<Consumer<String>>> listeners = new ConcurrentHashMap<>();
+
+   private CacheInvalidationChannel channel;
+
+   @Inject
+   private DefaultConfigurationProducer defaultConfigurationProducer;
+
+   @Inject
+   private CacheInvalidationDao cacheInvalidationDao;
+
+   @Inject
+   private ManagedScheduledExecutorService scheduledExecutorService;
+
+   @PostConstruct
+   public void init() {
+      final String channelType = Optional.ofNullable(defaultConfigurationProducer.get(DefaultConfigurationProducer.CACHE_INVALIDATION_CHANNEL)).orElse(CHANNEL_LOCAL);
+
+      if (CHANNEL_MONGODB.equalsIgnoreCase(channelType)) {
+         final long pollInterval = defaultConfigurationProducer.getLong(DefaultConfigurationProducer.CACHE_INVALIDATION_POLL_MS, DEFAULT_POLL_INTERVAL_MILLIS);
+         connect(new MongoCacheInvalidationChannel(cacheInvalidationDao, scheduledExecutorService, pollInterval));
+      } else {
+         connect(new LocalCacheInvalidationChannel());
+      }
+   }
+
+   @PreDestroy
+   public void close() {
+      if (channel != null) {
+         channel.close();
+      }
+   }
+
+   public void connect(final CacheInvalidationChannel channel) {
+      this.channel = channel;
+      channel.subscribe(this::onInvalidation);
+   }
+
+   /**
+    * Registers a listener of invalidations of the given cache.
+    *
+    * @param cacheName
+    *       Name of the invalidated cache.
+    * @param listener
+    *       Called with the invalidated key, or {@link CacheInvalidation#ALL_KEYS} when the whole cache should be cleared.
+    */
+   public void register(final String cacheName, final Consumer<String> listener) {
+      listeners.computeIfAbsent(cacheName, name -> new CopyOnWriteArrayList<>()).add(listener);
+   }
+
+   /**
+    * Invalidates the key locally and publishes the invalidation to the other nodes.
+    *
+    * @param cacheName
+    *       Name of the invalidated cache.
+    * @param key
+    *       Key of the invalidated entry.
+    */
+   public void invalidate(final String cacheName, final String key) {
+      if (key == null) {
+         return;
+      }
+
+      notifyListeners(cacheName, key);
+      publish(cacheName, key);
+   }
+
+   /**
+    * Publishes the invalidation to the other nodes only. Useful for caches that have already updated their local entry.
+    *
+    * @param cacheName
+    *       Name of the invalidated cache.
+    * @param key
+    *       Key of the invalidated entry.
+    */
+   public void publish(final String cacheName, final String key) {
+      if (key == null) {
+         return;
+      }
+
+      try {
+         channel.publish(new CacheInvalidation(nodeId, cacheName, key));
+      } catch (Exception e) {
+         log.log(Level.WARNING, "Unable to publish cache invalidation: ", e);
+      }
+   }
+
+   public void invalidateAll(final String cacheName) {
+      invalidate(cacheName, CacheInvalidation.ALL_KEYS);
+   }
+
+   public void onUpdateResource(@Observes final UpdateResource updateResource) {
+      invalidateResource(updateResource.getResource(), false);
+   }
+
+   public void onRemoveResource(@Observes final RemoveResource removeResource) {
+      invalidateResource(removeResource.getResource(), true);
+   }
+
+   public void onCreateOrUpdateUser(@Observes final CreateOrUpdateUser createOrUpdateUser) {
+      invalidateUser(createOrUpdateUser);
+   }
+
+   public void onRemoveUser(@Observes final RemoveUser removeUser) {
+      invalidateUser(removeUser);
+   }
+
+   public void onUpdateServiceLimits(@Observes final UpdateServiceLimits updateServiceLimits) {
+      if (updateServiceLimits.getOrganization() != null) {
+         invalidate(SERVICE_LIMITS, updateServiceLimits.getOrganization().getId());
+      }
+   }
+
+   public void onCreateOrUpdatePayment(@Observes final CreateOrUpdatePayment createOrUpdatePayment) {
+      if (createOrUpdatePayment.getOrganization() != null) {
+         invalidate(SERVICE_LIMITS, createOrUpdatePayment.getOrganization().getId());
+      }
+   }
+
+   String getNodeId() {
+      return nodeId;
+   }
+
+   private void invalidateResource(final Resource resource, final boolean removed) {
+      if (resource == null) {
+         return;
+      }
+
+      if (resource.getType() == ResourceType.ORGANIZATION) {
+         invalidate(ORGANIZATIONS, resource.getId());
+      } else if (resource.getType() == ResourceType.PROJECT) {
+         invalidate(PROJECTS, resource.getId());
+      } else {
+         return;
+      }
+
+      if (removed) {
+         invalidate(WORKSPACE_CACHES, resource.getId());
+      }
+   }
+
+   private void invalidateUser(final UserEvent userEvent) {
+      if (userEvent.getUser() != null) {
+         invalidate(USERS, userEvent.getUser().getEmail());
+      }
+   }
+
+   private void onInvalidation(final CacheInvalidation invalidation) {
+      if (!nodeId.equals(invalidation.getOrigin())) {
+         notifyListeners(invalidation.getCacheName(), invalidation.getKey());
+      }
+   }
+
+   private void notifyListeners(final String cacheName, final String key) {
+      listeners.getOrDefault(cacheName, List.of()).forEach(listener -> {
+         try {
+            listener.accept(key);
+         } catch (Exception e) {
+            log.log(Level.WARNING, String.format("Unable to invalidate key %s in cache %s: ", key, cacheName), e);
+         }
+      });
+   }
+}
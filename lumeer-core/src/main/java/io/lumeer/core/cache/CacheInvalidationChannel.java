@@ -0,0 +1,50 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.cache;
+
+import io.lumeer.api.model.CacheInvalidation;
+
+import java.util.function.Consumer;
+
+/**
+ * Transports cache invalidations between application nodes.
+ */
+public interface CacheInvalidationChannel {
+
+   /**
+    * Sends the invalidation to all subscribers including the ones on the publishing node.
+    *
+    * @param invalidation
+    *       Invalidation to distribute.
+    */
+   void publish(final CacheInvalidation invalidation);
+
+   /**
+    * Registers a consumer of all invalidations published to the channel.
+    *
+    * @param subscriber
+    *       Consumer of the invalidations.
+    */
+   void subscribe(final Consumer<CacheInvalidation> subscriber);
+
+   /**
+    * Stops delivering invalidations to subscribers.
+    */
+   void close();
+}
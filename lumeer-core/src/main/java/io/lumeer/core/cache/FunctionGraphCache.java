@@ -0,0 +1,113 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.cache;
+
+import io.lumeer.api.model.CacheInvalidation;
+import io.lumeer.api.model.function.FunctionRow;
+import io.lumeer.core.util.FunctionGraph;
+import io.lumeer.engine.api.cache.Cache;
+import io.lumeer.engine.api.cache.CacheFactory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+/**
+ * Keeps the function dependency graph of each project in memory. A graph is loaded from the database on first use,
+ * then it is updated in place by the node changing the function rows, the other nodes drop their copy and load it again.
+ * Every change bumps the generation of the project, a graph loaded concurrently with a change is not kept as it may
+ * have missed it.
+ */
+@ApplicationScoped
+public class FunctionGraphCache {
+
+   @Inject
+   private CacheFactory cacheFactory;
+
+   @Inject
+   private CacheInvalidationBus cacheInvalidationBus;
+
+   private Cache<FunctionGraph> graphs;
+   private final Map<String, AtomicLong> generations = new ConcurrentHashMap<>();
+
+   @PostConstruct
+   public void init() {
+      graphs = cacheFactory.getCache();
+
+      cacheInvalidationBus.register(CacheInvalidationBus.FUNCTION_GRAPHS, this::remove);
+      cacheInvalidationBus.register(CacheInvalidationBus.WORKSPACE_CACHES, this::remove);
+   }
+
+   public FunctionGraph getGraph(final String projectId, final Supplier<List<FunctionRow>> loader) {
+      FunctionGraph graph = graphs.get(projectId);
+
+      if (graph == null) {
+         final AtomicLong generation = getGeneration(projectId);
+         final long loadedGeneration = generation.get();
+
+         graph = new FunctionGraph(loader.get());
+         graphs.set(projectId, graph);
+
+         if (generation.get() != loadedGeneration) {
+            graphs.remove(projectId);
+         }
+      }
+
+      return graph;
+   }
+
+   /**
+    * Applies the change to the graph of the project if it is loaded, and lets the other nodes know about it.
+    *
+    * @param projectId
+    *       Project whose function rows changed.
+    * @param change
+    *       Change of the graph, it must correspond to the change made in the database.
+    */
+   public void update(final String projectId, final Consumer<FunctionGraph> change) {
+      getGeneration(projectId).incrementAndGet();
+
+      final FunctionGraph graph = graphs.get(projectId);
+      if (graph != null) {
+         change.accept(graph);
+      }
+
+      cacheInvalidationBus.publish(CacheInvalidationBus.FUNCTION_GRAPHS, projectId);
+   }
+
+   private void remove(final String projectId) {
+      if (CacheInvalidation.ALL_KEYS.equals(projectId)) {
+         generations.values().forEach(AtomicLong::incrementAndGet);
+         graphs.clear();
+      } else {
+         getGeneration(projectId).incrementAndGet();
+         graphs.remove(projectId);
+      }
+   }
+
+   private AtomicLong getGeneration(final String projectId) {
+      return generations.computeIfAbsent(projectId, id -> new AtomicLong());
+   }
+}
@@ -20,45 +20,60 @@ package io.lumeer.core.cache;
 
 import io.lumeer.api.model.geocoding.Coordinates;
 import io.lumeer.api.model.geocoding.Location;
-import io.lumeer.engine.api.cache.Cache;
-import io.lumeer.engine.api.cache.CacheFactory;
+import io.lumeer.cache.simple.BoundedCache;
+import io.lumeer.cache.simple.CacheStatistics;
+import io.lumeer.core.facade.configuration.DefaultConfigurationProducer;
+import io.lumeer.storage.api.dao.GeoCodingDao;
 
-import java.util.Deque;
 import java.util.List;
-import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import javax.annotation.PostConstruct;
+import javax.enterprise.concurrent.ManagedExecutorService;
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 
+/**
+ * Keeps geocoding results of MapQuest in bounded caches of their own, the entries do not expire as the results of
+ * the same query rarely change. Optionally the results are also stored in the database in background and loaded again
+ * on startup.
+ */
 @ApplicationScoped
 public class GeoCodingCache {
 
    private static final int QUERY_LOCATIONS_CACHE_SIZE = 10000;
    private static final int COORDINATES_LOCATION_CACHE_SIZE = 10000;
-   private static final int QUERY_COORDINATES_CACHE_SIZE = 10000;
+   private static final int QUERY_COORDINATES_CACHE_SIZE = 50000;
+
+   private static final Logger log = Logger.getLogger(GeoCodingCache.class.getName());
+
+   @Inject
+   private DefaultConfigurationProducer defaultConfigurationProducer;
 
    @Inject
-   private CacheFactory cacheFactory;
+   private GeoCodingDao geoCodingDao;
 
-   private Cache<List<Location>> queryLocationsCache;
-   private Deque<String> queryLocationsCacheKeys;
+   @Inject
+   private ManagedExecutorService managedExecutorService;
 
-   private Cache<Location> coordinatesLocationCache;
-   private Deque<String> coordinatesLocationCacheKeys;
+   private BoundedCache<List<Location>> queryLocationsCache;
+   private BoundedCache<Location> coordinatesLocationCache;
+   private BoundedCache<Coordinates> queryCoordinatesCache;
 
-   private Cache<Coordinates> queryCoordinatesCache;
-   private Deque<String> queryCoordinatesCacheKeys;
+   private boolean persistent;
 
    @PostConstruct
    public void initCache() {
-      queryLocationsCache = cacheFactory.getCache();
-      queryLocationsCacheKeys = new ConcurrentLinkedDeque<>();
-
-      coordinatesLocationCache = cacheFactory.getCache();
-      coordinatesLocationCacheKeys = new ConcurrentLinkedDeque<>();
+      queryLocationsCache = new BoundedCache<>(QUERY_LOCATIONS_CACHE_SIZE, 0, 0);
+      coordinatesLocationCache = new BoundedCache<>(COORDINATES_LOCATION_CACHE_SIZE, 0, 0);
+      queryCoordinatesCache = new BoundedCache<>(QUERY_COORDINATES_CACHE_SIZE, 0, 0);
 
-      queryCoordinatesCache = cacheFactory.getCache();
-      queryCoordinatesCacheKeys = new ConcurrentLinkedDeque<>();
+      persistent = Boolean.parseBoolean(defaultConfigurationProducer.get(DefaultConfigurationProducer.GEOCODING_CACHE_PERSISTENT));
+      if (persistent) {
+         loadPersistedEntries();
+      }
    }
 
    public List<Location> getQueryLocations(final String query, final String language) {
@@ -69,11 +84,7 @@ public class GeoCodingCache {
       var key = GeoCodingCache.createKey(query, language);
 
       queryLocationsCache.set(key, locations);
-      queryLocationsCacheKeys.push(key);
-
-      if (queryLocationsCacheKeys.size() > QUERY_LOCATIONS_CACHE_SIZE) {
-         GeoCodingCache.removeLastCacheEntry(queryLocationsCache, queryLocationsCacheKeys);
-      }
+      persist(() -> geoCodingDao.saveQueryLocations(key, locations));
    }
 
    public Location getCoordinatesLocation(final Coordinates coordinates, final String language) {
@@ -84,30 +95,52 @@ public class GeoCodingCache {
       var key = GeoCodingCache.createKey(coordinates.toString(), language);
 
       coordinatesLocationCache.set(key, location);
-      coordinatesLocationCacheKeys.push(key);
-
-      if (queryLocationsCacheKeys.size() > QUERY_LOCATIONS_CACHE_SIZE) {
-         GeoCodingCache.removeLastCacheEntry(coordinatesLocationCache, coordinatesLocationCacheKeys);
-      }
+      persist(() -> geoCodingDao.saveCoordinatesLocation(key, location));
    }
 
    public Coordinates getQueryCoordinates(final String query) {
       return queryCoordinatesCache.get(query);
    }
 
-   public void updateQueryCoordinates(final String query, final Coordinates coordinates) {
-      queryCoordinatesCache.set(query, coordinates);
-      queryCoordinatesCacheKeys.push(query);
+   public void updateQueryCoordinates(final Map<String, Coordinates> queryCoordinates) {
+      queryCoordinates.forEach(queryCoordinatesCache::set);
+      persist(() -> geoCodingDao.saveQueryCoordinates(queryCoordinates));
+   }
+
+   public Map<String, CacheStatistics> getStatistics() {
+      return Map.of(
+            "queryLocations", queryLocationsCache.getStatistics(),
+            "coordinatesLocation", coordinatesLocationCache.getStatistics(),
+            "queryCoordinates", queryCoordinatesCache.getStatistics()
+      );
+   }
 
-      if (queryCoordinatesCacheKeys.size() > QUERY_COORDINATES_CACHE_SIZE) {
-         GeoCodingCache.removeLastCacheEntry(queryCoordinatesCache, queryCoordinatesCacheKeys);
+   private void loadPersistedEntries() {
+      try {
+         geoCodingDao.getQueryLocations(QUERY_LOCATIONS_CACHE_SIZE).forEach(queryLocationsCache::set);
+         geoCodingDao.getCoordinatesLocations(COORDINATES_LOCATION_CACHE_SIZE).forEach(coordinatesLocationCache::set);
+         geoCodingDao.getQueryCoordinates(QUERY_COORDINATES_CACHE_SIZE).forEach(queryCoordinatesCache::set);
+      } catch (Exception e) {
+         log.log(Level.WARNING, "Unable to load persisted geocoding results: ", e);
       }
    }
 
-   private static void removeLastCacheEntry(final Cache cache, final Deque<String> cachedKeys) {
-      var key = cachedKeys.pollLast();
-      if (key != null) {
-         cache.remove(key);
+   private void persist(final Runnable storeOperation) {
+      if (!persistent) {
+         return;
+      }
+
+      // the results stay cached in memory, we only lose them on restart
+      try {
+         managedExecutorService.submit(() -> {
+            try {
+               storeOperation.run();
+            } catch (Exception e) {
+               log.log(Level.WARNING, "Unable to persist geocoding results: ", e);
+            }
+         });
+      } catch (RejectedExecutionException e) {
+         log.log(Level.WARNING, "Unable to persist geocoding results: ", e);
       }
    }
 
@@ -0,0 +1,49 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.cache;
+
+import io.lumeer.api.model.CacheInvalidation;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Delivers invalidations synchronously within a single JVM. Used for single node deployments and in tests,
+ * where several buses can share one channel to simulate a cluster.
+ */
+public class LocalCacheInvalidationChannel implements CacheInvalidationChannel {
+
+   private final List<Consumer<CacheInvalidation>> subscribers = new CopyOnWriteArrayList<>();
+
+   @Override
+   public void publish(final CacheInvalidation invalidation) {
+      subscribers.forEach(subscriber -> subscriber.accept(invalidation));
+   }
+
+   @Override
+   public void subscribe(final Consumer<CacheInvalidation> subscriber) {
+      subscribers.add(subscriber);
+   }
+
+   @Override
+   public void close() {
+      subscribers.clear();
+   }
+}
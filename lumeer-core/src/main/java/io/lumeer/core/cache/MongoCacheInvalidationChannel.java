@@ -0,0 +1,107 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.cache;
+
+import io.lumeer.api.model.CacheInvalidation;
+import io.lumeer.storage.api.dao.CacheInvalidationDao;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Distributes invalidations through a capped collection in the system database that all nodes poll.
+ */
+public class MongoCacheInvalidationChannel implements CacheInvalidationChannel {
+
+   private static final Logger log = Logger.getLogger(MongoCacheInvalidationChannel.class.getName());
+
+   // object ids are generated on the client, so clocks of the nodes can differ a bit
+   private static final long CLOCK_SKEW_MILLIS = 5_000;
+   private static final int MAX_DELIVERED_IDS = 10_000;
+
+   private final CacheInvalidationDao cacheInvalidationDao;
+   private final ScheduledExecutorService executorService;
+   private final long pollIntervalMillis;
+
+   private final List<Consumer<CacheInvalidation>> subscribers = new CopyOnWriteArrayList<>();
+   private final Set<String> deliveredIds = Collections.newSetFromMap(new LinkedHashMap<>() {
+      @Override
+      protected boolean removeEldestEntry(final Map.Entry<String, Boolean> eldest) {
+         return size() > MAX_DELIVERED_IDS;
+      }
+   });
+
+   private volatile long lastPollTime;
+   private ScheduledFuture<?> poller;
+
+   public MongoCacheInvalidationChannel(final CacheInvalidationDao cacheInvalidationDao, final ScheduledExecutorService executorService, final long pollIntervalMillis) {
+      this.cacheInvalidationDao = cacheInvalidationDao;
+      this.executorService = executorService;
+      this.pollIntervalMillis = pollIntervalMillis;
+   }
+
+   @Override
+   public void publish(final CacheInvalidation invalidation) {
+      cacheInvalidationDao.publish(invalidation);
+   }
+
+   @Override
+   public synchronized void subscribe(final Consumer<CacheInvalidation> subscriber) {
+      subscribers.add(subscriber);
+
+      if (poller == null) {
+         lastPollTime = System.currentTimeMillis();
+         poller = executorService.scheduleWithFixedDelay(this::poll, pollIntervalMillis, pollIntervalMillis, TimeUnit.MILLISECONDS);
+      }
+   }
+
+   @Override
+   public synchronized void close() {
+      if (poller != null) {
+         poller.cancel(false);
+         poller = null;
+      }
+      subscribers.clear();
+   }
+
+   private void poll() {
+      try {
+         final long pollTime = System.currentTimeMillis();
+         final List<CacheInvalidation> invalidations = cacheInvalidationDao.getInvalidationsSince(new Date(lastPollTime - CLOCK_SKEW_MILLIS));
+         lastPollTime = pollTime;
+
+         invalidations.stream()
+                      .filter(invalidation -> deliveredIds.add(invalidation.getId()))
+                      .forEach(invalidation -> subscribers.forEach(subscriber -> subscriber.accept(invalidation)));
+      } catch (Exception e) {
+         log.log(Level.WARNING, "Unable to read cache invalidations: ", e);
+      }
+   }
+}
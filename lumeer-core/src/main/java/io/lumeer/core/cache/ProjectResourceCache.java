@@ -0,0 +1,168 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.cache;
+
+import io.lumeer.api.model.CacheInvalidation;
+import io.lumeer.engine.api.cache.Cache;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps resources of a single kind, such as the collections of a project, grouped by project. All the resources of
+ * a project are loaded at once on first use, later changes are applied to the loaded resources in place.
+ *
+ * A change replaces the cached resource only when it is not older than the cached one, so changes applied out of order
+ * cannot bring an older version back. Every change also bumps the generation of the project, a load that ran
+ * concurrently with a change is not kept as it may have missed it. Callers get copies, the cached resources are never
+ * exposed to modifications.
+ *
+ * @param <T>
+ *       Type of the cached resources.
+ */
+class ProjectResourceCache<T> {
+
+   private final Cache<Map<String, T>> resources;
+   private final Map<String, AtomicLong> generations = new ConcurrentHashMap<>();
+
+   private final Function<T, String> idFunction;
+   private final ToLongFunction<T> versionFunction;
+   private final UnaryOperator<T> copyFunction;
+
+   ProjectResourceCache(final Cache<Map<String, T>> resources, final Function<T, String> idFunction, final ToLongFunction<T> versionFunction, final UnaryOperator<T> copyFunction) {
+      this.resources = resources;
+      this.idFunction = idFunction;
+      this.versionFunction = versionFunction;
+      this.copyFunction = copyFunction;
+   }
+
+   /**
+    * Gets copies of all the resources of the project.
+    *
+    * @param projectId
+    *       Project of the resources.
+    * @param loader
+    *       Loads all the resources of the project from the database.
+    * @return Copies of the resources.
+    */
+   List<T> getAll(final String projectId, final Supplier<List<T>> loader) {
+      Map<String, T> loaded = resources.get(projectId);
+
+      if (loaded == null) {
+         final AtomicLong generation = getGeneration(projectId);
+         final long loadedGeneration = generation.get();
+
+         loaded = Collections.unmodifiableMap(loader.get().stream().collect(Collectors.toMap(idFunction, Function.identity(), (a, b) -> b, LinkedHashMap::new)));
+         resources.set(projectId, loaded);
+
+         if (generation.get() != loadedGeneration) {
+            resources.remove(projectId);
+         }
+      }
+
+      return loaded.values().stream().map(copyFunction).collect(Collectors.toList());
+   }
+
+   /**
+    * Applies a created or updated resource to the loaded resources of the project.
+    *
+    * @param projectId
+    *       Project of the resource.
+    * @param resource
+    *       The resource as stored in the database.
+    * @param created
+    *       Whether the resource was just created, updates of resources that are not cached are ignored.
+    */
+   void put(final String projectId, final T resource, final boolean created) {
+      getGeneration(projectId).incrementAndGet();
+
+      resources.lock(projectId);
+      try {
+         final Map<String, T> loaded = resources.get(projectId);
+         if (loaded == null) {
+            return;
+         }
+
+         final String id = idFunction.apply(resource);
+         final T cached = loaded.get(id);
+         if (cached == null ? !created : versionFunction.applyAsLong(cached) > versionFunction.applyAsLong(resource)) {
+            return;
+         }
+
+         final Map<String, T> updated = new LinkedHashMap<>(loaded);
+         updated.put(id, copyFunction.apply(resource));
+         resources.set(projectId, Collections.unmodifiableMap(updated));
+      } finally {
+         resources.unlock(projectId);
+      }
+   }
+
+   /**
+    * Removes a deleted resource from the loaded resources of the project.
+    *
+    * @param projectId
+    *       Project of the resource.
+    * @param id
+    *       Id of the deleted resource.
+    */
+   void remove(final String projectId, final String id) {
+      getGeneration(projectId).incrementAndGet();
+
+      resources.lock(projectId);
+      try {
+         final Map<String, T> loaded = resources.get(projectId);
+         if (loaded != null && loaded.containsKey(id)) {
+            final Map<String, T> updated = new LinkedHashMap<>(loaded);
+            updated.remove(id);
+            resources.set(projectId, Collections.unmodifiableMap(updated));
+         }
+      } finally {
+         resources.unlock(projectId);
+      }
+   }
+
+   /**
+    * Drops the resources of the project, they are loaded again on next use.
+    *
+    * @param projectId
+    *       Project of the resources, or {@link CacheInvalidation#ALL_KEYS} to drop the resources of all projects.
+    */
+   void invalidate(final String projectId) {
+      if (CacheInvalidation.ALL_KEYS.equals(projectId)) {
+         generations.values().forEach(AtomicLong::incrementAndGet);
+         resources.clear();
+      } else {
+         getGeneration(projectId).incrementAndGet();
+         resources.remove(projectId);
+      }
+   }
+
+   private AtomicLong getGeneration(final String projectId) {
+      return generations.computeIfAbsent(projectId, id -> new AtomicLong());
+   }
+}
@@ -18,21 +18,30 @@
  */
 package io.lumeer.core.cache;
 
+import io.lumeer.api.model.CacheInvalidation;
 import io.lumeer.api.model.User;
 import io.lumeer.engine.api.cache.Cache;
 import io.lumeer.engine.api.cache.CacheFactory;
 import io.lumeer.storage.api.dao.UserDao;
 
 import javax.annotation.PostConstruct;
-import javax.enterprise.context.RequestScoped;
+import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 
-@RequestScoped
+/**
+ * Keeps users across requests. Local changes update the cached user and make the other nodes drop their copy.
+ *
+ * All the getters return copies, callers are free to modify them.
+ */
+@ApplicationScoped
 public class UserCache {
 
    @Inject
    private CacheFactory cacheFactory;
 
+   @Inject
+   private CacheInvalidationBus cacheInvalidationBus;
+
    @Inject
    private UserDao userDao;
 
@@ -41,22 +50,39 @@ public class UserCache {
    @PostConstruct
    public void initCache() {
       userCache = cacheFactory.getCache();
+
+      cacheInvalidationBus.register(CacheInvalidationBus.USERS, this::invalidate);
    }
 
    public User getUser(String email) {
-      return userCache.computeIfAbsent(email, userDao::getUserByEmail);
+      final User user = userCache.computeIfAbsent(email, userDao::getUserByEmail);
+      return user != null ? user.copy() : null;
+   }
+
+   public String getUserId(String email) {
+      final User user = userCache.computeIfAbsent(email, userDao::getUserByEmail);
+      return user != null ? user.getId() : null;
    }
 
    public void updateUser(String username, User user) {
-      userCache.set(username, user);
+      userCache.set(username, user.copy());
+      cacheInvalidationBus.publish(CacheInvalidationBus.USERS, username);
    }
 
    public void removeUser(String username) {
-      userCache.remove(username);
+      cacheInvalidationBus.invalidate(CacheInvalidationBus.USERS, username);
    }
 
    public void clear() {
-      userCache.clear();
+      cacheInvalidationBus.invalidateAll(CacheInvalidationBus.USERS);
+   }
+
+   private void invalidate(String username) {
+      if (CacheInvalidation.ALL_KEYS.equals(username)) {
+         userCache.clear();
+      } else {
+         userCache.remove(username);
+      }
    }
 
 }
@@ -18,84 +18,265 @@
  */
 package io.lumeer.core.cache;
 
+import io.lumeer.api.model.CacheInvalidation;
+import io.lumeer.api.model.Collection;
+import io.lumeer.api.model.LinkType;
 import io.lumeer.api.model.Organization;
 import io.lumeer.api.model.Project;
-import io.lumeer.api.model.ServiceLimits;
+import io.lumeer.api.model.ResourceType;
+import io.lumeer.api.model.View;
+import io.lumeer.api.model.common.Resource;
+import io.lumeer.core.WorkspaceKeeper;
 import io.lumeer.engine.api.cache.Cache;
 import io.lumeer.engine.api.cache.CacheFactory;
+import io.lumeer.engine.api.event.CreateLinkType;
+import io.lumeer.engine.api.event.CreateResource;
+import io.lumeer.engine.api.event.RemoveLinkType;
+import io.lumeer.engine.api.event.RemoveResource;
+import io.lumeer.engine.api.event.UpdateLinkType;
+import io.lumeer.engine.api.event.UpdateResource;
+import io.lumeer.storage.api.dao.CollectionDao;
+import io.lumeer.storage.api.dao.LinkTypeDao;
 import io.lumeer.storage.api.dao.OrganizationDao;
 import io.lumeer.storage.api.dao.ProjectDao;
+import io.lumeer.storage.api.dao.ViewDao;
 
 import java.util.List;
+import java.util.function.Supplier;
 import javax.annotation.PostConstruct;
-import javax.enterprise.context.RequestScoped;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.context.ContextNotActiveException;
+import javax.enterprise.event.Observes;
 import javax.inject.Inject;
 
-@RequestScoped
+/**
+ * Keeps the workspace metadata, organizations, projects and the collections, link types and views of each project,
+ * across requests. The metadata are loaded from the database on first use, then they are updated in place by the events
+ * fired on their changes, the other nodes drop their copy and load it again. Updates carrying an older version than
+ * the cached one are ignored.
+ *
+ * All the getters return copies, callers are free to modify them.
+ */
+@ApplicationScoped
 public class WorkspaceCache {
 
    @Inject
    private CacheFactory cacheFactory;
 
+   @Inject
+   private CacheInvalidationBus cacheInvalidationBus;
+
+   @Inject
+   private WorkspaceKeeper workspaceKeeper;
+
    @Inject
    private OrganizationDao organizationDao;
 
    @Inject
    private ProjectDao projectDao;
 
+   @Inject
+   private CollectionDao collectionDao;
+
+   @Inject
+   private LinkTypeDao linkTypeDao;
+
+   @Inject
+   private ViewDao viewDao;
+
    private Cache<Organization> organizationCache;
    private Cache<Project> projectCache;
-   private Cache<ServiceLimits> serviceLimitsCache;
-   private Cache<List<String>> userCollections;
-   private Cache<List<String>> systemCollections;
+   private ProjectResourceCache<Collection> collectionCache;
+   private ProjectResourceCache<LinkType> linkTypeCache;
+   private ProjectResourceCache<View> viewCache;
 
    @PostConstruct
    public void initCaches() {
       organizationCache = cacheFactory.getCache();
       projectCache = cacheFactory.getCache();
-      serviceLimitsCache = cacheFactory.getCache();
-      userCollections = cacheFactory.getCache();
-      systemCollections = cacheFactory.getCache();
+      collectionCache = new ProjectResourceCache<>(cacheFactory.getCache(), Collection::getId, Collection::getVersion, Collection::copy);
+      linkTypeCache = new ProjectResourceCache<>(cacheFactory.getCache(), LinkType::getId, LinkType::getVersion, LinkType::new);
+      viewCache = new ProjectResourceCache<>(cacheFactory.getCache(), View::getId, View::getVersion, View::copy);
+
+      cacheInvalidationBus.register(CacheInvalidationBus.ORGANIZATIONS, this::removeOrganization);
+      cacheInvalidationBus.register(CacheInvalidationBus.PROJECTS, this::removeProject);
+      cacheInvalidationBus.register(CacheInvalidationBus.COLLECTIONS, collectionCache::invalidate);
+      cacheInvalidationBus.register(CacheInvalidationBus.LINK_TYPES, linkTypeCache::invalidate);
+      cacheInvalidationBus.register(CacheInvalidationBus.VIEWS, viewCache::invalidate);
+      cacheInvalidationBus.register(CacheInvalidationBus.WORKSPACE_CACHES, this::removeWorkspace);
    }
 
    public Organization getOrganization(String organizationId) {
-      return organizationCache.computeIfAbsent(organizationId, code -> organizationDao.getOrganizationById(organizationId));
+      final Organization organization = organizationCache.computeIfAbsent(organizationId, id -> organizationDao.getOrganizationById(id));
+      return organization != null ? organization.copy() : null;
    }
 
    public Project getProject(String projectId) {
-      return projectCache.computeIfAbsent(projectId, code -> projectDao.getProjectById(projectId));
+      final Project project = projectCache.computeIfAbsent(projectId, id -> projectDao.getProjectById(id));
+      return project != null ? project.copy() : null;
    }
 
    public void updateOrganization(String organizationId, Organization organization) {
-      organizationCache.set(organizationId, organization);
+      organizationCache.set(organizationId, organization.copy());
    }
 
    public void updateProject(String projectId, Project project) {
-      projectCache.set(projectId, project);
+      projectCache.set(projectId, project.copy());
    }
 
    public void removeOrganization(String organizationId) {
-      organizationCache.remove(organizationId);
+      if (CacheInvalidation.ALL_KEYS.equals(organizationId)) {
+         organizationCache.clear();
+      } else {
+         organizationCache.remove(organizationId);
+      }
    }
 
    public void removeProject(String projectId) {
-      projectCache.remove(projectId);
+      if (CacheInvalidation.ALL_KEYS.equals(projectId)) {
+         projectCache.clear();
+      } else {
+         projectCache.remove(projectId);
+      }
+   }
+
+   /**
+    * Gets all the collections of the selected project.
+    *
+    * @return Copies of the collections.
+    */
+   public List<Collection> getCollections() {
+      return getAll(collectionCache, collectionDao::getAllCollections);
    }
 
-   public void setServiceLimits(final String organizationId, final ServiceLimits serviceLimits) {
-      serviceLimitsCache.set(organizationId, serviceLimits);
+   /**
+    * Gets all the link types of the selected project.
+    *
+    * @return Copies of the link types.
+    */
+   public List<LinkType> getLinkTypes() {
+      return getAll(linkTypeCache, linkTypeDao::getAllLinkTypes);
    }
 
-   public ServiceLimits getServiceLimits(final String organizationId) {
-      return serviceLimitsCache.get(organizationId);
+   /**
+    * Gets all the views of the selected project.
+    *
+    * @return Copies of the views.
+    */
+   public List<View> getViews() {
+      return getAll(viewCache, viewDao::getAllViews);
    }
 
-   public void removeServiceLimits(final String organizationId) {
-      serviceLimitsCache.remove(organizationId);
+   /**
+    * Applies usage statistics of a collection written by a background task. Only the local copy is updated, the other
+    * nodes are not asked to reload all the collections of the project for a change of the statistics.
+    *
+    * @param projectId
+    *       Project of the collection.
+    * @param collection
+    *       The collection as stored in the database.
+    */
+   public void updateCollectionUsage(final String projectId, final Collection collection) {
+      collectionCache.put(projectId, collection, false);
    }
 
    public void clear() {
       organizationCache.clear();
       projectCache.clear();
+      collectionCache.invalidate(CacheInvalidation.ALL_KEYS);
+      linkTypeCache.invalidate(CacheInvalidation.ALL_KEYS);
+      viewCache.invalidate(CacheInvalidation.ALL_KEYS);
+   }
+
+   public void onCreateResource(@Observes final CreateResource createResource) {
+      putResource(createResource.getResource(), true);
+   }
+
+   public void onUpdateResource(@Observes final UpdateResource updateResource) {
+      putResource(updateResource.getResource(), false);
+   }
+
+   public void onRemoveResource(@Observes final RemoveResource removeResource) {
+      final Resource resource = removeResource.getResource();
+
+      if (resource != null && resource.getType() == ResourceType.COLLECTION) {
+         remove(collectionCache, CacheInvalidationBus.COLLECTIONS, resource.getId());
+      } else if (resource != null && resource.getType() == ResourceType.VIEW) {
+         remove(viewCache, CacheInvalidationBus.VIEWS, resource.getId());
+      }
+   }
+
+   public void onCreateLinkType(@Observes final CreateLinkType createLinkType) {
+      if (createLinkType.getLinkType() != null) {
+         put(linkTypeCache, CacheInvalidationBus.LINK_TYPES, createLinkType.getLinkType(), true);
+      }
+   }
+
+   public void onUpdateLinkType(@Observes final UpdateLinkType updateLinkType) {
+      if (updateLinkType.getLinkType() != null) {
+         put(linkTypeCache, CacheInvalidationBus.LINK_TYPES, updateLinkType.getLinkType(), false);
+      }
+   }
+
+   public void onRemoveLinkType(@Observes final RemoveLinkType removeLinkType) {
+      if (removeLinkType.getLinkType() != null) {
+         remove(linkTypeCache, CacheInvalidationBus.LINK_TYPES, removeLinkType.getLinkType().getId());
+      }
+   }
+
+   private void putResource(final Resource resource, final boolean created) {
+      if (resource != null && resource.getType() == ResourceType.COLLECTION) {
+         put(collectionCache, CacheInvalidationBus.COLLECTIONS, (Collection) resource, created);
+      } else if (resource != null && resource.getType() == ResourceType.VIEW) {
+         put(viewCache, CacheInvalidationBus.VIEWS, (View) resource, created);
+      }
+   }
+
+   private <T> List<T> getAll(final ProjectResourceCache<T> cache, final Supplier<List<T>> loader) {
+      final String projectId = workspaceKeeper.getProjectId();
+      if (projectId == null) {
+         return loader.get();
+      }
+
+      return cache.getAll(projectId, loader);
+   }
+
+   private <T> void put(final ProjectResourceCache<T> cache, final String cacheName, final T resource, final boolean created) {
+      final String projectId = getSelectedProjectId();
+
+      if (projectId == null) {
+         // the change cannot be assigned to a project
+         cacheInvalidationBus.invalidateAll(cacheName);
+      } else {
+         cache.put(projectId, resource, created);
+         cacheInvalidationBus.publish(cacheName, projectId);
+      }
+   }
+
+   private <T> void remove(final ProjectResourceCache<T> cache, final String cacheName, final String id) {
+      final String projectId = getSelectedProjectId();
+
+      if (projectId == null) {
+         cacheInvalidationBus.invalidateAll(cacheName);
+      } else {
+         cache.remove(projectId, id);
+         cacheInvalidationBus.publish(cacheName, projectId);
+      }
+   }
+
+   private String getSelectedProjectId() {
+      try {
+         return workspaceKeeper.getProjectId();
+      } catch (ContextNotActiveException e) {
+         return null;
+      }
+   }
+
+   private void removeWorkspace(final String workspaceId) {
+      removeOrganization(workspaceId);
+      removeProject(workspaceId);
+      collectionCache.invalidate(workspaceId);
+      linkTypeCache.invalidate(workspaceId);
+      viewCache.invalidate(workspaceId);
    }
 }
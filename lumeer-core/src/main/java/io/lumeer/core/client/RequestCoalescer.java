@@ -0,0 +1,178 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.client;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Loads values of many keys from a remote service in batches of a limited size.
+ *
+ * The batches of a single call run in parallel, the first one in the calling thread. A key that is already being
+ * loaded by another caller is not requested again, the caller waits for the pending result instead.
+ *
+ * @param <K>
+ *       Type of the keys.
+ * @param <V>
+ *       Type of the loaded values.
+ */
+public class RequestCoalescer<K, V> {
+
+   private static final Logger log = Logger.getLogger(RequestCoalescer.class.getName());
+
+   private final Function<List<K>, Map<K, V>> loader;
+   private final int batchSize;
+   private final Executor executor;
+   private final long timeoutMillis;
+
+   private final Map<K, CompletableFuture<V>> pending = new ConcurrentHashMap<>();
+
+   private final LongAdder batches = new LongAdder();
+   private final LongAdder failedBatches = new LongAdder();
+   private final LongAdder coalescedKeys = new LongAdder();
+
+   /**
+    * @param loader
+    *       Loads values of a batch of keys. Keys missing in the result have no value, a failed batch may return null.
+    * @param batchSize
+    *       Maximum number of keys passed to the loader at once.
+    * @param executor
+    *       Runs the batches that are not loaded in the calling thread.
+    * @param timeoutMillis
+    *       How long to wait for batches loaded by other threads.
+    */
+   public RequestCoalescer(final Function<List<K>, Map<K, V>> loader, final int batchSize, final Executor executor, final long timeoutMillis) {
+      this.loader = loader;
+      this.batchSize = Math.max(1, batchSize);
+      this.executor = executor;
+      this.timeoutMillis = timeoutMillis;
+   }
+
+   /**
+    * Loads the values of the given keys.
+    *
+    * @param keys
+    *       Keys to load.
+    * @return Loaded values, keys without a value are not present.
+    */
+   public Map<K, V> load(final Set<K> keys) {
+      final Map<K, CompletableFuture<V>> futures = new HashMap<>();
+      final List<K> owned = new ArrayList<>();
+
+      for (final K key : keys) {
+         final CompletableFuture<V> future = new CompletableFuture<>();
+         final CompletableFuture<V> existing = pending.putIfAbsent(key, future);
+
+         if (existing != null) {
+            futures.put(key, existing);
+            coalescedKeys.increment();
+         } else {
+            futures.put(key, future);
+            owned.add(key);
+         }
+      }
+
+      final List<List<K>> ownedBatches = new ArrayList<>();
+      for (int i = 0; i < owned.size(); i += batchSize) {
+         ownedBatches.add(owned.subList(i, Math.min(i + batchSize, owned.size())));
+      }
+
+      for (int i = 1; i < ownedBatches.size(); i++) {
+         final List<K> batch = ownedBatches.get(i);
+         try {
+            executor.execute(() -> loadBatch(batch, futures));
+         } catch (RejectedExecutionException e) {
+            loadBatch(batch, futures);
+         }
+      }
+
+      if (!ownedBatches.isEmpty()) {
+         loadBatch(ownedBatches.get(0), futures);
+      }
+
+      final Map<K, V> result = new HashMap<>();
+      futures.forEach((key, future) -> {
+         final V value = await(future);
+         if (value != null) {
+            result.put(key, value);
+         }
+      });
+
+      return result;
+   }
+
+   public long getBatches() {
+      return batches.sum();
+   }
+
+   public long getFailedBatches() {
+      return failedBatches.sum();
+   }
+
+   public long getCoalescedKeys() {
+      return coalescedKeys.sum();
+   }
+
+   private void loadBatch(final List<K> batch, final Map<K, CompletableFuture<V>> futures) {
+      Map<K, V> values = null;
+
+      try {
+         values = loader.apply(batch);
+         if (values == null) {
+            failedBatches.increment();
+         }
+      } catch (RuntimeException e) {
+         failedBatches.increment();
+         log.log(Level.WARNING, "Unable to load batch of " + batch.size() + " keys.", e);
+      } finally {
+         batches.increment();
+
+         for (final K key : batch) {
+            final CompletableFuture<V> future = futures.get(key);
+            pending.remove(key, future);
+            future.complete(values != null ? values.get(key) : null);
+         }
+      }
+   }
+
+   private V await(final CompletableFuture<V> future) {
+      try {
+         return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         return null;
+      } catch (ExecutionException | TimeoutException e) {
+         return null;
+      }
+   }
+}
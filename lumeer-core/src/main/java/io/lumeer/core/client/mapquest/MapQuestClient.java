@@ -19,106 +19,356 @@
 package io.lumeer.core.client.mapquest;
 
 import io.lumeer.api.model.geocoding.Coordinates;
+import io.lumeer.core.client.RequestCoalescer;
 import io.lumeer.core.client.opensearch.OpenSearchClient;
 import io.lumeer.core.client.opensearch.OpenSearchResult;
 import io.lumeer.core.facade.configuration.DefaultConfigurationProducer;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.client.utils.URIBuilder;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.util.EntityUtils;
+
 import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.Collectors;
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.enterprise.concurrent.ManagedExecutorService;
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
-import javax.ws.rs.client.Client;
-import javax.ws.rs.client.ClientBuilder;
-import javax.ws.rs.core.GenericType;
-import javax.ws.rs.core.MediaType;
-import javax.ws.rs.core.Response;
 
+/**
+ * Talks to MapQuest over a single pooled HTTP client. Batch geocoding is split into requests of at most
+ * {@link #MAX_BATCH_LOCATIONS} locations, which run in parallel, and concurrent lookups of the same location are
+ * sent only once.
+ */
 @ApplicationScoped
 public class MapQuestClient implements OpenSearchClient {
 
+   private static final Logger log = Logger.getLogger(MapQuestClient.class.getName());
+
    private static final String GEOCODING_URL = "https://www.mapquestapi.com/geocoding/v1/";
    private static final String OPEN_SEARCH_URL = "http://open.mapquestapi.com/nominatim/v1/";
 
+   // MapQuest rejects batch requests with more locations
+   public static final int MAX_BATCH_LOCATIONS = 100;
+
+   static final String BATCH = "batch";
+   static final String SEARCH = "search";
+   static final String REVERSE = "reverse";
+
+   private static final int DEFAULT_TIMEOUT_MS = 5000;
+   private static final int DEFAULT_MAX_CONNECTIONS = 20;
+
    @Inject
    private DefaultConfigurationProducer configurationProducer;
 
    @Inject
-   private Logger log;
+   private ManagedExecutorService executorService;
 
    private String mapQuestKey;
+   private String geoCodingUrl;
+   private String openSearchUrl;
+
+   private CloseableHttpClient httpClient;
+   private RequestCoalescer<String, Coordinates> coalescer;
+
+   private final ObjectMapper mapper = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+   private final Map<String, Metrics> metrics = new LinkedHashMap<>();
+
+   public MapQuestClient() {
+      metrics.put(BATCH, new Metrics());
+      metrics.put(SEARCH, new Metrics());
+      metrics.put(REVERSE, new Metrics());
+   }
+
+   MapQuestClient(final String mapQuestKey, final String geoCodingUrl, final String openSearchUrl, final int timeoutMillis, final int maxConnections, final Executor executor) {
+      this();
+      init(mapQuestKey, geoCodingUrl, openSearchUrl, timeoutMillis, maxConnections, executor);
+   }
 
    @PostConstruct
    public void init() {
-      mapQuestKey = this.configurationProducer.get("mapquest_key");
+      init(configurationProducer.get(DefaultConfigurationProducer.MAPQUEST_KEY),
+            getUrl(DefaultConfigurationProducer.MAPQUEST_GEOCODING_URL, GEOCODING_URL),
+            getUrl(DefaultConfigurationProducer.MAPQUEST_OPEN_SEARCH_URL, OPEN_SEARCH_URL),
+            configurationProducer.getInt(DefaultConfigurationProducer.MAPQUEST_TIMEOUT_MS, DEFAULT_TIMEOUT_MS),
+            configurationProducer.getInt(DefaultConfigurationProducer.MAPQUEST_MAX_CONNECTIONS, DEFAULT_MAX_CONNECTIONS),
+            executorService);
+   }
+
+   private void init(final String mapQuestKey, final String geoCodingUrl, final String openSearchUrl, final int timeoutMillis, final int maxConnections, final Executor executor) {
+      this.mapQuestKey = mapQuestKey;
+      this.geoCodingUrl = geoCodingUrl;
+      this.openSearchUrl = openSearchUrl;
+
+      final PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager(60, TimeUnit.SECONDS);
+      connectionManager.setMaxTotal(maxConnections);
+      connectionManager.setDefaultMaxPerRoute(maxConnections);
+
+      final RequestConfig requestConfig = RequestConfig.custom()
+                                                       .setConnectTimeout(timeoutMillis)
+                                                       .setConnectionRequestTimeout(timeoutMillis)
+                                                       .setSocketTimeout(timeoutMillis)
+                                                       .build();
+
+      httpClient = HttpClients.custom()
+                              .setConnectionManager(connectionManager)
+                              .setDefaultRequestConfig(requestConfig)
+                              .evictIdleConnections(30, TimeUnit.SECONDS)
+                              .build();
+
+      // leasing a connection, connecting and reading have a timeout each
+      coalescer = new RequestCoalescer<>(this::geoCode, MAX_BATCH_LOCATIONS, executor, 3L * timeoutMillis);
+   }
+
+   @PreDestroy
+   public void close() {
+      try {
+         if (httpClient != null) {
+            httpClient.close();
+         }
+      } catch (IOException e) {
+         log.log(Level.FINE, "Unable to close MapQuest client:", e);
+      }
+   }
+
+   /**
+    * Finds coordinates of the given locations.
+    *
+    * @param locations
+    *       Locations to look up.
+    * @return Coordinates of the found locations.
+    */
+   public Map<String, Coordinates> findCoordinates(final Set<String> locations) {
+      if (!hasKey()) {
+         return Collections.emptyMap();
+      }
+
+      return coalescer.load(locations);
    }
 
-   public MapQuestResponse batchGeoCode(final Set<String> locations) {
-      if (mapQuestKey == null || "".equals(mapQuestKey)) {
+   /**
+    * Sends a single batch geocoding request.
+    *
+    * @param locations
+    *       At most {@link #MAX_BATCH_LOCATIONS} locations to look up.
+    * @return MapQuest response, null when the request failed.
+    */
+   public MapQuestResponse batchGeoCode(final Collection<String> locations) {
+      if (!hasKey()) {
          return null;
       }
 
-      final Client client = ClientBuilder.newBuilder().build();
-      final Response response = client.target(GEOCODING_URL + "batch")
-                                      .queryParam("key", mapQuestKey)
-                                      .queryParam("location", locations.toArray(new Object[0]))
-                                      .request(MediaType.APPLICATION_JSON)
-                                      .header("Content-Type", MediaType.APPLICATION_JSON)
-                                      .buildGet()
-                                      .invoke();
-      return decodeResponse(client, response, new GenericType<MapQuestResponse>() {});
+      try {
+         final Map<String, Object> body = new HashMap<>();
+         body.put("locations", locations);
+         body.put("options", Map.of("maxResults", 1, "thumbMaps", false));
+
+         final HttpPost request = new HttpPost(new URIBuilder(geoCodingUrl + BATCH).addParameter("key", mapQuestKey).build());
+         request.setEntity(new StringEntity(mapper.writeValueAsString(body), ContentType.APPLICATION_JSON));
+
+         return execute(BATCH, request, new TypeReference<MapQuestResponse>() {});
+      } catch (URISyntaxException | IOException e) {
+         metrics.get(BATCH).errors.increment();
+         log.log(Level.WARNING, "Unable to communicate with MapQuest API:", e);
+         return null;
+      }
    }
 
    @Override
    public List<OpenSearchResult> search(final String query, final int limit, final String language) {
-      final Client client = ClientBuilder.newBuilder().build();
-      final Response response = client.target(OPEN_SEARCH_URL).path("search.php")
-                                      .queryParam("addressdetails", "1")
-                                      .queryParam("format", "json")
-                                      .queryParam("key", mapQuestKey)
-                                      .queryParam("limit", limit)
-                                      .queryParam("osm_type", "N")
-                                      .queryParam("q", query)
-                                      .request(MediaType.APPLICATION_JSON)
-                                      .header("Accept-Language", language)
-                                      .header("Content-Type", MediaType.APPLICATION_JSON)
-                                      .buildGet()
-                                      .invoke();
-      return decodeResponse(client, response, new GenericType<List<OpenSearchResult>>() {});
+      try {
+         final HttpGet request = new HttpGet(new URIBuilder(openSearchUrl + "search.php")
+               .addParameter("addressdetails", "1")
+               .addParameter("format", "json")
+               .addParameter("key", mapQuestKey)
+               .addParameter("limit", String.valueOf(limit))
+               .addParameter("osm_type", "N")
+               .addParameter("q", query)
+               .build());
+         request.setHeader(HttpHeaders.ACCEPT_LANGUAGE, language);
+
+         return execute(SEARCH, request, new TypeReference<List<OpenSearchResult>>() {});
+      } catch (URISyntaxException e) {
+         metrics.get(SEARCH).errors.increment();
+         log.log(Level.WARNING, "Unable to communicate with MapQuest API:", e);
+         return null;
+      }
    }
 
    @Override
    public OpenSearchResult reverse(final Coordinates coordinates, final String language) {
-      final Client client = ClientBuilder.newBuilder().build();
-      final Response response = client.target(OPEN_SEARCH_URL).path("reverse.php")
-                                      .queryParam("addressdetails", "1")
-                                      .queryParam("format", "json")
-                                      .queryParam("key", mapQuestKey)
-                                      .queryParam("lat", coordinates.getLatitude())
-                                      .queryParam("lon", coordinates.getLongitude())
-                                      .queryParam("osm_type", "N")
-                                      .request(MediaType.APPLICATION_JSON)
-                                      .header("Accept-Language", language)
-                                      .header("Content-Type", MediaType.APPLICATION_JSON)
-                                      .buildGet()
-                                      .invoke();
-      return decodeResponse(client, response, new GenericType<OpenSearchResult>() {});
-   }
-
-   private <T> T decodeResponse(final Client client, Response response, GenericType<T> type) {
       try {
-         if (response.getStatusInfo().getFamily() != Response.Status.Family.SUCCESSFUL) {
-            throw new IOException("MapQuest returned HTTP error code " + response.getStatus() + ": " + response.getStatusInfo().getReasonPhrase());
+         final HttpGet request = new HttpGet(new URIBuilder(openSearchUrl + "reverse.php")
+               .addParameter("addressdetails", "1")
+               .addParameter("format", "json")
+               .addParameter("key", mapQuestKey)
+               .addParameter("lat", String.valueOf(coordinates.getLatitude()))
+               .addParameter("lon", String.valueOf(coordinates.getLongitude()))
+               .addParameter("osm_type", "N")
+               .build());
+         request.setHeader(HttpHeaders.ACCEPT_LANGUAGE, language);
+
+         return execute(REVERSE, request, new TypeReference<OpenSearchResult>() {});
+      } catch (URISyntaxException e) {
+         metrics.get(REVERSE).errors.increment();
+         log.log(Level.WARNING, "Unable to communicate with MapQuest API:", e);
+         return null;
+      }
+   }
+
+   /**
+    * @return Request statistics per MapQuest endpoint.
+    */
+   public Map<String, Statistics> getStatistics() {
+      final Map<String, Statistics> statistics = new LinkedHashMap<>();
+      metrics.forEach((endpoint, m) -> statistics.put(endpoint, m.toStatistics()));
+
+      return statistics;
+   }
+
+   /**
+    * @return Number of location lookups that were served by a request already sent for another user.
+    */
+   public long getCoalescedLookups() {
+      return coalescer.getCoalescedKeys();
+   }
+
+   private Map<String, Coordinates> geoCode(final List<String> locations) {
+      final MapQuestResponse response = batchGeoCode(locations);
+      if (response == null || response.getResults() == null) {
+         return null;
+      }
+
+      return response.getResults().stream()
+                     .filter(result -> result.getLocations().size() > 0)
+                     .collect(Collectors.toMap(result -> result.getProvidedLocation().getLocation(), result -> {
+                        var latLng = result.getLocations().get(0).getLatLng();
+                        return new Coordinates(latLng.getLat(), latLng.getLng());
+                     }, (a, b) -> a));
+   }
+
+   private <T> T execute(final String endpoint, final HttpUriRequest request, final TypeReference<T> type) {
+      final Metrics endpointMetrics = metrics.get(endpoint);
+      final long start = System.nanoTime();
+
+      request.setHeader(HttpHeaders.ACCEPT, ContentType.APPLICATION_JSON.getMimeType());
+
+      try (final CloseableHttpResponse response = httpClient.execute(request)) {
+         final HttpEntity entity = response.getEntity();
+         final int status = response.getStatusLine().getStatusCode();
+
+         if (status < 200 || status >= 300) {
+            EntityUtils.consumeQuietly(entity);
+            throw new IOException("MapQuest returned HTTP error code " + status + ": " + response.getStatusLine().getReasonPhrase());
          }
-         return response.readEntity(type);
+
+         return mapper.readValue(EntityUtils.toString(entity), type);
       } catch (Exception e) {
+         endpointMetrics.errors.increment();
          log.log(Level.WARNING, "Unable to communicate with MapQuest API:", e);
          return null;
       } finally {
-         client.close();
+         endpointMetrics.record(System.nanoTime() - start);
+      }
+   }
+
+   private boolean hasKey() {
+      return mapQuestKey != null && !mapQuestKey.isEmpty();
+   }
+
+   private String getUrl(final String key, final String defaultValue) {
+      final String value = configurationProducer.get(key);
+      if (value == null || value.isBlank()) {
+         return defaultValue;
+      }
+
+      return value.endsWith("/") ? value.trim() : value.trim() + "/";
+   }
+
+   private static class Metrics {
+      private final LongAdder requests = new LongAdder();
+      private final LongAdder errors = new LongAdder();
+      private final LongAdder totalNanos = new LongAdder();
+      private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+      private void record(final long nanos) {
+         requests.increment();
+         totalNanos.add(nanos);
+         maxNanos.accumulate(nanos);
+      }
+
+      private Statistics toStatistics() {
+         final long count = requests.sum();
+         return new Statistics(count, errors.sum(), count > 0 ? totalNanos.sum() / count / 1_000_000 : 0, maxNanos.get() / 1_000_000);
+      }
+   }
+
+   public static class Statistics {
+      private final long requests;
+      private final long errors;
+      private final long averageLatencyMillis;
+      private final long maxLatencyMillis;
+
+      public Statistics(final long requests, final long errors, final long averageLatencyMillis, final long maxLatencyMillis) {
+         this.requests = requests;
+         this.errors = errors;
+         this.averageLatencyMillis = averageLatencyMillis;
+         this.maxLatencyMillis = maxLatencyMillis;
+      }
+
+      public long getRequests() {
+         return requests;
+      }
+
+      public long getErrors() {
+         return errors;
+      }
+
+      public long getAverageLatencyMillis() {
+         return averageLatencyMillis;
+      }
+
+      public long getMaxLatencyMillis() {
+         return maxLatencyMillis;
+      }
+
+      @Override
+      public String toString() {
+         return "Statistics{" +
+               "requests=" + requests +
+               ", errors=" + errors +
+               ", averageLatencyMillis=" + averageLatencyMillis +
+               ", maxLatencyMillis=" + maxLatencyMillis +
+               '}';
       }
    }
 }
@@ -0,0 +1,144 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.constraint;
+
+import io.lumeer.api.model.Attribute;
+import io.lumeer.api.model.Constraint;
+import io.lumeer.api.model.ConstraintType;
+import io.lumeer.engine.api.data.DataDocument;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.UnaryOperator;
+
+/**
+ * Encoders and decoders of all attributes of a single collection or link type, built once per attribute schema
+ * so that documents of the same resource do not need to look up their constraints again.
+ */
+public class ConstraintCodec {
+
+   private final long version;
+   private final Map<String, ConstraintType> types;
+   private final Map<String, UnaryOperator<Object>> encoders;
+   private final Map<String, UnaryOperator<Object>> fceEncoders;
+   private final Map<String, UnaryOperator<Object>> decoders;
+   private final UnaryOperator<Object> defaultEncoder;
+   private final UnaryOperator<Object> defaultFceEncoder;
+   private final UnaryOperator<Object> defaultDecoder;
+
+   // the attributes last verified to match, so that the documents of one resource sharing the same instance skip the check
+   private volatile Collection<Attribute> verifiedAttributes;
+
+   ConstraintCodec(final ConstraintManager constraintManager, final long version, final Collection<Attribute> attributes) {
+      this.version = version;
+      this.types = new HashMap<>();
+      this.encoders = new HashMap<>();
+      this.fceEncoders = new HashMap<>();
+      this.decoders = new HashMap<>();
+
+      if (attributes != null) {
+         attributes.stream()
+                   .filter(attribute -> attribute.getId() != null && attribute.getConstraint() != null)
+                   .forEach(attribute -> {
+                      final Constraint constraint = attribute.getConstraint();
+                      types.put(attribute.getId(), constraint.getType());
+                      encoders.put(attribute.getId(), bind(constraintManager::encode, constraint));
+                      fceEncoders.put(attribute.getId(), bind(constraintManager::encodeForFce, constraint));
+                      decoders.put(attribute.getId(), bind(constraintManager::decode, constraint));
+                   });
+      }
+
+      this.defaultEncoder = bind(constraintManager::encode, null);
+      this.defaultFceEncoder = bind(constraintManager::encodeForFce, null);
+      this.defaultDecoder = bind(constraintManager::decode, null);
+      this.verifiedAttributes = attributes;
+   }
+
+   /**
+    * Checks whether the codec was built for the given attribute schema.
+    *
+    * @param version
+    *       Version of the resource.
+    * @param attributes
+    *       Current attributes of the resource.
+    * @return True when the codec can be used for the resource.
+    */
+   boolean matches(final long version, final Collection<Attribute> attributes) {
+      if (this.version != version) {
+         return false;
+      }
+
+      if (attributes == verifiedAttributes) {
+         return true;
+      }
+
+      if (attributes == null || !sameConstraints(attributes)) {
+         return false;
+      }
+
+      verifiedAttributes = attributes;
+      return true;
+   }
+
+   public void encode(final DataDocument data) {
+      process(data, encoders, defaultEncoder);
+   }
+
+   public void encodeForFce(final DataDocument data) {
+      process(data, fceEncoders, defaultFceEncoder);
+   }
+
+   public void decode(final DataDocument data) {
+      process(data, decoders, defaultDecoder);
+   }
+
+   private boolean sameConstraints(final Collection<Attribute> attributes) {
+      int count = 0;
+
+      for (final Attribute attribute : attributes) {
+         if (attribute.getId() != null && attribute.getConstraint() != null) {
+            // the codecs depend only on the constraint type, its configuration is not used
+            if (types.get(attribute.getId()) != attribute.getConstraint().getType()) {
+               return false;
+            }
+            count++;
+         }
+      }
+
+      return count == types.size();
+   }
+
+   private static void process(final DataDocument data, final Map<String, UnaryOperator<Object>> processors, final UnaryOperator<Object> defaultProcessor) {
+      if (data == null) {
+         return;
+      }
+
+      for (final Map.Entry<String, Object> entry : data.entrySet()) {
+         if (!DataDocument.ID.equals(entry.getKey())) {
+            entry.setValue(processors.getOrDefault(entry.getKey(), defaultProcessor).apply(entry.getValue()));
+         }
+      }
+   }
+
+   private static UnaryOperator<Object> bind(final BiFunction<Object, Constraint, Object> processor, final Constraint constraint) {
+      return value -> processor.apply(value, constraint);
+   }
+}
@@ -26,6 +26,7 @@ import io.lumeer.api.model.LinkType;
 import io.lumeer.api.model.Query;
 import io.lumeer.api.model.common.Resource;
 import io.lumeer.api.util.ResourceUtils;
+import io.lumeer.cache.simple.BoundedCache;
 import io.lumeer.core.facade.configuration.DefaultConfigurationProducer;
 import io.lumeer.core.util.coordinates.CoordinatesParser;
 import io.lumeer.core.util.coordinates.LatLng;
@@ -40,21 +41,19 @@ import java.math.BigDecimal;
 import java.text.DecimalFormat;
 import java.text.NumberFormat;
 import java.text.ParseException;
+import java.text.ParsePosition;
 import java.time.DateTimeException;
 import java.time.ZoneId;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
+import java.time.temporal.TemporalAccessor;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.Date;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
-import java.util.Set;
 import java.util.function.BiFunction;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -77,10 +76,29 @@ public class ConstraintManager {
     */
    private Pattern numberMatch;
 
-   private Set<DateTimeFormatter> formatters;
+   private List<DateTimeFormatter> formatters;
 
    private DateTimeFormatter dateDecoder;
 
+   /**
+    * Number formats are not thread safe and expensive to create, so each thread gets its own copy.
+    */
+   private ThreadLocal<NumberFormat> numberFormat;
+   private ThreadLocal<NumberFormat> bigNumberFormat;
+   private static final ThreadLocal<NumberFormat> integerFormat = ThreadLocal.withInitial(NumberFormat::getIntegerInstance);
+
+   private static final int CODEC_CACHE_SIZE = 1000;
+
+   /**
+    * Compiled codecs of collections and link types.
+    */
+   private final BoundedCache<ConstraintCodec> codecs = new BoundedCache<>(CODEC_CACHE_SIZE, 0, 0);
+
+   private static final Pattern LEADING_ZERO = Pattern.compile("^0[^\\.].*");
+
+   // the shortest accepted date is yyyy-MM-ddTHH:mm:ss.SSS followed by a single letter zone
+   private static final int MIN_DATE_LENGTH = 24;
+
    private static final ZoneId utcZone = ZoneId.ofOffset("UTC", ZoneOffset.UTC);
 
    /**
@@ -121,6 +139,7 @@ public class ConstraintManager {
    public void setLocale(final Locale locale) {
       this.locale = locale;
       initNumberMatchPatten(locale);
+      initNumberFormats(locale);
       initDateTimeFormatters(locale);
    }
 
@@ -137,9 +156,18 @@ public class ConstraintManager {
       this.numberMatch = Pattern.compile("^[-+]?\\d+([\\.,]\\d+)?([Ee][+-]?\\d+)?$");
    }
 
+   private void initNumberFormats(final Locale locale) {
+      numberFormat = ThreadLocal.withInitial(() -> NumberFormat.getNumberInstance(locale));
+      bigNumberFormat = ThreadLocal.withInitial(() -> {
+         final DecimalFormat df = (DecimalFormat) DecimalFormat.getNumberInstance(locale);
+         df.setParseBigDecimal(true);
+         return df;
+      });
+   }
+
    private void initDateTimeFormatters(final Locale locale) {
       dateDecoder = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSZ", locale);
-      formatters = Set.of(
+      formatters = List.of(
             dateDecoder,
             DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSO", locale),
             DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSx", locale),
@@ -154,12 +182,8 @@ public class ConstraintManager {
     *       The value to try to convert to number.
     * @return The value converted to a number data type or null when the conversion was not possible.
     */
-   private Number encodeNumber(final Locale locale, final Object value) {
-      final DecimalFormat df = (DecimalFormat) DecimalFormat.getNumberInstance(locale);
-      df.setParseBigDecimal(true);
-      final NumberFormat nf = NumberFormat.getNumberInstance(locale);
-
-      return encodeNumber(nf, df, value);
+   private Number encodeNumber(final Object value) {
+      return encodeNumber(numberFormat.get(), bigNumberFormat.get(), value);
    }
 
    /**
@@ -179,19 +203,19 @@ public class ConstraintManager {
       } else if (value instanceof String) {
          final String trimmed = ((String) value).trim();
 
-         if (trimmed.matches("^0[^\\.].*")) { // we need to keep leading and trailing zeros, so no conversion to number
+         if (LEADING_ZERO.matcher(trimmed).matches()) { // we need to keep leading and trailing zeros, so no conversion to number
             return null;
          }
 
          try {
             // figure out whether we need to use BigDecimal
-            final Number n2 = numberFormat.parse(((String) value).trim());
+            final Number n2 = numberFormat.parse(trimmed);
 
             if (bigNumberFormat == null) {
                return n2;
             }
 
-            final Number n1 = bigNumberFormat.parse(((String) value).trim());
+            final Number n1 = bigNumberFormat.parse(trimmed);
 
             if (n1 instanceof BigDecimal) {
                try {
@@ -226,7 +250,7 @@ public class ConstraintManager {
       }
 
       if (value instanceof String && numberMatch.matcher((String) value).matches()) {
-         final Number n = encodeNumber(locale, ((String) value).replaceFirst(",", ".").replace("e", "E"));
+         final Number n = encodeNumber(replaceFirstComma((String) value).replace("e", "E"));
          return n == null ? value : n;
       }
 
@@ -298,19 +322,15 @@ public class ConstraintManager {
             return value;
          }
 
-         DateTimeFormatter dtf;
-         for (final Iterator<DateTimeFormatter> i = formatters.iterator(); i.hasNext(); ) {
-            dtf = i.next();
-            try {
-               return Date.from(ZonedDateTime.from(dtf.parse(value.toString().trim())).toInstant());
-            } catch (DateTimeParseException e) {
-               // no problem, we will try another
-            }
+         final Date date = parseDate(value.toString().trim());
+         if (date != null) {
+            return date;
          }
       }
 
       if (constraint != null && constraint.getType() == ConstraintType.Select) {
-         var numericValue = encodeNumber(NumberFormat.getIntegerInstance(), NumberFormat.getIntegerInstance(), value);
+         final NumberFormat integerFormat = ConstraintManager.integerFormat.get();
+         var numericValue = encodeNumber(integerFormat, integerFormat, value);
          return numericValue != null && numericValue.toString().equals(String.valueOf(value)) ? numericValue : value;
       }
 
@@ -331,6 +351,40 @@ public class ConstraintManager {
       return tryHard ? encode(value) : value;
    }
 
+   /**
+    * Parses a date in any of the supported formats without throwing exceptions for values that are not dates,
+    * which are by far the most common input.
+    *
+    * @param value
+    *       The value to parse.
+    * @return The parsed date or null when the value is not a date.
+    */
+   private Date parseDate(final String value) {
+      if (value.length() < MIN_DATE_LENGTH || value.charAt(4) != '-' || value.charAt(7) != '-' || value.charAt(10) != 'T') {
+         return null;
+      }
+
+      for (final DateTimeFormatter dtf : formatters) {
+         final ParsePosition position = new ParsePosition(0);
+         final TemporalAccessor parsed = dtf.parseUnresolved(value, position);
+
+         if (parsed != null && position.getErrorIndex() < 0 && position.getIndex() == value.length()) {
+            try {
+               return Date.from(ZonedDateTime.from(dtf.parse(value)).toInstant());
+            } catch (DateTimeException e) {
+               // syntactically correct, but not a valid date in this format
+            }
+         }
+      }
+
+      return null;
+   }
+
+   private static String replaceFirstComma(final String value) {
+      final int comma = value.indexOf(',');
+      return comma < 0 ? value : value.substring(0, comma) + '.' + value.substring(comma + 1);
+   }
+
    public Object decode(final Object value, final Constraint constraint) {
       if (value != null) {
          if (value instanceof Date) {
@@ -358,24 +412,14 @@ public class ConstraintManager {
       return value;
    }
 
-   private Map<String, Constraint> getConstraints(final Collection collection) {
-      if (collection == null) {
-         return Collections.emptyMap();
-      }
-      return collection.getAttributes()
-                       .stream()
-                       .filter(attr -> attr.getId() != null && attr.getConstraint() != null)
-                       .collect(Collectors.toMap(Attribute::getId, Attribute::getConstraint));
-   }
-
    public Query encodeQuery(final Query query, final List<Collection> collections, final List<LinkType> linkTypes) {
-      var queryCopy = new Query(new ArrayList<>(query.getStems()), query.getFulltexts(), query.getPage(), query.getPageSize());
+      var queryCopy = new Query(new ArrayList<>(query.getStems()), query.getFulltexts(), query.getPage(), query.getPageSize(), query.getAfter(), query.getProjection());
       this.processQuery(queryCopy, collections, linkTypes, this::encode);
       return queryCopy;
    }
 
    public Query decodeQuery(final Query query, final List<Collection> collections, final List<LinkType> linkTypes) {
-      var queryCopy = new Query(new ArrayList<>(query.getStems()), query.getFulltexts(), query.getPage(), query.getPageSize());
+      var queryCopy = new Query(new ArrayList<>(query.getStems()), query.getFulltexts(), query.getPage(), query.getPageSize(), query.getAfter(), query.getProjection());
       this.processQuery(queryCopy, collections, linkTypes, this::decode);
       return queryCopy;
    }
@@ -402,48 +446,74 @@ public class ConstraintManager {
    }
 
    public void encodeDataTypes(final Collection collection, final DataDocument data) {
-      processData(data, getConstraints(collection), this::encode);
+      getCodec(collection).encode(data);
    }
 
    public void encodeDataTypesForFce(final Collection collection, final DataDocument data) {
-      processData(data, getConstraints(collection), this::encodeForFce);
+      getCodec(collection).encodeForFce(data);
    }
 
    public void decodeDataTypes(final Collection collection, final DataDocument data) {
-      processData(data, getConstraints(collection), this::decode);
-   }
-
-   private Map<String, Constraint> getConstraints(final LinkType linkType) {
-      if (linkType == null) {
-         return Collections.emptyMap();
-      }
-      return linkType.getAttributes()
-                     .stream()
-                     .filter(attr -> attr.getId() != null && attr.getConstraint() != null)
-                     .collect(Collectors.toMap(Attribute::getId, Attribute::getConstraint));
+      getCodec(collection).decode(data);
    }
 
    public void encodeDataTypes(final LinkType linkType, final DataDocument data) {
-      processData(data, getConstraints(linkType), this::encode);
+      getCodec(linkType).encode(data);
    }
 
    public void encodeDataTypesForFce(final LinkType linkType, final DataDocument data) {
-      processData(data, getConstraints(linkType), this::encodeForFce);
+      getCodec(linkType).encodeForFce(data);
    }
 
    public void decodeDataTypes(final LinkType linkType, final DataDocument data) {
-      processData(data, getConstraints(linkType), this::decode);
+      getCodec(linkType).decode(data);
    }
 
-   private void processData(final DataDocument data, final Map<String, Constraint> constraints, final BiFunction<Object, Constraint, Object> processor) {
-      if (data == null) {
-         return;
+   /**
+    * Gets the codec of all attributes of the collection. Callers converting many documents of the same collection
+    * should obtain it once and reuse it for every document.
+    *
+    * @param collection
+    *       The collection whose documents are converted.
+    * @return The codec of the collection attributes.
+    */
+   public ConstraintCodec getCodec(final Collection collection) {
+      if (collection == null) {
+         return new ConstraintCodec(this, 0, null);
       }
-      data.keySet().forEach(key -> {
-         if (!DataDocument.ID.equals(key)) {
-            data.put(key, processor.apply(data.get(key), constraints.get(key)));
-         }
-      });
+      return getCodec(collection.getId(), "c:", collection.getVersion(), collection.getAttributes());
+   }
+
+   /**
+    * Gets the codec of all attributes of the link type. Callers converting many link instances of the same link type
+    * should obtain it once and reuse it for every link instance.
+    *
+    * @param linkType
+    *       The link type whose link instances are converted.
+    * @return The codec of the link type attributes.
+    */
+   public ConstraintCodec getCodec(final LinkType linkType) {
+      if (linkType == null) {
+         return new ConstraintCodec(this, 0, null);
+      }
+      return getCodec(linkType.getId(), "l:", linkType.getVersion(), linkType.getAttributes());
+   }
+
+   private ConstraintCodec getCodec(final String id, final String prefix, final long version, final java.util.Collection<Attribute> attributes) {
+      if (id == null) {
+         return new ConstraintCodec(this, version, attributes);
+      }
+
+      final String key = prefix + id;
+      final ConstraintCodec codec = codecs.get(key);
+      if (codec != null && codec.matches(version, attributes)) {
+         return codec;
+      }
+
+      final ConstraintCodec compiled = new ConstraintCodec(this, version, attributes);
+      codecs.set(key, compiled);
+
+      return compiled;
    }
 
    public DateTimeFormatter getDateDecoder() {
@@ -0,0 +1,144 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.facade;
+
+import io.lumeer.api.model.Attribute;
+import io.lumeer.api.model.Collection;
+import io.lumeer.api.model.LinkType;
+import io.lumeer.api.model.Query;
+import io.lumeer.api.model.QueryStem;
+import io.lumeer.api.model.Role;
+import io.lumeer.api.model.aggregation.AggregationFunction;
+import io.lumeer.api.model.aggregation.AggregationGroup;
+import io.lumeer.api.model.aggregation.AggregationQuery;
+import io.lumeer.api.model.aggregation.AggregationRow;
+import io.lumeer.api.model.aggregation.AggregationValue;
+import io.lumeer.api.util.ResourceUtils;
+import io.lumeer.core.constraint.ConstraintManager;
+import io.lumeer.core.exception.BadFormatException;
+import io.lumeer.core.facade.configuration.DefaultConfigurationProducer;
+import io.lumeer.storage.api.dao.CollectionDao;
+import io.lumeer.storage.api.dao.DataDao;
+import io.lumeer.storage.api.dao.LinkTypeDao;
+import io.lumeer.storage.api.query.SearchQueryStem;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.RequestScoped;
+import javax.inject.Inject;
+
+/**
+ * Computes the groups of pivot tables and charts in the database instead of loading all the documents.
+ */
+@RequestScoped
+public class AggregationFacade extends AbstractFacade {
+
+   @Inject
+   private CollectionDao collectionDao;
+
+   @Inject
+   private LinkTypeDao linkTypeDao;
+
+   @Inject
+   private DataDao dataDao;
+
+   @Inject
+   private DefaultConfigurationProducer configurationProducer;
+
+   private ConstraintManager constraintManager;
+
+   @PostConstruct
+   public void init() {
+      constraintManager = ConstraintManager.getInstance(configurationProducer);
+   }
+
+   public List<AggregationRow> aggregate(final AggregationQuery query) {
+      final Collection collection = collectionDao.getCollectionById(query.getCollectionId());
+      permissionsChecker.checkRoleWithView(collection, Role.READ, Role.READ);
+
+      final Map<String, Collection> collections = new HashMap<>();
+      collections.put(collection.getId(), collection);
+
+      LinkType linkType = null;
+      if (query.getLinkTypeId() != null) {
+         linkType = linkTypeDao.getLinkType(query.getLinkTypeId());
+         if (!linkType.getCollectionIds().contains(collection.getId())) {
+            throw new BadFormatException("Link type " + linkType.getId() + " does not link collection " + collection.getId() + ".");
+         }
+
+         final String linkedCollectionId = linkType.getCollectionIds().stream().filter(id -> !id.equals(collection.getId())).findFirst()
+                                                   .orElseThrow(() -> new BadFormatException("Links within a single collection cannot be aggregated."));
+         final Collection linkedCollection = collectionDao.getCollectionById(linkedCollectionId);
+         permissionsChecker.checkRoleWithView(linkedCollection, Role.READ, Role.READ);
+         collections.put(linkedCollection.getId(), linkedCollection);
+      }
+
+      checkAttributes(query, collections);
+
+      final Query encodedQuery = constraintManager.encodeQuery(new Query(new QueryStem(collection.getId(), null, null, query.getFilters(), null)),
+            Collections.singletonList(collection), Collections.emptyList());
+      final SearchQueryStem stem = new SearchQueryStem(encodedQuery.getStems().get(0), Collections.emptySet());
+
+      final List<AggregationRow> rows = dataDao.aggregateData(collection, stem, linkType, query.getGroups(), query.getValues());
+
+      return rows.stream().map(row -> decodeRow(row, query, collections)).collect(Collectors.toList());
+   }
+
+   private void checkAttributes(final AggregationQuery query, final Map<String, Collection> collections) {
+      query.getGroups().forEach(group -> checkAttribute(group.getCollectionId(), group.getAttributeId(), collections));
+      query.getValues().forEach(value -> checkAttribute(value.getCollectionId(), value.getAttributeId(), collections));
+   }
+
+   private void checkAttribute(final String collectionId, final String attributeId, final Map<String, Collection> collections) {
+      if (!collections.containsKey(collectionId)) {
+         throw new BadFormatException("Collection " + collectionId + " is not part of the aggregation.");
+      }
+      if (attributeId == null || attributeId.isEmpty()) {
+         throw new BadFormatException("Missing attribute of collection " + collectionId + ".");
+      }
+   }
+
+   private AggregationRow decodeRow(final AggregationRow row, final AggregationQuery query, final Map<String, Collection> collections) {
+      final List<Object> keys = new ArrayList<>(row.getKeys().size());
+      for (int i = 0; i < row.getKeys().size(); i++) {
+         final AggregationGroup group = query.getGroups().get(i);
+         // date buckets are already formatted by the database
+         keys.add(group.getBucket() == null ? decode(row.getKeys().get(i), collections.get(group.getCollectionId()), group.getAttributeId()) : row.getKeys().get(i));
+      }
+
+      final List<Object> values = new ArrayList<>(row.getValues().size());
+      for (int i = 0; i < row.getValues().size(); i++) {
+         final AggregationValue value = query.getValues().get(i);
+         final boolean keepsType = value.getFunction() == AggregationFunction.MIN || value.getFunction() == AggregationFunction.MAX;
+         values.add(keepsType ? decode(row.getValues().get(i), collections.get(value.getCollectionId()), value.getAttributeId()) : row.getValues().get(i));
+      }
+
+      return new AggregationRow(keys, values, row.getCount());
+   }
+
+   private Object decode(final Object value, final Collection collection, final String attributeId) {
+      final Attribute attribute = ResourceUtils.findAttribute(collection.getAttributes(), attributeId);
+      return attribute != null ? constraintManager.decode(value, attribute.getConstraint()) : value;
+   }
+}
@@ -32,9 +32,12 @@ import io.lumeer.api.model.User;
 import io.lumeer.api.model.common.Resource;
 import io.lumeer.api.util.CollectionUtil;
 import io.lumeer.api.util.ResourceUtils;
+import io.lumeer.core.facade.configuration.DefaultConfigurationProducer;
+import io.lumeer.core.task.CollectionUsageAggregator;
 import io.lumeer.core.util.CodeGenerator;
 import io.lumeer.storage.api.dao.CollectionDao;
 import io.lumeer.storage.api.dao.DataDao;
+import io.lumeer.storage.api.dao.DocumentCounterDao;
 import io.lumeer.storage.api.dao.DocumentDao;
 import io.lumeer.storage.api.dao.FavoriteItemDao;
 import io.lumeer.storage.api.dao.LinkInstanceDao;
@@ -43,12 +46,15 @@ import io.lumeer.storage.api.dao.ViewDao;
 import io.lumeer.storage.api.exception.ResourceNotFoundException;
 
 import java.time.ZonedDateTime;
+import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import javax.enterprise.context.RequestScoped;
@@ -81,6 +87,15 @@ public class CollectionFacade extends AbstractFacade {
    @Inject
    private FileAttachmentFacade fileAttachmentFacade;
 
+   @Inject
+   private DocumentCounterDao documentCounterDao;
+
+   @Inject
+   private CollectionUsageAggregator collectionUsageAggregator;
+
+   @Inject
+   private DefaultConfigurationProducer configurationProducer;
+
    public Collection createCollection(Collection collection) {
       checkProjectWriteRole();
       long collectionsCount = collectionDao.getCollectionsCount();
@@ -119,7 +134,14 @@ public class CollectionFacade extends AbstractFacade {
       Collection collection = collectionDao.getCollectionById(collectionId);
       permissionsChecker.checkRole(collection, Role.MANAGE);
 
-      collectionDao.deleteCollection(collectionId);
+      // the stored count lags behind the usage that has not been written yet, the removal waits for a write in progress
+      final int pendingDocumentsCount = collectionUsageAggregator.removeUsage(collectionId);
+      final Collection deletedCollection = collectionDao.deleteCollection(collectionId);
+      final long documentsCount = Optional.ofNullable(deletedCollection.getDocumentsCount()).orElse(0) + pendingDocumentsCount;
+
+      if (documentsCount != 0) {
+         documentCounterDao.incrementDocumentsCount(getCurrentProject().getId(), -documentsCount);
+      }
 
       deleteCollectionBasedData(collectionId);
 
@@ -193,16 +215,33 @@ public class CollectionFacade extends AbstractFacade {
       return favoriteItemDao.getFavoriteCollectionIds(userId, projectId);
    }
 
+   /**
+    * Gets the number of documents in the current project from its counter. The counter is recomputed from the collections
+    * when it is older than {@link DefaultConfigurationProducer#DOCUMENTS_COUNT_RECONCILE_MINUTES}.
+    *
+    * @return Number of documents in all the collections of the current project.
+    */
    public long getDocumentsCountInAllCollections() {
-      final LongAdder la = new LongAdder();
-      collectionDao.getAllCollectionIds().forEach(id -> {
-         final Collection collection = collectionDao.getCollectionById(id);
-         if (permissionsChecker.hasRoleWithView(collection, Role.READ, Role.READ)) {
-            la.add(getCollection(id).getDocumentsCount());
-         }
-      });
+      final String projectId = getCurrentProject().getId();
+      final long reconcileMinutes = configurationProducer.getLong(DefaultConfigurationProducer.DOCUMENTS_COUNT_RECONCILE_MINUTES, 60L);
+
+      final Long documentsCount = documentCounterDao.getDocumentsCount(projectId, new Date(System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(reconcileMinutes)));
+      if (documentsCount != null) {
+         return documentsCount;
+      }
+
+      // documents created or deleted from now on change the counter, so the recomputed number is not stored over them
+      final Long counterBeforeReconcile = documentCounterDao.getDocumentsCount(projectId);
+      collectionUsageAggregator.flush();
+
+      final long reconciledCount = collectionDao.getAllCollections().stream()
+                                                .map(Collection::getDocumentsCount)
+                                                .filter(Objects::nonNull)
+                                                .mapToLong(Integer::longValue)
+                                                .sum();
+      documentCounterDao.setDocumentsCount(projectId, counterBeforeReconcile, reconciledCount);
 
-      return la.longValue();
+      return reconciledCount;
    }
 
    public java.util.Collection<Attribute> createCollectionAttributes(final String collectionId, final java.util.Collection<Attribute> attributes) {
@@ -19,16 +19,22 @@
 package io.lumeer.core.facade;
 
 import io.lumeer.api.model.*;
-import io.lumeer.api.util.ResourceUtils;
 import io.lumeer.core.auth.RequestDataKeeper;
+import io.lumeer.core.constraint.ConstraintCodec;
 import io.lumeer.core.constraint.ConstraintManager;
+import io.lumeer.core.exception.BadFormatException;
 import io.lumeer.core.facade.configuration.DefaultConfigurationProducer;
+import io.lumeer.core.task.CollectionUsageAggregator;
+import io.lumeer.core.task.ConversionStage;
 import io.lumeer.engine.api.data.DataDocument;
 import io.lumeer.engine.api.event.CreateDocument;
 import io.lumeer.engine.api.event.ImportCollectionContent;
+import io.lumeer.engine.api.event.RemoveDocuments;
 import io.lumeer.engine.api.event.UpdateDocument;
+import io.lumeer.engine.api.event.UpdateDocuments;
 import io.lumeer.storage.api.dao.CollectionDao;
 import io.lumeer.storage.api.dao.DataDao;
+import io.lumeer.storage.api.dao.DocumentCounterDao;
 import io.lumeer.storage.api.dao.DocumentDao;
 import io.lumeer.storage.api.dao.FavoriteItemDao;
 import io.lumeer.storage.api.dao.LinkInstanceDao;
@@ -67,6 +73,12 @@ public class DocumentFacade extends AbstractFacade {
    @Inject
    private LinkInstanceDao linkInstanceDao;
 
+   @Inject
+   private DocumentCounterDao documentCounterDao;
+
+   @Inject
+   private CollectionUsageAggregator collectionUsageAggregator;
+
    @Inject
    private DefaultConfigurationProducer configurationProducer;
 
@@ -76,6 +88,12 @@ public class DocumentFacade extends AbstractFacade {
    @Inject
    private Event<UpdateDocument> updateDocumentEvent;
 
+   @Inject
+   private Event<UpdateDocuments> updateDocumentsEvent;
+
+   @Inject
+   private Event<RemoveDocuments> removeDocumentsEvent;
+
    @Inject
    private Event<ImportCollectionContent> importCollectionContentEvent;
 
@@ -84,6 +102,9 @@ public class DocumentFacade extends AbstractFacade {
 
    private ConstraintManager constraintManager;
 
+   @Inject
+   private ConversionStage conversionStage;
+
    @PostConstruct
    public void init() {
       constraintManager = ConstraintManager.getInstance(configurationProducer);
@@ -118,12 +139,10 @@ public class DocumentFacade extends AbstractFacade {
       final Map<String, DataDocument> documentsData = new HashMap<>();
       permissionsChecker.checkDocumentLimits(documents);
 
-      // encode the original data and remember them by their original template id
-      documents.forEach(document -> {
-         DataDocument data = document.getData();
-         documentsData.put((String) document.createIfAbsentMetaData().computeIfAbsent(Document.META_TEMPLATE_ID, key -> UUID.randomUUID().toString()), data);
-         constraintManager.encodeDataTypes(collection, data);
-      });
+      // remember the original data by their original template id and encode them
+      documents.forEach(document -> documentsData.put((String) document.createIfAbsentMetaData().computeIfAbsent(Document.META_TEMPLATE_ID, key -> UUID.randomUUID().toString()), document.getData()));
+      final ConstraintCodec codec = constraintManager.getCodec(collection);
+      conversionStage.forEach(documents, document -> codec.encode(document.getData()));
 
       final List<Document> storedDocuments = createDocuments(collection, documents);
 
@@ -141,13 +160,13 @@ public class DocumentFacade extends AbstractFacade {
       final Map<String, DataDocument> storedDocumentsData = new HashMap<>();
       storedData.forEach(dd -> storedDocumentsData.put(dd.getId(), dd));
 
-      // put the stored data to the stored documents, decode data types and count attributes usage
+      // put the stored data to the stored documents, count attributes usage and decode data types
       storedDocuments.forEach(storedDocument -> {
          final DataDocument singleStoredData = storedDocumentsData.get(storedDocument.getId());
          storedDocument.setData(singleStoredData);
          singleStoredData.keySet().forEach(key -> usages.put(key, usages.computeIfAbsent(key, k -> 0) + 1));
-         constraintManager.decodeDataTypes(collection, storedDocument.getData());
       });
+      conversionStage.forEach(storedDocuments, storedDocument -> codec.decode(storedDocument.getData()));
 
       updateCollectionMetadata(collection, usages, storedDocuments.size());
 
@@ -265,6 +284,72 @@ public class DocumentFacade extends AbstractFacade {
       return updatedDocument;
    }
 
+   /**
+    * Patches data of multiple documents of the collection. The documents are written by bulk operations and a single
+    * {@link UpdateDocuments} event is fired for the whole batch.
+    *
+    * @param collectionId
+    *       Collection of the documents.
+    * @param documents
+    *       Documents with their ids and the attributes to set.
+    * @return Updated documents.
+    */
+   public List<Document> patchDocumentsData(final String collectionId, final List<Document> documents) {
+      final Collection collection = checkCollectionWritePermissions(collectionId);
+      if (documents.isEmpty()) {
+         return new ArrayList<>();
+      }
+
+      final Map<String, DataDocument> patches = new HashMap<>();
+      documents.forEach(document -> {
+         final DataDocument patch = patches.computeIfAbsent(document.getId(), id -> new DataDocument());
+         if (document.getData() != null) {
+            patch.putAll(document.getData());
+         }
+      });
+      final Map<String, Document> storedDocuments = getCollectionDocuments(collection, patches.keySet());
+
+      final ConstraintCodec codec = constraintManager.getCodec(collection);
+      conversionStage.forEach(patches.values(), codec::encode);
+
+      final Map<String, DataDocument> originalData = new HashMap<>();
+      dataDao.getData(collectionId, patches.keySet()).forEach(data -> originalData.put(data.getId(), data));
+
+      final Map<String, Integer> usages = new HashMap<>();
+      patches.forEach((id, data) -> {
+         final DataDocument oldData = originalData.getOrDefault(id, new DataDocument());
+         data.keySet().stream().filter(key -> !oldData.containsKey(key)).forEach(key -> usages.merge(key, 1, Integer::sum));
+      });
+      updateCollectionMetadata(collection, usages, 0);
+
+      final Map<String, DataDocument> patchedData = new HashMap<>();
+      dataDao.patchData(collectionId, patches).forEach(data -> patchedData.put(data.getId(), data));
+
+      final Map<String, Document> originalDocuments = new HashMap<>();
+      storedDocuments.values().forEach(document -> {
+         final Document originalDocument = new Document(document);
+         originalDocument.setData(originalData.getOrDefault(document.getId(), new DataDocument()));
+         originalDocuments.put(document.getId(), originalDocument);
+
+         document.setUpdatedBy(authenticatedUser.getCurrentUserId());
+         document.setUpdateDate(ZonedDateTime.now());
+      });
+
+      final List<Document> updatedDocuments = documentDao.updateDocuments(new ArrayList<>(storedDocuments.values()));
+      updatedDocuments.forEach(document -> document.setData(patchedData.get(document.getId())));
+
+      if (updateDocumentsEvent != null) {
+         final List<UpdateDocument> updates = updatedDocuments.stream()
+                                                              .map(document -> new UpdateDocument(new Document(document), originalDocuments.get(document.getId())))
+                                                              .collect(Collectors.toList());
+         updateDocumentsEvent.fire(new UpdateDocuments(collection, updates));
+      }
+
+      conversionStage.forEach(updatedDocuments, document -> codec.decode(document.getData()));
+
+      return updatedDocuments;
+   }
+
    public Document patchDocumentMetaData(final String collectionId, final String documentId, final DataDocument metaData) {
       Collection collection = checkCollectionWritePermissions(collectionId);
 
@@ -334,6 +419,59 @@ public class DocumentFacade extends AbstractFacade {
       });
    }
 
+   /**
+    * Deletes multiple documents of the collection by bulk operations and fires a single {@link RemoveDocuments}
+    * event for the whole batch.
+    *
+    * @param collectionId
+    *       Collection of the documents.
+    * @param documentIds
+    *       Ids of the documents to delete.
+    */
+   public void deleteDocuments(final String collectionId, final Set<String> documentIds) {
+      final Collection collection = checkCollectionWritePermissions(collectionId);
+      if (documentIds.isEmpty()) {
+         return;
+      }
+
+      final Map<String, Document> documents = getCollectionDocuments(collection, documentIds);
+
+      final Map<String, Integer> usages = new HashMap<>();
+      dataDao.getData(collectionId, documentIds).forEach(data -> {
+         data.keySet().forEach(key -> usages.merge(key, -1, Integer::sum));
+         documents.get(data.getId()).setData(data);
+      });
+      updateCollectionMetadata(collection, usages, -documents.size());
+
+      documentDao.deleteDocumentsByIds(documentIds);
+      dataDao.deleteData(collectionId, documentIds);
+
+      linkInstanceDao.deleteLinkInstancesByDocumentsIds(documentIds);
+      favoriteItemDao.removeFavoriteDocumentsFromUsers(getCurrentProject().getId(), collectionId, documentIds);
+
+      // remove all file attachments
+      collection.getAttributes().forEach(attribute -> {
+         if (attribute.getConstraint() != null && attribute.getConstraint().getType().equals(ConstraintType.FileAttachment)) {
+            documentIds.forEach(documentId -> fileAttachmentFacade.removeAllFileAttachments(collectionId, documentId, attribute.getId(), FileAttachment.AttachmentType.DOCUMENT));
+         }
+      });
+
+      if (removeDocumentsEvent != null) {
+         removeDocumentsEvent.fire(new RemoveDocuments(collection, new ArrayList<>(documents.values())));
+      }
+   }
+
+   private Map<String, Document> getCollectionDocuments(final Collection collection, final Set<String> documentIds) {
+      final Map<String, Document> documents = new HashMap<>();
+      documentDao.getDocumentsByIds(documentIds.toArray(new String[0])).forEach(document -> documents.put(document.getId(), document));
+
+      if (documents.size() != documentIds.size() || documents.values().stream().anyMatch(document -> !collection.getId().equals(document.getCollectionId()))) {
+         throw new BadFormatException("Invalid document ids of collection " + collection.getId() + ": " + documentIds);
+      }
+
+      return documents;
+   }
+
    private void deleteDocumentBasedData(String collectionId, String documentId) {
       linkInstanceDao.deleteLinkInstancesByDocumentsIds(Collections.singleton(documentId));
       favoriteItemDao.removeFavoriteDocumentFromUsers(getCurrentProject().getId(), collectionId, documentId);
@@ -390,19 +528,21 @@ public class DocumentFacade extends AbstractFacade {
    }
 
    private void updateCollectionMetadata(Collection collection, Set<String> attributesIdsToInc, Set<String> attributesIdsToDec, int documentCountDiff) {
-      final Collection originalCollection = collection.copy();
-      collection.setAttributes(new HashSet<>(ResourceUtils.incOrDecAttributes(collection.getAttributes(), attributesIdsToInc, attributesIdsToDec)));
-      collection.setLastTimeUsed(ZonedDateTime.now());
-      collection.setDocumentsCount(Math.max(collection.getDocumentsCount() + documentCountDiff, 0));
-      collectionDao.updateCollection(collection.getId(), collection, originalCollection);
+      final Map<String, Integer> attributesUsage = new HashMap<>();
+      attributesIdsToInc.forEach(attributeId -> attributesUsage.merge(attributeId, 1, Integer::sum));
+      attributesIdsToDec.forEach(attributeId -> attributesUsage.merge(attributeId, -1, Integer::sum));
+
+      updateCollectionMetadata(collection, attributesUsage, documentCountDiff);
    }
 
    private void updateCollectionMetadata(final Collection collection, final Map<String, Integer> attributesToInc, final int documentCountDiff) {
-      final Collection originalCollection = collection.copy();
-      collection.setAttributes(new HashSet<>(ResourceUtils.incAttributes(collection.getAttributes(), attributesToInc)));
-      collection.setLastTimeUsed(ZonedDateTime.now());
-      collection.setDocumentsCount(Math.max(collection.getDocumentsCount() + documentCountDiff, 0));
-      collectionDao.updateCollection(collection.getId(), collection, originalCollection);
+      final Set<String> attributeIds = collection.getAttributes().stream().map(Attribute::getId).collect(Collectors.toSet());
+      final Map<String, Integer> attributesUsage = attributesToInc.entrySet().stream()
+                                                                  .filter(entry -> attributeIds.contains(entry.getKey()) && entry.getValue() != 0)
+                                                                  .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+
+      collectionUsageAggregator.addUsage(collection.getId(), attributesUsage, documentCountDiff);
+      documentCounterDao.incrementDocumentsCount(workspaceKeeper.getProjectId(), documentCountDiff);
    }
 
    public Document getDocument(String collectionId, String documentId) {
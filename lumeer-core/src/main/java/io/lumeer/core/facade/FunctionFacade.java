@@ -27,17 +27,25 @@ import io.lumeer.api.model.common.Resource;
 import io.lumeer.api.model.function.FunctionParameter;
 import io.lumeer.api.model.function.FunctionResourceType;
 import io.lumeer.api.model.function.FunctionRow;
+import io.lumeer.core.cache.FunctionGraphCache;
+import io.lumeer.core.facade.configuration.DefaultConfigurationProducer;
+import io.lumeer.core.task.BatchRunner;
 import io.lumeer.core.task.ContextualTaskFactory;
+import io.lumeer.core.task.ConversionStage;
 import io.lumeer.core.task.FunctionTask;
+import io.lumeer.core.util.FunctionGraph;
 import io.lumeer.core.util.FunctionOrder;
 import io.lumeer.core.util.FunctionXmlParser;
 import io.lumeer.engine.api.data.DataDocument;
+import io.lumeer.engine.api.event.UpdateDocument;
+import io.lumeer.engine.api.event.UpdateLinkInstance;
 import io.lumeer.storage.api.dao.CollectionDao;
 import io.lumeer.storage.api.dao.DocumentDao;
 import io.lumeer.storage.api.dao.FunctionDao;
 import io.lumeer.storage.api.dao.LinkInstanceDao;
 import io.lumeer.storage.api.dao.LinkTypeDao;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Deque;
 import java.util.HashMap;
@@ -50,6 +58,7 @@ import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
+import javax.enterprise.concurrent.ManagedExecutorService;
 import javax.enterprise.context.RequestScoped;
 import javax.inject.Inject;
 
@@ -74,10 +83,53 @@ public class FunctionFacade extends AbstractFacade {
    @Inject
    private ContextualTaskFactory contextualTaskFactory;
 
+   @Inject
+   private FunctionGraphCache functionGraphCache;
+
+   @Inject
+   private ManagedExecutorService managedExecutorService;
+
+   @Inject
+   private DefaultConfigurationProducer configurationProducer;
+
+   @Inject
+   private ConversionStage conversionStage;
+
+   private BatchRunner batchRunner;
+
+   private FunctionGraph getGraph() {
+      return functionGraphCache.getGraph(getProjectId(), functionDao::getAllRows);
+   }
+
+   private FunctionTask createFunctionTask() {
+      final FunctionTask functionTask = contextualTaskFactory.getInstance(FunctionTask.class);
+      if (functionTask != null) {
+         functionTask.setBatchRunner(getBatchRunner());
+         functionTask.setConversionStage(conversionStage);
+      }
+
+      return functionTask;
+   }
+
+   private BatchRunner getBatchRunner() {
+      if (batchRunner == null) {
+         batchRunner = new BatchRunner(managedExecutorService,
+               configurationProducer.getInt(DefaultConfigurationProducer.FUNCTION_PARALLELISM, 1),
+               configurationProducer.getInt(DefaultConfigurationProducer.FUNCTION_BATCH_SIZE, FunctionTask.DEFAULT_BATCH_SIZE));
+      }
+
+      return batchRunner;
+   }
+
+   private String getProjectId() {
+      return workspaceKeeper.getProject().get().getId();
+   }
+
    public FunctionTask createTaskForCreatedFunction(Collection collection, Attribute attribute) {
       List<FunctionRow> functionRows = createCollectionRowsFromXml(collection, attribute);
       if (!functionRows.isEmpty()) {
          functionDao.createRows(functionRows);
+         functionGraphCache.update(getProjectId(), graph -> graph.addRows(functionRows));
       }
 
       Deque<FunctionParameterDocuments> queue = createQueueForCollection(collection, attribute, functionRows);
@@ -110,6 +162,12 @@ public class FunctionFacade extends AbstractFacade {
    }
 
    private Deque<FunctionParameterDocuments> orderFunctions(Map<FunctionParameterDocuments, List<FunctionParameterDocuments>> parametersMap) {
+      // precomputed order of the project functions, falls back to ordering the subgraph when there is a cycle
+      List<FunctionParameterDocuments> ordered = getGraph().order(parametersMap.keySet());
+      if (ordered != null) {
+         return new LinkedList<>(ordered);
+      }
+
       Deque<FunctionParameterDocuments> queue = FunctionOrder.orderFunctions(parametersMap);
 
       Deque<FunctionParameterDocuments> mappedQueue = new LinkedList<>();
@@ -122,14 +180,17 @@ public class FunctionFacade extends AbstractFacade {
    }
 
    private void fillParametersMapForCollection(Map<FunctionParameterDocuments, List<FunctionParameterDocuments>> parametersMap, FunctionParameterDocuments parentParameter) {
-      List<FunctionRow> functionRows = functionDao.searchByDependentCollection(parentParameter.getResourceId(), parentParameter.getAttributeId());
+      List<FunctionRow> functionRows = getGraph().searchByDependentCollection(parentParameter.getResourceId(), parentParameter.getAttributeId());
+      boolean parentIsFunction = parametersMap.containsKey(parentParameter);
 
       functionRows.forEach(row -> {
-         List<FunctionRow> rows = functionDao.searchByResource(row.getResourceId(), row.getAttributeId(), row.getType());
-         Set<String> documentIds = parentParameter.getDocuments().stream().map(Document::getId).collect(Collectors.toSet());
+         List<FunctionRow> rows = getGraph().searchByResource(row.getResourceId(), row.getAttributeId(), row.getType());
 
          FunctionParameterDocuments parameter = new FunctionParameterDocuments(row.getType(), row.getResourceId(), row.getAttributeId());
-         if (!parametersMap.containsKey(parameter)) {
+         if (parentIsFunction) {
+            addDependentParameter(parametersMap, parameter, rows, parentParameter, row);
+         } else if (!parametersMap.containsKey(parameter)) {
+            Set<String> documentIds = parentParameter.getDocuments().stream().map(Document::getId).collect(Collectors.toSet());
             if (row.getType() == FunctionResourceType.COLLECTION) {
                Set<Document> documents = findDocumentsForRow(row, documentIds);
                if (!documents.isEmpty()) {
@@ -151,14 +212,19 @@ public class FunctionFacade extends AbstractFacade {
    }
 
    private void fillParametersMapForLinkType(Map<FunctionParameterDocuments, List<FunctionParameterDocuments>> parametersMap, FunctionParameterDocuments parentParameter) {
-      List<FunctionRow> functionRows = functionDao.searchByDependentLinkType(parentParameter.getResourceId(), parentParameter.getAttributeId());
+      List<FunctionRow> functionRows = getGraph().searchByDependentLinkType(parentParameter.getResourceId(), parentParameter.getAttributeId());
+      boolean parentIsFunction = parametersMap.containsKey(parentParameter);
 
       functionRows.forEach(row -> {
-         List<FunctionRow> rows = functionDao.searchByResource(row.getResourceId(), row.getAttributeId(), row.getType());
-         Set<String> linkInstanceIds = parentParameter.getLinkInstances().stream().map(LinkInstance::getId).collect(Collectors.toSet());
+         List<FunctionRow> rows = getGraph().searchByResource(row.getResourceId(), row.getAttributeId(), row.getType());
 
          FunctionParameterDocuments parameter = new FunctionParameterDocuments(row.getType(), row.getResourceId(), row.getAttributeId());
-         if (!parametersMap.containsKey(parameter)) {
+         if (parentIsFunction) {
+            if (row.getType() == FunctionResourceType.COLLECTION || row.getDependentLinkTypeId() == null || row.getDependentLinkTypeId().equals(row.getResourceId())) {
+               addDependentParameter(parametersMap, parameter, rows, parentParameter, row);
+            }
+         } else if (!parametersMap.containsKey(parameter)) {
+            Set<String> linkInstanceIds = parentParameter.getLinkInstances().stream().map(LinkInstance::getId).collect(Collectors.toSet());
             if (row.getType() == FunctionResourceType.COLLECTION) {
                Set<Document> documents = findDocumentsForRowByLinkInstances(row, linkInstanceIds);
                if (!documents.isEmpty()) {
@@ -178,6 +244,32 @@ public class FunctionFacade extends AbstractFacade {
       });
    }
 
+   /**
+    * Adds a function depending on another function of the queue. Its documents or link instances are not searched now,
+    * the task derives them from the values the source function actually changes.
+    */
+   private void addDependentParameter(Map<FunctionParameterDocuments, List<FunctionParameterDocuments>> parametersMap, FunctionParameterDocuments parameter,
+         List<FunctionRow> rows, FunctionParameterDocuments sourceParameter, FunctionRow row) {
+      FunctionParameterDocuments existing = findParameter(parametersMap, parameter);
+      if (existing != null) {
+         existing.addSource(sourceParameter, row);
+         return;
+      }
+
+      parameter.addSource(sourceParameter, row);
+      parametersMap.put(parameter, rows.stream().map(this::functionRowToParameter).collect(Collectors.toList()));
+
+      if (parameter.getType() == FunctionResourceType.COLLECTION) {
+         fillParametersMapForCollection(parametersMap, parameter);
+      } else {
+         fillParametersMapForLinkType(parametersMap, parameter);
+      }
+   }
+
+   private FunctionParameterDocuments findParameter(Map<FunctionParameterDocuments, List<FunctionParameterDocuments>> parametersMap, FunctionParameterDocuments parameter) {
+      return parametersMap.keySet().stream().filter(param -> param.equals(parameter)).findFirst().orElse(null);
+   }
+
    public FunctionTask convertQueueToTask(final Deque<FunctionParameterDocuments> queue) {
       Set<String> collectionIds = queue.stream().filter(q -> q.getType() == FunctionResourceType.COLLECTION && q.getCollection() == null).map(FunctionParameter::getResourceId).collect(Collectors.toSet());
       Set<String> linkTypeIds = queue.stream().filter(q -> q.getType() == FunctionResourceType.LINK && q.getLinkType() == null).map(FunctionParameter::getResourceId).collect(Collectors.toSet());
@@ -186,6 +278,7 @@ public class FunctionFacade extends AbstractFacade {
       Map<String, LinkType> linkTypeMap = linkTypeIds.size() > 0 ? linkTypeDao.getLinkTypesByIds(linkTypeIds).stream().collect(Collectors.toMap(LinkType::getId, c -> c)) : new HashMap<>();
 
       FunctionTask task = null;
+      final Map<FunctionParameterDocuments, FunctionTask> tasks = new HashMap<>();
 
       final Iterator<FunctionParameterDocuments> iterator = queue.descendingIterator();
       while (iterator.hasNext()) {
@@ -195,8 +288,9 @@ public class FunctionFacade extends AbstractFacade {
             Attribute attribute = parameter.getAttribute() != null ? parameter.getAttribute() : findAttributeInCollection(collection, parameter.getAttributeId());
 
             if (collection != null && attribute != null) {
-               FunctionTask functionTask = contextualTaskFactory.getInstance(FunctionTask.class);
-               functionTask.setFunctionTask(attribute, collection, parameter.getDocuments(), createParentTasks(task));
+               FunctionTask functionTask = createFunctionTask();
+               functionTask.setFunctionTask(attribute, collection, parameter.getDocuments(), task);
+               tasks.put(parameter, functionTask);
                task = functionTask;
             }
          } else if (parameter.getType() == FunctionResourceType.LINK) {
@@ -204,33 +298,23 @@ public class FunctionFacade extends AbstractFacade {
             Attribute attribute = parameter.getAttribute() != null ? parameter.getAttribute() : findAttributeInLinkType(linkType, parameter.getAttributeId());
 
             if (linkType != null && attribute != null) {
-               FunctionTask functionTask = contextualTaskFactory.getInstance(FunctionTask.class);
-               functionTask.setFunctionTask(attribute, linkType, parameter.getLinkInstances(), createParentTasks(task));
+               FunctionTask functionTask = createFunctionTask();
+               functionTask.setFunctionTask(attribute, linkType, parameter.getLinkInstances(), task);
+               tasks.put(parameter, functionTask);
                task = functionTask;
             }
          }
 
       }
 
-      return task;
-   }
-
-   private FunctionTask createParentTasks(FunctionTask task) {
-      if (task == null) {
-         return null;
-      }
-
-      FunctionTask functionTask = contextualTaskFactory.getInstance(FunctionTask.class);
-      if (task.getCollection() != null) {
-         functionTask.setFunctionTask(task.getAttribute(), task.getCollection(), task.getDocuments(), task.getParent());
-         return functionTask;
-
-      } else if (task.getLinkType() != null) {
-         functionTask.setFunctionTask(task.getAttribute(), task.getLinkType(), task.getLinkInstances(), task.getParent());
-         return functionTask;
-      }
+      tasks.forEach((parameter, functionTask) -> parameter.getSources().forEach(source -> {
+         FunctionTask sourceTask = tasks.get(source.getParameter());
+         if (sourceTask != null) {
+            functionTask.addSource(sourceTask, source.getRow());
+         }
+      }));
 
-      return null;
+      return task;
    }
 
    private Attribute findAttributeInCollection(Collection collection, String attributeId) {
@@ -271,12 +355,14 @@ public class FunctionFacade extends AbstractFacade {
 
    public void onDeleteCollectionFunction(String collectionId, String attributeId) {
       functionDao.deleteByCollection(collectionId, attributeId);
+      functionGraphCache.update(getProjectId(), graph -> graph.removeByResource(FunctionResourceType.COLLECTION, collectionId, attributeId));
    }
 
    public FunctionTask createTaskForCreatedLinkFunction(LinkType linkType, Attribute attribute) {
       List<FunctionRow> functionRows = createLinkRowsFromXml(linkType, attribute);
       if (!functionRows.isEmpty()) {
          functionDao.createRows(functionRows);
+         functionGraphCache.update(getProjectId(), graph -> graph.addRows(functionRows));
       }
 
       Deque<FunctionParameterDocuments> queue = createQueueForLinkType(linkType, attribute, functionRows);
@@ -315,6 +401,7 @@ public class FunctionFacade extends AbstractFacade {
 
    public void onDeleteLinkTypeFunction(String collectionId, String attributeId) {
       functionDao.deleteByLinkType(collectionId, attributeId);
+      functionGraphCache.update(getProjectId(), graph -> graph.removeByResource(FunctionResourceType.LINK, collectionId, attributeId));
    }
 
    public FunctionTask createTaskForCreatedDocument(Collection collection, Document document) {
@@ -334,7 +421,7 @@ public class FunctionFacade extends AbstractFacade {
             parameter.setCollection(collection);
             parameter.setAttribute(attribute);
 
-            List<FunctionRow> functionRows = functionDao.searchByResource(collection.getId(), attribute.getId(), FunctionResourceType.COLLECTION);
+            List<FunctionRow> functionRows = getGraph().searchByResource(collection.getId(), attribute.getId(), FunctionResourceType.COLLECTION);
             parametersMap.put(parameter, functionRows.stream().map(this::functionRowToParameter).collect(Collectors.toList()));
             fillParametersMapForCollection(parametersMap, parameter);
          }
@@ -348,18 +435,29 @@ public class FunctionFacade extends AbstractFacade {
    }
 
    public FunctionTask createTaskForUpdateDocument(Collection collection, Document originalDocument, Document newDocument) {
-      if (originalDocument == null || newDocument == null) {
-         return null;
-      }
-      String documentId = originalDocument.getId();
-      DataDocument oldData = originalDocument.getData();
-      DataDocument newData = newDocument.getData();
-      List<String> changedAttributeIds = getChangedAttributesIds(collection.getAttributes(), oldData, newData);
-      if (changedAttributeIds.isEmpty()) {
+      return createTaskForUpdatedDocuments(collection, Collections.singletonList(new UpdateDocument(newDocument, originalDocument)));
+   }
+
+   /**
+    * Creates a single task for all the updated documents of the collection. Each affected function is computed once
+    * for all the documents whose referenced attributes changed.
+    */
+   public FunctionTask createTaskForUpdatedDocuments(Collection collection, List<UpdateDocument> updates) {
+      Map<String, Set<String>> documentIdsByAttribute = new HashMap<>();
+      updates.forEach(update -> {
+         if (update.getOriginalDocument() != null && update.getDocument() != null) {
+            addChangedAttributesIds(documentIdsByAttribute, collection.getAttributes(), update.getOriginalDocument().getData(), update.getDocument().getData(), update.getOriginalDocument().getId());
+         }
+      });
+      if (documentIdsByAttribute.isEmpty()) {
          return null;
       }
 
-      return convertQueueToTask(createQueueForDocumentChanged(collection.getId(), changedAttributeIds, documentId));
+      return convertQueueToTask(createQueueForDocumentsChanged(collection.getId(), documentIdsByAttribute));
+   }
+
+   private void addChangedAttributesIds(Map<String, Set<String>> idsByAttribute, java.util.Collection<Attribute> attributes, DataDocument oldData, DataDocument newData, String id) {
+      getChangedAttributesIds(attributes, oldData, newData).forEach(attributeId -> idsByAttribute.computeIfAbsent(attributeId, key -> new HashSet<>()).add(id));
    }
 
    private List<String> getChangedAttributesIds(java.util.Collection<Attribute> attributes, DataDocument oldData, DataDocument newData) {
@@ -375,31 +473,23 @@ public class FunctionFacade extends AbstractFacade {
    }
 
    public Deque<FunctionParameterDocuments> createQueueForDocumentChanged(String collectionId, List<String> attributeIds, String documentId) {
+      return createQueueForDocumentsChanged(collectionId, attributeIds.stream().collect(Collectors.toMap(attributeId -> attributeId, attributeId -> Collections.singleton(documentId))));
+   }
+
+   private Deque<FunctionParameterDocuments> createQueueForDocumentsChanged(String collectionId, Map<String, Set<String>> documentIdsByAttribute) {
       Map<FunctionParameterDocuments, List<FunctionParameterDocuments>> parametersMap = new HashMap<>();
 
-      attributeIds.forEach(attributeId -> {
+      documentIdsByAttribute.forEach((attributeId, documentIds) -> {
 
-         List<FunctionRow> functionRows = functionDao.searchByDependentCollection(collectionId, attributeId);
+         List<FunctionRow> functionRows = getGraph().searchByDependentCollection(collectionId, attributeId);
 
          functionRows.forEach(row -> {
             FunctionParameterDocuments parameter = new FunctionParameterDocuments(row.getType(), row.getResourceId(), row.getAttributeId());
-            List<FunctionRow> rows = functionDao.searchByResource(row.getResourceId(), row.getAttributeId(), row.getType());
-            if (!parametersMap.containsKey(parameter)) {
-               if (row.getType() == FunctionResourceType.COLLECTION) {
-                  Set<Document> documents = findDocumentsForRow(row, Collections.singleton(documentId));
-                  if (!documents.isEmpty()) {
-                     parameter.setDocuments(documents);
-                     parametersMap.put(parameter, rows.stream().map(this::functionRowToParameter).collect(Collectors.toList()));
-                     fillParametersMapForCollection(parametersMap, parameter);
-                  }
-               } else {
-                  Set<LinkInstance> linkInstances = new HashSet<>(linkInstanceDao.getLinkInstancesByDocumentIds(Collections.singleton(documentId), row.getDependentLinkTypeId()));
-                  if (!linkInstances.isEmpty()) {
-                     parameter.setLinkInstances(linkInstances);
-                     parametersMap.put(parameter, rows.stream().map(this::functionRowToParameter).collect(Collectors.toList()));
-                     fillParametersMapForLinkType(parametersMap, parameter);
-                  }
-               }
+            List<FunctionRow> rows = getGraph().searchByResource(row.getResourceId(), row.getAttributeId(), row.getType());
+            if (row.getType() == FunctionResourceType.COLLECTION) {
+               addParameterDocuments(parametersMap, parameter, rows, findDocumentsForRow(row, documentIds));
+            } else {
+               addParameterLinkInstances(parametersMap, parameter, rows, new HashSet<>(linkInstanceDao.getLinkInstancesByDocumentIds(documentIds, row.getDependentLinkTypeId())));
             }
          });
 
@@ -408,10 +498,57 @@ public class FunctionFacade extends AbstractFacade {
       return orderFunctions(parametersMap);
    }
 
+   /**
+    * Adds the documents to the function, which is added to the map together with its dependent functions when it is not
+    * there yet. Otherwise the documents are joined with the ones the function already has.
+    */
+   private void addParameterDocuments(Map<FunctionParameterDocuments, List<FunctionParameterDocuments>> parametersMap, FunctionParameterDocuments parameter, List<FunctionRow> rows, Set<Document> documents) {
+      if (documents.isEmpty()) {
+         return;
+      }
+
+      FunctionParameterDocuments existing = findParameter(parametersMap, parameter);
+      if (existing != null) {
+         Set<Document> joinedDocuments = existing.getDocuments() != null ? new HashSet<>(existing.getDocuments()) : new HashSet<>();
+         joinedDocuments.addAll(documents);
+         existing.setDocuments(joinedDocuments);
+         return;
+      }
+
+      parameter.setDocuments(documents);
+      parametersMap.put(parameter, rows.stream().map(this::functionRowToParameter).collect(Collectors.toList()));
+      fillParametersMapForCollection(parametersMap, parameter);
+   }
+
+   private void addParameterLinkInstances(Map<FunctionParameterDocuments, List<FunctionParameterDocuments>> parametersMap, FunctionParameterDocuments parameter, List<FunctionRow> rows, Set<LinkInstance> linkInstances) {
+      if (linkInstances.isEmpty()) {
+         return;
+      }
+
+      FunctionParameterDocuments existing = findParameter(parametersMap, parameter);
+      if (existing != null) {
+         Set<LinkInstance> joinedLinkInstances = existing.getLinkInstances() != null ? new HashSet<>(existing.getLinkInstances()) : new HashSet<>();
+         joinedLinkInstances.addAll(linkInstances);
+         existing.setLinkInstances(joinedLinkInstances);
+         return;
+      }
+
+      parameter.setLinkInstances(linkInstances);
+      parametersMap.put(parameter, rows.stream().map(this::functionRowToParameter).collect(Collectors.toList()));
+      fillParametersMapForLinkType(parametersMap, parameter);
+   }
+
    public FunctionTask createTaskForRemovedDocument(Collection collection, Document document) {
+      return createTaskForRemovedDocuments(collection, Collections.singletonList(document));
+   }
+
+   /**
+    * Creates a single task for all the removed documents of the collection.
+    */
+   public FunctionTask createTaskForRemovedDocuments(Collection collection, List<Document> documents) {
       Map<FunctionParameterDocuments, List<FunctionParameterDocuments>> parametersMap = new HashMap<>();
       FunctionParameterDocuments parameter = new FunctionParameterDocuments(FunctionResourceType.COLLECTION, collection.getId(), null);
-      parameter.setDocuments(Collections.singleton(document));
+      parameter.setDocuments(new HashSet<>(documents));
 
       fillParametersMapForCollection(parametersMap, parameter);
 
@@ -435,26 +572,27 @@ public class FunctionFacade extends AbstractFacade {
             parameter.setLinkType(linkType);
             parameter.setAttribute(attribute);
 
-            List<FunctionRow> functionRows = functionDao.searchByResource(linkType.getId(), attribute.getId(), FunctionResourceType.LINK);
+            List<FunctionRow> functionRows = getGraph().searchByResource(linkType.getId(), attribute.getId(), FunctionResourceType.LINK);
             parametersMap.put(parameter, functionRows.stream().map(this::functionRowToParameter).collect(Collectors.toList()));
             fillParametersMapForLinkType(parametersMap, parameter);
          }
       });
 
-      fillParametersMapForDependentLinkType(parametersMap, linkType, linkInstance, Collections.emptyList());
+      fillParametersMapForDependentLinkType(parametersMap, linkType, Collections.singleton(linkInstance), Collections.emptyList());
 
       return orderFunctions(parametersMap);
    }
 
-   private void fillParametersMapForDependentLinkType(Map<FunctionParameterDocuments, List<FunctionParameterDocuments>> parametersMap, LinkType linkType, LinkInstance linkInstance, List<Document> additionalDocuments) {
-      List<FunctionRow> dependentRows = functionDao.searchByDependentLinkType(linkType.getId(), null);
+   private void fillParametersMapForDependentLinkType(Map<FunctionParameterDocuments, List<FunctionParameterDocuments>> parametersMap, LinkType linkType, Set<LinkInstance> linkInstances, List<Document> additionalDocuments) {
+      Set<String> linkInstanceIds = linkInstances.stream().map(LinkInstance::getId).collect(Collectors.toSet());
+      List<FunctionRow> dependentRows = getGraph().searchByDependentLinkType(linkType.getId(), null);
       dependentRows.forEach(row -> {
          FunctionParameterDocuments parameter = new FunctionParameterDocuments(row.getType(), row.getResourceId(), row.getAttributeId());
-         List<FunctionRow> rows = functionDao.searchByResource(row.getResourceId(), row.getAttributeId(), row.getType());
+         List<FunctionRow> rows = getGraph().searchByResource(row.getResourceId(), row.getAttributeId(), row.getType());
 
          if (!parametersMap.containsKey(parameter)) {
             if (row.getType() == FunctionResourceType.COLLECTION) {
-               Set<Document> documents = findDocumentsForRowByLinkInstances(row, Collections.singleton(linkInstance.getId()));
+               Set<Document> documents = findDocumentsForRowByLinkInstances(row, linkInstanceIds);
                documents.addAll(additionalDocuments.stream().filter(doc -> doc.getCollectionId().equals(row.getResourceId())).collect(Collectors.toList()));
                if (!documents.isEmpty()) {
                   parameter.setDocuments(documents);
@@ -462,7 +600,7 @@ public class FunctionFacade extends AbstractFacade {
                   fillParametersMapForCollection(parametersMap, parameter);
                }
             } else if (row.getDependentLinkTypeId() == null || row.getDependentLinkTypeId().equals(row.getResourceId())) {
-               parameter.setLinkInstances(Collections.singleton(linkInstance));
+               parameter.setLinkInstances(linkInstances);
                parametersMap.put(parameter, rows.stream().map(this::functionRowToParameter).collect(Collectors.toList()));
                fillParametersMapForLinkType(parametersMap, parameter);
             }
@@ -474,79 +612,87 @@ public class FunctionFacade extends AbstractFacade {
    }
 
    public FunctionTask creatTaskForChangedLink(LinkType linkType, LinkInstance oldLinkInstance, LinkInstance newLinkInstance) {
-      if (oldLinkInstance == null || newLinkInstance == null) {
-         return null;
-      }
-      String linkInstanceId = oldLinkInstance.getId();
-      List<String> changedAttributeIds = getChangedAttributesIds(linkType.getAttributes(), oldLinkInstance.getData(), newLinkInstance.getData());
-      if (changedAttributeIds.isEmpty()) {
+      return createTaskForChangedLinks(linkType, Collections.singletonList(new UpdateLinkInstance(newLinkInstance, oldLinkInstance)));
+   }
+
+   /**
+    * Creates a single task for all the updated link instances of the link type. Each affected function is computed once
+    * for all the link instances whose referenced attributes changed.
+    */
+   public FunctionTask createTaskForChangedLinks(LinkType linkType, List<UpdateLinkInstance> updates) {
+      Map<String, Set<String>> linkInstanceIdsByAttribute = new HashMap<>();
+      updates.forEach(update -> {
+         if (update.getOriginalLinkInstance() != null && update.getLinkInstance() != null) {
+            addChangedAttributesIds(linkInstanceIdsByAttribute, linkType.getAttributes(), update.getOriginalLinkInstance().getData(), update.getLinkInstance().getData(), update.getOriginalLinkInstance().getId());
+         }
+      });
+      if (linkInstanceIdsByAttribute.isEmpty()) {
          return null;
       }
 
-      return convertQueueToTask(createQueueForLinkChanged(linkType.getId(), changedAttributeIds, linkInstanceId));
+      return convertQueueToTask(createQueueForLinksChanged(linkType.getId(), linkInstanceIdsByAttribute));
    }
 
    public Deque<FunctionParameterDocuments> createQueueForLinkChanged(String linkTypeId, List<String> attributeIds, String linkInstanceId) {
-      Map<FunctionParameterDocuments, List<FunctionParameterDocuments>> parametersMap = new HashMap<>();
-      fillParametersMapForLinkChanged(parametersMap, linkTypeId, attributeIds, linkInstanceId);
-      return orderFunctions(parametersMap);
+      return createQueueForLinksChanged(linkTypeId, attributeIds.stream().collect(Collectors.toMap(attributeId -> attributeId, attributeId -> Collections.singleton(linkInstanceId))));
    }
 
-   private void fillParametersMapForLinkChanged(Map<FunctionParameterDocuments, List<FunctionParameterDocuments>> parametersMap, String linkTypeId, List<String> attributeIds, String linkInstanceId) {
-      attributeIds.forEach(attributeId -> {
-         List<FunctionRow> functionRows = functionDao.searchByDependentLinkType(linkTypeId, attributeId);
+   private Deque<FunctionParameterDocuments> createQueueForLinksChanged(String linkTypeId, Map<String, Set<String>> linkInstanceIdsByAttribute) {
+      Map<FunctionParameterDocuments, List<FunctionParameterDocuments>> parametersMap = new HashMap<>();
+
+      linkInstanceIdsByAttribute.forEach((attributeId, linkInstanceIds) -> {
+         List<FunctionRow> functionRows = getGraph().searchByDependentLinkType(linkTypeId, attributeId);
 
          functionRows.forEach(row -> {
             FunctionParameterDocuments parameter = new FunctionParameterDocuments(row.getType(), row.getResourceId(), row.getAttributeId());
-            List<FunctionRow> rows = functionDao.searchByResource(row.getResourceId(), row.getAttributeId(), row.getType());
-            if (!parametersMap.containsKey(parameter)) {
-               if (row.getType() == FunctionResourceType.COLLECTION) {
-                  Set<Document> documents = findDocumentsForRowByLinkInstances(row, Collections.singleton(linkInstanceId));
-                  if (!documents.isEmpty()) {
-                     parameter.setDocuments(documents);
-                     parametersMap.put(parameter, rows.stream().map(this::functionRowToParameter).collect(Collectors.toList()));
-                     fillParametersMapForCollection(parametersMap, parameter);
-                  }
-               } else if (row.getDependentLinkTypeId() == null || row.getDependentLinkTypeId().equals(row.getResourceId())) {
-                  parameter.setLinkInstances(Collections.singleton(linkInstanceDao.getLinkInstance(linkInstanceId)));
-                  parametersMap.put(parameter, rows.stream().map(this::functionRowToParameter).collect(Collectors.toList()));
-                  fillParametersMapForLinkType(parametersMap, parameter);
-               }
-
-               fillParametersMapForLinkType(parametersMap, parameter);
+            List<FunctionRow> rows = getGraph().searchByResource(row.getResourceId(), row.getAttributeId(), row.getType());
+            if (row.getType() == FunctionResourceType.COLLECTION) {
+               addParameterDocuments(parametersMap, parameter, rows, findDocumentsForRowByLinkInstances(row, linkInstanceIds));
+            } else if (row.getDependentLinkTypeId() == null || row.getDependentLinkTypeId().equals(row.getResourceId())) {
+               addParameterLinkInstances(parametersMap, parameter, rows, new HashSet<>(linkInstanceDao.getLinkInstances(linkInstanceIds)));
             }
          });
       });
+
+      return orderFunctions(parametersMap);
    }
 
    public FunctionTask createTaskForRemovedLink(LinkType linkType, LinkInstance linkInstance) {
+      return createTaskForRemovedLinks(linkType, Collections.singletonList(linkInstance));
+   }
+
+   /**
+    * Creates a single task for all the removed link instances of the link type.
+    */
+   public FunctionTask createTaskForRemovedLinks(LinkType linkType, List<LinkInstance> linkInstances) {
       Map<FunctionParameterDocuments, List<FunctionParameterDocuments>> parametersMap = new HashMap<>();
-      List<Document> documentsByIds = documentDao.getDocumentsByIds(linkInstance.getDocumentIds().toArray(new String[0]));
-      fillParametersMapForDependentLinkType(parametersMap, linkType, linkInstance, documentsByIds);
+      String[] documentIds = linkInstances.stream().flatMap(linkInstance -> linkInstance.getDocumentIds().stream()).distinct().toArray(String[]::new);
+      List<Document> documentsByIds = documentIds.length > 0 ? documentDao.getDocumentsByIds(documentIds) : Collections.emptyList();
+      fillParametersMapForDependentLinkType(parametersMap, linkType, new HashSet<>(linkInstances), documentsByIds);
 
       return convertQueueToTask(orderFunctions(parametersMap));
    }
 
    public void onDeleteCollection(String collectionId) {
-      List<FunctionRow> functionRows = functionDao.searchByAnyCollection(collectionId, null);
+      List<FunctionRow> functionRows = getGraph().searchByAnyCollection(collectionId, null);
 
       deleteByRows(FunctionResourceType.COLLECTION, functionRows);
    }
 
    public void onDeleteLinkType(String linkTypeId) {
-      List<FunctionRow> functionRows = functionDao.searchByAnyLinkType(linkTypeId, null);
+      List<FunctionRow> functionRows = getGraph().searchByAnyLinkType(linkTypeId, null);
 
       deleteByRows(FunctionResourceType.LINK, functionRows);
    }
 
    public void onDeleteCollectionAttribute(String collectionId, String attributeId) {
-      List<FunctionRow> functionRows = functionDao.searchByAnyCollection(collectionId, attributeId);
+      List<FunctionRow> functionRows = getGraph().searchByAnyCollection(collectionId, attributeId);
 
       deleteByRows(FunctionResourceType.COLLECTION, functionRows);
    }
 
    public void onDeleteLinkAttribute(String linkTypeId, String attributeId) {
-      List<FunctionRow> functionRows = functionDao.searchByAnyLinkType(linkTypeId, attributeId);
+      List<FunctionRow> functionRows = getGraph().searchByAnyLinkType(linkTypeId, attributeId);
 
       deleteByRows(FunctionResourceType.LINK, functionRows);
    }
@@ -554,6 +700,7 @@ public class FunctionFacade extends AbstractFacade {
    private void deleteByRows(FunctionResourceType type, List<FunctionRow> functionRows) {
       String[] resourceIdsToDelete = functionRows.stream().map(FunctionRow::getResourceId).toArray(String[]::new);
       functionDao.deleteByResources(type, resourceIdsToDelete);
+      functionGraphCache.update(getProjectId(), graph -> graph.removeByResources(type, resourceIdsToDelete));
    }
 
    private Set<Document> findDocumentsForRow(FunctionRow row, Set<String> documentIds) {
@@ -591,11 +738,20 @@ public class FunctionFacade extends AbstractFacade {
       private Collection collection;
       private LinkType linkType;
       private Attribute attribute;
+      private final List<FunctionSource> sources = new ArrayList<>();
 
       public FunctionParameterDocuments(final FunctionResourceType type, final String resourceId, final String attributeId) {
          super(type, resourceId, attributeId);
       }
 
+      public List<FunctionSource> getSources() {
+         return sources;
+      }
+
+      public void addSource(final FunctionParameterDocuments parameter, final FunctionRow row) {
+         sources.add(new FunctionSource(parameter, row));
+      }
+
       public Set<Document> getDocuments() {
          return documents;
       }
@@ -636,4 +792,23 @@ public class FunctionFacade extends AbstractFacade {
          this.attribute = attribute;
       }
    }
-}
\ No newline at end of file
+
+   static class FunctionSource {
+
+      private final FunctionParameterDocuments parameter;
+      private final FunctionRow row;
+
+      FunctionSource(final FunctionParameterDocuments parameter, final FunctionRow row) {
+         this.parameter = parameter;
+         this.row = row;
+      }
+
+      public FunctionParameterDocuments getParameter() {
+         return parameter;
+      }
+
+      public FunctionRow getRow() {
+         return row;
+      }
+   }
+}
@@ -25,7 +25,6 @@ import io.lumeer.core.client.mapquest.MapQuestClient;
 import io.lumeer.core.client.opensearch.OpenSearchResult;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -50,10 +49,9 @@ public class GeoCodingFacade {
       var unresolvedQueries = filterUnresolvedQueries(queries, coordinatesMap);
 
       if (unresolvedQueries.size() > 0) {
-         getFreshCoordinates(unresolvedQueries).forEach((query, coordinates) -> {
-            geoCodingCache.updateQueryCoordinates(query, coordinates);
-            coordinatesMap.put(query, coordinates);
-         });
+         var freshCoordinates = getFreshCoordinates(unresolvedQueries);
+         geoCodingCache.updateQueryCoordinates(freshCoordinates);
+         coordinatesMap.putAll(freshCoordinates);
       }
 
       return coordinatesMap;
@@ -118,17 +116,7 @@ public class GeoCodingFacade {
    }
 
    private Map<String, Coordinates> getFreshCoordinates(final Set<String> queries) {
-      var response = mapQuestClient.batchGeoCode(queries);
-      if (response == null) {
-         return Collections.emptyMap();
-      }
-
-      return response.getResults().stream()
-                     .filter(result -> result.getLocations().size() > 0)
-                     .collect(Collectors.toMap(result -> result.getProvidedLocation().getLocation(), result -> {
-                        var latLng = result.getLocations().get(0).getLatLng();
-                        return new Coordinates(latLng.getLat(), latLng.getLng());
-                     }));
+      return mapQuestClient.findCoordinates(queries);
    }
 
 }
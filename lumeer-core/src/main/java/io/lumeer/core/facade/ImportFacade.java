@@ -20,62 +20,112 @@ package io.lumeer.core.facade;
 
 import io.lumeer.api.model.Attribute;
 import io.lumeer.api.model.Collection;
+import io.lumeer.api.model.Constraint;
+import io.lumeer.api.model.ConstraintType;
 import io.lumeer.api.model.Document;
 import io.lumeer.api.model.ImportedCollection;
 import io.lumeer.core.auth.PermissionsChecker;
+import io.lumeer.core.constraint.ConstraintCodec;
+import io.lumeer.core.constraint.ConstraintManager;
+import io.lumeer.core.facade.configuration.DefaultConfigurationProducer;
+import io.lumeer.core.task.ChunkPipeline;
 import io.lumeer.engine.api.data.DataDocument;
+import io.lumeer.engine.api.event.ImportCollectionContent;
 import io.lumeer.storage.api.dao.CollectionDao;
-import io.lumeer.storage.api.dao.DataDao;
-import io.lumeer.storage.api.dao.DocumentDao;
+import io.lumeer.storage.api.dao.DocumentCounterDao;
+import io.lumeer.storage.api.dao.context.DaoContextSnapshot;
+import io.lumeer.storage.api.dao.context.DaoContextSnapshotFactory;
 
 import com.univocity.parsers.csv.CsvParser;
 import com.univocity.parsers.csv.CsvParserSettings;
 
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import javax.annotation.PostConstruct;
+import javax.enterprise.concurrent.ManagedExecutorService;
 import javax.enterprise.context.RequestScoped;
+import javax.enterprise.event.Event;
 import javax.inject.Inject;
 
+/**
+ * Imports documents from files.
+ *
+ * The file is parsed in the request thread while the parsed rows are encoded and stored in chunks by the helpers of a
+ * {@link ChunkPipeline}, so only a few chunks of the file are held in memory at any time. The helpers run out of the
+ * request scope and use Dao objects created from a snapshot of the current workspace.
+ */
 @RequestScoped
 public class ImportFacade extends AbstractFacade {
 
    public static final String FORMAT_CSV = "csv";
 
-   private static final int MAX_PARSED_DOCUMENTS = 1000;
+   private static final int DEFAULT_CHUNK_SIZE = 1000;
+   private static final int DEFAULT_PARALLELISM = 1;
+
+   // number of leading rows used to guess the attribute constraints
+   private static final int SAMPLE_SIZE = 100;
 
    @Inject
    private CollectionFacade collectionFacade;
 
    @Inject
-   private DocumentFacade documentFacade;
+   private CollectionDao collectionDao;
 
    @Inject
-   private CollectionDao collectionDao;
+   private DocumentCounterDao documentCounterDao;
+
+   @Inject
+   private PermissionsChecker permissionsChecker;
 
    @Inject
-   private DocumentDao documentDao;
+   private DaoContextSnapshotFactory daoContextSnapshotFactory;
 
    @Inject
-   private DataDao dataDao;
+   private ManagedExecutorService managedExecutorService;
 
    @Inject
-   private PermissionsChecker permissionsChecker;
+   private DefaultConfigurationProducer configurationProducer;
+
+   @Inject
+   private Event<ImportCollectionContent> importCollectionContentEvent;
+
+   private ConstraintManager constraintManager;
+
+   @PostConstruct
+   public void init() {
+      constraintManager = ConstraintManager.getInstance(configurationProducer);
+   }
 
    public Collection importDocuments(String format, ImportedCollection importedCollection) {
-      Collection collectionToCreate = importedCollection.getCollection();
+      final String data = importedCollection.getData();
+      return importDocuments(format, importedCollection.getCollection(), data != null && !data.trim().isEmpty() ? new StringReader(data) : null);
+   }
+
+   public Collection importDocuments(String format, Collection collection, InputStream data) {
+      return importDocuments(format, collection, data != null ? new InputStreamReader(data, StandardCharsets.UTF_8) : null);
+   }
+
+   private Collection importDocuments(String format, Collection collectionToCreate, Reader data) {
       collectionToCreate.setName(generateCollectionName(collectionToCreate.getName()));
       Collection collection = collectionFacade.createCollection(collectionToCreate);
 
       switch (format.toLowerCase()) {
          case FORMAT_CSV:
-            parseCSVFile(collection, importedCollection.getData());
+            parseCSVFile(collection, data);
             break;
       }
 
@@ -98,8 +148,8 @@ public class ImportFacade extends AbstractFacade {
       return nameWithSuffix;
    }
 
-   private void parseCSVFile(Collection collection, String data) {
-      if (data == null || data.trim().isEmpty()) {
+   private void parseCSVFile(Collection collection, Reader data) {
+      if (data == null) {
          return;
       }
       CsvParserSettings settings = new CsvParserSettings();
@@ -107,68 +157,166 @@ public class ImportFacade extends AbstractFacade {
       settings.setHeaderExtractionEnabled(true);
 
       CsvParser parser = new CsvParser(settings);
-      parser.beginParsing(new StringReader(data));
+      parser.beginParsing(data);
 
-      String[] headers = Arrays.stream(parser.getRecordMetadata().headers())
-                               .filter(Objects::nonNull)
-                               .toArray(String[]::new);
+      try {
+         String[] parsedHeaders = parser.getRecordMetadata().headers();
+         if (parsedHeaders == null) {
+            return;
+         }
 
-      if (headers.length == 0) {
-         return;
-      }
+         String[] headers = Arrays.stream(parsedHeaders)
+                                  .filter(Objects::nonNull)
+                                  .toArray(String[]::new);
 
-      List<Attribute> createdAttributes = createAttributes(collection.getId(), headers);
-      collection.setAttributes(new HashSet<>(createdAttributes));
-      collection.setLastAttributeNum(collection.getLastAttributeNum() + createdAttributes.size());
-      String[] headerIds = createdAttributes.stream().map(Attribute::getId).toArray(String[]::new);
+         if (headers.length == 0) {
+            return;
+         }
 
-      int[] counts = new int[headers.length];
+         List<String[]> sample = new ArrayList<>();
+         String[] row;
+         while (sample.size() < SAMPLE_SIZE && (row = parser.parseNext()) != null) {
+            sample.add(row);
+         }
 
-      int documentsCount = 0;
-      List<Document> documents = new ArrayList<>();
-      String[] row;
-      while ((row = parser.parseNext()) != null) {
-         Document d = createDocumentFromRow(headerIds, row, counts);
-         addDocumentMetadata(collection.getId(), d);
+         List<Attribute> createdAttributes = createAttributes(collection.getId(), headers, sample);
+         collection.setAttributes(new HashSet<>(createdAttributes));
+         collection.setLastAttributeNum(collection.getLastAttributeNum() + createdAttributes.size());
+         String[] headerIds = createdAttributes.stream().map(Attribute::getId).toArray(String[]::new);
 
-         documents.add(d);
+         importRows(collection, headerIds, sample.iterator(), parser);
+      } finally {
+         parser.stopParsing();
+      }
+   }
 
-         if (documents.size() >= MAX_PARSED_DOCUMENTS) {
-            addDocumentsToDb(collection.getId(), documents);
-            documents.clear();
+   private void importRows(Collection collection, String[] headerIds, Iterator<String[]> sample, CsvParser parser) {
+      final DaoContextSnapshot daoContextSnapshot = daoContextSnapshotFactory.getInstance();
+      final String projectId = workspaceKeeper.getProjectId();
+      final int chunkSize = configurationProducer.getInt(DefaultConfigurationProducer.IMPORT_CHUNK_SIZE, DEFAULT_CHUNK_SIZE);
+      final AtomicIntegerArray counts = new AtomicIntegerArray(headerIds.length);
+
+      final ChunkPipeline<Document> pipeline = new ChunkPipeline<>("import of " + collection.getName(), managedExecutorService,
+            configurationProducer.getInt(DefaultConfigurationProducer.IMPORT_PARALLELISM, DEFAULT_PARALLELISM),
+            documents -> addDocumentsToDb(daoContextSnapshot, projectId, collection, headerIds, counts, documents));
+
+      long submittedCount = 0;
+      try (pipeline) {
+         List<Document> documents = new ArrayList<>(chunkSize);
+         String[] row;
+         while ((row = sample.hasNext() ? sample.next() : parser.parseNext()) != null) {
+            Document d = createDocumentFromRow(headerIds, row);
+            addDocumentMetadata(collection.getId(), d);
+
+            documents.add(d);
+
+            if (documents.size() >= chunkSize) {
+               submittedCount = submitDocuments(pipeline, documents, submittedCount);
+               documents = new ArrayList<>(chunkSize);
+            }
          }
 
-         documentsCount++;
+         if (!documents.isEmpty()) {
+            submitDocuments(pipeline, documents, submittedCount);
+         }
       }
 
-      if (!documents.isEmpty()) {
-         addDocumentsToDb(collection.getId(), documents);
-      }
+      setCollectionMetadata(collection, headerIds, counts, (int) pipeline.getProcessed());
 
-      parser.stopParsing();
+      if (pipeline.getProcessed() > 0 && importCollectionContentEvent != null) {
+         importCollectionContentEvent.fire(new ImportCollectionContent(collection));
+      }
+   }
 
-      addCollectionMetadata(collection, headerIds, counts, documentsCount);
+   private long submitDocuments(ChunkPipeline<Document> pipeline, List<Document> documents, long submittedCount) {
+      // the stored chunks are already counted in the project documents count, the ones still in the pipeline are not
+      permissionsChecker.checkDocumentLimits(submittedCount - pipeline.getProcessed() + documents.size());
+      pipeline.submit(documents);
+      return submittedCount + documents.size();
    }
 
-   private void addCollectionMetadata(Collection collection, String[] headersIds, int[] counts, int documentsCount) {
-      final Collection originalCollection = collection.copy();
+   private void setCollectionMetadata(Collection collection, String[] headersIds, AtomicIntegerArray counts, int documentsCount) {
+      // the stored collection got the usage chunk by chunk, only the returned one is updated here
       collection.getAttributes().forEach(attr -> {
          int index = Arrays.asList(headersIds).indexOf(attr.getId());
-         attr.setUsageCount(counts[index]);
+         attr.setUsageCount(counts.get(index));
       });
 
       collection.setDocumentsCount(documentsCount);
       collection.setLastTimeUsed(ZonedDateTime.now());
-      collectionDao.updateCollection(collection.getId(), collection, originalCollection);
    }
 
-   private List<Attribute> createAttributes(String collectionId, String[] headers) {
-      List<Attribute> attributes = Arrays.stream(headers).map(header -> new Attribute(header, header, null, null, 0)).collect(Collectors.toList());
+   private List<Attribute> createAttributes(String collectionId, String[] headers, List<String[]> sample) {
+      List<Attribute> attributes = new ArrayList<>();
+      for (int i = 0; i < headers.length; i++) {
+         attributes.add(new Attribute(headers[i], headers[i], inferConstraint(sample, i), null, 0));
+      }
       return new ArrayList<>(collectionFacade.createCollectionAttributes(collectionId, attributes));
    }
 
-   private void addDocumentsToDb(String collectionId, List<Document> documents) {
-      documentFacade.createDocuments(collectionId, documents, true);
+   /**
+    * Guesses the constraint of a column from the sampled rows. Only the types that can be told reliably from the
+    * values are recognized, all the non-empty values in the sample must match.
+    */
+   private Constraint inferConstraint(List<String[]> sample, int column) {
+      boolean empty = true;
+      boolean booleans = true;
+      boolean numbers = true;
+      boolean percentages = true;
+
+      for (String[] row : sample) {
+         if (column >= row.length || row[column] == null || row[column].trim().isEmpty()) {
+            continue;
+         }
+
+         final String value = row[column].trim();
+         empty = false;
+         booleans &= value.equalsIgnoreCase("true") || value.equalsIgnoreCase("false");
+         numbers &= constraintManager.encode(value) instanceof Number;
+         percentages &= value.endsWith("%") && constraintManager.encode(value.substring(0, value.length() - 1).trim()) instanceof Number;
+      }
+
+      if (empty) {
+         return null;
+      } else if (booleans) {
+         return new Constraint(ConstraintType.Boolean, new DataDocument());
+      } else if (numbers) {
+         return new Constraint(ConstraintType.Number, new DataDocument());
+      } else if (percentages) {
+         return new Constraint(ConstraintType.Percentage, new DataDocument());
+      }
+
+      return null;
+   }
+
+   private void addDocumentsToDb(DaoContextSnapshot daoContextSnapshot, String projectId, Collection collection, String[] headerIds, AtomicIntegerArray counts, List<Document> documents) {
+      final ConstraintCodec codec = constraintManager.getCodec(collection);
+      documents.forEach(document -> codec.encode(document.getData()));
+
+      final List<Document> storedDocuments = daoContextSnapshot.getDocumentDao().createDocuments(documents);
+      final List<DataDocument> documentsData = new ArrayList<>(storedDocuments.size());
+      for (int i = 0; i < storedDocuments.size(); i++) {
+         final DataDocument data = documents.get(i).getData();
+         data.setId(storedDocuments.get(i).getId());
+         documentsData.add(data);
+      }
+
+      daoContextSnapshot.getDataDao().createData(collection.getId(), documentsData);
+
+      final Map<String, Integer> attributesUsage = new HashMap<>();
+      documentsData.forEach(data -> {
+         for (int i = 0; i < headerIds.length; i++) {
+            if (data.containsKey(headerIds[i])) {
+               counts.incrementAndGet(i);
+               attributesUsage.merge(headerIds[i], 1, Integer::sum);
+            }
+         }
+      });
+
+      // the project counter is recomputed from the collections, so each stored chunk is counted there right away
+      // and the statistics stay right however the import ends
+      daoContextSnapshot.getCollectionDao().updateCollectionUsage(collection.getId(), attributesUsage, documentsData.size(), ZonedDateTime.now());
+      documentCounterDao.incrementDocumentsCount(projectId, documentsData.size());
    }
 
    private void addDocumentMetadata(String collectionId, Document document) {
@@ -177,13 +325,12 @@ public class ImportFacade extends AbstractFacade {
       document.setCreationDate(ZonedDateTime.now());
    }
 
-   private Document createDocumentFromRow(String[] headers, String[] row, int[] counts) {
+   private Document createDocumentFromRow(String[] headers, String[] row) {
       final DataDocument d = new DataDocument();
 
       for (int i = 0; i < Math.min(headers.length, row.length); i++) {
          if (row[i] != null) {
             d.append(headers[i], row[i]);
-            counts[i]++;
          }
       }
 
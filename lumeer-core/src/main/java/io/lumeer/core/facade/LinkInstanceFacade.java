@@ -27,13 +27,16 @@ import io.lumeer.api.model.LinkInstance;
 import io.lumeer.api.model.LinkType;
 import io.lumeer.api.model.Role;
 import io.lumeer.api.util.ResourceUtils;
+import io.lumeer.core.constraint.ConstraintCodec;
 import io.lumeer.core.constraint.ConstraintManager;
 import io.lumeer.core.exception.BadFormatException;
 import io.lumeer.core.facade.configuration.DefaultConfigurationProducer;
 import io.lumeer.engine.api.data.DataDocument;
 import io.lumeer.engine.api.event.CreateLinkInstance;
 import io.lumeer.engine.api.event.ImportLinkTypeContent;
+import io.lumeer.engine.api.event.RemoveLinkInstances;
 import io.lumeer.engine.api.event.UpdateLinkInstance;
+import io.lumeer.engine.api.event.UpdateLinkInstances;
 import io.lumeer.storage.api.dao.CollectionDao;
 import io.lumeer.storage.api.dao.DocumentDao;
 import io.lumeer.storage.api.dao.LinkDataDao;
@@ -81,6 +84,12 @@ public class LinkInstanceFacade extends AbstractFacade {
    @Inject
    private Event<UpdateLinkInstance> updateLinkInstanceEvent;
 
+   @Inject
+   private Event<UpdateLinkInstances> updateLinkInstancesEvent;
+
+   @Inject
+   private Event<RemoveLinkInstances> removeLinkInstancesEvent;
+
    @Inject
    private Event<ImportLinkTypeContent> importLinkTypeContentEvent;
 
@@ -232,6 +241,117 @@ public class LinkInstanceFacade extends AbstractFacade {
       return updatedLinkInstance;
    }
 
+   /**
+    * Patches data of multiple link instances of a single link type. The link instances are written by bulk operations
+    * and a single {@link UpdateLinkInstances} event is fired for the whole batch.
+    *
+    * @param linkInstances
+    *       Link instances with their ids and the attributes to set.
+    * @return Updated link instances.
+    */
+   public List<LinkInstance> patchLinkInstancesData(final List<LinkInstance> linkInstances) {
+      if (linkInstances.isEmpty()) {
+         return new ArrayList<>();
+      }
+
+      final Map<String, DataDocument> patches = new HashMap<>();
+      linkInstances.forEach(linkInstance -> {
+         final DataDocument patch = patches.computeIfAbsent(linkInstance.getId(), id -> new DataDocument());
+         if (linkInstance.getData() != null) {
+            patch.putAll(linkInstance.getData());
+         }
+      });
+
+      final List<LinkInstance> storedInstances = getLinkInstancesOfSingleLinkType(patches.keySet());
+      final LinkType linkType = checkLinkTypeWritePermissions(storedInstances.get(0).getLinkTypeId());
+
+      final ConstraintCodec codec = constraintManager.getCodec(linkType);
+      patches.values().forEach(codec::encode);
+
+      final Map<String, DataDocument> originalData = new HashMap<>();
+      linkDataDao.getData(linkType.getId(), patches.keySet()).forEach(data -> originalData.put(data.getId(), data));
+
+      final Map<String, Integer> usages = new HashMap<>();
+      patches.forEach((id, data) -> {
+         final DataDocument oldData = originalData.getOrDefault(id, new DataDocument());
+         data.keySet().stream().filter(key -> !oldData.containsKey(key)).forEach(key -> usages.merge(key, 1, Integer::sum));
+      });
+      if (!usages.isEmpty()) {
+         linkType.setAttributes(new ArrayList<>(ResourceUtils.incAttributes(linkType.getAttributes(), usages)));
+         linkTypeDao.updateLinkType(linkType.getId(), linkType, new LinkType(linkType));
+      }
+
+      final Map<String, DataDocument> patchedData = new HashMap<>();
+      linkDataDao.patchData(linkType.getId(), patches).forEach(data -> patchedData.put(data.getId(), data));
+
+      final Map<String, LinkInstance> originalLinkInstances = new HashMap<>();
+      storedInstances.forEach(linkInstance -> {
+         final LinkInstance originalLinkInstance = new LinkInstance(linkInstance);
+         originalLinkInstance.setData(originalData.getOrDefault(linkInstance.getId(), new DataDocument()));
+         originalLinkInstances.put(linkInstance.getId(), originalLinkInstance);
+
+         linkInstance.setData(patchedData.get(linkInstance.getId()));
+         linkInstance.setUpdateDate(ZonedDateTime.now());
+         linkInstance.setUpdatedBy(authenticatedUser.getCurrentUserId());
+      });
+
+      final List<LinkInstance> updatedInstances = linkInstanceDao.updateLinkInstances(storedInstances);
+      updatedInstances.forEach(linkInstance -> linkInstance.setData(patchedData.get(linkInstance.getId())));
+
+      if (updateLinkInstancesEvent != null) {
+         final List<UpdateLinkInstance> updates = updatedInstances.stream()
+                                                                  .map(linkInstance -> new UpdateLinkInstance(new LinkInstance(linkInstance), originalLinkInstances.get(linkInstance.getId())))
+                                                                  .collect(Collectors.toList());
+         updateLinkInstancesEvent.fire(new UpdateLinkInstances(linkType, updates));
+      }
+
+      updatedInstances.forEach(linkInstance -> codec.decode(linkInstance.getData()));
+
+      return updatedInstances;
+   }
+
+   /**
+    * Deletes multiple link instances of a single link type by bulk operations and fires a single
+    * {@link RemoveLinkInstances} event for the whole batch.
+    *
+    * @param ids
+    *       Ids of the link instances to delete.
+    */
+   public void deleteLinkInstances(final Set<String> ids) {
+      if (ids.isEmpty()) {
+         return;
+      }
+
+      final List<LinkInstance> storedInstances = getLinkInstancesOfSingleLinkType(ids);
+      final LinkType linkType = checkLinkTypeWritePermissions(storedInstances.get(0).getLinkTypeId());
+
+      linkInstanceDao.deleteLinkInstancesByIds(ids);
+      linkDataDao.deleteData(linkType.getId(), ids);
+
+      linkType.getAttributes().forEach(attribute -> {
+         if (attribute.getConstraint() != null && attribute.getConstraint().getType().equals(ConstraintType.FileAttachment)) {
+            ids.forEach(id -> fileAttachmentFacade.removeAllFileAttachments(linkType.getId(), id, attribute.getId(), FileAttachment.AttachmentType.LINK));
+         }
+      });
+
+      if (removeLinkInstancesEvent != null) {
+         removeLinkInstancesEvent.fire(new RemoveLinkInstances(linkType, storedInstances));
+      }
+   }
+
+   private List<LinkInstance> getLinkInstancesOfSingleLinkType(final Set<String> ids) {
+      final List<LinkInstance> linkInstances = linkInstanceDao.getLinkInstances(ids);
+      if (linkInstances.size() != ids.size()) {
+         throw new BadFormatException("Invalid link instance ids: " + ids);
+      }
+
+      if (linkInstances.stream().map(LinkInstance::getLinkTypeId).distinct().count() != 1) {
+         throw new BadFormatException("Cannot update link instances of multiple link types at once.");
+      }
+
+      return linkInstances;
+   }
+
    public void deleteLinkInstance(String id) {
       LinkInstance stored = linkInstanceDao.getLinkInstance(id);
       final LinkType linkType = checkLinkTypeWritePermissions(stored.getLinkTypeId());
@@ -208,7 +208,8 @@ public class OrganizationFacade extends AbstractFacade {
       groups.put(organizationId, new HashSet<>());
       currentUser.setGroups(groups);
 
-      userDao.updateUser(currentUser.getId(), currentUser);
+      User updatedUser = userDao.updateUser(currentUser.getId(), currentUser);
+      userCache.updateUser(updatedUser.getEmail(), updatedUser);
    }
 
    private void createOrganizationScopedRepositories(Organization organization) {
@@ -36,6 +36,7 @@ import io.lumeer.core.util.Utils;
 import io.lumeer.engine.api.data.DataDocument;
 import io.lumeer.storage.api.dao.CollectionDao;
 import io.lumeer.storage.api.dao.DataDao;
+import io.lumeer.storage.api.dao.DocumentCounterDao;
 import io.lumeer.storage.api.dao.DocumentDao;
 import io.lumeer.storage.api.dao.FavoriteItemDao;
 import io.lumeer.storage.api.dao.LinkDataDao;
@@ -93,6 +94,9 @@ public class ProjectFacade extends AbstractFacade {
    @Inject
    private FavoriteItemDao favoriteItemDao;
 
+   @Inject
+   private DocumentCounterDao documentCounterDao;
+
    @Inject
    private WorkspaceCache workspaceCache;
 
@@ -250,6 +254,7 @@ public class ProjectFacade extends AbstractFacade {
 
       favoriteItemDao.removeFavoriteCollectionsByProjectFromUsers(project.getId());
       favoriteItemDao.removeFavoriteDocumentsByProjectFromUsers(project.getId());
+      documentCounterDao.deleteDocumentsCount(project.getId());
    }
 
    private void checkOrganizationWriteRole() {
@@ -34,8 +34,10 @@ import io.lumeer.api.model.common.Resource;
 import io.lumeer.api.model.common.WithId;
 import io.lumeer.api.util.ResourceUtils;
 import io.lumeer.core.auth.RequestDataKeeper;
+import io.lumeer.core.constraint.ConstraintCodec;
 import io.lumeer.core.constraint.ConstraintManager;
 import io.lumeer.core.facade.configuration.DefaultConfigurationProducer;
+import io.lumeer.core.util.AsyncPusherClient;
 import io.lumeer.core.util.PusherClient;
 import io.lumeer.core.util.QueryUtils;
 import io.lumeer.engine.api.event.AddFavoriteItem;
@@ -46,11 +48,15 @@ import io.lumeer.engine.api.event.CreateOrUpdatePayment;
 import io.lumeer.engine.api.event.CreateOrUpdateUser;
 import io.lumeer.engine.api.event.CreateOrUpdateUserNotification;
 import io.lumeer.engine.api.event.CreateResource;
+import io.lumeer.engine.api.event.DocumentEvent;
 import io.lumeer.engine.api.event.FavoriteItem;
 import io.lumeer.engine.api.event.ImportResource;
+import io.lumeer.engine.api.event.LinkInstanceEvent;
 import io.lumeer.engine.api.event.RemoveDocument;
+import io.lumeer.engine.api.event.RemoveDocuments;
 import io.lumeer.engine.api.event.RemoveFavoriteItem;
 import io.lumeer.engine.api.event.RemoveLinkInstance;
+import io.lumeer.engine.api.event.RemoveLinkInstances;
 import io.lumeer.engine.api.event.RemoveLinkType;
 import io.lumeer.engine.api.event.RemoveResource;
 import io.lumeer.engine.api.event.RemoveUser;
@@ -58,7 +64,9 @@ import io.lumeer.engine.api.event.RemoveUserNotification;
 import io.lumeer.engine.api.event.TemplateCreated;
 import io.lumeer.engine.api.event.UpdateCompanyContact;
 import io.lumeer.engine.api.event.UpdateDocument;
+import io.lumeer.engine.api.event.UpdateDocuments;
 import io.lumeer.engine.api.event.UpdateLinkInstance;
+import io.lumeer.engine.api.event.UpdateLinkInstances;
 import io.lumeer.engine.api.event.UpdateLinkType;
 import io.lumeer.engine.api.event.UpdateResource;
 import io.lumeer.engine.api.event.UpdateServiceLimits;
@@ -86,6 +94,8 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.enterprise.concurrent.ManagedScheduledExecutorService;
 import javax.enterprise.context.ApplicationScoped;
 import javax.enterprise.event.Observes;
 import javax.inject.Inject;
@@ -142,6 +152,9 @@ public class PusherFacade extends AbstractFacade {
    @Inject
    private DefaultConfigurationProducer configurationProducer;
 
+   @Inject
+   private ManagedScheduledExecutorService scheduledExecutorService;
+
    private ConstraintManager constraintManager;
 
    @PostConstruct
@@ -154,10 +167,35 @@ public class PusherFacade extends AbstractFacade {
       PUSHER_CLUSTER = Optional.ofNullable(configurationProducer.get(DefaultConfigurationProducer.PUSHER_CLUSTER)).orElse("");
 
       if (PUSHER_SECRET != null && !"".equals(PUSHER_SECRET)) {
-         pusherClient = new PusherClient(PUSHER_APP_ID, PUSHER_KEY, PUSHER_SECRET, PUSHER_CLUSTER);
+         if (Boolean.parseBoolean(configurationProducer.get(DefaultConfigurationProducer.PUSHER_ASYNC))) {
+            final AsyncPusherClient asyncPusherClient = new AsyncPusherClient(PUSHER_APP_ID, PUSHER_KEY, PUSHER_SECRET, PUSHER_CLUSTER,
+                  configurationProducer.getInt(DefaultConfigurationProducer.PUSHER_QUEUE_SIZE, 10_000),
+                  configurationProducer.getInt(DefaultConfigurationProducer.PUSHER_COALESCE_MS, 200),
+                  configurationProducer.getInt(DefaultConfigurationProducer.PUSHER_SENDERS, 2));
+            asyncPusherClient.start(scheduledExecutorService);
+            pusherClient = asyncPusherClient;
+         } else {
+            pusherClient = new PusherClient(PUSHER_APP_ID, PUSHER_KEY, PUSHER_SECRET, PUSHER_CLUSTER);
+         }
       }
    }
 
+   @PreDestroy
+   public void close() {
+      if (pusherClient instanceof AsyncPusherClient) {
+         ((AsyncPusherClient) pusherClient).close();
+      }
+   }
+
+   /**
+    * Gets the push notification delivery counters.
+    *
+    * @return Delivery statistics or null when the notifications are sent synchronously.
+    */
+   public AsyncPusherClient.Statistics getDeliveryStatistics() {
+      return pusherClient instanceof AsyncPusherClient ? ((AsyncPusherClient) pusherClient).getStatistics() : null;
+   }
+
    public String getPusherAppId() {
       return PUSHER_APP_ID;
    }
@@ -591,6 +629,32 @@ public class PusherFacade extends AbstractFacade {
       }
    }
 
+   public void updateDocuments(@Observes final UpdateDocuments updateDocuments) {
+      documentsNotification(updateDocuments.getCollection(), updateDocuments.getUpdates().stream().map(DocumentEvent::getDocument).collect(Collectors.toList()), UPDATE_EVENT_SUFFIX);
+   }
+
+   public void removeDocuments(@Observes final RemoveDocuments removeDocuments) {
+      documentsNotification(removeDocuments.getCollection(), removeDocuments.getDocuments(), REMOVE_EVENT_SUFFIX);
+   }
+
+   private void documentsNotification(final Collection collection, final List<Document> documents, final String eventSuffix) {
+      if (isEnabled()) {
+         try {
+            final Set<String> userIds = collectionFacade.getUsersIdsWithAccess(collection);
+            final List<Event> notifications = new ArrayList<>();
+            final ConstraintCodec codec = constraintManager.getCodec(collection);
+            documents.forEach(document -> {
+               final Document decodedDocument = new Document(document);
+               codec.decode(decodedDocument.getData());
+               userIds.forEach(userId -> notifications.add(createEvent(decodedDocument, eventSuffix, userId)));
+            });
+            sendNotificationsBatch(notifications);
+         } catch (Exception e) {
+            log.log(Level.WARNING, "Unable to send push notification: ", e);
+         }
+      }
+   }
+
    public void createLinkInstance(@Observes final CreateLinkInstance createLinkInstance) {
       if (isEnabled()) {
          try {
@@ -738,6 +802,32 @@ public class PusherFacade extends AbstractFacade {
       }
    }
 
+   public void updateLinkInstances(@Observes final UpdateLinkInstances updateLinkInstances) {
+      linkInstancesNotification(updateLinkInstances.getLinkType(), updateLinkInstances.getUpdates().stream().map(LinkInstanceEvent::getLinkInstance).collect(Collectors.toList()), UPDATE_EVENT_SUFFIX);
+   }
+
+   public void removeLinkInstances(@Observes final RemoveLinkInstances removeLinkInstances) {
+      linkInstancesNotification(removeLinkInstances.getLinkType(), removeLinkInstances.getLinkInstances(), REMOVE_EVENT_SUFFIX);
+   }
+
+   private void linkInstancesNotification(final LinkType linkType, final List<LinkInstance> linkInstances, final String event) {
+      if (isEnabled()) {
+         try {
+            final Set<String> userIds = getUserIdsForLinkType(linkType);
+            final List<Event> notifications = new ArrayList<>();
+            final ConstraintCodec codec = constraintManager.getCodec(linkType);
+            linkInstances.forEach(linkInstance -> {
+               final LinkInstance decodedLinkInstance = new LinkInstance(linkInstance);
+               codec.decode(decodedLinkInstance.getData());
+               userIds.forEach(userId -> notifications.add(createEvent(decodedLinkInstance, event, userId)));
+            });
+            sendNotificationsBatch(notifications);
+         } catch (Exception e) {
+            log.log(Level.WARNING, "Unable to send push notification: ", e);
+         }
+      }
+   }
+
    private void sendNotificationByLinkType(final LinkInstance linkInstance, final String linkTypeId, final String event) {
       LinkType linkType = linkTypeFacade.getLinkType(linkTypeId);
       constraintManager.decodeDataTypes(linkType, linkInstance.getData());
@@ -24,11 +24,18 @@ import io.lumeer.api.model.LinkInstance;
 import io.lumeer.api.model.LinkType;
 import io.lumeer.api.model.Pagination;
 import io.lumeer.api.model.Query;
+import io.lumeer.api.model.QueryStem;
 import io.lumeer.api.model.Role;
 import io.lumeer.api.model.common.Resource;
 import io.lumeer.core.auth.AuthenticatedUserGroups;
+import io.lumeer.core.cache.WorkspaceCache;
+import io.lumeer.core.constraint.ConstraintCodec;
 import io.lumeer.core.constraint.ConstraintManager;
 import io.lumeer.core.facade.configuration.DefaultConfigurationProducer;
+import io.lumeer.core.task.QueryTimings;
+import io.lumeer.core.task.ConversionStage;
+import io.lumeer.core.task.SearchExecutor;
+import io.lumeer.core.util.ContinuationToken;
 import io.lumeer.engine.api.data.DataDocument;
 import io.lumeer.storage.api.dao.CollectionDao;
 import io.lumeer.storage.api.dao.DataDao;
@@ -36,6 +43,8 @@ import io.lumeer.storage.api.dao.DocumentDao;
 import io.lumeer.storage.api.dao.LinkDataDao;
 import io.lumeer.storage.api.dao.LinkInstanceDao;
 import io.lumeer.storage.api.dao.LinkTypeDao;
+import io.lumeer.storage.api.dao.context.DaoContextSnapshot;
+import io.lumeer.storage.api.dao.context.DaoContextSnapshotFactory;
 import io.lumeer.storage.api.filter.CollectionSearchAttributeFilter;
 import io.lumeer.storage.api.filter.LinkSearchAttributeFilter;
 import io.lumeer.storage.api.query.SearchQuery;
@@ -45,14 +54,20 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 import javax.annotation.PostConstruct;
 import javax.enterprise.context.RequestScoped;
 import javax.inject.Inject;
@@ -60,6 +75,8 @@ import javax.inject.Inject;
 @RequestScoped
 public class SearchFacade extends AbstractFacade {
 
+   private static final int STREAM_CHUNK_SIZE = 500;
+
    @Inject
    private CollectionDao collectionDao;
 
@@ -84,8 +101,27 @@ public class SearchFacade extends AbstractFacade {
    @Inject
    private DefaultConfigurationProducer configurationProducer;
 
+   @Inject
+   private SearchExecutor searchExecutor;
+
+   @Inject
+   private DaoContextSnapshotFactory daoContextSnapshotFactory;
+
+   @Inject
+   private WorkspaceCache workspaceCache;
+
    private ConstraintManager constraintManager;
 
+   @Inject
+   private ConversionStage conversionStage;
+
+   private QueryTimings queryTimings = new QueryTimings();
+
+   private ContinuationToken continuation;
+
+   // attributes to read for the individual collections and link types in the current search
+   private Map<String, Set<String>> projection = Collections.emptyMap();
+
    @PostConstruct
    public void init() {
       constraintManager = ConstraintManager.getInstance(configurationProducer);
@@ -94,10 +130,12 @@ public class SearchFacade extends AbstractFacade {
    public List<LinkInstance> getLinkInstances(Query query) {
       final Query encodedQuery = encodeQuery(query);
       final List<LinkType> linkTypes = getReadLinkTypes();
-      Map<String, LinkType> linkTypesMap = linkTypes.stream().collect(Collectors.toMap(LinkType::getId, l -> l));
 
       final List<LinkInstance> result;
 
+      continuation = createContinuation(encodedQuery);
+      projection = encodedQuery.getProjection();
+
       if (encodedQuery.isEmpty()) {
          result = new ArrayList<>(searchLinkInstancesByEmptyQuery(linkTypes));
       } else if (encodedQuery.containsStems()) {
@@ -106,7 +144,9 @@ public class SearchFacade extends AbstractFacade {
          result = new ArrayList<>(searchLinkInstancesByFulltexts(encodedQuery, linkTypes));
       }
 
-      result.forEach(linkInstance -> constraintManager.decodeDataTypes(linkTypesMap.get(linkInstance.getLinkTypeId()), linkInstance.getData()));
+      final Map<String, ConstraintCodec> codecs = linkTypes.stream().collect(Collectors.toMap(LinkType::getId, linkType -> constraintManager.getCodec(linkType)));
+      final ConstraintCodec defaultCodec = constraintManager.getCodec((LinkType) null);
+      conversionStage.forEach(result, linkInstance -> codecs.getOrDefault(linkInstance.getLinkTypeId(), defaultCodec).decode(linkInstance.getData()));
 
       return result;
    }
@@ -123,7 +163,7 @@ public class SearchFacade extends AbstractFacade {
       Map<String, DataDocument> allDataMap = new HashMap<>();
 
       for (Map.Entry<String, Set<String>> entry : linkInstancesIdsMap.entrySet()) {
-         Map<String, DataDocument> dataMap = linkDataDao.getData(entry.getKey(), entry.getValue()).stream()
+         Map<String, DataDocument> dataMap = linkDataDao.getData(entry.getKey(), entry.getValue(), projection.get(entry.getKey())).stream()
                                                         .collect(Collectors.toMap(DataDocument::getId, dataDocument -> dataDocument));
 
          allDataMap.putAll(dataMap);
@@ -135,16 +175,30 @@ public class SearchFacade extends AbstractFacade {
    }
 
    private java.util.Collection<LinkInstance> searchLinkInstancesByStems(Query query, List<LinkType> readLinkTypes) {
-      SearchQuery searchQuery = buildSearchQuery(encodeQuery(query));
+      final String key = "l";
+      if (continuation != null && continuation.isExhausted(key)) {
+         return Collections.emptySet();
+      }
+
+      SearchQuery searchQuery = buildSearchQuery(encodeQuery(query), continuation != null ? continuation.getPagination(key).getAfter() : null);
       Set<String> linkTypeIds = readLinkTypes.stream().map(LinkType::getId).collect(Collectors.toSet());
-      List<LinkInstance> linkInstances = linkInstanceDao.searchLinkInstances(searchQuery).stream()
-                                                        .filter(linkInstance -> linkTypeIds.contains(linkInstance.getLinkTypeId()))
-                                                        .collect(Collectors.toList());
+      List<LinkInstance> foundLinkInstances = linkInstanceDao.searchLinkInstances(searchQuery);
+      if (continuation != null) {
+         continuation.update(key, foundLinkInstances, LinkInstance::getId);
+      }
+
+      List<LinkInstance> linkInstances = foundLinkInstances.stream()
+                                                           .filter(linkInstance -> linkTypeIds.contains(linkInstance.getLinkTypeId()))
+                                                           .collect(Collectors.toList());
       return setDataForLinkInstances(linkInstances);
    }
 
    private java.util.Collection<LinkInstance> searchLinkInstancesByFulltexts(Query query, List<LinkType> linkTypes) {
-      List<DataDocument> data = linkDataDao.searchDataByFulltexts(query.getFulltexts(), query.getPagination(), linkTypes);
+      List<DataDocument> data = new ArrayList<>();
+      for (LinkType linkType : linkTypes) {
+         data.addAll(searchPage(linkType.getId(), query.getPagination(),
+               pagination -> linkDataDao.searchDataByFulltexts(query.getFulltexts(), pagination, Collections.singletonList(linkType))));
+      }
       return convertDataDocumentsToLinkInstances(data);
    }
 
@@ -159,9 +213,9 @@ public class SearchFacade extends AbstractFacade {
    private List<LinkType> getReadLinkTypes() {
       final Set<String> allowedCollectionIds = getReadCollections().stream().map(Resource::getId)
                                                                    .collect(Collectors.toSet());
-      return linkTypeDao.getAllLinkTypes().stream()
-                        .filter(lt -> allowedCollectionIds.containsAll(lt.getCollectionIds()))
-                        .collect(Collectors.toList());
+      return workspaceCache.getLinkTypes().stream()
+                           .filter(lt -> allowedCollectionIds.containsAll(lt.getCollectionIds()))
+                           .collect(Collectors.toList());
    }
 
    private Query encodeQuery(Query query) {
@@ -174,90 +228,299 @@ public class SearchFacade extends AbstractFacade {
    }
 
    private SearchQuery buildSearchQuery(Query query) {
+      return buildSearchQuery(query, null);
+   }
+
+   private SearchQuery buildSearchQuery(Query query, String after) {
       return SearchQuery.createBuilder(authenticatedUser.getCurrentUserId())
                         .groups(authenticatedUserGroups.getCurrentUserGroups())
                         .queryStems(query.getStems(), query.getFulltexts())
                         .page(query.getPage())
                         .pageSize(query.getPageSize())
+                        .after(after)
                         .build();
    }
 
+   private ContinuationToken createContinuation(Query query) {
+      return query.isKeysetPagination() ? ContinuationToken.decode(query.getPageSize(), query.getAfter()) : null;
+   }
+
+   /**
+    * Runs a single paginated query. With keyset pagination, the query continues from its position in the continuation
+    * token and the position is moved after the returned data.
+    */
+   private List<DataDocument> searchPage(String key, Pagination pagination, Function<Pagination, List<DataDocument>> search) {
+      if (continuation == null) {
+         return search.apply(pagination);
+      }
+      if (continuation.isExhausted(key)) {
+         return Collections.emptyList();
+      }
+
+      List<DataDocument> data = search.apply(continuation.getPagination(key));
+      continuation.update(key, data, DataDocument::getId);
+      return data;
+   }
+
+   /**
+    * Gets the token to request the next page of the last search in this request with keyset pagination.
+    *
+    * @return Continuation token, null when there are no more results or when keyset pagination was not requested.
+    */
+   public String getContinuationToken() {
+      return continuation != null ? continuation.encode() : null;
+   }
+
+   /**
+    * Gets durations of the database queries run by the last document search in this request.
+    *
+    * @return Query timings of the last search.
+    */
+   public QueryTimings getQueryTimings() {
+      return queryTimings;
+   }
+
    public List<Document> searchDocuments(final Query query) {
       final Query encodedQuery = encodeQuery(query);
       final List<Collection> collections = getReadCollections();
       final Map<String, Collection> collectionMap = collections.stream().collect(Collectors.toMap(Resource::getId, collection -> collection));
+      final SearchDaos daos = new SearchDaos(dataDao, documentDao, linkInstanceDao, linkDataDao);
+      final Supplier<SearchDaos> workerDaos = getWorkerDaos(daos);
       final List<Document> result;
 
+      queryTimings = new QueryTimings();
+      continuation = createContinuation(encodedQuery);
+      projection = encodedQuery.getProjection();
+
       if (encodedQuery.isEmpty()) {
-         result = new ArrayList<>(getChildDocuments(searchDocumentsByEmptyQuery(encodedQuery, collections)));
+         result = new ArrayList<>(getChildDocuments(daos, searchDocumentsByEmptyQuery(encodedQuery, collections, daos, workerDaos)));
       } else if (encodedQuery.containsStems()) {
-         result = new ArrayList<>(searchDocumentsByStems(encodedQuery, collections));
+         result = new ArrayList<>(searchDocumentsByStems(encodedQuery, collections, daos, workerDaos));
       } else {
-         result = new ArrayList<>(getChildDocuments(searchDocumentsByFulltexts(encodedQuery, collections)));
+         result = new ArrayList<>(getChildDocuments(daos, searchDocumentsByFulltexts(encodedQuery, collections, daos, workerDaos)));
       }
 
-      result.forEach(document -> constraintManager.decodeDataTypes(collectionMap.get(document.getCollectionId()), document.getData()));
+      final Map<String, ConstraintCodec> codecs = getCollectionCodecs(collectionMap);
+      final ConstraintCodec defaultCodec = constraintManager.getCodec((Collection) null);
+      conversionStage.forEach(result, document -> codecs.getOrDefault(document.getCollectionId(), defaultCodec).decode(document.getData()));
 
       return result;
    }
 
+   /**
+    * Searches documents like {@link #searchDocuments(Query)} but passes them to the consumer in chunks read from
+    * a database cursor, so the whole result is never held in memory. Queries with link stems, with several stems
+    * in the same collection or with fulltexts only are not streamed, their materialized result is passed to the consumer.
+    *
+    * @param query
+    *       Query to search by.
+    * @param consumer
+    *       Receives the found documents with decoded data, each document exactly once.
+    */
+   public void streamDocuments(final Query query, final Consumer<Document> consumer) {
+      final Query encodedQuery = encodeQuery(query);
+
+      if (!encodedQuery.isEmpty() && (!encodedQuery.containsStems() || !encodedQuery.getLinkTypeIds().isEmpty() || hasRepeatedCollections(encodedQuery))) {
+         searchDocuments(query).forEach(consumer);
+         return;
+      }
+
+      final List<Collection> collections = getReadCollections();
+      final Map<String, Collection> collectionMap = collections.stream().collect(Collectors.toMap(Resource::getId, collection -> collection));
+      final SearchDaos daos = new SearchDaos(dataDao, documentDao, linkInstanceDao, linkDataDao);
+      final Map<String, ConstraintCodec> codecs = getCollectionCodecs(collectionMap);
+      final ConstraintCodec defaultCodec = constraintManager.getCodec((Collection) null);
+      final Consumer<Document> emitter = document -> {
+         codecs.getOrDefault(document.getCollectionId(), defaultCodec).decode(document.getData());
+         consumer.accept(document);
+      };
+
+      queryTimings = new QueryTimings();
+      projection = encodedQuery.getProjection();
+
+      if (encodedQuery.isEmpty()) {
+         for (Collection collection : collections) {
+            SearchQueryStem stem = SearchQueryStem.createBuilder(collection.getId()).attributeIds(projection.get(collection.getId())).build();
+            streamStem(daos, stem, encodedQuery.getPagination(), collection, emitter);
+         }
+         return;
+      }
+
+      final SearchQuery searchQuery = buildSearchQuery(encodedQuery);
+      final Set<String> documentIds = encodedQuery.getDocumentsIds();
+      final List<Document> documents = !documentIds.isEmpty() ? documentDao.getDocumentsByIds(documentIds.toArray(new String[0])) : Collections.emptyList();
+
+      for (SearchQueryStem stem : searchQuery.getStems()) {
+         Collection collection = collectionMap.get(stem.getCollectionId());
+         if (collection != null) {
+            streamStem(daos, cleanStemForBaseCollection(stem, documents), searchQuery.getPagination(), collection, emitter);
+         }
+      }
+   }
+
+   private Map<String, ConstraintCodec> getCollectionCodecs(final Map<String, Collection> collectionMap) {
+      return collectionMap.values().stream().collect(Collectors.toMap(Resource::getId, collection -> constraintManager.getCodec(collection)));
+   }
+
+   private boolean hasRepeatedCollections(final Query query) {
+      return query.getStems().stream().map(QueryStem::getCollectionId).distinct().count() < query.getStems().size();
+   }
+
+   /**
+    * Stems of different collections never return the same document, so the documents are deduplicated within
+    * the stem only. A page is small enough to be expanded at once. Otherwise each document matching the stem
+    * is emitted by the cursor and the child expansion stops at matching documents, so every document is reached
+    * by exactly one path and no set of the emitted ids is needed.
+    */
+   private void streamStem(final SearchDaos daos, final SearchQueryStem stem, final Pagination pagination, final Collection collection, final Consumer<Document> emitter) {
+      final long start = System.nanoTime();
+
+      if (pagination != null && pagination.getPageSize() != null) {
+         getChildDocuments(daos, getStemDocuments(daos, daos.dataDao.searchData(stem, pagination, collection), collection)).forEach(emitter);
+         queryTimings.add(collection.getId(), System.nanoTime() - start);
+         return;
+      }
+
+      final List<DataDocument> chunk = new ArrayList<>(STREAM_CHUNK_SIZE);
+
+      try (Stream<DataDocument> data = daos.dataDao.searchDataStream(stem, pagination, collection)) {
+         final Iterator<DataDocument> iterator = data.iterator();
+         while (iterator.hasNext()) {
+            chunk.add(iterator.next());
+            if (chunk.size() == STREAM_CHUNK_SIZE || !iterator.hasNext()) {
+               Set<Document> documentsByData = getStemDocuments(daos, chunk, collection);
+               documentsByData.forEach(emitter);
+               streamNotMatchingChildDocuments(daos, stem, collection, documentsByData, emitter);
+               chunk.clear();
+            }
+         }
+      }
+
+      queryTimings.add(collection.getId(), System.nanoTime() - start);
+   }
+
+   private Set<Document> getStemDocuments(final SearchDaos daos, final java.util.Collection<DataDocument> data, final Collection collection) {
+      return convertDataDocumentsToDocuments(daos, data).stream()
+                                                        .filter(document -> document.getCollectionId().equals(collection.getId()))
+                                                        .collect(Collectors.toSet());
+   }
+
+   private void streamNotMatchingChildDocuments(final SearchDaos daos, final SearchQueryStem stem, final Collection collection, final Set<Document> parents, final Consumer<Document> emitter) {
+      Set<Document> level = parents;
+      while (!level.isEmpty()) {
+         List<Document> children = daos.documentDao.getDocumentsByParentIds(level.stream().map(Document::getId).collect(Collectors.toSet()));
+         Set<String> matchingIds = getMatchingDocumentIds(daos, stem, collection, children);
+
+         level = children.stream().filter(document -> !matchingIds.contains(document.getId())).collect(Collectors.toSet());
+
+         Map<String, DataDocument> dataMap = getDataFromDocuments(daos, level);
+         level.forEach(document -> {
+            document.setData(dataMap.get(document.getId()));
+            emitter.accept(document);
+         });
+      }
+   }
+
+   private Set<String> getMatchingDocumentIds(final SearchDaos daos, final SearchQueryStem stem, final Collection collection, final List<Document> documents) {
+      Set<String> candidateIds = documents.stream()
+                                          .filter(document -> document.getCollectionId().equals(collection.getId()))
+                                          .map(Document::getId)
+                                          .filter(id -> !stem.containsDocumentIdsQuery() || stem.getDocumentIds().contains(id))
+                                          .collect(Collectors.toSet());
+
+      if (candidateIds.isEmpty() || (!stem.containsFiltersQuery() && !stem.containsFulltextsQuery())) {
+         return candidateIds;
+      }
+
+      SearchQueryStem candidatesStem = SearchQueryStem.createBuilder(collection.getId())
+                                                      .documentIds(candidateIds)
+                                                      .filters(stem.getFilters())
+                                                      .fulltexts(stem.getFulltexts())
+                                                      .attributeIds(Collections.emptySet())
+                                                      .build();
+      return daos.dataDao.searchData(candidatesStem, null, collection).stream().map(DataDocument::getId).collect(Collectors.toSet());
+   }
+
    private List<Collection> getReadCollections() {
-      return collectionDao.getAllCollections().stream()
-                          .filter(collection -> permissionsChecker.hasRoleWithView(collection, Role.READ, Role.READ))
-                          .collect(Collectors.toList());
+      return workspaceCache.getCollections().stream()
+                           .filter(collection -> permissionsChecker.hasRoleWithView(collection, Role.READ, Role.READ))
+                           .collect(Collectors.toList());
    }
 
-   private Set<Document> searchDocumentsByEmptyQuery(Query query, List<Collection> collections) {
-      List<DataDocument> data = new ArrayList<>();
-      for (Collection collection : collections) {
-         SearchQueryStem stem = SearchQueryStem.createBuilder(collection.getId()).build();
-         data.addAll(dataDao.searchData(stem, query.getPagination(), collection));
+   /**
+    * Worker threads of the search executor run out of the request scope, they get their own Dao objects
+    * created from a snapshot of the current workspace.
+    */
+   private Supplier<SearchDaos> getWorkerDaos(final SearchDaos requestDaos) {
+      if (!searchExecutor.isParallel()) {
+         return () -> requestDaos;
       }
 
-      return convertDataDocumentsToDocuments(data);
+      final DaoContextSnapshot snapshot = daoContextSnapshotFactory.getInstance();
+      return () -> new SearchDaos(snapshot.getDataDao(), snapshot.getDocumentDao(), snapshot.getLinkInstanceDao(), snapshot.getLinkDataDao());
+   }
+
+   private Set<Document> searchDocumentsByEmptyQuery(Query query, List<Collection> collections, SearchDaos daos, Supplier<SearchDaos> workerDaos) {
+      List<List<DataDocument>> data = searchExecutor.map(collections, collection -> {
+         SearchQueryStem stem = SearchQueryStem.createBuilder(collection.getId()).attributeIds(projection.get(collection.getId())).build();
+         return searchPage(collection.getId(), query.getPagination(), pagination -> workerDaos.get().dataDao.searchData(stem, pagination, collection));
+      }, Collection::getId, queryTimings);
+
+      return convertDataDocumentsToDocuments(daos, data.stream().flatMap(List::stream).collect(Collectors.toList()));
    }
 
-   private Set<Document> convertDataDocumentsToDocuments(java.util.Collection<DataDocument> data) {
-      List<Document> documents = documentDao.getDocumentsByIds(data.stream().map(DataDocument::getId).distinct().toArray(String[]::new));
+   private Set<Document> convertDataDocumentsToDocuments(SearchDaos daos, java.util.Collection<DataDocument> data) {
+      List<Document> documents = daos.documentDao.getDocumentsByIds(data.stream().map(DataDocument::getId).distinct().toArray(String[]::new));
       Map<String, DataDocument> dataMap = data.stream().collect(Collectors.toMap(DataDocument::getId, Function.identity()));
       return documents.stream()
                       .peek(document -> document.setData(Objects.requireNonNullElse(dataMap.get(document.getId()), new DataDocument())))
                       .collect(Collectors.toSet());
    }
 
-   private Set<Document> searchDocumentsByStems(Query query, List<Collection> collections) {
+   private Set<Document> searchDocumentsByStems(Query query, List<Collection> collections, SearchDaos daos, Supplier<SearchDaos> workerDaos) {
       SearchQuery searchQuery = buildSearchQuery(query);
 
       Set<String> linkTypeIds = query.getLinkTypeIds();
       List<LinkType> linkTypes = !linkTypeIds.isEmpty() ? linkTypeDao.getLinkTypesByIds(linkTypeIds) : Collections.emptyList();
 
       Set<String> documentIds = query.getDocumentsIds();
-      List<Document> documents = !documentIds.isEmpty() ? documentDao.getDocumentsByIds(documentIds.toArray(new String[0])) : Collections.emptyList();
+      List<Document> documents = !documentIds.isEmpty() ? daos.documentDao.getDocumentsByIds(documentIds.toArray(new String[0])) : Collections.emptyList();
 
       Map<String, Collection> collectionsMap = collections.stream().collect(Collectors.toMap(Collection::getId, Function.identity()));
 
-      Set<Document> data = new HashSet<>();
-      for (SearchQueryStem stem : searchQuery.getStems()) {
+      List<SearchQueryStem> stems = searchQuery.getStems();
+      List<Integer> stemIndexes = IntStream.range(0, stems.size()).boxed().collect(Collectors.toList());
+
+      List<Set<Document>> stemsData = searchExecutor.map(stemIndexes, stemIndex -> {
+         SearchQueryStem stem = stems.get(stemIndex);
+         String stemKey = "s" + stemIndex;
+         SearchDaos stemDaos = workerDaos.get();
          if (stem.containsLinkTypeIdsQuery()) {
-            data.addAll(searchDocumentsByStemWithLinks(stem, searchQuery.getPagination(), collectionsMap, linkTypes, documents));
-         } else {
-            SearchQueryStem cleanedStem = cleanStemForBaseCollection(stem, documents);
-
-            Collection collection = collectionsMap.get(stem.getCollectionId());
-            if (collection != null) {
-               List<DataDocument> stemData = dataDao.searchData(cleanedStem, searchQuery.getPagination(), collection);
-               Set<Document> documentsByData = convertDataDocumentsToDocuments(stemData).stream()
-                                                                                        .filter(document -> document.getCollectionId().equals(stem.getCollectionId()))
-                                                                                        .collect(Collectors.toSet());
-               data.addAll(getChildDocuments(documentsByData));
-            }
+            return searchDocumentsByStemWithLinks(stemDaos, stemKey, stem, searchQuery.getPagination(), collectionsMap, linkTypes, documents);
+         }
+
+         SearchQueryStem cleanedStem = cleanStemForBaseCollection(stem, documents);
+
+         Collection collection = collectionsMap.get(stem.getCollectionId());
+         if (collection == null) {
+            return Collections.emptySet();
          }
-      }
+
+         List<DataDocument> stemData = searchPage(stemKey, searchQuery.getPagination(), pagination -> stemDaos.dataDao.searchData(cleanedStem, pagination, collection));
+         Set<Document> documentsByData = convertDataDocumentsToDocuments(stemDaos, stemData).stream()
+                                                                                             .filter(document -> document.getCollectionId().equals(stem.getCollectionId()))
+                                                                                             .collect(Collectors.toSet());
+         return getChildDocuments(stemDaos, documentsByData);
+      }, stemIndex -> stems.get(stemIndex).getCollectionId(), queryTimings);
+
+      // merged in the order of stems so that the result does not depend on which stem finished first
+      Set<Document> data = new LinkedHashSet<>();
+      stemsData.forEach(data::addAll);
 
       return data;
    }
 
-   private Set<Document> searchDocumentsByStemWithLinks(SearchQueryStem stem, Pagination pagination, Map<String, Collection> collectionsMap, List<LinkType> linkTypes, List<Document> documents) {
+   private Set<Document> searchDocumentsByStemWithLinks(SearchDaos daos, String stemKey, SearchQueryStem stem, Pagination pagination, Map<String, Collection> collectionsMap, List<LinkType> linkTypes, List<Document> documents) {
       if (!collectionsMap.containsKey(stem.getCollectionId())) {
          return Collections.emptySet();
       }
@@ -265,10 +528,12 @@ public class SearchFacade extends AbstractFacade {
       SearchQueryStem baseStem = cleanStemForBaseCollection(stem, documents);
       List<SearchQueryStem> stemsPipeline = createStemsPipeline(stem, collectionsMap, linkTypes, documents);
 
-      List<DataDocument> data = dataDao.searchData(baseStem, pagination, collectionsMap.get(baseStem.getCollectionId()));
+      List<DataDocument> data = searchPage(stemKey, pagination, basePagination -> daos.dataDao.searchData(baseStem, basePagination, collectionsMap.get(baseStem.getCollectionId())));
+      // with keyset pagination, only the base collection is paginated and all the documents linked to its page are returned
+      Pagination stagePagination = continuation != null ? null : pagination;
       // we need to add child documents only for base collection
-      Set<Document> documentsByData = convertDataDocumentsToDocuments(data);
-      documentsByData.addAll(getChildDocuments(documentsByData));
+      Set<Document> documentsByData = convertDataDocumentsToDocuments(daos, data);
+      documentsByData.addAll(getChildDocuments(daos, documentsByData));
 
       Map<String, LinkType> linkTypesMap = linkTypes.stream().collect(Collectors.toMap(LinkType::getId, lt -> lt));
 
@@ -279,7 +544,7 @@ public class SearchFacade extends AbstractFacade {
          SearchQueryStem currentStageStem = stemsPipeline.get(i);
 
          Set<String> lastStageDocumentIds = lastStageData.stream().map(DataDocument::getId).collect(Collectors.toSet());
-         List<LinkInstance> linkInstances = linkInstanceDao.getLinkInstancesByDocumentIds(lastStageDocumentIds, linkTypeId);
+         List<LinkInstance> linkInstances = daos.linkInstanceDao.getLinkInstancesByDocumentIds(lastStageDocumentIds, linkTypeId);
 
          Set<String> searchedLinkInstanceIds;
 
@@ -288,9 +553,10 @@ public class SearchFacade extends AbstractFacade {
                                                             .linkInstanceIds(linkInstances.stream().map(LinkInstance::getId).collect(Collectors.toSet()))
                                                             .linkFilters(currentStageStem.getLinkFilters())
                                                             .fulltexts(currentStageStem.getFulltexts())
+                                                            .attributeIds(Collections.emptySet())
                                                             .build();
 
-            searchedLinkInstanceIds = linkDataDao.searchData(linkSearchStem, pagination, linkTypesMap.get(linkTypeId))
+            searchedLinkInstanceIds = daos.linkDataDao.searchData(linkSearchStem, stagePagination, linkTypesMap.get(linkTypeId))
                                                  .stream().map(DataDocument::getId).collect(Collectors.toSet());
          } else {
             searchedLinkInstanceIds = linkInstances.stream().map(LinkInstance::getId).collect(Collectors.toSet());
@@ -320,13 +586,14 @@ public class SearchFacade extends AbstractFacade {
                                                        .documentIds(currentDocumentsIds)
                                                        .filters(currentStageStem.getFilters())
                                                        .fulltexts(currentStageStem.getFulltexts())
+                                                       .attributeIds(currentStageStem.getAttributeIds())
                                                        .build();
 
-         List<DataDocument> currentStageData = dataDao.searchData(modifiedStem, pagination, collectionsMap.get(modifiedStem.getCollectionId()));
+         List<DataDocument> currentStageData = daos.dataDao.searchData(modifiedStem, stagePagination, collectionsMap.get(modifiedStem.getCollectionId()));
          if (currentStageData.isEmpty()) {
             break;
          }
-         documentsByData.addAll(convertDataDocumentsToDocuments(currentStageData));
+         documentsByData.addAll(convertDataDocumentsToDocuments(daos, currentStageData));
          lastStageData = currentStageData;
       }
 
@@ -360,6 +627,7 @@ public class SearchFacade extends AbstractFacade {
                             .filters(filters)
                             .linkFilters(linkFilters)
                             .documentIds(documentIds)
+                            .attributeIds(projection.get(collectionId))
                             .build();
    }
 
@@ -395,23 +663,27 @@ public class SearchFacade extends AbstractFacade {
       return linkType.orElse(null);
    }
 
-   private Set<Document> searchDocumentsByFulltexts(Query query, List<Collection> collections) {
-      List<DataDocument> data = dataDao.searchDataByFulltexts(query.getFulltexts(), query.getPagination(), collections);
-      return convertDataDocumentsToDocuments(data);
+   private Set<Document> searchDocumentsByFulltexts(Query query, List<Collection> collections, SearchDaos daos, Supplier<SearchDaos> workerDaos) {
+      List<List<DataDocument>> data = searchExecutor.map(collections,
+            collection -> searchPage(collection.getId(), query.getPagination(),
+                  pagination -> workerDaos.get().dataDao.searchDataByFulltexts(query.getFulltexts(), pagination, Collections.singletonList(collection))),
+            Collection::getId, queryTimings);
+
+      return convertDataDocumentsToDocuments(daos, data.stream().flatMap(List::stream).collect(Collectors.toList()));
    }
 
-   private Set<Document> getChildDocuments(final Set<Document> rootDocuments) {
-      return getChildDocumentsBfs(new HashSet<>(rootDocuments), rootDocuments, false);
+   private Set<Document> getChildDocuments(final SearchDaos daos, final Set<Document> rootDocuments) {
+      return getChildDocumentsBfs(daos, new HashSet<>(rootDocuments), rootDocuments, false);
    }
 
-   private Set<Document> getChildDocumentsBfs(final Set<Document> result, final Set<Document> rootDocuments, boolean setData) {
+   private Set<Document> getChildDocumentsBfs(final SearchDaos daos, final Set<Document> result, final Set<Document> rootDocuments, boolean setData) {
 
       // find all document where parentId == one of root documents
       // add root documents to result when they do not exist there
       // add results to rootDocuments
       // repeat while there were any results
 
-      List<Document> nextLevel = documentDao.getDocumentsByParentIds(
+      List<Document> nextLevel = daos.documentDao.getDocumentsByParentIds(
             rootDocuments.stream()
                          .map(Document::getId)
                          .collect(Collectors.toSet()))
@@ -423,32 +695,48 @@ public class SearchFacade extends AbstractFacade {
                                                      .collect(Collectors.toSet());
 
       if (setData) {
-         Map<String, DataDocument> dataMap = getDataFromDocuments(filteredDocuments);
+         Map<String, DataDocument> dataMap = getDataFromDocuments(daos, filteredDocuments);
          filteredDocuments.forEach(document -> document.setData(dataMap.get(document.getId())));
       }
 
       result.addAll(filteredDocuments);
 
       if (nextLevel.size() > 0) {
-         getChildDocumentsBfs(result, new HashSet<>(nextLevel), true);
+         getChildDocumentsBfs(daos, result, new HashSet<>(nextLevel), true);
       }
 
       return result;
    }
 
-   private Map<String, DataDocument> getDataFromDocuments(Set<Document> documents) {
+   private Map<String, DataDocument> getDataFromDocuments(SearchDaos daos, Set<Document> documents) {
       Map<String, Set<String>> collectionsDocumentsMap = documents.stream()
                                                                   .collect(Collectors.groupingBy(Document::getCollectionId,
                                                                         Collectors.mapping(Document::getId, Collectors.toSet())));
 
       Map<String, DataDocument> map = new HashMap<>();
       collectionsDocumentsMap.forEach((collectionId, docIds) -> {
-         Map<String, DataDocument> dataDocuments = dataDao.getData(collectionId, docIds).stream()
-                                                          .collect(Collectors.toMap(DataDocument::getId, Function.identity()));
+         Map<String, DataDocument> dataDocuments = daos.dataDao.getData(collectionId, docIds, projection.get(collectionId)).stream()
+                                                               .collect(Collectors.toMap(DataDocument::getId, Function.identity()));
          map.putAll(dataDocuments);
       });
 
       return map;
    }
 
+   /**
+    * Dao objects used by the document search, either the request scoped ones or the ones created from a snapshot.
+    */
+   private static class SearchDaos {
+      private final DataDao dataDao;
+      private final DocumentDao documentDao;
+      private final LinkInstanceDao linkInstanceDao;
+      private final LinkDataDao linkDataDao;
+
+      private SearchDaos(final DataDao dataDao, final DocumentDao documentDao, final LinkInstanceDao linkInstanceDao, final LinkDataDao linkDataDao) {
+         this.dataDao = dataDao;
+         this.documentDao = documentDao;
+         this.linkInstanceDao = linkInstanceDao;
+         this.linkDataDao = linkDataDao;
+      }
+   }
 }
@@ -25,6 +25,7 @@ import io.lumeer.api.model.LinkType;
 import io.lumeer.api.model.View;
 import io.lumeer.api.util.AttributeUtil;
 import io.lumeer.core.auth.AuthenticatedUserGroups;
+import io.lumeer.core.cache.WorkspaceCache;
 import io.lumeer.storage.api.dao.CollectionDao;
 import io.lumeer.storage.api.dao.LinkTypeDao;
 import io.lumeer.storage.api.dao.ViewDao;
@@ -57,6 +58,9 @@ public class SuggestionFacade extends AbstractFacade {
    @Inject
    private AuthenticatedUserGroups authenticatedUserGroups;
 
+   @Inject
+   private WorkspaceCache workspaceCache;
+
    public Suggestions suggest(SuggestionQuery suggestionQuery) {
       switch (suggestionQuery.getType()) {
          case ALL:
@@ -162,7 +166,7 @@ public class SuggestionFacade extends AbstractFacade {
 
    private Set<String> getAllowedCollectionIds() {
       if (isManager()) {
-         return collectionDao.getAllCollections().stream().map(Collection::getId).collect(Collectors.toSet());
+         return workspaceCache.getCollections().stream().map(Collection::getId).collect(Collectors.toSet());
       }
       return collectionDao.getCollections(createSimpleQuery()).stream().map(Collection::getId).collect(Collectors.toSet());
    }
@@ -33,11 +33,15 @@ import io.lumeer.engine.api.event.CreateLinkInstance;
 import io.lumeer.engine.api.event.DocumentEvent;
 import io.lumeer.engine.api.event.LinkInstanceEvent;
 import io.lumeer.engine.api.event.RemoveDocument;
+import io.lumeer.engine.api.event.RemoveDocuments;
 import io.lumeer.engine.api.event.RemoveLinkInstance;
+import io.lumeer.engine.api.event.RemoveLinkInstances;
 import io.lumeer.engine.api.event.RemoveLinkType;
 import io.lumeer.engine.api.event.RemoveResource;
 import io.lumeer.engine.api.event.UpdateDocument;
+import io.lumeer.engine.api.event.UpdateDocuments;
 import io.lumeer.engine.api.event.UpdateLinkInstance;
+import io.lumeer.engine.api.event.UpdateLinkInstances;
 import io.lumeer.engine.api.event.UpdateLinkType;
 import io.lumeer.engine.api.event.UpdateResource;
 import io.lumeer.storage.api.dao.CollectionDao;
@@ -103,14 +107,21 @@ public class TaskProcessingFacade {
    }
 
    private List<RuleTask> createRuleTasks(final Collection collection, final Document originalDocument, final Document document, final List<Rule.RuleTiming> timings) {
-      if (collection.getRules() == null) {
+      return createRuleTasks(collection, Collections.singletonList(originalDocument), Collections.singletonList(document), timings);
+   }
+
+   /**
+    * Creates a single task per rule, executing the rule for all the pairs of the original and the new documents.
+    */
+   private List<RuleTask> createRuleTasks(final Collection collection, final List<Document> originalDocuments, final List<Document> documents, final List<Rule.RuleTiming> timings) {
+      if (collection.getRules() == null || documents.isEmpty()) {
          return Collections.emptyList();
       }
       return collection.getRules().entrySet().stream()
                        .filter(entry -> timings.contains(entry.getValue().getTiming()))
                        .map(entry -> {
                           final RuleTask ruleTask = contextualTaskFactory.getInstance(RuleTask.class);
-                          ruleTask.setRule(entry.getKey(), entry.getValue(), collection, originalDocument, document);
+                          ruleTask.setRule(entry.getKey(), entry.getValue(), collection, originalDocuments, documents);
                           return ruleTask;
                        }).collect(Collectors.toList());
    }
@@ -170,6 +181,21 @@ public class TaskProcessingFacade {
       return Collections.emptyList();
    }
 
+   public void onDocumentsUpdate(@Observes final UpdateDocuments updateDocuments) {
+      final Collection collection = updateDocuments.getCollection();
+      final List<UpdateDocument> updates = updateDocuments.getUpdates().stream()
+                                                          .filter(update -> update.getOriginalDocument() != null && update.getDocument() != null)
+                                                          .collect(Collectors.toList());
+
+      FunctionTask functionTask = functionFacade.createTaskForUpdatedDocuments(collection, updates);
+      List<RuleTask> tasks = createRuleTasks(collection, updates.stream().map(UpdateDocument::getOriginalDocument).collect(Collectors.toList()),
+            updates.stream().map(UpdateDocument::getDocument).collect(Collectors.toList()),
+            Arrays.asList(Rule.RuleTiming.UPDATE, Rule.RuleTiming.CREATE_UPDATE, Rule.RuleTiming.UPDATE_DELETE, Rule.RuleTiming.ALL));
+      RuleTask ruleTask = createOrderedRuleTask(tasks);
+
+      processTasks(functionTask, ruleTask);
+   }
+
    public void onRemoveDocument(@Observes final RemoveDocument removeDocument) {
       final Collection collection = getCollectionForEvent(removeDocument);
       if (collection == null) {
@@ -190,6 +216,21 @@ public class TaskProcessingFacade {
       return Collections.emptyList();
    }
 
+   public void onRemoveDocuments(@Observes final RemoveDocuments removeDocuments) {
+      final Collection collection = removeDocuments.getCollection();
+      final List<Document> documents = removeDocuments.getDocuments().stream().filter(Objects::nonNull).collect(Collectors.toList());
+      if (documents.isEmpty()) {
+         return;
+      }
+
+      FunctionTask functionTask = functionFacade.createTaskForRemovedDocuments(collection, documents);
+      List<RuleTask> tasks = createRuleTasks(collection, documents, Collections.nCopies(documents.size(), null),
+            Arrays.asList(Rule.RuleTiming.DELETE, Rule.RuleTiming.CREATE_DELETE, Rule.RuleTiming.UPDATE_DELETE, Rule.RuleTiming.ALL));
+      RuleTask ruleTask = createOrderedRuleTask(tasks);
+
+      processTasks(functionTask, ruleTask);
+   }
+
    public void onCreateLink(@Observes final CreateLinkInstance createLinkEvent) {
       LinkType linkType = getLinkTypeForEvent(createLinkEvent);
       if (linkType == null) {
@@ -228,6 +269,20 @@ public class TaskProcessingFacade {
       processTasks(functionTask);
    }
 
+   public void onUpdateLinks(@Observes final UpdateLinkInstances updateLinkInstances) {
+      FunctionTask functionTask = functionFacade.createTaskForChangedLinks(updateLinkInstances.getLinkType(), updateLinkInstances.getUpdates());
+      processTasks(functionTask);
+   }
+
+   public void onRemoveLinks(@Observes final RemoveLinkInstances removeLinkInstances) {
+      if (removeLinkInstances.getLinkInstances().isEmpty()) {
+         return;
+      }
+
+      FunctionTask functionTask = functionFacade.createTaskForRemovedLinks(removeLinkInstances.getLinkType(), removeLinkInstances.getLinkInstances());
+      processTasks(functionTask);
+   }
+
    public void onUpdateCollection(@Observes final UpdateResource updateResource) {
       if (updateResource.getResource() == null || updateResource.getOriginalResource() == null || !(updateResource.getResource() instanceof Collection)) {
          return;
@@ -57,6 +57,10 @@ public class DefaultConfigurationProducer implements Serializable {
    public static final String PUSHER_KEY = "pusher_key";
    public static final String PUSHER_SECRET = "pusher_secret";
    public static final String PUSHER_CLUSTER = "pusher_cluster";
+   public static final String PUSHER_ASYNC = "pusher_async";
+   public static final String PUSHER_QUEUE_SIZE = "pusher_queue_size";
+   public static final String PUSHER_COALESCE_MS = "pusher_coalesce_ms";
+   public static final String PUSHER_SENDERS = "pusher_senders";
 
    public static final String S3_KEY = "s3_key";
    public static final String S3_SECRET = "s3_secret";
@@ -68,6 +72,41 @@ public class DefaultConfigurationProducer implements Serializable {
 
    public static final String LOCALE = "locale";
 
+   public static final String CACHE_TYPE = "cache_type";
+   public static final String CACHE_MAX_SIZE = "cache_max_size";
+   public static final String CACHE_TTL = "cache_ttl";
+   public static final String CACHE_TTI = "cache_tti";
+   public static final String CACHE_INVALIDATION_CHANNEL = "cache_invalidation_channel";
+   public static final String CACHE_INVALIDATION_POLL_MS = "cache_invalidation_poll_ms";
+
+   public static final String GEOCODING_CACHE_PERSISTENT = "geocoding_cache_persistent";
+
+   public static final String SEARCH_PARALLELISM = "search_parallelism";
+
+   public static final String JS_CONTEXT_POOL_SIZE = "js_context_pool_size";
+   public static final String JS_SOURCE_CACHE_SIZE = "js_source_cache_size";
+
+   public static final String TASK_EXECUTOR_CONCURRENCY = "task_executor_concurrency";
+   public static final String TASK_EXECUTOR_QUEUE_SIZE = "task_executor_queue_size";
+
+   public static final String FUNCTION_PARALLELISM = "function_parallelism";
+   public static final String FUNCTION_BATCH_SIZE = "function_batch_size";
+
+   public static final String CONVERSION_PARALLELISM = "conversion_parallelism";
+   public static final String CONVERSION_PARALLEL_THRESHOLD = "conversion_parallel_threshold";
+
+   public static final String DOCUMENTS_COUNT_RECONCILE_MINUTES = "documents_count_reconcile_minutes";
+   public static final String COLLECTION_USAGE_FLUSH_MS = "collection_usage_flush_ms";
+
+   public static final String IMPORT_PARALLELISM = "import_parallelism";
+   public static final String IMPORT_CHUNK_SIZE = "import_chunk_size";
+
+   public static final String MAPQUEST_KEY = "mapquest_key";
+   public static final String MAPQUEST_GEOCODING_URL = "mapquest_geocoding_url";
+   public static final String MAPQUEST_OPEN_SEARCH_URL = "mapquest_open_search_url";
+   public static final String MAPQUEST_TIMEOUT_MS = "mapquest_timeout_ms";
+   public static final String MAPQUEST_MAX_CONNECTIONS = "mapquest_max_connections";
+
    public DefaultConfigurationProducer() {
       defaultConfiguration = new HashMap<>();
 
@@ -97,4 +136,46 @@ public class DefaultConfigurationProducer implements Serializable {
    public String get(final String key) {
       return defaultConfiguration.get(key);
    }
+
+   /**
+    * Reads a numeric property, a missing or invalid value is replaced by the default one.
+    *
+    * @param key
+    *       Name of the property.
+    * @param defaultValue
+    *       Value used when the property is not set or is not a number.
+    * @return The configured value or the default one.
+    */
+   public int getInt(final String key, final int defaultValue) {
+      final long value = getLong(key, defaultValue);
+      if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+         log.log(Level.WARNING, String.format("Invalid value %d of property %s, using %d.", value, key, defaultValue));
+         return defaultValue;
+      }
+
+      return (int) value;
+   }
+
+   /**
+    * Reads a numeric property, a missing or invalid value is replaced by the default one.
+    *
+    * @param key
+    *       Name of the property.
+    * @param defaultValue
+    *       Value used when the property is not set or is not a number.
+    * @return The configured value or the default one.
+    */
+   public long getLong(final String key, final long defaultValue) {
+      final String value = get(key);
+      if (value == null || value.isBlank()) {
+         return defaultValue;
+      }
+
+      try {
+         return Long.parseLong(value.trim());
+      } catch (NumberFormatException e) {
+         log.log(Level.WARNING, String.format("Invalid value %s of property %s, using %d.", value, key, defaultValue));
+         return defaultValue;
+      }
+   }
 }
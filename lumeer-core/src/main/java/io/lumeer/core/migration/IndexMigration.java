@@ -0,0 +1,132 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.migration;
+
+import io.lumeer.api.model.LinkType;
+import io.lumeer.api.model.Project;
+import io.lumeer.storage.api.dao.CollectionDao;
+import io.lumeer.storage.api.dao.DataDao;
+import io.lumeer.storage.api.dao.LinkDataDao;
+import io.lumeer.storage.api.dao.LinkTypeDao;
+import io.lumeer.storage.api.dao.context.DaoContextSnapshot;
+import io.lumeer.storage.api.dao.context.DaoContextSnapshotFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.enterprise.concurrent.ManagedExecutorService;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+/**
+ * Back-fills the declared indexes of project and data repositories that were created before the indexes were declared.
+ *
+ * The user databases are only reachable within a request that selected a workspace, so each organization is
+ * migrated the first time one of its projects is accessed after the application starts. The indexes are built in
+ * background, the request that triggered the migration does not wait for them.
+ */
+@ApplicationScoped
+public class IndexMigration {
+
+   private static final Logger log = Logger.getLogger(IndexMigration.class.getName());
+
+   private final Set<String> migratedOrganizations = ConcurrentHashMap.newKeySet();
+
+   @Inject
+   private DaoContextSnapshotFactory daoContextSnapshotFactory;
+
+   @Inject
+   private ManagedExecutorService executorService;
+
+   /**
+    * Starts the migration of the currently selected organization unless it already ran on this node. The check is
+    * done before anything else, so the requests of migrated organizations pay only for a set lookup.
+    *
+    * @param organizationId
+    *       Id of the organization selected in the current request.
+    */
+   public void migrateSelectedOrganization(final String organizationId) {
+      if (organizationId == null || !migratedOrganizations.add(organizationId)) {
+         return;
+      }
+
+      try {
+         final DaoContextSnapshot daoContextSnapshot = daoContextSnapshotFactory.getInstance();
+         executorService.submit(() -> migrate(daoContextSnapshot));
+      } catch (RejectedExecutionException e) {
+         migratedOrganizations.remove(organizationId);
+      } catch (RuntimeException e) {
+         // let the next request try again
+         migratedOrganizations.remove(organizationId);
+         throw e;
+      }
+   }
+
+   private void migrate(final DaoContextSnapshot daoContextSnapshot) {
+      try {
+         for (final Project project : daoContextSnapshot.getProjectDao().getAllProjects()) {
+            final List<String> created = new ArrayList<>(daoContextSnapshot.getDocumentDao().ensureIndexes(project));
+            created.addAll(daoContextSnapshot.getLinkInstanceDao().ensureIndexes(project));
+            created.addAll(ensureDataIndexes(daoContextSnapshot, project));
+
+            if (!created.isEmpty()) {
+               log.info(String.format("Created missing indexes %s in project %s.", created, project.getId()));
+            }
+
+            if (log.isLoggable(Level.FINE)) {
+               final List<String> unused = new ArrayList<>(daoContextSnapshot.getDocumentDao().getUnusedIndexes(project));
+               unused.addAll(daoContextSnapshot.getLinkInstanceDao().getUnusedIndexes(project));
+               unused.removeAll(created);
+
+               if (!unused.isEmpty()) {
+                  log.fine(String.format("Indexes %s in project %s were not used since the database started.", unused, project.getId()));
+               }
+            }
+         }
+      } catch (Exception e) {
+         // let the next request try again
+         migratedOrganizations.remove(daoContextSnapshot.getOrganizationId());
+         log.log(Level.WARNING, "Unable to migrate indexes of organization " + daoContextSnapshot.getOrganizationId(), e);
+      }
+   }
+
+   private List<String> ensureDataIndexes(final DaoContextSnapshot daoContextSnapshot, final Project project) {
+      final CollectionDao collectionDao = daoContextSnapshot.getCollectionDao();
+      collectionDao.setProject(project);
+      final LinkTypeDao linkTypeDao = daoContextSnapshot.getLinkTypeDao();
+      linkTypeDao.setProject(project);
+
+      final DataDao dataDao = daoContextSnapshot.getDataDao();
+      final LinkDataDao linkDataDao = daoContextSnapshot.getLinkDataDao();
+
+      final List<String> created = new ArrayList<>();
+      for (final String collectionId : collectionDao.getAllCollectionIds()) {
+         created.addAll(dataDao.ensureIndexes(collectionId));
+      }
+      for (final LinkType linkType : linkTypeDao.getAllLinkTypes()) {
+         created.addAll(linkDataDao.ensureIndexes(linkType.getId()));
+      }
+
+      return created;
+   }
+}
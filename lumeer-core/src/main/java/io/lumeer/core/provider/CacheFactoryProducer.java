@@ -0,0 +1,72 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.provider;
+
+import io.lumeer.cache.simple.BoundedCacheFactory;
+import io.lumeer.cache.simple.SimpleCacheFactory;
+import io.lumeer.core.facade.configuration.DefaultConfigurationProducer;
+import io.lumeer.engine.api.cache.CacheFactory;
+
+import java.util.Optional;
+import java.util.logging.Logger;
+import javax.annotation.Priority;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.inject.Alternative;
+import javax.enterprise.inject.Produces;
+import javax.inject.Inject;
+
+/**
+ * Selects the {@link CacheFactory} implementation based on the default configuration.
+ * Being an enabled alternative, the produced factory takes precedence over {@link SimpleCacheFactory} discovered on the class path.
+ */
+@ApplicationScoped
+@Alternative
+@Priority(CacheFactoryProducer.PRIORITY)
+public class CacheFactoryProducer {
+
+   // javax.interceptor.Interceptor.Priority.APPLICATION
+   static final int PRIORITY = 2000;
+
+   public static final String CACHE_TYPE_SIMPLE = "simple";
+   public static final String CACHE_TYPE_BOUNDED = "bounded";
+
+   private static final int DEFAULT_MAX_SIZE = 10_000;
+
+   private static final Logger log = Logger.getLogger(CacheFactoryProducer.class.getName());
+
+   @Inject
+   private DefaultConfigurationProducer defaultConfigurationProducer;
+
+   @Produces
+   @ApplicationScoped
+   public CacheFactory getCacheFactory() {
+      final String type = Optional.ofNullable(defaultConfigurationProducer.get(DefaultConfigurationProducer.CACHE_TYPE)).orElse(CACHE_TYPE_SIMPLE);
+
+      if (CACHE_TYPE_BOUNDED.equalsIgnoreCase(type)) {
+         final int maxSize = defaultConfigurationProducer.getInt(DefaultConfigurationProducer.CACHE_MAX_SIZE, DEFAULT_MAX_SIZE);
+         final long ttl = defaultConfigurationProducer.getLong(DefaultConfigurationProducer.CACHE_TTL, 0) * 1000L;
+         final long tti = defaultConfigurationProducer.getLong(DefaultConfigurationProducer.CACHE_TTI, 0) * 1000L;
+
+         log.info(String.format("Using bounded caches (max size %d, ttl %d ms, tti %d ms).", maxSize, ttl, tti));
+         return new BoundedCacheFactory(maxSize, ttl, tti);
+      }
+
+      return new SimpleCacheFactory();
+   }
+}
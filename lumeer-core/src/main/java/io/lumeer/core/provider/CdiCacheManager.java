@@ -18,7 +18,9 @@
  */
 package io.lumeer.core.provider;
 
+import io.lumeer.api.model.CacheInvalidation;
 import io.lumeer.core.WorkspaceKeeper;
+import io.lumeer.core.cache.CacheInvalidationBus;
 import io.lumeer.engine.api.cache.Cache;
 import io.lumeer.engine.api.cache.CacheFactory;
 import io.lumeer.engine.api.cache.CacheManager;
@@ -27,6 +29,7 @@ import io.lumeer.engine.api.cache.CacheProvider;
 import java.io.Serializable;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.PostConstruct;
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 
@@ -41,6 +44,14 @@ public class CdiCacheManager implements CacheManager, Serializable {
    @Inject
    private WorkspaceKeeper workspaceKeeper;
 
+   @Inject
+   private CacheInvalidationBus cacheInvalidationBus;
+
+   @PostConstruct
+   public void init() {
+      cacheInvalidationBus.register(CacheInvalidationBus.WORKSPACE_CACHES, this::removeWorkspaceCaches);
+   }
+
    @Override
    public CacheProvider getCacheProvider(final String namespace) {
       final CacheProvider provider = new DefaultCacheProvider();
@@ -69,4 +80,13 @@ public class CdiCacheManager implements CacheManager, Serializable {
 
       return key + "/" + workspaceKeeper.getProject().get().getId();
    }
+
+   private void removeWorkspaceCaches(final String workspaceId) {
+      if (CacheInvalidation.ALL_KEYS.equals(workspaceId)) {
+         caches.clear();
+      } else {
+         // organization caches are keyed by its id, project caches by organization and project ids separated by slash
+         caches.keySet().removeIf(key -> key.equals(workspaceId) || key.startsWith(workspaceId + "/") || key.endsWith("/" + workspaceId));
+      }
+   }
 }
@@ -0,0 +1,198 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.task;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Processes a large number of items in batches, possibly in parallel.
+ *
+ * The calling thread always takes part in the processing and up to {@code parallelism - 1} helpers are submitted to
+ * the executor. Helpers that did not start before the calling thread ran out of batches do nothing, so waiting for
+ * them cannot block even when the executor is saturated. A failing batch is logged, recorded in the result and
+ * the processing continues with the next one.
+ */
+public class BatchRunner {
+
+   private static final Logger log = Logger.getLogger(BatchRunner.class.getName());
+
+   private final ExecutorService executorService;
+   private final int parallelism;
+   private final int batchSize;
+
+   public BatchRunner(final ExecutorService executorService, final int parallelism, final int batchSize) {
+      this.executorService = executorService;
+      this.parallelism = executorService != null ? Math.max(parallelism, 1) : 1;
+      this.batchSize = Math.max(batchSize, 1);
+   }
+
+   public int getBatchSize() {
+      return batchSize;
+   }
+
+   /**
+    * Processes all the items and returns after the last batch is finished.
+    *
+    * @param name
+    *       Name of the processing used in progress reports.
+    * @param items
+    *       Items to process.
+    * @param processor
+    *       Processes a single batch of items.
+    * @return Result with the number of items in batches that failed.
+    */
+   public <T> Result run(final String name, final List<T> items, final Consumer<List<T>> processor) {
+      if (items.isEmpty()) {
+         return new Result(0, null);
+      }
+
+      final Queue<List<T>> batches = new ConcurrentLinkedQueue<>();
+      for (int i = 0; i < items.size(); i += batchSize) {
+         batches.add(new ArrayList<>(items.subList(i, Math.min(i + batchSize, items.size()))));
+      }
+
+      final Progress progress = new Progress(name, items.size(), batches.size() > 1);
+      final Runnable worker = () -> process(batches, processor, progress);
+
+      final int helpers = Math.min(parallelism, batches.size()) - 1;
+      for (int i = 0; i < helpers; i++) {
+         try {
+            executorService.submit(() -> {
+               if (progress.enter()) {
+                  try {
+                     worker.run();
+                  } finally {
+                     progress.leave();
+                  }
+               }
+            });
+         } catch (RejectedExecutionException e) {
+            break;
+         }
+      }
+
+      worker.run();
+      progress.close();
+
+      return new Result(progress.failed.get(), progress.firstFailure.get());
+   }
+
+   private <T> void process(final Queue<List<T>> batches, final Consumer<List<T>> processor, final Progress progress) {
+      List<T> batch;
+      while ((batch = batches.poll()) != null) {
+         try {
+            processor.accept(batch);
+         } catch (RuntimeException e) {
+            progress.failed.addAndGet(batch.size());
+            progress.firstFailure.compareAndSet(null, e);
+            log.log(Level.WARNING, String.format("Unable to process a batch of %s: ", progress.name), e);
+         } finally {
+            progress.done(batch.size());
+         }
+      }
+   }
+
+   private static class Progress {
+      private final String name;
+      private final int total;
+      private final boolean report;
+      private final AtomicInteger processed = new AtomicInteger();
+      private final AtomicInteger failed = new AtomicInteger();
+      private final AtomicReference<RuntimeException> firstFailure = new AtomicReference<>();
+
+      private int active = 0;
+      private boolean closed = false;
+
+      private Progress(final String name, final int total, final boolean report) {
+         this.name = name;
+         this.total = total;
+         this.report = report;
+      }
+
+      private void done(final int count) {
+         final int current = processed.addAndGet(count);
+         if (report) {
+            log.info(String.format("Processing %s: %d/%d", name, current, total));
+         }
+      }
+
+      private synchronized boolean enter() {
+         if (closed) {
+            return false;
+         }
+         active++;
+         return true;
+      }
+
+      private synchronized void leave() {
+         active--;
+         notifyAll();
+      }
+
+      // waits for the helpers that already started, the others will not start at all
+      private synchronized void close() {
+         closed = true;
+         while (active > 0) {
+            try {
+               wait();
+            } catch (InterruptedException e) {
+               Thread.currentThread().interrupt();
+               return;
+            }
+         }
+      }
+   }
+
+   /**
+    * Outcome of the processing.
+    */
+   public static class Result {
+      private final int failed;
+      private final RuntimeException firstFailure;
+
+      private Result(final int failed, final RuntimeException firstFailure) {
+         this.failed = failed;
+         this.firstFailure = firstFailure;
+      }
+
+      /**
+       * Gets the number of items in batches that failed.
+       */
+      public int getFailed() {
+         return failed;
+      }
+
+      /**
+       * Gets the exception of the first failed batch, null when all the batches succeeded.
+       */
+      public RuntimeException getFirstFailure() {
+         return firstFailure;
+      }
+   }
+}
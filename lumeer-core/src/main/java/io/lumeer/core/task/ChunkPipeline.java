@@ -0,0 +1,212 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.task;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+/**
+ * Processes chunks of items produced one by one, such as rows of a file that is being parsed, while the producer
+ * continues with the next chunks.
+ *
+ * Chunks wait in a queue of a limited size and up to {@code parallelism - 1} helpers submitted to the executor take
+ * them from there. When the queue is full, the producing thread processes the chunk itself, so the number of chunks held
+ * in memory stays bounded and the producer slows down to the pace of the processing. Helpers that did not start before
+ * the pipeline is closed do nothing, so closing the pipeline cannot block even when the executor is saturated.
+ *
+ * Unlike {@link BatchRunner}, the first failing chunk stops the processing and its exception is thrown to the producer.
+ *
+ * @param <T>
+ *       Type of the processed items.
+ */
+public class ChunkPipeline<T> implements AutoCloseable {
+
+   private static final Logger log = Logger.getLogger(ChunkPipeline.class.getName());
+
+   private static final long POLL_TIMEOUT_MS = 100;
+
+   private final String name;
+   private final Consumer<List<T>> processor;
+   private final BlockingQueue<List<T>> queue;
+
+   private final AtomicLong processed = new AtomicLong();
+   private final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+
+   // whether the producer already got the failure, so that closing the pipeline does not throw it again
+   private boolean failureThrown = false;
+
+   private int submittedHelpers = 0;
+   private int active = 0;
+   private volatile boolean closed = false;
+
+   /**
+    * @param name
+    *       Name of the processing used in progress reports.
+    * @param executorService
+    *       Executor running the helpers, null to process all the chunks in the producing thread.
+    * @param parallelism
+    *       Maximal number of threads processing the chunks, including the producing thread.
+    * @param processor
+    *       Processes a single chunk of items.
+    */
+   public ChunkPipeline(final String name, final ExecutorService executorService, final int parallelism, final Consumer<List<T>> processor) {
+      this.name = name;
+      this.processor = processor;
+
+      final int maxHelpers = executorService != null ? Math.max(parallelism, 1) - 1 : 0;
+      this.queue = new ArrayBlockingQueue<>(Math.max(maxHelpers, 1));
+
+      for (int i = 0; i < maxHelpers; i++) {
+         try {
+            executorService.submit(() -> {
+               if (enter()) {
+                  try {
+                     help();
+                  } finally {
+                     leave();
+                  }
+               }
+            });
+         } catch (RejectedExecutionException e) {
+            break;
+         }
+         submittedHelpers++;
+      }
+   }
+
+   /**
+    * Passes a chunk to the processing. The chunk must not be modified by the producer afterwards.
+    *
+    * @param chunk
+    *       Chunk of items to process.
+    * @throws RuntimeException
+    *       The exception of a chunk that failed before.
+    */
+   public void submit(final List<T> chunk) {
+      checkFailure();
+
+      if (chunk.isEmpty()) {
+         return;
+      }
+
+      if (submittedHelpers == 0 || !queue.offer(chunk)) {
+         process(chunk);
+         checkFailure();
+      }
+   }
+
+   /**
+    * Gets the number of items processed so far.
+    *
+    * @return The number of processed items.
+    */
+   public long getProcessed() {
+      return processed.get();
+   }
+
+   /**
+    * Processes the remaining chunks and returns after the last of them is finished.
+    *
+    * @throws RuntimeException
+    *       The exception of the first chunk that failed, unless it was already thrown by {@link #submit(List)}.
+    */
+   @Override
+   public void close() {
+      synchronized (this) {
+         closed = true;
+      }
+
+      List<T> chunk;
+      while ((chunk = queue.poll()) != null) {
+         process(chunk);
+      }
+
+      // waits for the helpers that already started, the others will not start at all
+      synchronized (this) {
+         while (active > 0) {
+            try {
+               wait();
+            } catch (InterruptedException e) {
+               Thread.currentThread().interrupt();
+               break;
+            }
+         }
+      }
+
+      if (!failureThrown) {
+         checkFailure();
+      }
+   }
+
+   private void help() {
+      try {
+         while (!closed || !queue.isEmpty()) {
+            final List<T> chunk = queue.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            if (chunk != null) {
+               process(chunk);
+            }
+         }
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+      }
+   }
+
+   private void process(final List<T> chunk) {
+      // chunks after a failure are dropped, the producer gets the failure on its next submit
+      if (failure.get() != null) {
+         return;
+      }
+
+      try {
+         processor.accept(chunk);
+         log.info(String.format("Processing %s: %d", name, processed.addAndGet(chunk.size())));
+      } catch (RuntimeException e) {
+         failure.compareAndSet(null, e);
+      }
+   }
+
+   private void checkFailure() {
+      final RuntimeException e = failure.get();
+      if (e != null) {
+         failureThrown = true;
+         throw e;
+      }
+   }
+
+   private synchronized boolean enter() {
+      if (closed) {
+         return false;
+      }
+      active++;
+      return true;
+   }
+
+   private synchronized void leave() {
+      active--;
+      notifyAll();
+   }
+}
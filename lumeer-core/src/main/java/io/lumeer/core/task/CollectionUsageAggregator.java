@@ -0,0 +1,182 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.task;
+
+import io.lumeer.core.WorkspaceKeeper;
+import io.lumeer.core.cache.WorkspaceCache;
+import io.lumeer.core.facade.configuration.DefaultConfigurationProducer;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.enterprise.concurrent.ManagedScheduledExecutorService;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+/**
+ * Collects the usage statistics of collections, attribute usage counts, number of documents and time of the last use,
+ * and writes them behind in periodic batches. A collection used many times within
+ * {@link DefaultConfigurationProducer#COLLECTION_USAGE_FLUSH_MS} is updated once, with targeted increments instead of
+ * rewriting the whole collection, and its managers get a single notification. With a zero interval the usage is written
+ * immediately.
+ */
+@ApplicationScoped
+public class CollectionUsageAggregator {
+
+   private static final long DEFAULT_FLUSH_MILLIS = 2000;
+
+   private static final Logger log = Logger.getLogger(CollectionUsageAggregator.class.getName());
+
+   @Inject
+   private DefaultConfigurationProducer defaultConfigurationProducer;
+
+   @Inject
+   private ManagedScheduledExecutorService scheduledExecutorService;
+
+   @Inject
+   private ContextualTaskFactory contextualTaskFactory;
+
+   @Inject
+   private WorkspaceKeeper workspaceKeeper;
+
+   @Inject
+   private WorkspaceCache workspaceCache;
+
+   private final Map<String, CollectionUsageTask> pending = new ConcurrentHashMap<>(); // project id -> usage
+
+   // taken while the usage is being written, so that a removed usage is never in the middle of a write
+   private final Object flushLock = new Object();
+
+   private long flushMillis;
+   private ScheduledFuture<?> flushFuture;
+
+   @PostConstruct
+   public void init() {
+      flushMillis = defaultConfigurationProducer.getLong(DefaultConfigurationProducer.COLLECTION_USAGE_FLUSH_MS, DEFAULT_FLUSH_MILLIS);
+
+      if (flushMillis > 0) {
+         flushFuture = scheduledExecutorService.scheduleWithFixedDelay(this::flush, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+      }
+   }
+
+   @PreDestroy
+   public void close() {
+      if (flushFuture != null) {
+         flushFuture.cancel(false);
+      }
+      flush();
+   }
+
+   /**
+    * Adds to the usage of a collection in the current project.
+    *
+    * @param collectionId
+    *       Id of the used collection.
+    * @param attributesUsage
+    *       Change of the usage count of each attribute.
+    * @param documentsCount
+    *       Change of the number of documents.
+    */
+   public void addUsage(final String collectionId, final Map<String, Integer> attributesUsage, final int documentsCount) {
+      final String projectId = workspaceKeeper.getProjectId();
+
+      if (projectId == null) {
+         final CollectionUsageTask task = contextualTaskFactory.getInstance(CollectionUsageTask.class);
+         task.addUsage(collectionId, attributesUsage, documentsCount);
+         try {
+            task.process();
+         } catch (Exception e) {
+            log.log(Level.WARNING, "Unable to write usage of collections: ", e);
+         }
+         return;
+      }
+
+      pending.compute(projectId, (id, task) -> {
+         final CollectionUsageTask usageTask = task != null ? task : contextualTaskFactory.getInstance(CollectionUsageTask.class);
+         usageTask.addUsage(collectionId, attributesUsage, documentsCount);
+         return usageTask;
+      });
+
+      if (flushMillis <= 0) {
+         flush();
+      }
+   }
+
+   /**
+    * Discards the usage of a collection in the current project that has not been written yet, so that a deleted
+    * collection is not updated afterwards. Waits for the usage that is being written right now.
+    *
+    * @param collectionId
+    *       Id of the collection.
+    * @return Change of the number of documents of the collection that has not been written yet.
+    */
+   public int removeUsage(final String collectionId) {
+      final String projectId = workspaceKeeper.getProjectId();
+      if (projectId == null) {
+         return 0;
+      }
+
+      synchronized (flushLock) {
+         final AtomicInteger documentsCount = new AtomicInteger();
+         pending.computeIfPresent(projectId, (id, task) -> {
+            documentsCount.set(task.removeUsage(collectionId));
+            return task;
+         });
+
+         return documentsCount.get();
+      }
+   }
+
+   /**
+    * Writes all the collected usage. The usage that fails to be written is kept for the next time.
+    */
+   public void flush() {
+      synchronized (flushLock) {
+         new ArrayList<>(pending.keySet()).forEach(projectId -> {
+            final CollectionUsageTask task = pending.remove(projectId);
+            if (task != null) {
+               process(projectId, task);
+            }
+         });
+      }
+   }
+
+   private void process(final String projectId, final CollectionUsageTask task) {
+      try {
+         task.process();
+      } catch (Exception e) {
+         log.log(Level.WARNING, "Unable to write usage of collections: ", e);
+
+         // the task keeps only the usage that has not been written
+         pending.merge(projectId, task, (current, failed) -> {
+            failed.addUsage(current);
+            return failed;
+         });
+      }
+
+      task.getUpdatedCollections().forEach(collection -> workspaceCache.updateCollectionUsage(projectId, collection));
+   }
+}
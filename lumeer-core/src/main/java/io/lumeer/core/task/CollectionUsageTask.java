@@ -0,0 +1,122 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.task;
+
+import io.lumeer.api.model.Collection;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes the usage statistics of collections accumulated by {@link CollectionUsageAggregator} in a single project.
+ * Each collection is updated with one targeted update and its managers get one notification.
+ */
+public class CollectionUsageTask extends AbstractContextualTask {
+
+   private final Map<String, CollectionUsage> usages = new HashMap<>();
+   private final List<Collection> updatedCollections = new ArrayList<>();
+
+   /**
+    * Adds to the usage of the collection that is written once the task is processed.
+    *
+    * @param collectionId
+    *       Id of the used collection.
+    * @param attributesUsage
+    *       Change of the usage count of each attribute.
+    * @param documentsCount
+    *       Change of the number of documents.
+    */
+   public void addUsage(final String collectionId, final Map<String, Integer> attributesUsage, final int documentsCount) {
+      final CollectionUsage usage = usages.computeIfAbsent(collectionId, id -> new CollectionUsage());
+      attributesUsage.forEach((attributeId, count) -> usage.attributesUsage.merge(attributeId, count, Integer::sum));
+      usage.documentsCount += documentsCount;
+      usage.lastTimeUsed = ZonedDateTime.now();
+   }
+
+   /**
+    * Adds all the usage of another task that has not been written yet.
+    *
+    * @param task
+    *       The task whose usage is added.
+    */
+   public void addUsage(final CollectionUsageTask task) {
+      task.usages.forEach((collectionId, usage) -> {
+         final CollectionUsage merged = usages.computeIfAbsent(collectionId, id -> new CollectionUsage());
+         usage.attributesUsage.forEach((attributeId, count) -> merged.attributesUsage.merge(attributeId, count, Integer::sum));
+         merged.documentsCount += usage.documentsCount;
+         if (merged.lastTimeUsed == null || (usage.lastTimeUsed != null && usage.lastTimeUsed.isAfter(merged.lastTimeUsed))) {
+            merged.lastTimeUsed = usage.lastTimeUsed;
+         }
+      });
+   }
+
+   /**
+    * Discards the usage of the collection that has not been written yet.
+    *
+    * @param collectionId
+    *       Id of the collection.
+    * @return Change of the number of documents that has not been written.
+    */
+   public int removeUsage(final String collectionId) {
+      final CollectionUsage usage = usages.remove(collectionId);
+      return usage != null ? usage.documentsCount : 0;
+   }
+
+   /**
+    * Writes the collected usage. The usage of each collection is discarded as soon as it is written, so when the
+    * processing fails, the task keeps just the usage that has not been written.
+    */
+   @Override
+   public void process() {
+      updatedCollections.clear();
+
+      final Iterator<Map.Entry<String, CollectionUsage>> iterator = usages.entrySet().iterator();
+      while (iterator.hasNext()) {
+         final Map.Entry<String, CollectionUsage> entry = iterator.next();
+         final CollectionUsage usage = entry.getValue();
+         usage.attributesUsage.values().removeIf(count -> count == 0);
+
+         final Collection collection = getDaoContextSnapshot().getCollectionDao().updateCollectionUsage(entry.getKey(), usage.attributesUsage, usage.documentsCount, usage.lastTimeUsed);
+         iterator.remove();
+
+         if (collection != null) {
+            updatedCollections.add(collection);
+            sendPushNotifications(collection);
+         }
+      }
+   }
+
+   public boolean isEmpty() {
+      return usages.isEmpty();
+   }
+
+   public List<Collection> getUpdatedCollections() {
+      return updatedCollections;
+   }
+
+   private static class CollectionUsage {
+      private final Map<String, Integer> attributesUsage = new HashMap<>();
+      private int documentsCount;
+      private ZonedDateTime lastTimeUsed;
+   }
+}
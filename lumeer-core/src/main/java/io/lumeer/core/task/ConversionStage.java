@@ -0,0 +1,155 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.task;
+
+import io.lumeer.core.facade.configuration.DefaultConfigurationProducer;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+/**
+ * Applies a CPU bound conversion, such as decoding data types, to every item of a large batch using a fork-join pool.
+ * Batches smaller than {@link DefaultConfigurationProducer#CONVERSION_PARALLEL_THRESHOLD} are converted in the calling
+ * thread. The conversion must only modify the item it is given, the items stay in their original order.
+ *
+ * The worker threads run outside of any CDI scope, so the conversion must not use request scoped beans. The pool
+ * is shut down together with the application.
+ */
+@ApplicationScoped
+public class ConversionStage {
+
+   private static final int DEFAULT_THRESHOLD = 2000;
+   private static final int MIN_CHUNK_SIZE = 256;
+
+   // more chunks than threads, so that a thread finishing early can steal work from the others
+   private static final int CHUNKS_PER_THREAD = 4;
+
+   @Inject
+   private DefaultConfigurationProducer configurationProducer;
+
+   private ForkJoinPool pool;
+   private int parallelism = 1;
+   private int threshold = Integer.MAX_VALUE;
+
+   public ConversionStage() {
+   }
+
+   /**
+    * @param parallelism
+    *       Number of worker threads, zero or negative to use one per available processor.
+    * @param threshold
+    *       Minimal number of items converted in parallel.
+    */
+   ConversionStage(final int parallelism, final int threshold) {
+      configure(parallelism, threshold);
+   }
+
+   @PostConstruct
+   public void init() {
+      configure(configurationProducer.getInt(DefaultConfigurationProducer.CONVERSION_PARALLELISM, 0),
+            configurationProducer.getInt(DefaultConfigurationProducer.CONVERSION_PARALLEL_THRESHOLD, DEFAULT_THRESHOLD));
+   }
+
+   @PreDestroy
+   public void close() {
+      if (pool != null) {
+         pool.shutdownNow();
+      }
+   }
+
+   private void configure(final int parallelism, final int threshold) {
+      this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+      this.threshold = Math.max(threshold, 1);
+      this.pool = this.parallelism > 1 ? new ForkJoinPool(this.parallelism, ConversionStage::newThread, null, false) : null;
+   }
+
+   /**
+    * Converts all the items.
+    *
+    * @param items
+    *       Items to convert.
+    * @param conversion
+    *       Conversion of a single item.
+    */
+   public <T> void forEach(final Collection<T> items, final Consumer<T> conversion) {
+      if (pool == null || items.size() < threshold) {
+         items.forEach(conversion);
+         return;
+      }
+
+      final List<T> list = items instanceof List ? (List<T>) items : new ArrayList<>(items);
+      final int chunkSize = Math.max(MIN_CHUNK_SIZE, list.size() / (parallelism * CHUNKS_PER_THREAD) + 1);
+
+      pool.invoke(new ConversionAction<>(list, 0, list.size(), chunkSize, conversion));
+   }
+
+   public int getParallelism() {
+      return pool != null ? parallelism : 1;
+   }
+
+   public int getThreshold() {
+      return threshold;
+   }
+
+   private static ForkJoinWorkerThread newThread(final ForkJoinPool pool) {
+      final ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+      thread.setName("data-conversion-" + thread.getPoolIndex());
+      thread.setDaemon(true);
+      return thread;
+   }
+
+   private static class ConversionAction<T> extends RecursiveAction {
+
+      private final List<T> items;
+      private final int from;
+      private final int to;
+      private final int chunkSize;
+      private final Consumer<T> conversion;
+
+      private ConversionAction(final List<T> items, final int from, final int to, final int chunkSize, final Consumer<T> conversion) {
+         this.items = items;
+         this.from = from;
+         this.to = to;
+         this.chunkSize = chunkSize;
+         this.conversion = conversion;
+      }
+
+      @Override
+      protected void compute() {
+         if (to - from <= chunkSize) {
+            for (int i = from; i < to; i++) {
+               conversion.accept(items.get(i));
+            }
+            return;
+         }
+
+         final int middle = (from + to) >>> 1;
+         invokeAll(new ConversionAction<>(items, from, middle, chunkSize, conversion), new ConversionAction<>(items, middle, to, chunkSize, conversion));
+      }
+   }
+}
@@ -24,25 +24,44 @@ import io.lumeer.api.model.Document;
 import io.lumeer.api.model.LinkInstance;
 import io.lumeer.api.model.LinkType;
 import io.lumeer.api.model.function.Function;
+import io.lumeer.api.model.function.FunctionRow;
+import io.lumeer.core.constraint.ConstraintCodec;
 import io.lumeer.core.constraint.ConstraintManager;
 import io.lumeer.core.facade.configuration.DefaultConfigurationProducer;
 import io.lumeer.core.task.executor.FunctionTaskExecutor;
+import io.lumeer.core.util.FunctionXmlParser;
 import io.lumeer.engine.api.data.DataDocument;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
 public class FunctionTask extends AbstractContextualTask {
 
+   public static final int DEFAULT_BATCH_SIZE = 500;
+
+   private static final Logger log = Logger.getLogger(FunctionTask.class.getName());
+
    private Attribute attribute;
    private Collection collection;
    private Set<Document> documents;
    private LinkType linkType;
    private Set<LinkInstance> linkInstances;
 
+   // functions processed earlier in the chain whose changes this function reads
+   private final List<Source> sources = new ArrayList<>();
+   private final Set<String> writtenIds = ConcurrentHashMap.newKeySet();
+   private int failedCount = 0;
+
+   private transient BatchRunner batchRunner = new BatchRunner(null, 1, DEFAULT_BATCH_SIZE);
+   private transient ConversionStage conversionStage = new ConversionStage(1, 1);
+
    private static DefaultConfigurationProducer configurationProducer = new DefaultConfigurationProducer();
    private static ConstraintManager constraintManager = ConstraintManager.getInstance(configurationProducer);
 
@@ -64,6 +83,25 @@ public class FunctionTask extends AbstractContextualTask {
       this.documents = null;
    }
 
+   /**
+    * Sets how the documents or link instances are processed, by default they are processed serially in batches of
+    * {@link #DEFAULT_BATCH_SIZE}.
+    */
+   public void setBatchRunner(final BatchRunner batchRunner) {
+      this.batchRunner = batchRunner;
+   }
+
+   public BatchRunner getBatchRunner() {
+      return batchRunner;
+   }
+
+   /**
+    * Sets how the data of the documents or link instances are encoded, by default they are encoded in the calling thread.
+    */
+   public void setConversionStage(final ConversionStage conversionStage) {
+      this.conversionStage = conversionStage;
+   }
+
    public Function getFunction() {
       return attribute.getFunction();
    }
@@ -88,18 +126,85 @@ public class FunctionTask extends AbstractContextualTask {
       return linkInstances;
    }
 
+   /**
+    * Makes this function recompute the documents or link instances depending on the values written by another
+    * function of the same chain. The source must be processed before this function.
+    *
+    * @param source
+    *       Function whose changes are read by this function.
+    * @param row
+    *       Dependency of this function on the source.
+    */
+   public void addSource(final FunctionTask source, final FunctionRow row) {
+      sources.add(new Source(source, row));
+   }
+
+   /**
+    * Records a document or link instance whose computed value was changed by this function.
+    */
+   public void addWrittenId(final String id) {
+      writtenIds.add(id);
+   }
+
+   public Set<String> getWrittenIds() {
+      return writtenIds;
+   }
+
+   /**
+    * Gets the number of documents or link instances that could not be recomputed because their batch failed.
+    */
+   public int getFailedCount() {
+      return failedCount;
+   }
+
+   /**
+    * Gets the attributes the function can read, so that only they are loaded with the documents or link instances.
+    * These are the attributes referenced in the function and the computed attribute itself. The attribute ids are
+    * not distinguished by their collection or link type, the few extra attributes read that way are cheap.
+    *
+    * @return Ids of the attributes to load, null when they cannot be determined and all the attributes must be loaded.
+    */
+   Set<String> getReferencedAttributeIds() {
+      final Function function = getFunction();
+      if (function == null || function.getXml() == null || function.getXml().isEmpty()) {
+         return null;
+      }
+
+      try {
+         final Set<String> attributeIds = FunctionXmlParser.parseFunctionXml(function.getXml()).stream()
+                                                           .map(FunctionXmlParser.AttributeReference::getAttributeId)
+                                                           .collect(Collectors.toSet());
+         if (attributeIds.contains(null)) {
+            return null;
+         }
+         attributeIds.add(attribute.getId());
+         return attributeIds;
+      } catch (IllegalStateException e) {
+         return null;
+      }
+   }
+
    @Override
    public void process() {
-      if (documents != null && collection != null) {
-         getDocumentsWithData(collection, documents).forEach(document -> {
-            final FunctionTaskExecutor executor = new FunctionTaskExecutor(this, collection, document);
-            executor.execute();
-         });
-      } else if (linkType != null && linkInstances != null) {
-         getLinkInstancesWithData(linkType, linkInstances).forEach(linkInstance -> {
-            final FunctionTaskExecutor executor = new FunctionTaskExecutor(this, linkType, linkInstance);
-            executor.execute();
-         });
+      final Set<String> attributeIds = getReferencedAttributeIds();
+
+      // documents do not depend on each other within a single function, the data are loaded batch by batch
+      if (collection != null) {
+         final List<Document> toProcess = new ArrayList<>(getDocumentsToProcess());
+         final BatchRunner.Result result = batchRunner.run(collection.getName() + "." + attribute.getName(), toProcess, batch ->
+               getDocumentsWithData(collection, batch, attributeIds).forEach(document -> {
+                  final FunctionTaskExecutor executor = new FunctionTaskExecutor(this, collection, document);
+                  executor.execute();
+               }));
+         reportFailures(result, toProcess.size(), new FunctionTaskExecutor(this, collection, null));
+      } else if (linkType != null) {
+         final List<LinkInstance> toProcess = new ArrayList<>(getLinkInstancesToProcess());
+         final BatchRunner.Result result = batchRunner.run(linkType.getName() + "." + attribute.getName(), toProcess, batch ->
+               getLinkInstancesWithData(linkType, batch, attributeIds).forEach(linkInstance -> {
+                  final FunctionTaskExecutor executor = new FunctionTaskExecutor(this, linkType, linkInstance);
+                  executor.execute();
+               }));
+         reportFailures(result, toProcess.size(), new FunctionTaskExecutor(this, linkType, null));
       }
 
       if (parent != null) {
@@ -107,35 +212,118 @@ public class FunctionTask extends AbstractContextualTask {
       }
    }
 
-   private Set<Document> getDocumentsWithData(final Collection collection, final Set<Document> documents) {
+   private void reportFailures(final BatchRunner.Result result, final int total, final FunctionTaskExecutor executor) {
+      failedCount = result.getFailed();
+      if (failedCount > 0) {
+         final String message = String.format("Unable to recompute %d of %d values of %s", failedCount, total, attribute.getName());
+         log.warning(message);
+         executor.reportError(new IllegalStateException(message), result.getFirstFailure());
+      }
+   }
+
+   Set<Document> getDocumentsToProcess() {
+      final Set<Document> result = documents != null ? new HashSet<>(documents) : new HashSet<>();
+      final Set<String> documentIds = new HashSet<>();
+
+      for (final Source source : sources) {
+         final Set<String> ids = source.task.getWrittenIds();
+         if (ids.isEmpty()) {
+            continue;
+         }
+
+         if (source.task.getCollection() != null) {
+            if (collection.getId().equals(source.row.getDependentCollectionId())) {
+               documentIds.addAll(ids);
+            } else if (source.row.getDependentLinkTypeId() != null) {
+               getDaoContextSnapshot().getLinkInstanceDao().getLinkInstancesByDocumentIds(ids, source.row.getDependentLinkTypeId())
+                                      .forEach(linkInstance -> linkInstance.getDocumentIds().stream().filter(id -> !ids.contains(id)).forEach(documentIds::add));
+            }
+         } else {
+            getDaoContextSnapshot().getLinkInstanceDao().getLinkInstances(ids)
+                                   .forEach(linkInstance -> documentIds.addAll(linkInstance.getDocumentIds()));
+         }
+      }
+
+      result.stream().map(Document::getId).forEach(documentIds::remove);
+      if (!documentIds.isEmpty()) {
+         getDaoContextSnapshot().getDocumentDao().getDocumentsByIds(documentIds.toArray(new String[0])).stream()
+                                .filter(document -> collection.getId().equals(document.getCollectionId()))
+                                .forEach(result::add);
+      }
+
+      return result;
+   }
+
+   private Set<LinkInstance> getLinkInstancesToProcess() {
+      final Set<LinkInstance> result = linkInstances != null ? new HashSet<>(linkInstances) : new HashSet<>();
+      final Set<String> linkInstanceIds = new HashSet<>();
+
+      for (final Source source : sources) {
+         final Set<String> ids = source.task.getWrittenIds();
+         if (ids.isEmpty()) {
+            continue;
+         }
+
+         if (source.task.getCollection() != null) {
+            result.addAll(getDaoContextSnapshot().getLinkInstanceDao().getLinkInstancesByDocumentIds(ids, linkType.getId()));
+         } else if (linkType.getId().equals(source.task.getLinkType().getId())) {
+            linkInstanceIds.addAll(ids);
+         }
+      }
+
+      result.stream().map(LinkInstance::getId).forEach(linkInstanceIds::remove);
+      if (!linkInstanceIds.isEmpty()) {
+         result.addAll(getDaoContextSnapshot().getLinkInstanceDao().getLinkInstances(linkInstanceIds));
+      }
+
+      return result;
+   }
+
+   private Set<Document> getDocumentsWithData(final Collection collection, final java.util.Collection<Document> documents, final Set<String> attributeIds) {
       if (documents.isEmpty()) {
          return Collections.emptySet();
       }
       Map<String, DataDocument> data = getDaoContextSnapshot()
             .getDataDao()
-            .getData(collection.getId(), documents.stream().map(Document::getId).collect(Collectors.toSet()))
+            .getData(collection.getId(), documents.stream().map(Document::getId).collect(Collectors.toSet()), attributeIds)
             .stream()
             .collect(Collectors.toMap(DataDocument::getId, d -> d));
-      return new HashSet<>(documents).stream().peek(document -> {
+      final Set<Document> documentsWithData = new HashSet<>(documents);
+      final ConstraintCodec codec = constraintManager.getCodec(collection);
+      conversionStage.forEach(documentsWithData, document -> {
          DataDocument dataDocument = data.get(document.getId());
-         constraintManager.encodeDataTypesForFce(collection, dataDocument);
+         codec.encodeForFce(dataDocument);
          document.setData(dataDocument);
-      }).collect(Collectors.toSet());
+      });
+      return documentsWithData;
    }
 
-   private Set<LinkInstance> getLinkInstancesWithData(final LinkType linkType, final Set<LinkInstance> linkInstances) {
+   private Set<LinkInstance> getLinkInstancesWithData(final LinkType linkType, final java.util.Collection<LinkInstance> linkInstances, final Set<String> attributeIds) {
       if (linkInstances.isEmpty()) {
          return Collections.emptySet();
       }
       Map<String, DataDocument> data = getDaoContextSnapshot()
             .getLinkDataDao()
-            .getData(linkType.getId(), linkInstances.stream().map(LinkInstance::getId).collect(Collectors.toSet()))
+            .getData(linkType.getId(), linkInstances.stream().map(LinkInstance::getId).collect(Collectors.toSet()), attributeIds)
             .stream()
             .collect(Collectors.toMap(DataDocument::getId, d -> d));
-      return new HashSet<>(linkInstances).stream().peek(linkInstance -> {
+      final Set<LinkInstance> linkInstancesWithData = new HashSet<>(linkInstances);
+      final ConstraintCodec codec = constraintManager.getCodec(linkType);
+      conversionStage.forEach(linkInstancesWithData, linkInstance -> {
          final DataDocument dataDocument = data.get(linkInstance.getId());
-         constraintManager.encodeDataTypesForFce(linkType, dataDocument);
+         codec.encodeForFce(dataDocument);
          linkInstance.setData(dataDocument);
-      }).collect(Collectors.toSet());
+      });
+      return linkInstancesWithData;
+   }
+
+   private static class Source {
+      private final FunctionTask task;
+      private final FunctionRow row;
+
+      private Source(final FunctionTask task, final FunctionRow row) {
+         this.task = task;
+         this.row = row;
+      }
    }
 }
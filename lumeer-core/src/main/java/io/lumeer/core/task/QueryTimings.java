@@ -0,0 +1,91 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.task;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Durations of individual queries executed during a single search. Entries are kept in the order in which
+ * the queries were scheduled, regardless of the order in which they finished.
+ */
+public class QueryTimings {
+
+   private final List<Timing> timings = Collections.synchronizedList(new ArrayList<>());
+
+   public void add(final String name, final long nanos) {
+      timings.add(new Timing(name, nanos));
+   }
+
+   public void addAll(final QueryTimings other) {
+      timings.addAll(other.getTimings());
+   }
+
+   public List<Timing> getTimings() {
+      synchronized (timings) {
+         return new ArrayList<>(timings);
+      }
+   }
+
+   public long getTotalNanos() {
+      return getTimings().stream().mapToLong(Timing::getNanos).sum();
+   }
+
+   /**
+    * Formats the timings as a value of the Server-Timing HTTP header.
+    *
+    * @return Header value, empty when no query was recorded.
+    */
+   public String toServerTiming() {
+      final List<Timing> snapshot = getTimings();
+      final List<String> parts = new ArrayList<>(snapshot.size());
+
+      for (int i = 0; i < snapshot.size(); i++) {
+         final Timing timing = snapshot.get(i);
+         parts.add(String.format(Locale.ROOT, "q%d;desc=\"%s\";dur=%.2f", i, timing.getName().replace("\"", ""), timing.getNanos() / 1_000_000.0));
+      }
+
+      return String.join(", ", parts);
+   }
+
+   public static class Timing {
+      private final String name;
+      private final long nanos;
+
+      public Timing(final String name, final long nanos) {
+         this.name = name;
+         this.nanos = nanos;
+      }
+
+      public String getName() {
+         return name;
+      }
+
+      public long getNanos() {
+         return nanos;
+      }
+
+      @Override
+      public String toString() {
+         return name + "=" + (nanos / 1_000_000) + "ms";
+      }
+   }
+}
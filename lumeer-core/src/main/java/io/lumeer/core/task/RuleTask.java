@@ -24,31 +24,49 @@ import io.lumeer.api.model.Rule;
 import io.lumeer.core.task.executor.AutoLinkRuleTaskExecutor;
 import io.lumeer.core.task.executor.BlocklyRuleTaskExecutor;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 public class RuleTask extends AbstractContextualTask {
 
    private String ruleName;
    private Rule rule;
    private Collection collection;
+   private List<Document> oldDocuments;
+   private List<Document> newDocuments;
    private Document oldDocument;
    private Document newDocument;
-   private AbstractContextualTask parent;
 
    public void setRule(final String ruleName, final Rule rule, final Collection collection, final Document oldDocument, final Document newDocument) {
+      setRule(ruleName, rule, collection, Collections.singletonList(oldDocument), Collections.singletonList(newDocument));
+   }
+
+   /**
+    * Sets the rule to be executed once for each pair of the original and the new document at the same position.
+    * Either of the documents is null when it was created or removed.
+    */
+   public void setRule(final String ruleName, final Rule rule, final Collection collection, final List<Document> oldDocuments, final List<Document> newDocuments) {
       this.ruleName = ruleName;
       this.rule = rule;
       this.collection = collection;
-      this.oldDocument = oldDocument;
-      this.newDocument = newDocument;
+      this.oldDocuments = new ArrayList<>(oldDocuments);
+      this.newDocuments = new ArrayList<>(newDocuments);
    }
 
    @Override
    public void process() {
-      if (rule.getType() == Rule.RuleType.BLOCKLY) {
-         final BlocklyRuleTaskExecutor executor = new BlocklyRuleTaskExecutor(ruleName, this);
-         executor.execute();
-      } else if (rule.getType() == Rule.RuleType.AUTO_LINK) {
-         final AutoLinkRuleTaskExecutor executor = new AutoLinkRuleTaskExecutor(ruleName, this);
-         executor.execute();
+      for (int i = 0; i < oldDocuments.size(); i++) {
+         oldDocument = oldDocuments.get(i);
+         newDocument = newDocuments.get(i);
+
+         if (rule.getType() == Rule.RuleType.BLOCKLY) {
+            final BlocklyRuleTaskExecutor executor = new BlocklyRuleTaskExecutor(ruleName, this);
+            executor.execute();
+         } else if (rule.getType() == Rule.RuleType.AUTO_LINK) {
+            final AutoLinkRuleTaskExecutor executor = new AutoLinkRuleTaskExecutor(ruleName, this);
+            executor.execute();
+         }
       }
 
       if (parent != null) {
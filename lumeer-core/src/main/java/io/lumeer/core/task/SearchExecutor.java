@@ -0,0 +1,165 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.task;
+
+import io.lumeer.core.facade.configuration.DefaultConfigurationProducer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+import javax.annotation.PostConstruct;
+import javax.enterprise.concurrent.ManagedExecutorService;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+/**
+ * Runs independent search queries concurrently. The number of queries running in the managed executor at the same
+ * time is bounded for the whole application, queries that do not get a slot run in the calling thread.
+ * Parallel execution is disabled unless {@link DefaultConfigurationProducer#SEARCH_PARALLELISM} is greater than one.
+ *
+ * The worker threads run outside of any CDI scope, so the queries must not use request scoped beans.
+ * Use a {@link io.lumeer.storage.api.dao.context.DaoContextSnapshot} to access the database instead.
+ */
+@ApplicationScoped
+public class SearchExecutor {
+
+   @Inject
+   private ManagedExecutorService managedExecutorService;
+
+   @Inject
+   private DefaultConfigurationProducer defaultConfigurationProducer;
+
+   private ExecutorService executorService;
+   private int parallelism;
+   private Semaphore slots;
+
+   public SearchExecutor() {
+   }
+
+   SearchExecutor(final ExecutorService executorService, final int parallelism) {
+      init(executorService, parallelism);
+   }
+
+   @PostConstruct
+   public void init() {
+      init(managedExecutorService, defaultConfigurationProducer.getInt(DefaultConfigurationProducer.SEARCH_PARALLELISM, 0));
+   }
+
+   private void init(final ExecutorService executorService, final int parallelism) {
+      this.executorService = executorService;
+      this.parallelism = Math.max(parallelism, 1);
+      this.slots = new Semaphore(this.parallelism);
+   }
+
+   public boolean isParallel() {
+      return parallelism > 1;
+   }
+
+   /**
+    * Applies the query to all the inputs and returns the results in the order of the inputs.
+    *
+    * @param inputs
+    *       Inputs of the individual queries.
+    * @param query
+    *       Query to run for each input.
+    * @param namer
+    *       Provides the name of the query for the given input used in timings.
+    * @param timings
+    *       Timings to record the duration of each query to, may be null.
+    * @return Results of the queries, in the order of the inputs.
+    */
+   public <T, R> List<R> map(final List<T> inputs, final Function<T, R> query, final Function<T, String> namer, final QueryTimings timings) {
+      final long[] durations = new long[inputs.size()];
+      final List<R> results = new ArrayList<>(inputs.size());
+
+      if (!isParallel() || inputs.size() < 2) {
+         for (int i = 0; i < inputs.size(); i++) {
+            results.add(timed(query, inputs.get(i), durations, i));
+         }
+      } else {
+         final List<CompletableFuture<R>> futures = new ArrayList<>(inputs.size());
+
+         for (int i = 0; i < inputs.size(); i++) {
+            final T input = inputs.get(i);
+            final int index = i;
+
+            // the last query always runs in the calling thread, so does any query that did not get a free slot
+            if (i < inputs.size() - 1 && slots.tryAcquire()) {
+               try {
+                  futures.add(CompletableFuture.supplyAsync(() -> {
+                     try {
+                        return timed(query, input, durations, index);
+                     } finally {
+                        slots.release();
+                     }
+                  }, executorService));
+               } catch (RuntimeException e) {
+                  slots.release();
+                  futures.add(CompletableFuture.completedFuture(timed(query, input, durations, index)));
+               }
+            } else {
+               futures.add(CompletableFuture.completedFuture(timed(query, input, durations, index)));
+            }
+         }
+
+         for (final CompletableFuture<R> future : futures) {
+            results.add(join(future));
+         }
+      }
+
+      if (timings != null) {
+         for (int i = 0; i < inputs.size(); i++) {
+            timings.add(namer.apply(inputs.get(i)), durations[i]);
+         }
+      }
+
+      return results;
+   }
+
+   private <T, R> R timed(final Function<T, R> query, final T input, final long[] durations, final int index) {
+      final long start = System.nanoTime();
+      try {
+         return query.apply(input);
+      } finally {
+         durations[index] = System.nanoTime() - start;
+      }
+   }
+
+   private <R> R join(final CompletableFuture<R> future) {
+      try {
+         return future.get();
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw new IllegalStateException("Interrupted while waiting for search results.", e);
+      } catch (ExecutionException e) {
+         final Throwable cause = e.getCause();
+         if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+         }
+         if (cause instanceof Error) {
+            throw (Error) cause;
+         }
+         throw new IllegalStateException(cause);
+      }
+   }
+}
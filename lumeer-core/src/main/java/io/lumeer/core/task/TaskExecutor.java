@@ -18,6 +18,21 @@
  */
 package io.lumeer.core.task;
 
+import io.lumeer.core.facade.configuration.DefaultConfigurationProducer;
+import io.lumeer.storage.api.dao.context.DaoContextSnapshot;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.PostConstruct;
 import javax.enterprise.concurrent.ManagedExecutorService;
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
@@ -25,17 +40,294 @@ import javax.inject.Inject;
 /**
  * Executes tasks in background.
  *
+ * Tasks are queued per organization and project, the queues are served in a round robin fashion so that a burst of
+ * tasks in one project does not delay the tasks of the others. At most {@link DefaultConfigurationProducer#TASK_EXECUTOR_CONCURRENCY}
+ * tasks run in the managed executor at the same time. When there are more than
+ * {@link DefaultConfigurationProducer#TASK_EXECUTOR_QUEUE_SIZE} tasks waiting, new tasks run directly in the submitting
+ * thread, which slows down the producer until the queue drains.
+ *
  * @author <a href="mailto:marvenec@gmail.com">Martin Večeřa</a>
  */
 @ApplicationScoped
 public class TaskExecutor {
 
+   private static final int DEFAULT_CONCURRENCY = 4;
+   private static final int DEFAULT_QUEUE_SIZE = 10_000;
+
+   private static final Logger log = Logger.getLogger(TaskExecutor.class.getName());
+
    @Inject
-   private ManagedExecutorService executorService;
+   private ManagedExecutorService managedExecutorService;
+
+   @Inject
+   private DefaultConfigurationProducer defaultConfigurationProducer;
+
+   private ExecutorService executorService;
+   private int concurrency;
+   private int maxQueueSize;
+
+   private final Object lock = new Object();
+   private final Map<String, Deque<QueuedTask>> queues = new HashMap<>(); // tenant -> tasks
+   private final Deque<String> tenants = new ArrayDeque<>(); // tenants with queued tasks in the order they are served
+   private int queued = 0;
+   private int running = 0;
+
+   private final Map<String, Counters> counters = new ConcurrentHashMap<>(); // task type -> counters
+
+   public TaskExecutor() {
+   }
+
+   TaskExecutor(final ExecutorService executorService, final int concurrency, final int maxQueueSize) {
+      init(executorService, concurrency, maxQueueSize);
+   }
+
+   @PostConstruct
+   public void init() {
+      init(managedExecutorService,
+            defaultConfigurationProducer.getInt(DefaultConfigurationProducer.TASK_EXECUTOR_CONCURRENCY, DEFAULT_CONCURRENCY),
+            defaultConfigurationProducer.getInt(DefaultConfigurationProducer.TASK_EXECUTOR_QUEUE_SIZE, DEFAULT_QUEUE_SIZE));
+   }
+
+   private void init(final ExecutorService executorService, final int concurrency, final int maxQueueSize) {
+      this.executorService = executorService;
+      this.concurrency = Math.max(concurrency, 1);
+      this.maxQueueSize = Math.max(maxQueueSize, 0);
+   }
 
    public void submitTask(final Task task) {
-      executorService.submit(() -> {
-         task.process();
-      });
+      final QueuedTask queuedTask = new QueuedTask(task, getTenant(task), getCounters(task));
+      queuedTask.counters.submitted.increment();
+
+      synchronized (lock) {
+         if (queued < maxQueueSize) {
+            queues.computeIfAbsent(queuedTask.tenant, tenant -> {
+               tenants.addLast(tenant);
+               return new ArrayDeque<>();
+            }).addLast(queuedTask);
+            queued++;
+            queuedTask.counters.queued.incrementAndGet();
+
+            dispatch();
+            return;
+         }
+      }
+
+      // the queue is full, let the producer wait for its own task
+      queuedTask.counters.callerRuns.increment();
+      run(queuedTask);
+   }
+
+   public int getQueueLength() {
+      synchronized (lock) {
+         return queued;
+      }
+   }
+
+   public int getRunning() {
+      synchronized (lock) {
+         return running;
+      }
+   }
+
+   /**
+    * Gets the counters of the tasks submitted so far.
+    *
+    * @return Statistics by the simple class name of the task.
+    */
+   public Map<String, Statistics> getStatistics() {
+      final Map<String, Statistics> statistics = new HashMap<>();
+      counters.forEach((type, typeCounters) -> statistics.put(type, typeCounters.snapshot()));
+
+      return statistics;
+   }
+
+   String getTenant(final Task task) {
+      if (task instanceof ContextualTask) {
+         final DaoContextSnapshot snapshot = ((ContextualTask) task).getDaoContextSnapshot();
+         if (snapshot != null) {
+            return snapshot.getOrganizationId() + "/" + snapshot.getProjectId();
+         }
+      }
+
+      return "";
+   }
+
+   private Counters getCounters(final Task task) {
+      return counters.computeIfAbsent(task.getClass().getSimpleName(), type -> new Counters());
+   }
+
+   // must be called while holding the lock
+   private void dispatch() {
+      while (running < concurrency && !tenants.isEmpty()) {
+         final String tenant = tenants.pollFirst();
+         final Deque<QueuedTask> tenantQueue = queues.get(tenant);
+         final QueuedTask queuedTask = tenantQueue.pollFirst();
+
+         if (tenantQueue.isEmpty()) {
+            queues.remove(tenant);
+         } else {
+            tenants.addLast(tenant);
+         }
+
+         try {
+            executorService.submit(() -> {
+               try {
+                  run(queuedTask);
+               } finally {
+                  synchronized (lock) {
+                     running--;
+                     dispatch();
+                  }
+               }
+            });
+            running++;
+            queued--;
+            queuedTask.counters.queued.decrementAndGet();
+         } catch (RejectedExecutionException e) {
+            // put the task back, it is dispatched again once another task finishes or a new one is submitted
+            log.log(Level.WARNING, "Unable to submit task for execution: ", e);
+            queues.computeIfAbsent(tenant, key -> {
+               tenants.addFirst(key);
+               return new ArrayDeque<>();
+            }).addFirst(queuedTask);
+            return;
+         }
+      }
+   }
+
+   private void run(final QueuedTask queuedTask) {
+      final long start = System.nanoTime();
+      queuedTask.counters.recordWait(start - queuedTask.submittedNanos);
+
+      try {
+         queuedTask.task.process();
+      } catch (RuntimeException e) {
+         queuedTask.counters.failed.increment();
+         log.log(Level.WARNING, "Task execution failed: ", e);
+      } finally {
+         queuedTask.counters.recordRun(System.nanoTime() - start);
+      }
+   }
+
+   private static class QueuedTask {
+      private final Task task;
+      private final String tenant;
+      private final Counters counters;
+      private final long submittedNanos = System.nanoTime();
+
+      private QueuedTask(final Task task, final String tenant, final Counters counters) {
+         this.task = task;
+         this.tenant = tenant;
+         this.counters = counters;
+      }
+   }
+
+   private static class Counters {
+      private final AtomicLong queued = new AtomicLong();
+      private final LongAdder submitted = new LongAdder();
+      private final LongAdder completed = new LongAdder();
+      private final LongAdder failed = new LongAdder();
+      private final LongAdder callerRuns = new LongAdder();
+      private final LongAdder totalWaitNanos = new LongAdder();
+      private final AtomicLong maxWaitNanos = new AtomicLong();
+      private final LongAdder totalRunNanos = new LongAdder();
+      private final AtomicLong maxRunNanos = new AtomicLong();
+
+      private void recordWait(final long nanos) {
+         totalWaitNanos.add(nanos);
+         maxWaitNanos.accumulateAndGet(nanos, Math::max);
+      }
+
+      private void recordRun(final long nanos) {
+         completed.increment();
+         totalRunNanos.add(nanos);
+         maxRunNanos.accumulateAndGet(nanos, Math::max);
+      }
+
+      private Statistics snapshot() {
+         final long completedTasks = completed.sum();
+         return new Statistics(queued.get(), submitted.sum(), completedTasks, failed.sum(), callerRuns.sum(),
+               completedTasks > 0 ? totalWaitNanos.sum() / completedTasks / 1_000_000 : 0, maxWaitNanos.get() / 1_000_000,
+               completedTasks > 0 ? totalRunNanos.sum() / completedTasks / 1_000_000 : 0, maxRunNanos.get() / 1_000_000);
+      }
+   }
+
+   /**
+    * Snapshot of the counters of one task type.
+    */
+   public static class Statistics {
+      private final long queued;
+      private final long submitted;
+      private final long completed;
+      private final long failed;
+      private final long callerRuns;
+      private final long averageWaitMillis;
+      private final long maxWaitMillis;
+      private final long averageRunMillis;
+      private final long maxRunMillis;
+
+      public Statistics(final long queued, final long submitted, final long completed, final long failed, final long callerRuns,
+            final long averageWaitMillis, final long maxWaitMillis, final long averageRunMillis, final long maxRunMillis) {
+         this.queued = queued;
+         this.submitted = submitted;
+         this.completed = completed;
+         this.failed = failed;
+         this.callerRuns = callerRuns;
+         this.averageWaitMillis = averageWaitMillis;
+         this.maxWaitMillis = maxWaitMillis;
+         this.averageRunMillis = averageRunMillis;
+         this.maxRunMillis = maxRunMillis;
+      }
+
+      public long getQueued() {
+         return queued;
+      }
+
+      public long getSubmitted() {
+         return submitted;
+      }
+
+      public long getCompleted() {
+         return completed;
+      }
+
+      public long getFailed() {
+         return failed;
+      }
+
+      public long getCallerRuns() {
+         return callerRuns;
+      }
+
+      public long getAverageWaitMillis() {
+         return averageWaitMillis;
+      }
+
+      public long getMaxWaitMillis() {
+         return maxWaitMillis;
+      }
+
+      public long getAverageRunMillis() {
+         return averageRunMillis;
+      }
+
+      public long getMaxRunMillis() {
+         return maxRunMillis;
+      }
+
+      @Override
+      public String toString() {
+         return "Statistics{" +
+               "queued=" + queued +
+               ", submitted=" + submitted +
+               ", completed=" + completed +
+               ", failed=" + failed +
+               ", callerRuns=" + callerRuns +
+               ", averageWaitMillis=" + averageWaitMillis +
+               ", maxWaitMillis=" + maxWaitMillis +
+               ", averageRunMillis=" + averageRunMillis +
+               ", maxRunMillis=" + maxRunMillis +
+               '}';
+      }
    }
 }
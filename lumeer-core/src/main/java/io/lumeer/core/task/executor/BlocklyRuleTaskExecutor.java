@@ -54,7 +54,7 @@ public class BlocklyRuleTaskExecutor {
       final JsExecutor jsExecutor = new JsExecutor();
 
       try {
-         jsExecutor.execute(bindings, ruleTask, ruleTask.getCollection(), rule.getJs());
+         jsExecutor.execute(bindings, ruleTask, ruleTask.getCollection(), ruleTask.getCollection().getId() + "/" + ruleName, rule.getJs());
 
          if (!rule.isDryRun()) {
             jsExecutor.commitChanges();
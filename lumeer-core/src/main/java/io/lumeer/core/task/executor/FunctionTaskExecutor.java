@@ -62,19 +62,36 @@ public class FunctionTaskExecutor {
       final JsExecutor.LinkBridge thisLink = new JsExecutor.LinkBridge(linkInstance);
       final Map<String, Object> bindings = linkInstance == null ? Map.of("thisDocument", thisDocument) : Map.of("thisLink", thisLink);
 
+      final String name = (collection != null ? collection.getId() : linkType.getId()) + "/" + task.getAttribute().getId();
       final JsExecutor jsExecutor = new JsExecutor();
 
       try {
-         jsExecutor.execute(bindings, task, collection, task.getFunction().getJs());
+         jsExecutor.execute(bindings, task, collection, name, task.getFunction().getJs());
          jsExecutor.commitChanges();
+         if (jsExecutor.hasChanges()) {
+            task.addWrittenId(document != null ? document.getId() : linkInstance.getId());
+         }
          checkErrorErasure();
       } catch (Exception e) {
          log.log(Level.WARNING, "Unable to execute function: ", e);
          writeTaskError(e, jsExecutor.getCause());
          jsExecutor.setErrorInAttribute(document, task.getAttribute().getId());
+         task.addWrittenId(document != null ? document.getId() : linkInstance.getId());
       }
    }
 
+   /**
+    * Stores the error in the function of the collection or link type this executor was created for.
+    *
+    * @param e
+    *       Error to report.
+    * @param cause
+    *       Cause of the error, may be null.
+    */
+   public void reportError(final Exception e, final Exception cause) {
+      writeTaskError(e, cause);
+   }
+
    private void checkErrorErasure() {
       if (task.getFunction().getTimestamp() > 0 && System.currentTimeMillis() - task.getFunction().getTimestamp() > 3600_000) {
          task.getFunction().setErrorReport("");
@@ -0,0 +1,234 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.task.executor;
+
+import io.lumeer.cache.simple.BoundedCache;
+import io.lumeer.cache.simple.CacheStatistics;
+import io.lumeer.core.facade.configuration.DefaultConfigurationProducer;
+
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Engine;
+import org.graalvm.polyglot.PolyglotException;
+import org.graalvm.polyglot.Source;
+import org.graalvm.polyglot.Value;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Keeps JavaScript contexts ready for rule and function execution.
+ *
+ * All contexts share a single {@link Engine} so that the code parsed in one context is reused by the others.
+ * Parsed {@link Source} objects are cached by their name and code. Idle contexts are kept in a bounded pool, a context
+ * is reset after each use by removing the global members added during the execution. The code is evaluated in a
+ * function scope so that its declarations do not survive the execution. Contexts that cannot be reset, or that were
+ * closed because the execution timed out, are discarded.
+ */
+public class JsContextPool {
+
+   public static final long EXECUTION_TIMEOUT_MILLIS = 3000;
+
+   private static final int DEFAULT_POOL_SIZE = 4;
+   private static final int DEFAULT_SOURCE_CACHE_SIZE = 1000;
+
+   private static final Logger log = Logger.getLogger(JsContextPool.class.getName());
+
+   private static JsContextPool instance = null;
+
+   private final Engine engine;
+   private final BlockingQueue<PooledContext> idleContexts;
+   private final BoundedCache<Source> sources;
+   private final ScheduledExecutorService watchdog;
+
+   private final LongAdder warmExecutions = new LongAdder();
+   private final LongAdder coldExecutions = new LongAdder();
+   private final LongAdder discardedContexts = new LongAdder();
+
+   public static synchronized JsContextPool getInstance() {
+      if (instance == null) {
+         final DefaultConfigurationProducer configurationProducer = new DefaultConfigurationProducer();
+         instance = new JsContextPool(
+               configurationProducer.getInt(DefaultConfigurationProducer.JS_CONTEXT_POOL_SIZE, DEFAULT_POOL_SIZE),
+               configurationProducer.getInt(DefaultConfigurationProducer.JS_SOURCE_CACHE_SIZE, DEFAULT_SOURCE_CACHE_SIZE));
+      }
+
+      return instance;
+   }
+
+   JsContextPool(final int poolSize, final int sourceCacheSize) {
+      this.engine = Engine
+            .newBuilder()
+            .allowExperimentalOptions(true)
+            .option("js.experimental-foreign-object-prototype", "true")
+            .build();
+      this.idleContexts = new ArrayBlockingQueue<>(Math.max(poolSize, 1));
+      this.sources = new BoundedCache<>(Math.max(sourceCacheSize, 1), 0, 0);
+      this.watchdog = Executors.newSingleThreadScheduledExecutor(runnable -> {
+         final Thread thread = new Thread(runnable, "js-execution-watchdog");
+         thread.setDaemon(true);
+         return thread;
+      });
+   }
+
+   /**
+    * Evaluates the code in a pooled context. The execution is cancelled after {@link #EXECUTION_TIMEOUT_MILLIS}.
+    *
+    * @param name
+    *       Identification of the code (e.g. rule or function id), used as the source name and as a part of the cache key.
+    * @param js
+    *       Code to evaluate.
+    * @param polyglotBindings
+    *       Objects available through the polyglot bindings.
+    * @param bindings
+    *       Objects available as global variables.
+    */
+   public void execute(final String name, final String js, final Map<String, Object> polyglotBindings, final Map<String, Object> bindings) {
+      final Source source = getSource(name, js);
+      final PooledContext pooledContext = acquire();
+      final Context context = pooledContext.context;
+
+      final ScheduledFuture<?> timeout = watchdog.schedule(() -> context.close(true), EXECUTION_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+      boolean reusable = false;
+      try {
+         final Value polyglot = context.getPolyglotBindings();
+         polyglotBindings.forEach(polyglot::putMember);
+
+         final Value global = context.getBindings("js");
+         bindings.forEach(global::putMember);
+
+         context.eval(source);
+         reusable = true;
+      } finally {
+         // the timeout either did not fire yet, or the context is already closed
+         if (!timeout.cancel(false)) {
+            reusable = false;
+         }
+         release(pooledContext, reusable && reset(pooledContext, polyglotBindings.keySet()));
+      }
+   }
+
+   public long getWarmExecutions() {
+      return warmExecutions.sum();
+   }
+
+   public long getColdExecutions() {
+      return coldExecutions.sum();
+   }
+
+   public long getDiscardedContexts() {
+      return discardedContexts.sum();
+   }
+
+   public int getIdleContexts() {
+      return idleContexts.size();
+   }
+
+   public CacheStatistics getSourceCacheStatistics() {
+      return sources.getStatistics();
+   }
+
+   private Source getSource(final String name, final String js) {
+      final String key = name + ":" + js.length() + ":" + Integer.toHexString(js.hashCode());
+      final String code = wrap(js);
+      final Source cached = sources.get(key);
+      if (cached != null && code.contentEquals(cached.getCharacters())) {
+         return cached;
+      }
+
+      final Source source = Source.newBuilder("js", code, name).cached(true).buildLiteral();
+      sources.set(key, source);
+      return source;
+   }
+
+   // top level declarations stay local to the function and do not pollute the global scope of a pooled context
+   private static String wrap(final String js) {
+      return "(function() {\n" + js + "\n})();";
+   }
+
+   private PooledContext acquire() {
+      final PooledContext idle = idleContexts.poll();
+      if (idle != null) {
+         warmExecutions.increment();
+         return idle;
+      }
+
+      coldExecutions.increment();
+      final Context context = Context
+            .newBuilder("js")
+            .engine(engine)
+            .allowAllAccess(true)
+            .build();
+      context.initialize("js");
+
+      return new PooledContext(context, new HashSet<>(context.getBindings("js").getMemberKeys()));
+   }
+
+   private void release(final PooledContext pooledContext, final boolean reusable) {
+      if (reusable && idleContexts.offer(pooledContext)) {
+         return;
+      }
+
+      discardedContexts.increment();
+      try {
+         pooledContext.context.close(true);
+      } catch (IllegalStateException | PolyglotException e) {
+         // already closed by the timeout
+      }
+   }
+
+   private boolean reset(final PooledContext pooledContext, final Set<String> polyglotKeys) {
+      try {
+         final Value polyglot = pooledContext.context.getPolyglotBindings();
+         polyglotKeys.forEach(polyglot::removeMember);
+
+         final Value global = pooledContext.context.getBindings("js");
+         for (final String key : global.getMemberKeys()) {
+            if (!pooledContext.initialGlobals.contains(key) && !global.removeMember(key)) {
+               // e.g. global var declarations are not configurable, the context cannot be cleaned
+               return false;
+            }
+         }
+
+         return true;
+      } catch (IllegalStateException | UnsupportedOperationException | PolyglotException e) {
+         log.log(Level.FINE, "Unable to reset JavaScript context: ", e);
+         return false;
+      }
+   }
+
+   private static class PooledContext {
+      private final Context context;
+      private final Set<String> initialGlobals;
+
+      private PooledContext(final Context context, final Set<String> initialGlobals) {
+         this.context = context;
+         this.initialGlobals = initialGlobals;
+      }
+   }
+}
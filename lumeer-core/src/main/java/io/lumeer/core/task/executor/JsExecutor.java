@@ -27,6 +27,7 @@ import io.lumeer.api.model.Document;
 import io.lumeer.api.model.LinkInstance;
 import io.lumeer.api.model.LinkType;
 import io.lumeer.api.model.common.WithId;
+import io.lumeer.core.constraint.ConstraintCodec;
 import io.lumeer.core.constraint.ConstraintManager;
 import io.lumeer.core.facade.configuration.DefaultConfigurationProducer;
 import io.lumeer.core.task.ContextualTask;
@@ -34,8 +35,6 @@ import io.lumeer.engine.api.data.DataDocument;
 import io.lumeer.storage.api.query.SearchQuery;
 import io.lumeer.storage.api.query.SearchQueryStem;
 
-import org.graalvm.polyglot.Context;
-import org.graalvm.polyglot.Engine;
 import org.graalvm.polyglot.Value;
 
 import java.math.BigDecimal;
@@ -45,12 +44,13 @@ import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
-import java.util.Timer;
-import java.util.TimerTask;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
@@ -69,6 +69,12 @@ public class JsExecutor {
       private Set<Change> changes = new HashSet<>();
       private Exception cause = null;
 
+      // data loaded during a single task execution, the changes are committed only after the script finishes
+      private final Map<String, Collection> collections = new HashMap<>();
+      private final Map<String, LinkType> linkTypes = new HashMap<>();
+      private final Map<String, Document> documents = new HashMap<>();
+      private final Map<String, Map<String, List<LinkInstance>>> linkInstances = new HashMap<>(); // LinkType -> Document -> [LinkInstance]
+
       private LumeerBridge(final ContextualTask task, final Collection collection) {
          this.ruleTask = task;
          this.collection = collection;
@@ -76,7 +82,12 @@ public class JsExecutor {
 
       public void setLinkAttribute(final LinkBridge l, final String attrId, final Value value) {
          try {
-            changes.add(new LinkChange(l.link, attrId, convertValue(value)));
+            final Object newValue = convertValue(value);
+            if (isUnchanged(l.link.getData(), attrId, newValue)) {
+               discardChange(l.link, attrId);
+            } else {
+               changes.add(new LinkChange(l.link, attrId, newValue));
+            }
          } catch (Exception e) {
             cause = e;
             throw e;
@@ -85,13 +96,28 @@ public class JsExecutor {
 
       public void setDocumentAttribute(final DocumentBridge d, final String attrId, final Value value) {
          try {
-            changes.add(new DocumentChange(d.document, attrId, convertValue(value)));
+            final Object newValue = convertValue(value);
+            if (isUnchanged(d.document.getData(), attrId, newValue)) {
+               discardChange(d.document, attrId);
+            } else {
+               changes.add(new DocumentChange(d.document, attrId, newValue));
+            }
          } catch (Exception e) {
             cause = e;
             throw e;
          }
       }
 
+      // values of a different type are written even when they represent the same value
+      private boolean isUnchanged(final DataDocument data, final String attrId, final Object newValue) {
+         return data != null && data.containsKey(attrId) && Objects.equals(data.get(attrId), newValue);
+      }
+
+      // the script may have set a different value before
+      private void discardChange(final WithId entity, final String attrId) {
+         changes.removeIf(change -> change.getEntity() == entity && Objects.equals(change.getAttrId(), attrId));
+      }
+
       Object convertValue(final Value value) {
          if (value.isNumber()) {
             return value.fitsInLong() ? value.asLong() : value.asDouble();
@@ -112,42 +138,100 @@ public class JsExecutor {
          }
       }
 
-      private List<LinkInstance> getLinkInstances(final String documentId, final String linkTypeId) {
-         final SearchQuery query = SearchQuery
-               .createBuilder()
-               .stems(Collections.singletonList(
-                     SearchQueryStem
-                           .createBuilder("")
-                           .linkTypeIds(Collections.singletonList(linkTypeId))
-                           .documentIds(Set.of(documentId))
-                           .build()))
-               .build();
-
-         final List<LinkInstance> result = ruleTask.getDaoContextSnapshot().getLinkInstanceDao()
-                                                   .searchLinkInstances(query);
-         result.stream().forEach(linkInstance -> constraintManager.encodeDataTypesForFce(ruleTask.getDaoContextSnapshot().getLinkTypeDao().getLinkType(linkTypeId), linkInstance.getData()));
+      private Collection getCollection(final String collectionId) {
+         return collections.computeIfAbsent(collectionId, id -> ruleTask.getDaoContextSnapshot().getCollectionDao().getCollectionById(id));
+      }
 
-         return result;
+      private LinkType getLinkType(final String linkTypeId) {
+         return linkTypes.computeIfAbsent(linkTypeId, id -> ruleTask.getDaoContextSnapshot().getLinkTypeDao().getLinkType(id));
       }
 
-      public List<LinkBridge> getLinks(DocumentBridge d, String linkTypeId) {
-         try {
-            final LinkType linkType = ruleTask.getDaoContextSnapshot().getLinkTypeDao().getLinkType(linkTypeId);
-            final List<LinkInstance> links = getLinkInstances(d.document.getId(), linkTypeId);
+      /**
+       * Loads the link instances of the given documents with a single query for all the documents that were not loaded yet.
+       *
+       * @return Link instances with their data encoded for functions by document id.
+       */
+      private Map<String, List<LinkInstance>> loadLinkInstances(final java.util.Collection<String> documentIds, final String linkTypeId) {
+         final Map<String, List<LinkInstance>> linksByDocument = linkInstances.computeIfAbsent(linkTypeId, id -> new HashMap<>());
+         final Set<String> missingIds = documentIds.stream().filter(id -> !linksByDocument.containsKey(id)).collect(toSet());
+
+         if (missingIds.size() > 0) {
+            final SearchQuery query = SearchQuery
+                  .createBuilder()
+                  .stems(Collections.singletonList(
+                        SearchQueryStem
+                              .createBuilder("")
+                              .linkTypeIds(Collections.singletonList(linkTypeId))
+                              .documentIds(missingIds)
+                              .build()))
+                  .build();
+
+            final List<LinkInstance> links = ruleTask.getDaoContextSnapshot().getLinkInstanceDao().searchLinkInstances(query);
+            missingIds.forEach(id -> linksByDocument.put(id, new ArrayList<>()));
 
-            // load link data
             if (links.size() > 0) {
                final Map<String, DataDocument> linkData = ruleTask.getDaoContextSnapshot().getLinkDataDao().getData(linkTypeId, links.stream().map(LinkInstance::getId).collect(toSet())).stream()
                                                                   .collect(Collectors.toMap(DataDocument::getId, data -> data));
+               final ConstraintCodec codec = constraintManager.getCodec(getLinkType(linkTypeId));
+               linkData.values().forEach(codec::encodeForFce);
 
-               // match link instances with their data and convert to bridge
-               return links.stream().map(linkInstance -> {
+               // match link instances with their data and index them by both their documents
+               links.forEach(linkInstance -> {
                   linkInstance.setData(linkData.get(linkInstance.getId()));
-                  return new LinkBridge(linkInstance);
-               }).collect(Collectors.toList());
-            } else {
-               return Collections.emptyList();
+                  linkInstance.getDocumentIds().stream()
+                              .filter(missingIds::contains)
+                              .distinct()
+                              .forEach(id -> linksByDocument.get(id).add(linkInstance));
+               });
             }
+         }
+
+         return linksByDocument;
+      }
+
+      /**
+       * Loads the documents with their data, issuing one query for the documents and one query per collection
+       * for the data of the documents that were not loaded yet.
+       *
+       * @return Documents with their data encoded for functions by document id.
+       */
+      private Map<String, Document> loadDocuments(final java.util.Collection<String> documentIds) {
+         final String[] missingIds = documentIds.stream().filter(id -> !documents.containsKey(id)).distinct().toArray(String[]::new);
+
+         if (missingIds.length > 0) {
+            final Map<String, List<Document>> documentsByCollection = ruleTask.getDaoContextSnapshot().getDocumentDao().getDocumentsByIds(missingIds).stream()
+                                                                              .collect(Collectors.groupingBy(Document::getCollectionId));
+
+            documentsByCollection.forEach((collectionId, collectionDocuments) -> {
+               final Map<String, DataDocument> data = ruleTask.getDaoContextSnapshot().getDataDao()
+                                                              .getData(collectionId, collectionDocuments.stream().map(Document::getId).collect(toSet())).stream()
+                                                              .collect(Collectors.toMap(DataDocument::getId, dd -> dd));
+               final ConstraintCodec codec = constraintManager.getCodec(getCollection(collectionId));
+
+               collectionDocuments.forEach(document -> {
+                  document.setData(data.get(document.getId()));
+                  codec.encodeForFce(document.getData());
+                  documents.put(document.getId(), document);
+               });
+            });
+         }
+
+         return documents;
+      }
+
+      public List<LinkBridge> getLinks(final DocumentBridge d, final String linkTypeId) {
+         return getLinks(Collections.singletonList(d), linkTypeId);
+      }
+
+      public List<LinkBridge> getLinks(final List<DocumentBridge> docs, final String linkTypeId) {
+         try {
+            final Map<String, List<LinkInstance>> links = loadLinkInstances(docs.stream().map(doc -> doc.document.getId()).collect(Collectors.toList()), linkTypeId);
+            final Map<String, LinkBridge> result = new LinkedHashMap<>();
+
+            docs.forEach(doc -> links.getOrDefault(doc.document.getId(), Collections.emptyList())
+                                     .forEach(linkInstance -> result.putIfAbsent(linkInstance.getId(), new LinkBridge(linkInstance))));
+
+            return new ArrayList<>(result.values());
          } catch (Exception e) {
             cause = e;
             throw e;
@@ -156,14 +240,12 @@ public class JsExecutor {
 
       public DocumentBridge getLinkDocument(final LinkBridge l, final String collectionId) {
          try {
-            List<Document> documents = ruleTask.getDaoContextSnapshot().getDocumentDao().getDocumentsByIds(l.link.getDocumentIds().toArray(new String[0]));
-            if (documents.size() == 2) {
-               final Document doc = documents.get(0).getCollectionId().equals(collectionId) ? documents.get(0) : documents.get(1);
+            final List<String> documentIds = l.link.getDocumentIds();
+            final Map<String, Document> loaded = loadDocuments(documentIds);
 
-               doc.setData(ruleTask.getDaoContextSnapshot().getDataDao().getData(doc.getCollectionId(), doc.getId()));
-               constraintManager.encodeDataTypesForFce(ruleTask.getDaoContextSnapshot().getCollectionDao().getCollectionById(collectionId), doc.getData());
-
-               return new DocumentBridge(doc);
+            if (documentIds.size() == 2 && loaded.containsKey(documentIds.get(0)) && loaded.containsKey(documentIds.get(1))) {
+               final Document first = loaded.get(documentIds.get(0));
+               return new DocumentBridge(first.getCollectionId().equals(collectionId) ? first : loaded.get(documentIds.get(1)));
             }
 
             return null;
@@ -173,39 +255,50 @@ public class JsExecutor {
          }
       }
 
-      public List<DocumentBridge> getLinkedDocuments(DocumentBridge d, String linkTypeId) {
+      public List<DocumentBridge> getLinkDocuments(final List<LinkBridge> links, final String collectionId) {
          try {
-            final LinkType linkType = ruleTask.getDaoContextSnapshot().getLinkTypeDao().getLinkType(linkTypeId);
-            final List<LinkInstance> links = getLinkInstances(d.document.getId(), linkTypeId);
-            final String otherCollectionId = linkType.getCollectionIds().get(0).equals(collection.getId()) ?
-                  linkType.getCollectionIds().get(1) : linkType.getCollectionIds().get(0);
+            loadDocuments(links.stream().map(link -> link.link.getDocumentIds()).flatMap(java.util.Collection::stream).collect(toSet()));
 
-            // load linked document ids
-            if (links.size() > 0) {
-               final Set<String> documentIds = links.stream()
-                                                    .map(LinkInstance::getDocumentIds)
-                                                    .flatMap(java.util.Collection::stream)
-                                                    .collect(Collectors.toSet());
-               documentIds.remove(d.document.getId());
-
-               // load document data
-               final Map<String, DataDocument> data = new HashMap<>();
-               ruleTask.getDaoContextSnapshot().getDataDao()
-                       .getData(otherCollectionId, documentIds)
-                       .forEach(dd -> data.put(dd.getId(), dd));
-
-               // load document meta data and match them with user data
-               return ruleTask.getDaoContextSnapshot().getDocumentDao()
-                              .getDocumentsByIds(documentIds.toArray(new String[0]))
-                              .stream().map(document -> {
-                        document.setData(data.get(document.getId()));
-                        constraintManager.encodeDataTypesForFce(ruleTask.getDaoContextSnapshot().getCollectionDao().getCollectionById(otherCollectionId), document.getData());
-
-                        return new DocumentBridge(document);
-                     }).collect(Collectors.toList());
-            } else {
+            final List<DocumentBridge> result = new ArrayList<>();
+            links.forEach(link -> {
+               final DocumentBridge document = getLinkDocument(link, collectionId);
+               if (document != null) {
+                  result.add(document);
+               }
+            });
+
+            return result;
+         } catch (Exception e) {
+            cause = e;
+            throw e;
+         }
+      }
+
+      public List<DocumentBridge> getLinkedDocuments(final DocumentBridge d, final String linkTypeId) {
+         return getLinkedDocuments(Collections.singletonList(d), linkTypeId);
+      }
+
+      public List<DocumentBridge> getLinkedDocuments(final List<DocumentBridge> docs, final String linkTypeId) {
+         try {
+            final Map<String, List<LinkInstance>> links = loadLinkInstances(docs.stream().map(doc -> doc.document.getId()).collect(Collectors.toList()), linkTypeId);
+
+            // linked document ids in the order of the source documents
+            final Set<String> documentIds = new LinkedHashSet<>();
+            docs.forEach(doc -> links.getOrDefault(doc.document.getId(), Collections.emptyList())
+                                     .forEach(linkInstance -> linkInstance.getDocumentIds().stream()
+                                                                          .filter(id -> !id.equals(doc.document.getId()))
+                                                                          .forEach(documentIds::add)));
+
+            if (documentIds.isEmpty()) {
                return Collections.emptyList();
             }
+
+            final Map<String, Document> loaded = loadDocuments(documentIds);
+            return documentIds.stream()
+                              .map(loaded::get)
+                              .filter(Objects::nonNull)
+                              .map(DocumentBridge::new)
+                              .collect(Collectors.toList());
          } catch (Exception e) {
             cause = e;
             throw e;
@@ -390,18 +483,16 @@ public class JsExecutor {
       }
 
       String getChanges() {
-         final Map<String, Collection> collections = new HashMap<>();
-         final Map<String, LinkType> linkTypes = new HashMap<>();
          final StringBuilder sb = new StringBuilder("");
 
          changes.forEach(change -> {
             if (change instanceof DocumentChange) {
                final DocumentChange documentChange = (DocumentChange) change;
-               final Collection collection = collections.computeIfAbsent(documentChange.getEntity().getCollectionId(), id -> ruleTask.getDaoContextSnapshot().getCollectionDao().getCollectionById(id));
+               final Collection collection = getCollection(documentChange.getEntity().getCollectionId());
                appendChange(sb, collection.getName(), collection.getAttributes(), documentChange);
             } else if (change instanceof LinkChange) {
                final LinkChange linkChange = (LinkChange) change;
-               final LinkType linkType = linkTypes.computeIfAbsent(linkChange.getEntity().getId(), id -> ruleTask.getDaoContextSnapshot().getLinkTypeDao().getLinkType(id));
+               final LinkType linkType = getLinkType(linkChange.getEntity().getLinkTypeId());
                appendChange(sb, linkType.getName(), linkType.getAttributes(), linkChange);
             }
          });
@@ -507,31 +598,19 @@ public class JsExecutor {
    }
 
    public void execute(final Map<String, Object> bindings, final ContextualTask task, final Collection collection, final String js) {
-      lumeerBridge = new LumeerBridge(task, collection);
+      execute(bindings, task, collection, "rule.js", js);
+   }
 
-      Context context = Context
-            .newBuilder("js")
-            .engine(Engine
-                  .newBuilder()
-                  .allowExperimentalOptions(true)
-                  .option("js.experimental-foreign-object-prototype", "true")
-                  .build())
-            .allowAllAccess(true)
-            .build();
-      context.initialize("js");
-      context.getPolyglotBindings().putMember("lumeer", lumeerBridge);
-
-      bindings.forEach((k, v) -> context.getBindings("js").putMember(k, v));
-
-      Timer timer = new Timer(true);
-      timer.schedule(new TimerTask() {
-         @Override
-         public void run() {
-            context.close(true);
-         }
-      }, 3000);
+   /**
+    * Evaluates the code in a pooled JavaScript context.
+    *
+    * @param name
+    *       Identification of the code (e.g. rule name or function attribute), the parsed code is cached under this name.
+    */
+   public void execute(final Map<String, Object> bindings, final ContextualTask task, final Collection collection, final String name, final String js) {
+      lumeerBridge = new LumeerBridge(task, collection);
 
-      context.eval("js", js);
+      JsContextPool.getInstance().execute(name, js, Map.of("lumeer", lumeerBridge), bindings);
    }
 
    public void commitChanges() {
@@ -542,6 +621,10 @@ public class JsExecutor {
       return lumeerBridge.getChanges();
    }
 
+   public boolean hasChanges() {
+      return !lumeerBridge.changes.isEmpty();
+   }
+
    public void setErrorInAttribute(final Document document, final String attributeId) {
       lumeerBridge.changes = Set.of(new DocumentChange(document, attributeId, "ERR!"));
       lumeerBridge.commitChanges();
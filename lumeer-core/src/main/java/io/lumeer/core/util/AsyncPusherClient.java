@@ -0,0 +1,369 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.util;
+
+import io.lumeer.api.model.common.WithId;
+import io.lumeer.core.facade.PusherFacade;
+
+import org.marvec.pusher.data.Event;
+import org.marvec.pusher.data.Result;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Pusher client that delivers events in background instead of blocking the calling thread.
+ *
+ * Events are collected for a short window and then sent in batches of at most {@link #MAX_BATCH_SIZE} events,
+ * which is the limit of the Pusher batch API. Update events of the same resource sent to the same channel within
+ * the window are coalesced, only the latest one is delivered at the position of the latest update, so it never
+ * overtakes the events triggered before it. Events of one channel are always sent by the same sender in the order
+ * they were triggered. The number of waiting events is bounded, events over the limit are dropped.
+ */
+public class AsyncPusherClient extends PusherClient {
+
+   public static final int MAX_BATCH_SIZE = 10;
+
+   private static final Logger log = Logger.getLogger(AsyncPusherClient.class.getName());
+
+   private final int maxQueueSize;
+   private final long windowMillis;
+   private final int senders;
+
+   private final ReentrantLock lock = new ReentrantLock();
+   private final ReentrantLock flushLock = new ReentrantLock();
+   private Map<Object, PendingEvent> pending = new LinkedHashMap<>();
+
+   private final LongAdder enqueued = new LongAdder();
+   private final LongAdder coalesced = new LongAdder();
+   private final LongAdder dropped = new LongAdder();
+   private final LongAdder sent = new LongAdder();
+   private final LongAdder failed = new LongAdder();
+   private final LongAdder batches = new LongAdder();
+   private final LongAdder totalLatencyNanos = new LongAdder();
+   private final AtomicLong maxLatencyNanos = new AtomicLong();
+   private long reportedDropped = 0;
+
+   private ScheduledExecutorService executorService;
+   private ScheduledFuture<?> flusher;
+
+   /**
+    * Creates a new client, the delivery starts by calling {@link #start(ScheduledExecutorService)}.
+    *
+    * @param maxQueueSize
+    *       Maximum number of events waiting for delivery.
+    * @param windowMillis
+    *       Time for which the events are collected before they are sent.
+    * @param senders
+    *       Maximum number of batches sent concurrently.
+    */
+   public AsyncPusherClient(final String appId, final String key, final String secret, final String cluster, final int maxQueueSize, final long windowMillis, final int senders) {
+      super(appId, key, secret, cluster);
+
+      this.maxQueueSize = Math.max(maxQueueSize, 1);
+      this.windowMillis = Math.max(windowMillis, 1);
+      this.senders = Math.max(senders, 1);
+   }
+
+   public void start(final ScheduledExecutorService executorService) {
+      this.executorService = executorService;
+      this.flusher = executorService.scheduleWithFixedDelay(this::flushQuietly, windowMillis, windowMillis, TimeUnit.MILLISECONDS);
+   }
+
+   /**
+    * Stops the periodic delivery and sends the events that are still waiting.
+    */
+   public void close() {
+      if (flusher != null) {
+         flusher.cancel(false);
+         flusher = null;
+      }
+
+      flushQuietly();
+   }
+
+   @Override
+   public Collection<Result> trigger(final List<Event> notifications) {
+      final long now = System.nanoTime();
+
+      lock.lock();
+      try {
+         for (final Event event : notifications) {
+            enqueued.increment();
+
+            final String coalescingKey = getCoalescingKey(event);
+            if (coalescingKey != null) {
+               final PendingEvent waiting = pending.remove(coalescingKey);
+               if (waiting != null) {
+                  pending.put(coalescingKey, new PendingEvent(event, waiting.enqueuedNanos));
+                  coalesced.increment();
+                  continue;
+               }
+            }
+
+            if (pending.size() >= maxQueueSize) {
+               dropped.increment();
+               continue;
+            }
+
+            pending.put(coalescingKey != null ? coalescingKey : new Object(), new PendingEvent(event, now));
+         }
+      } finally {
+         lock.unlock();
+      }
+
+      return Collections.emptyList();
+   }
+
+   /**
+    * Sends all the waiting events. Events of a channel are split to batches in their order and all the batches
+    * of the channel are sent one after another by the same sender.
+    */
+   public void flush() {
+      flushLock.lock();
+      try {
+         final Map<Object, PendingEvent> toSend;
+
+         lock.lock();
+         try {
+            if (pending.isEmpty()) {
+               return;
+            }
+            toSend = pending;
+            pending = new LinkedHashMap<>();
+         } finally {
+            lock.unlock();
+         }
+
+         final int lanes = executorService != null ? senders : 1;
+         final List<List<PendingEvent>> laneEvents = new ArrayList<>(lanes);
+         for (int i = 0; i < lanes; i++) {
+            laneEvents.add(new ArrayList<>());
+         }
+         toSend.values().forEach(pendingEvent -> laneEvents.get(Math.floorMod(Objects.hashCode(pendingEvent.event.getChannel()), lanes)).add(pendingEvent));
+
+         final Queue<List<PendingEvent>> queue = new ConcurrentLinkedQueue<>();
+         laneEvents.stream().filter(events -> !events.isEmpty()).forEach(queue::add);
+
+         final int workers = queue.size();
+         final List<CompletableFuture<Void>> futures = new ArrayList<>(workers);
+         for (int i = 1; i < workers; i++) {
+            futures.add(CompletableFuture.runAsync(() -> sendAll(queue), executorService));
+         }
+         sendAll(queue);
+         futures.forEach(CompletableFuture::join);
+
+         reportDropped();
+      } finally {
+         flushLock.unlock();
+      }
+   }
+
+   /**
+    * Sends a single batch of events. Protected for tests.
+    *
+    * @param events
+    *       Events to send, at most {@link #MAX_BATCH_SIZE}.
+    */
+   protected void send(final List<Event> events) {
+      super.trigger(events);
+   }
+
+   public Statistics getStatistics() {
+      final int queueDepth;
+      lock.lock();
+      try {
+         queueDepth = pending.size();
+      } finally {
+         lock.unlock();
+      }
+
+      final long sentEvents = sent.sum();
+      return new Statistics(queueDepth, enqueued.sum(), coalesced.sum(), dropped.sum(), sentEvents, failed.sum(), batches.sum(),
+            sentEvents > 0 ? totalLatencyNanos.sum() / sentEvents / 1_000_000 : 0, maxLatencyNanos.get() / 1_000_000);
+   }
+
+   private void sendAll(final Queue<List<PendingEvent>> queue) {
+      List<PendingEvent> lane;
+      while ((lane = queue.poll()) != null) {
+         for (int i = 0; i < lane.size(); i += MAX_BATCH_SIZE) {
+            sendBatch(lane.subList(i, Math.min(i + MAX_BATCH_SIZE, lane.size())));
+         }
+      }
+   }
+
+   private void sendBatch(final List<PendingEvent> batch) {
+      final List<Event> events = new ArrayList<>(batch.size());
+      batch.forEach(pendingEvent -> events.add(pendingEvent.event));
+
+      try {
+         send(events);
+         batches.increment();
+         sent.add(events.size());
+
+         final long now = System.nanoTime();
+         batch.forEach(pendingEvent -> {
+            final long latency = now - pendingEvent.enqueuedNanos;
+            totalLatencyNanos.add(latency);
+            maxLatencyNanos.accumulateAndGet(latency, Math::max);
+         });
+      } catch (RuntimeException e) {
+         failed.add(events.size());
+         log.log(Level.WARNING, "Unable to send push notifications: ", e);
+      }
+   }
+
+   private void flushQuietly() {
+      try {
+         flush();
+      } catch (RuntimeException e) {
+         log.log(Level.WARNING, "Unable to deliver push notifications: ", e);
+      }
+   }
+
+   private void reportDropped() {
+      final long droppedNow = dropped.sum();
+      if (droppedNow > reportedDropped) {
+         log.log(Level.WARNING, String.format("Dropped %d push notifications because the queue was full, %s", droppedNow - reportedDropped, getStatistics()));
+         reportedDropped = droppedNow;
+      }
+   }
+
+   static String getCoalescingKey(final Event event) {
+      if (event.getName() == null || !event.getName().endsWith(PusherFacade.UPDATE_EVENT_SUFFIX)) {
+         return null;
+      }
+
+      String id = null;
+      if (event.getData() instanceof PusherFacade.ObjectWithParent) {
+         final Object object = ((PusherFacade.ObjectWithParent) event.getData()).getObject();
+         if (object instanceof WithId) {
+            id = ((WithId) object).getId();
+         }
+      } else if (event.getData() instanceof PusherFacade.ResourceId) {
+         id = ((PusherFacade.ResourceId) event.getData()).getId();
+      }
+
+      return id != null ? event.getChannel() + "/" + event.getName() + "/" + id : null;
+   }
+
+   private static class PendingEvent {
+      private final Event event;
+      private final long enqueuedNanos;
+
+      private PendingEvent(final Event event, final long enqueuedNanos) {
+         this.event = event;
+         this.enqueuedNanos = enqueuedNanos;
+      }
+   }
+
+   /**
+    * Snapshot of the delivery counters.
+    */
+   public static class Statistics {
+      private final int queueDepth;
+      private final long enqueued;
+      private final long coalesced;
+      private final long dropped;
+      private final long sent;
+      private final long failed;
+      private final long batches;
+      private final long averageLatencyMillis;
+      private final long maxLatencyMillis;
+
+      public Statistics(final int queueDepth, final long enqueued, final long coalesced, final long dropped, final long sent, final long failed, final long batches, final long averageLatencyMillis, final long maxLatencyMillis) {
+         this.queueDepth = queueDepth;
+         this.enqueued = enqueued;
+         this.coalesced = coalesced;
+         this.dropped = dropped;
+         this.sent = sent;
+         this.failed = failed;
+         this.batches = batches;
+         this.averageLatencyMillis = averageLatencyMillis;
+         this.maxLatencyMillis = maxLatencyMillis;
+      }
+
+      public int getQueueDepth() {
+         return queueDepth;
+      }
+
+      public long getEnqueued() {
+         return enqueued;
+      }
+
+      public long getCoalesced() {
+         return coalesced;
+      }
+
+      public long getDropped() {
+         return dropped;
+      }
+
+      public long getSent() {
+         return sent;
+      }
+
+      public long getFailed() {
+         return failed;
+      }
+
+      public long getBatches() {
+         return batches;
+      }
+
+      public long getAverageLatencyMillis() {
+         return averageLatencyMillis;
+      }
+
+      public long getMaxLatencyMillis() {
+         return maxLatencyMillis;
+      }
+
+      @Override
+      public String toString() {
+         return "Statistics{" +
+               "queueDepth=" + queueDepth +
+               ", enqueued=" + enqueued +
+               ", coalesced=" + coalesced +
+               ", dropped=" + dropped +
+               ", sent=" + sent +
+               ", failed=" + failed +
+               ", batches=" + batches +
+               ", averageLatencyMillis=" + averageLatencyMillis +
+               ", maxLatencyMillis=" + maxLatencyMillis +
+               '}';
+      }
+   }
+}
@@ -0,0 +1,134 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.util;
+
+import io.lumeer.api.model.Pagination;
+import io.lumeer.core.exception.BadFormatException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * Position of keyset pagination over several independent queries, e.g. one per collection or query stem.
+ * Every query continues after the last id it returned on the previous page. A query that returned less
+ * than a full page is exhausted and is not run again. Clients get the positions as an opaque token.
+ */
+public class ContinuationToken {
+
+   private static final String EXHAUSTED = "-";
+   private static final Pattern VALID_KEY = Pattern.compile("[A-Za-z0-9_]+");
+   private static final Pattern VALID_POSITION = Pattern.compile("[0-9a-fA-F]{24}|" + EXHAUSTED);
+
+   private final int pageSize;
+   private final Map<String, String> positions;
+   private final Map<String, String> nextPositions = new ConcurrentHashMap<>();
+
+   private ContinuationToken(final int pageSize, final Map<String, String> positions) {
+      this.pageSize = pageSize;
+      this.positions = positions;
+   }
+
+   /**
+    * Decodes the token sent by a client.
+    *
+    * @param pageSize
+    *       Requested page size.
+    * @param token
+    *       Token returned with the previous page, null for the first page.
+    * @return Decoded positions.
+    */
+   public static ContinuationToken decode(final int pageSize, final String token) {
+      if (token == null || token.isEmpty()) {
+         return new ContinuationToken(pageSize, Collections.emptyMap());
+      }
+
+      final Map<String, String> positions = new TreeMap<>();
+      try {
+         final String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+         for (String part : decoded.split(";")) {
+            final String[] keyValue = part.split("=", 2);
+            if (keyValue.length != 2 || !VALID_KEY.matcher(keyValue[0]).matches() || !VALID_POSITION.matcher(keyValue[1]).matches()) {
+               throw new BadFormatException("Invalid continuation token.");
+            }
+            positions.put(keyValue[0], keyValue[1]);
+         }
+      } catch (IllegalArgumentException e) {
+         throw new BadFormatException("Invalid continuation token.", e);
+      }
+
+      return new ContinuationToken(pageSize, positions);
+   }
+
+   public boolean isExhausted(final String key) {
+      return EXHAUSTED.equals(positions.get(key));
+   }
+
+   public Pagination getPagination(final String key) {
+      return new Pagination(null, pageSize, positions.get(key));
+   }
+
+   /**
+    * Records the results of the query, so that the next page continues after them.
+    *
+    * @param key
+    *       Identification of the query.
+    * @param page
+    *       Results of the query ordered by id.
+    * @param idGetter
+    *       Gets the id of a result.
+    */
+   public <T> void update(final String key, final List<T> page, final Function<T, String> idGetter) {
+      if (page.size() < pageSize) {
+         nextPositions.put(key, EXHAUSTED);
+      } else {
+         nextPositions.put(key, idGetter.apply(page.get(page.size() - 1)));
+      }
+   }
+
+   /**
+    * Encodes positions after the current page.
+    *
+    * @return The token to be sent to a client, null when all the queries are exhausted.
+    */
+   public String encode() {
+      final Map<String, String> next = new TreeMap<>(positions);
+      next.putAll(nextPositions);
+
+      if (next.isEmpty() || next.values().stream().allMatch(EXHAUSTED::equals)) {
+         return null;
+      }
+
+      final StringBuilder sb = new StringBuilder();
+      next.forEach((key, position) -> {
+         if (sb.length() > 0) {
+            sb.append(';');
+         }
+         sb.append(key).append('=').append(position);
+      });
+
+      return Base64.getUrlEncoder().withoutPadding().encodeToString(sb.toString().getBytes(StandardCharsets.UTF_8));
+   }
+}
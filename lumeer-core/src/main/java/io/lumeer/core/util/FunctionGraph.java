@@ -0,0 +1,265 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.util;
+
+import io.lumeer.api.model.function.FunctionParameter;
+import io.lumeer.api.model.function.FunctionResourceType;
+import io.lumeer.api.model.function.FunctionRow;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * In-memory dependency graph of the functions in a project, built from its {@link FunctionRow}s.
+ *
+ * The rows are indexed the same way as they are queried in the database, so the lookups of the functions depending on
+ * a collection or link type attribute do not need any query. Functions are ordered topologically so that each function
+ * comes after all the functions it depends on, functions taking part in a dependency cycle are not part of the order.
+ * The graph is updated incrementally when rows are added or removed and it is safe for concurrent use.
+ */
+public class FunctionGraph {
+
+   private final Set<FunctionRow> rows = new LinkedHashSet<>();
+
+   private final Map<String, List<FunctionRow>> byResource = new HashMap<>();
+   private final Map<String, List<FunctionRow>> byDependentCollection = new HashMap<>();
+   private final Map<String, List<FunctionRow>> byDependentLinkType = new HashMap<>();
+
+   private Map<FunctionParameter, Integer> order = null;
+   private Set<FunctionParameter> cyclic = null;
+
+   public FunctionGraph(final java.util.Collection<FunctionRow> rows) {
+      addRows(rows);
+   }
+
+   public synchronized void addRows(final java.util.Collection<FunctionRow> newRows) {
+      newRows.forEach(row -> {
+         if (rows.add(row)) {
+            index(row);
+         }
+      });
+      order = null;
+   }
+
+   /**
+    * Removes the rows of the functions defined in the given resources.
+    */
+   public synchronized void removeByResources(final FunctionResourceType type, final String... resourceIds) {
+      final Set<String> ids = new HashSet<>(Arrays.asList(resourceIds));
+      removeIf(row -> row.getType() == type && ids.contains(row.getResourceId()));
+   }
+
+   /**
+    * Removes the rows of the function defined in the given attribute, or of all functions in the resource when the
+    * attribute is null.
+    */
+   public synchronized void removeByResource(final FunctionResourceType type, final String resourceId, final String attributeId) {
+      removeIf(row -> matchesResource(row, resourceId, attributeId, type));
+   }
+
+   public synchronized List<FunctionRow> searchByResource(final String resourceId, final String attributeId, final FunctionResourceType type) {
+      return filter(byResource.get(resourceKey(type, resourceId)), row -> attributeId == null || attributeId.equals(row.getAttributeId()));
+   }
+
+   public synchronized List<FunctionRow> searchByDependentCollection(final String collectionId, final String attributeId) {
+      return filter(byDependentCollection.get(collectionId), row -> attributeId == null || attributeId.equals(row.getDependentAttributeId()));
+   }
+
+   public synchronized List<FunctionRow> searchByDependentLinkType(final String linkTypeId, final String attributeId) {
+      return filter(byDependentLinkType.get(linkTypeId), row -> attributeId == null || attributeId.equals(row.getDependentAttributeId()));
+   }
+
+   public synchronized List<FunctionRow> searchByAnyCollection(final String collectionId, final String attributeId) {
+      final Set<FunctionRow> result = new LinkedHashSet<>(searchByResource(collectionId, attributeId, FunctionResourceType.COLLECTION));
+      result.addAll(searchByDependentCollection(collectionId, attributeId));
+      return new ArrayList<>(result);
+   }
+
+   public synchronized List<FunctionRow> searchByAnyLinkType(final String linkTypeId, final String attributeId) {
+      final Set<FunctionRow> result = new LinkedHashSet<>(searchByResource(linkTypeId, attributeId, FunctionResourceType.LINK));
+      result.addAll(searchByDependentLinkType(linkTypeId, attributeId));
+      return new ArrayList<>(result);
+   }
+
+   public synchronized int size() {
+      return rows.size();
+   }
+
+   /**
+    * Gets the position of the attribute in the topological order.
+    *
+    * @param parameter
+    *       Attribute to look for.
+    * @return Position of the attribute, or -1 when it neither is a function nor is used by any function.
+    */
+   public synchronized int getOrder(final FunctionParameter parameter) {
+      computeOrder();
+      return order.getOrDefault(new FunctionParameter(parameter.getType(), parameter.getResourceId(), parameter.getAttributeId()), -1);
+   }
+
+   public synchronized boolean isInCycle(final FunctionParameter parameter) {
+      computeOrder();
+      return cyclic.contains(new FunctionParameter(parameter.getType(), parameter.getResourceId(), parameter.getAttributeId()));
+   }
+
+   public synchronized boolean hasCycle() {
+      computeOrder();
+      return !cyclic.isEmpty();
+   }
+
+   /**
+    * Orders the given attributes according to their dependencies. Attributes without any dependencies come first.
+    *
+    * @return Ordered attributes, or null when some of them take part in a dependency cycle.
+    */
+   public synchronized <T extends FunctionParameter> List<T> order(final java.util.Collection<T> parameters) {
+      computeOrder();
+
+      final List<T> independent = new ArrayList<>();
+      final List<T> ordered = new ArrayList<>();
+      for (final T parameter : parameters) {
+         final FunctionParameter key = new FunctionParameter(parameter.getType(), parameter.getResourceId(), parameter.getAttributeId());
+         if (cyclic.contains(key)) {
+            return null;
+         }
+         if (order.containsKey(key)) {
+            ordered.add(parameter);
+         } else {
+            independent.add(parameter);
+         }
+      }
+
+      ordered.sort((p1, p2) -> Integer.compare(getOrder(p1), getOrder(p2)));
+      independent.addAll(ordered);
+
+      return independent;
+   }
+
+   private void index(final FunctionRow row) {
+      byResource.computeIfAbsent(resourceKey(row.getType(), row.getResourceId()), key -> new ArrayList<>()).add(row);
+      if (row.getDependentCollectionId() != null) {
+         byDependentCollection.computeIfAbsent(row.getDependentCollectionId(), key -> new ArrayList<>()).add(row);
+      }
+      if (row.getDependentLinkTypeId() != null) {
+         byDependentLinkType.computeIfAbsent(row.getDependentLinkTypeId(), key -> new ArrayList<>()).add(row);
+      }
+   }
+
+   private void removeIf(final Predicate<FunctionRow> predicate) {
+      final List<FunctionRow> removed = filter(rows, predicate);
+      if (removed.isEmpty()) {
+         return;
+      }
+
+      rows.removeAll(removed);
+      byResource.clear();
+      byDependentCollection.clear();
+      byDependentLinkType.clear();
+      rows.forEach(this::index);
+      order = null;
+   }
+
+   private void computeOrder() {
+      if (order != null) {
+         return;
+      }
+
+      // edges lead from an attribute to the functions using it
+      final Map<FunctionParameter, Set<FunctionParameter>> dependants = new LinkedHashMap<>();
+      final Map<FunctionParameter, Integer> inDegree = new LinkedHashMap<>();
+
+      rows.forEach(row -> {
+         final FunctionParameter function = new FunctionParameter(row.getType(), row.getResourceId(), row.getAttributeId());
+         final FunctionParameter dependency = getDependency(row);
+
+         inDegree.putIfAbsent(function, 0);
+         inDegree.putIfAbsent(dependency, 0);
+
+         // a function reading its own attribute does not depend on any other function
+         if (!function.equals(dependency) && dependants.computeIfAbsent(dependency, key -> new LinkedHashSet<>()).add(function)) {
+            inDegree.merge(function, 1, Integer::sum);
+         }
+      });
+
+      final Deque<FunctionParameter> ready = new ArrayDeque<>();
+      inDegree.forEach((parameter, degree) -> {
+         if (degree == 0) {
+            ready.add(parameter);
+         }
+      });
+
+      final Map<FunctionParameter, Integer> newOrder = new HashMap<>();
+      while (!ready.isEmpty()) {
+         final FunctionParameter parameter = ready.poll();
+         newOrder.put(parameter, newOrder.size());
+
+         dependants.getOrDefault(parameter, Collections.emptySet()).forEach(dependant -> {
+            if (inDegree.merge(dependant, -1, Integer::sum) == 0) {
+               ready.add(dependant);
+            }
+         });
+      }
+
+      final Set<FunctionParameter> newCyclic = new HashSet<>(inDegree.keySet());
+      newCyclic.removeAll(newOrder.keySet());
+
+      order = newOrder;
+      cyclic = newCyclic;
+   }
+
+   private static FunctionParameter getDependency(final FunctionRow row) {
+      return row.getDependentCollectionId() != null ?
+            new FunctionParameter(FunctionResourceType.COLLECTION, row.getDependentCollectionId(), row.getDependentAttributeId()) :
+            new FunctionParameter(FunctionResourceType.LINK, row.getDependentLinkTypeId(), row.getDependentAttributeId());
+   }
+
+   private static boolean matchesResource(final FunctionRow row, final String resourceId, final String attributeId, final FunctionResourceType type) {
+      return row.getType() == type && resourceId.equals(row.getResourceId()) && (attributeId == null || attributeId.equals(row.getAttributeId()));
+   }
+
+   private static String resourceKey(final FunctionResourceType type, final String resourceId) {
+      return type + "/" + resourceId;
+   }
+
+   private static List<FunctionRow> filter(final java.util.Collection<FunctionRow> rows, final Predicate<FunctionRow> predicate) {
+      if (rows == null) {
+         return new ArrayList<>();
+      }
+
+      final List<FunctionRow> result = new ArrayList<>();
+      rows.forEach(row -> {
+         if (predicate.test(row)) {
+            result.add(row);
+         }
+      });
+
+      return result;
+   }
+}
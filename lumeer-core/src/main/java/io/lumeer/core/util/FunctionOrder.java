@@ -22,6 +22,7 @@ import io.lumeer.api.model.function.FunctionParameter;
 
 import java.util.Deque;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -33,25 +34,22 @@ import java.util.Set;
 public class FunctionOrder {
 
    public static <T extends FunctionParameter> Deque<T> orderFunctions(final Map<T, List<T>> dependencies) {
-      final Deque<T> result = new LinkedList<>();
+      // insertion ordered set keeps the membership checks constant
+      final Set<T> result = new LinkedHashSet<>();
 
       dependencies.keySet().forEach(param -> {
          final Set<T> visited = new HashSet<>(Set.of(param)); //new HashSet<>();
          findParent(result, param, visited, dependencies);
       });
 
-      dependencies.keySet().forEach(param -> {
-         if (!result.contains(param)) {
-            result.add(param);
-         }
-      });
+      result.addAll(dependencies.keySet());
 
       result.removeIf(param -> !dependencies.containsKey(param));
 
-      return result;
+      return new LinkedList<>(result);
    }
 
-   private static <T extends FunctionParameter> void findParent(final Deque<T> result, final T root, final Set<T> visited, final Map<T, List<T>> dependencies) {
+   private static <T extends FunctionParameter> void findParent(final Set<T> result, final T root, final Set<T> visited, final Map<T, List<T>> dependencies) {
       List<T> depNodes = dependencies.get(root);
 
       if (depNodes != null) {
@@ -66,9 +64,7 @@ public class FunctionOrder {
             }
          });
       }
-      if (!result.contains(root)) {
-         result.add(root);
-      }
+      result.add(root);
    }
 
 }
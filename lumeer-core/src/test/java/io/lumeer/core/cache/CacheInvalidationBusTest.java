@@ -0,0 +1,106 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.lumeer.api.model.CacheInvalidation;
+import io.lumeer.api.model.Organization;
+import io.lumeer.api.model.Project;
+import io.lumeer.api.model.User;
+import io.lumeer.engine.api.event.CreateOrUpdateUser;
+import io.lumeer.engine.api.event.RemoveResource;
+import io.lumeer.engine.api.event.UpdateResource;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class CacheInvalidationBusTest {
+
+   private CacheInvalidationBus node1;
+   private CacheInvalidationBus node2;
+
+   private List<String> node1Keys;
+   private List<String> node2Keys;
+
+   @Before
+   public void prepareNodes() {
+      final LocalCacheInvalidationChannel channel = new LocalCacheInvalidationChannel();
+
+      node1 = new CacheInvalidationBus();
+      node1.connect(channel);
+      node2 = new CacheInvalidationBus();
+      node2.connect(channel);
+
+      node1Keys = new ArrayList<>();
+      node2Keys = new ArrayList<>();
+   }
+
+   @Test
+   public void testInvalidationReachesAllNodesOnce() {
+      node1.register(CacheInvalidationBus.USERS, node1Keys::add);
+      node2.register(CacheInvalidationBus.USERS, node2Keys::add);
+
+      node1.invalidate(CacheInvalidationBus.USERS, "a@lumeer.io");
+      node2.invalidateAll(CacheInvalidationBus.USERS);
+
+      assertThat(node1Keys).containsExactly("a@lumeer.io", CacheInvalidation.ALL_KEYS);
+      assertThat(node2Keys).containsExactly("a@lumeer.io", CacheInvalidation.ALL_KEYS);
+   }
+
+   @Test
+   public void testOtherCachesAreNotInvalidated() {
+      node1.register(CacheInvalidationBus.ORGANIZATIONS, node1Keys::add);
+      node2.register(CacheInvalidationBus.PROJECTS, node2Keys::add);
+
+      node1.invalidate(CacheInvalidationBus.ORGANIZATIONS, "org1");
+
+      assertThat(node1Keys).containsExactly("org1");
+      assertThat(node2Keys).isEmpty();
+   }
+
+   @Test
+   public void testResourceEvents() {
+      node2.register(CacheInvalidationBus.ORGANIZATIONS, node2Keys::add);
+      node2.register(CacheInvalidationBus.PROJECTS, node2Keys::add);
+      node2.register(CacheInvalidationBus.WORKSPACE_CACHES, key -> node2Keys.add("workspace:" + key));
+
+      final Organization organization = new Organization("ORG", "Organization", "", "", "", null);
+      organization.setId("org1");
+      final Project project = new Project("PRJ", "Project", "", "", "", null);
+      project.setId("prj1");
+
+      node1.onUpdateResource(new UpdateResource(organization, organization));
+      node1.onRemoveResource(new RemoveResource(project));
+
+      assertThat(node2Keys).containsExactly("org1", "prj1", "workspace:prj1");
+   }
+
+   @Test
+   public void testUserEvents() {
+      node2.register(CacheInvalidationBus.USERS, node2Keys::add);
+
+      node1.onCreateOrUpdateUser(new CreateOrUpdateUser("org1", new User("b@lumeer.io")));
+
+      assertThat(node2Keys).containsExactly("b@lumeer.io");
+   }
+}
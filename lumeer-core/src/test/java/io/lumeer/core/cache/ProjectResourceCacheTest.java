@@ -0,0 +1,138 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.lumeer.api.model.CacheInvalidation;
+import io.lumeer.cache.simple.SimpleCache;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ProjectResourceCacheTest {
+
+   private static final String PROJECT = "project";
+
+   private ProjectResourceCache<Item> cache;
+   private List<Item> database;
+   private AtomicInteger loads;
+
+   @Before
+   public void prepareCache() {
+      cache = new ProjectResourceCache<>(new SimpleCache<>(), Item::getId, Item::getVersion, Item::new);
+      database = new ArrayList<>(List.of(new Item("a", 1, "A"), new Item("b", 1, "B")));
+      loads = new AtomicInteger();
+   }
+
+   @Test
+   public void testLoadedOnce() {
+      assertThat(getAll()).extracting(Item::getName).containsExactly("A", "B");
+      assertThat(getAll()).extracting(Item::getName).containsExactly("A", "B");
+      assertThat(loads.get()).isEqualTo(1);
+
+      getAll().get(0).name = "changed";
+      assertThat(getAll()).extracting(Item::getName).containsExactly("A", "B");
+   }
+
+   @Test
+   public void testOlderVersionIsIgnored() {
+      getAll();
+
+      cache.put(PROJECT, new Item("a", 3, "A3"), false);
+      cache.put(PROJECT, new Item("a", 2, "A2"), false);
+      assertThat(getAll()).extracting(Item::getName).containsExactly("A3", "B");
+      assertThat(loads.get()).isEqualTo(1);
+   }
+
+   @Test
+   public void testCreateUpdateAndRemove() {
+      getAll();
+
+      cache.put(PROJECT, new Item("c", 1, "C"), true);
+      cache.remove(PROJECT, "b");
+      // update delivered after the removal must not bring the resource back
+      cache.put(PROJECT, new Item("b", 2, "B2"), false);
+      assertThat(getAll()).extracting(Item::getName).containsExactly("A", "C");
+   }
+
+   @Test
+   public void testLoadConcurrentWithChangeIsNotKept() {
+      final List<Item> loaded = cache.getAll(PROJECT, () -> {
+         final List<Item> items = new ArrayList<>(database);
+         cache.put(PROJECT, new Item("a", 2, "A2"), false);
+         return items;
+      });
+      assertThat(loaded).extracting(Item::getName).containsExactly("A", "B");
+
+      database.set(0, new Item("a", 2, "A2"));
+      assertThat(getAll()).extracting(Item::getName).containsExactly("A2", "B");
+      assertThat(loads.get()).isEqualTo(1);
+   }
+
+   @Test
+   public void testInvalidate() {
+      getAll();
+      cache.invalidate(PROJECT);
+      getAll();
+      cache.invalidate(CacheInvalidation.ALL_KEYS);
+      getAll();
+
+      assertThat(loads.get()).isEqualTo(3);
+   }
+
+   private List<Item> getAll() {
+      return cache.getAll(PROJECT, () -> {
+         loads.incrementAndGet();
+         return new ArrayList<>(database);
+      });
+   }
+
+   private static class Item {
+      private final String id;
+      private final long version;
+      private String name;
+
+      private Item(final String id, final long version, final String name) {
+         this.id = id;
+         this.version = version;
+         this.name = name;
+      }
+
+      private Item(final Item item) {
+         this(item.id, item.version, item.name);
+      }
+
+      private String getId() {
+         return id;
+      }
+
+      private long getVersion() {
+         return version;
+      }
+
+      private String getName() {
+         return name;
+      }
+   }
+}
@@ -0,0 +1,178 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.client.mapquest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.lumeer.api.model.geocoding.Coordinates;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class MapQuestClientTest {
+
+   private static final String UNKNOWN = "unknown";
+
+   private final ObjectMapper mapper = new ObjectMapper();
+   private final AtomicInteger batchRequests = new AtomicInteger();
+   private final AtomicInteger maxBatchSize = new AtomicInteger();
+   private final List<String> requestedLocations = new ArrayList<>();
+
+   private HttpServer server;
+   private ExecutorService executor;
+   private MapQuestClient client;
+   private volatile CountDownLatch release;
+
+   @Before
+   public void startStub() throws IOException {
+      server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+      server.createContext("/geocoding/v1/batch", this::handleBatch);
+      server.createContext("/failing/batch", exchange -> respond(exchange, 500, "{}"));
+      server.setExecutor(Executors.newCachedThreadPool());
+      server.start();
+
+      executor = Executors.newFixedThreadPool(4);
+      client = createClient("geocoding/v1/");
+   }
+
+   @After
+   public void stopStub() {
+      client.close();
+      executor.shutdownNow();
+      server.stop(0);
+   }
+
+   @Test
+   public void testLargeSetIsSplitIntoProviderSizedBatches() {
+      final Set<String> locations = new HashSet<>();
+      for (int i = 0; i < 249; i++) {
+         locations.add("Street " + i);
+      }
+      locations.add(UNKNOWN);
+
+      final Map<String, Coordinates> coordinates = client.findCoordinates(locations);
+
+      assertThat(coordinates).hasSize(249).doesNotContainKey(UNKNOWN);
+      assertThat(coordinates.get("Street 7").getLatitude()).isEqualTo(7);
+      assertThat(batchRequests.get()).isEqualTo(3);
+      assertThat(maxBatchSize.get()).isLessThanOrEqualTo(MapQuestClient.MAX_BATCH_LOCATIONS);
+
+      final MapQuestClient.Statistics statistics = client.getStatistics().get(MapQuestClient.BATCH);
+      assertThat(statistics.getRequests()).isEqualTo(3);
+      assertThat(statistics.getErrors()).isZero();
+   }
+
+   @Test
+   public void testConcurrentLookupsAreSentOnce() throws Exception {
+      release = new CountDownLatch(1);
+
+      final CompletableFuture<Map<String, Coordinates>> first = CompletableFuture.supplyAsync(() -> client.findCoordinates(Set.of("Street 1", "Street 2")));
+      while (batchRequests.get() == 0) {
+         Thread.sleep(5);
+      }
+
+      final CompletableFuture<Map<String, Coordinates>> second = CompletableFuture.supplyAsync(() -> client.findCoordinates(Set.of("Street 2")));
+      while (client.getCoalescedLookups() == 0) {
+         Thread.sleep(5);
+      }
+      release.countDown();
+
+      assertThat(first.get(5, TimeUnit.SECONDS)).containsOnlyKeys("Street 1", "Street 2");
+      assertThat(second.get(5, TimeUnit.SECONDS)).containsOnlyKeys("Street 2");
+      assertThat(batchRequests.get()).isEqualTo(1);
+      synchronized (requestedLocations) {
+         assertThat(requestedLocations).containsExactlyInAnyOrder("Street 1", "Street 2");
+      }
+   }
+
+   @Test
+   public void testErrorsAreCounted() {
+      final MapQuestClient failingClient = createClient("failing/");
+      try {
+         assertThat(failingClient.findCoordinates(Set.of("Street 1"))).isEmpty();
+         assertThat(failingClient.getStatistics().get(MapQuestClient.BATCH).getErrors()).isEqualTo(1);
+      } finally {
+         failingClient.close();
+      }
+   }
+
+   private MapQuestClient createClient(final String path) {
+      final String url = "http://localhost:" + server.getAddress().getPort() + "/";
+      return new MapQuestClient("key", url + path, url, 2000, 4, executor);
+   }
+
+   private void handleBatch(final HttpExchange exchange) throws IOException {
+      batchRequests.incrementAndGet();
+
+      final JsonNode body = mapper.readTree(exchange.getRequestBody());
+      final StringBuilder results = new StringBuilder();
+      maxBatchSize.accumulateAndGet(body.get("locations").size(), Math::max);
+
+      for (final JsonNode node : body.get("locations")) {
+         final String location = node.asText();
+         synchronized (requestedLocations) {
+            requestedLocations.add(location);
+         }
+
+         final String latLng = UNKNOWN.equals(location) ? "" : String.format("{\"latLng\": {\"lat\": %s, \"lng\": 0}}", location.replace("Street ", ""));
+         results.append(results.length() > 0 ? "," : "")
+                .append(String.format("{\"providedLocation\": {\"location\": \"%s\"}, \"locations\": [%s]}", location, latLng));
+      }
+
+      if (release != null) {
+         try {
+            release.await(5, TimeUnit.SECONDS);
+         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+         }
+      }
+
+      respond(exchange, 200, "{\"info\": {}, \"options\": {}, \"results\": [" + results + "]}");
+   }
+
+   private static void respond(final HttpExchange exchange, final int status, final String body) throws IOException {
+      final byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+      exchange.getResponseHeaders().add("Content-Type", "application/json");
+      exchange.sendResponseHeaders(status, bytes.length);
+      try (final OutputStream os = exchange.getResponseBody()) {
+         os.write(bytes);
+      }
+   }
+}
@@ -2,8 +2,11 @@ package io.lumeer.core.constraint;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import io.lumeer.api.model.Attribute;
+import io.lumeer.api.model.Collection;
 import io.lumeer.api.model.Constraint;
 import io.lumeer.api.model.ConstraintType;
+import io.lumeer.engine.api.data.DataDocument;
 
 import com.mongodb.client.model.geojson.NamedCoordinateReferenceSystem;
 import com.mongodb.client.model.geojson.Point;
@@ -16,6 +19,7 @@ import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Date;
+import java.util.List;
 import java.util.Locale;
 
 /**
@@ -197,4 +201,30 @@ public class ConstraintManagerTest {
       encoded = cm.encodeForFce("40°7.38'N, 74°7.38'W", null);
       assertThat(encoded).isEqualTo(new Point(NamedCoordinateReferenceSystem.EPSG_4326, new Position(40.123, -74.123)));
    }
-}
\ No newline at end of file
+
+   @Test
+   public void testDataTypesFollowAttributeChanges() {
+      final ConstraintManager cm = new ConstraintManager();
+      cm.setLocale(l);
+
+      final Collection collection = new Collection("C", "collection", "", "", null);
+      collection.setId("5d9f1cdd46d0c4342b1d0a01");
+      collection.setAttributes(List.of(new Attribute("a1", "a1", new Constraint(ConstraintType.Boolean, null), null, 0), new Attribute("a2")));
+
+      DataDocument data = new DataDocument("a1", "true").append("a2", "12").append("a3", "x");
+      cm.encodeDataTypes(collection, data);
+      assertThat(data).containsEntry("a1", Boolean.TRUE).containsEntry("a2", 12L).containsEntry("a3", "x");
+
+      collection.setAttributes(List.of(new Attribute("a1", "a1", new Constraint(ConstraintType.Text, null), null, 0), new Attribute("a2")));
+      collection.setVersion(1);
+
+      data = new DataDocument("a1", "true");
+      cm.encodeDataTypes(collection, data);
+      assertThat(data).containsEntry("a1", "true");
+
+      final Date date = new Date(1234567890);
+      data = new DataDocument("a1", date).append("a2", new BigDecimal("1.5"));
+      cm.decodeDataTypes(collection, data);
+      assertThat(data).containsEntry("a1", cm.getDateDecoder().format(date.toInstant().atZone(ZoneId.of("UTC")))).containsEntry("a2", "1.5");
+   }
+}
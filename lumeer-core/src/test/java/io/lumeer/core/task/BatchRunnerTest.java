@@ -0,0 +1,121 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.task;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public class BatchRunnerTest {
+
+   private ExecutorService executorService;
+
+   @Before
+   public void setUp() {
+      executorService = Executors.newFixedThreadPool(4);
+   }
+
+   @After
+   public void tearDown() {
+      executorService.shutdownNow();
+   }
+
+   @Test
+   public void testAllItemsAreProcessedInBatches() {
+      final BatchRunner runner = new BatchRunner(executorService, 4, 10);
+      final List<Integer> items = IntStream.range(0, 95).boxed().collect(Collectors.toList());
+      final List<Integer> processed = new CopyOnWriteArrayList<>();
+      final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+
+      final BatchRunner.Result result = runner.run("test", items, batch -> {
+         assertThat(batch.size()).isLessThanOrEqualTo(10);
+         threads.add(Thread.currentThread());
+         sleep(5);
+         processed.addAll(batch);
+      });
+
+      assertThat(result.getFailed()).isEqualTo(0);
+      assertThat(result.getFirstFailure()).isNull();
+      assertThat(processed).containsExactlyInAnyOrderElementsOf(items);
+      assertThat(threads.size()).isGreaterThan(1);
+   }
+
+   @Test
+   public void testFailedBatchDoesNotStopProcessing() {
+      final BatchRunner runner = new BatchRunner(null, 4, 10);
+      final List<Integer> items = IntStream.range(0, 30).boxed().collect(Collectors.toList());
+      final List<Integer> processed = new CopyOnWriteArrayList<>();
+
+      final BatchRunner.Result result = runner.run("test", items, batch -> {
+         if (batch.contains(0)) {
+            throw new IllegalStateException("test");
+         }
+         processed.addAll(batch);
+      });
+
+      assertThat(result.getFailed()).isEqualTo(10);
+      assertThat(result.getFirstFailure()).isInstanceOf(IllegalStateException.class).hasMessage("test");
+      assertThat(processed).hasSize(20);
+   }
+
+   @Test
+   public void testSaturatedExecutorDoesNotBlock() throws InterruptedException {
+      final ExecutorService single = Executors.newSingleThreadExecutor();
+      final CountDownLatch blocker = new CountDownLatch(1);
+      try {
+         single.submit(() -> {
+            try {
+               blocker.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+               Thread.currentThread().interrupt();
+            }
+         });
+
+         final BatchRunner runner = new BatchRunner(single, 4, 1);
+         final List<Integer> processed = new CopyOnWriteArrayList<>();
+         runner.run("test", List.of(1, 2, 3), processed::addAll);
+
+         assertThat(processed).containsExactlyInAnyOrder(1, 2, 3);
+      } finally {
+         blocker.countDown();
+         single.shutdownNow();
+      }
+   }
+
+   private static void sleep(final long millis) {
+      try {
+         Thread.sleep(millis);
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+      }
+   }
+}
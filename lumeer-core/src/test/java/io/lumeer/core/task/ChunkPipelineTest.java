@@ -0,0 +1,128 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.task;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public class ChunkPipelineTest {
+
+   private ExecutorService executorService;
+
+   @Before
+   public void setUp() {
+      executorService = Executors.newFixedThreadPool(4);
+   }
+
+   @After
+   public void tearDown() {
+      executorService.shutdownNow();
+   }
+
+   @Test
+   public void testAllChunksAreProcessed() {
+      final List<Integer> processed = new CopyOnWriteArrayList<>();
+      final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+
+      final ChunkPipeline<Integer> pipeline = new ChunkPipeline<>("test", executorService, 4, chunk -> {
+         threads.add(Thread.currentThread());
+         sleep(5);
+         processed.addAll(chunk);
+      });
+      try (pipeline) {
+         for (int i = 0; i < 100; i += 10) {
+            pipeline.submit(IntStream.range(i, i + 10).boxed().collect(Collectors.toList()));
+         }
+      }
+
+      assertThat(processed).containsExactlyInAnyOrderElementsOf(IntStream.range(0, 100).boxed().collect(Collectors.toList()));
+      assertThat(pipeline.getProcessed()).isEqualTo(100);
+      assertThat(threads.size()).isGreaterThan(1);
+   }
+
+   @Test
+   public void testFailedChunkStopsProcessing() {
+      final List<Integer> processed = new CopyOnWriteArrayList<>();
+
+      assertThatThrownBy(() -> {
+         try (ChunkPipeline<Integer> pipeline = new ChunkPipeline<>("test", null, 1, chunk -> {
+            if (chunk.contains(10)) {
+               throw new IllegalStateException("test");
+            }
+            processed.addAll(chunk);
+         })) {
+            for (int i = 0; i < 100; i += 10) {
+               pipeline.submit(IntStream.range(i, i + 10).boxed().collect(Collectors.toList()));
+            }
+         }
+      }).isInstanceOf(IllegalStateException.class).hasMessage("test");
+
+      assertThat(processed).hasSize(10);
+   }
+
+   @Test
+   public void testSaturatedExecutorDoesNotBlock() {
+      final ExecutorService single = Executors.newSingleThreadExecutor();
+      final CountDownLatch blocker = new CountDownLatch(1);
+      try {
+         single.submit(() -> {
+            try {
+               blocker.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+               Thread.currentThread().interrupt();
+            }
+         });
+
+         final List<Integer> processed = new CopyOnWriteArrayList<>();
+         try (ChunkPipeline<Integer> pipeline = new ChunkPipeline<>("test", single, 4, processed::addAll)) {
+            pipeline.submit(List.of(1, 2));
+            pipeline.submit(List.of(3, 4));
+            pipeline.submit(List.of(5));
+         }
+
+         assertThat(processed).containsExactlyInAnyOrder(1, 2, 3, 4, 5);
+      } finally {
+         blocker.countDown();
+         single.shutdownNow();
+      }
+   }
+
+   private static void sleep(final long millis) {
+      try {
+         Thread.sleep(millis);
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+      }
+   }
+}
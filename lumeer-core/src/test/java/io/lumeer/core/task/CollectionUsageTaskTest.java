@@ -0,0 +1,103 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.task;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+import io.lumeer.api.model.Collection;
+import io.lumeer.storage.api.dao.CollectionDao;
+import io.lumeer.storage.api.dao.context.DaoContextSnapshot;
+
+import org.junit.Test;
+
+import java.util.Map;
+
+public class CollectionUsageTaskTest {
+
+   private static final String COLLECTION_ID = "5c5b3f01b9437f682e35d3b5";
+
+   @Test
+   public void testUsageIsMergedIntoSingleUpdate() {
+      final CollectionDao collectionDao = mock(CollectionDao.class);
+      final DaoContextSnapshot snapshot = mock(DaoContextSnapshot.class);
+      when(snapshot.getCollectionDao()).thenReturn(collectionDao);
+      final Collection collection = new Collection("C", "Collection", "", "", null);
+      collection.setId(COLLECTION_ID);
+      when(collectionDao.updateCollectionUsage(any(), anyMap(), anyInt(), any())).thenReturn(collection);
+
+      final CollectionUsageTask task = new CollectionUsageTask();
+      task.initialize(null, snapshot, null);
+      task.addUsage(COLLECTION_ID, Map.of("a1", 1, "a2", 1), 1);
+      task.addUsage(COLLECTION_ID, Map.of("a1", 1), 1);
+      task.addUsage(COLLECTION_ID, Map.of("a2", -1), -1);
+      task.process();
+
+      verify(collectionDao, times(1)).updateCollectionUsage(eq(COLLECTION_ID), eq(Map.of("a1", 2)), eq(1), any());
+      assertThat(task.getUpdatedCollections()).extracting(Collection::getId).containsExactly(COLLECTION_ID);
+   }
+
+   @Test
+   public void testRemovedUsageIsNotWritten() {
+      final CollectionDao collectionDao = mock(CollectionDao.class);
+      final DaoContextSnapshot snapshot = mock(DaoContextSnapshot.class);
+      when(snapshot.getCollectionDao()).thenReturn(collectionDao);
+
+      final CollectionUsageTask task = new CollectionUsageTask();
+      task.initialize(null, snapshot, null);
+      task.addUsage(COLLECTION_ID, Map.of("a1", 1), 3);
+      task.addUsage(COLLECTION_ID, Map.of(), -1);
+
+      assertThat(task.removeUsage(COLLECTION_ID)).isEqualTo(2);
+      assertThat(task.removeUsage(COLLECTION_ID)).isEqualTo(0);
+      task.process();
+
+      verifyZeroInteractions(collectionDao);
+   }
+
+   @Test
+   public void testFailedUsageIsKept() {
+      final CollectionDao collectionDao = mock(CollectionDao.class);
+      final DaoContextSnapshot snapshot = mock(DaoContextSnapshot.class);
+      when(snapshot.getCollectionDao()).thenReturn(collectionDao);
+      when(collectionDao.updateCollectionUsage(eq(COLLECTION_ID), anyMap(), anyInt(), any())).thenThrow(new IllegalStateException());
+
+      final CollectionUsageTask task = new CollectionUsageTask();
+      task.initialize(null, snapshot, null);
+      task.addUsage(COLLECTION_ID, Map.of("a1", 1), 2);
+      assertThatThrownBy(task::process).isInstanceOf(IllegalStateException.class);
+
+      final CollectionUsageTask newerTask = new CollectionUsageTask();
+      newerTask.addUsage(COLLECTION_ID, Map.of("a1", 1), 1);
+      task.addUsage(newerTask);
+
+      assertThat(task.isEmpty()).isFalse();
+      assertThat(task.removeUsage(COLLECTION_ID)).isEqualTo(3);
+      assertThat(task.isEmpty()).isTrue();
+   }
+}
@@ -0,0 +1,77 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.task;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public class ConversionStageTest {
+
+   private ConversionStage stage;
+
+   @Before
+   public void setUp() {
+      stage = new ConversionStage(4, 1000);
+   }
+
+   @After
+   public void tearDown() {
+      stage.close();
+   }
+
+   @Test
+   public void testLargeBatchIsConvertedInParallel() {
+      final List<int[]> items = IntStream.range(0, 20_000).mapToObj(i -> new int[] { i }).collect(Collectors.toList());
+      final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+
+      stage.forEach(items, item -> {
+         threads.add(Thread.currentThread());
+         item[0] = item[0] * 2;
+      });
+
+      for (int i = 0; i < items.size(); i++) {
+         assertThat(items.get(i)[0]).isEqualTo(i * 2);
+      }
+      assertThat(threads.size()).isGreaterThan(1);
+      assertThat(threads).doesNotContain(Thread.currentThread());
+   }
+
+   @Test
+   public void testSmallBatchIsConvertedInCallingThread() {
+      final List<int[]> items = IntStream.range(0, 999).mapToObj(i -> new int[] { i }).collect(Collectors.toList());
+      final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+
+      stage.forEach(items, item -> {
+         threads.add(Thread.currentThread());
+         item[0]++;
+      });
+
+      assertThat(items.get(998)[0]).isEqualTo(999);
+      assertThat(threads).containsExactly(Thread.currentThread());
+   }
+}
@@ -0,0 +1,99 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.task;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+import io.lumeer.api.model.Attribute;
+import io.lumeer.api.model.Collection;
+import io.lumeer.api.model.Document;
+import io.lumeer.api.model.function.Function;
+import io.lumeer.api.model.function.FunctionRow;
+import io.lumeer.engine.api.data.DataDocument;
+import io.lumeer.storage.api.dao.DocumentDao;
+import io.lumeer.storage.api.dao.context.DaoContextSnapshot;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+public class FunctionTaskTest {
+
+   private static final String COLLECTION_ID = "5c5b3f01b9437f682e35d3b5";
+
+   private static final String XML = "<xml xmlns=\"http://www.w3.org/1999/xhtml\">\n"
+         + "  <block type=\"get_attribute\" id=\"z?C46ky2;E{|MPe%yg_v\">\n"
+         + "    <field name=\"ATTR\">a3</field>\n"
+         + "    <value name=\"DOCUMENT\">\n"
+         + "      <block type=\"variables_get_" + COLLECTION_ID + "_document\" id=\"htj,W_{y[i#NwzoQ!U$W\" editable=\"false\">\n"
+         + "        <field name=\"VAR\" id=\"htj,W_{y[i#NwzoQ!U$W\" variabletype=\"" + COLLECTION_ID + "_document\">thisDocument</field>\n"
+         + "      </block>\n"
+         + "    </value>\n"
+         + "  </block>\n"
+         + "</xml>";
+
+   @Test
+   public void testReferencedAttributesAreProjected() {
+      assertThat(createTask(XML).getReferencedAttributeIds()).containsOnly("a3", "a5");
+   }
+
+   @Test
+   public void testAllAttributesAreReadWithoutXml() {
+      assertThat(createTask(null).getReferencedAttributeIds()).isNull();
+      assertThat(createTask("<xml><block").getReferencedAttributeIds()).isNull();
+   }
+
+   @Test
+   public void testDependentDocumentsAreDerivedFromWrittenIds() {
+      final DocumentDao documentDao = mock(DocumentDao.class);
+      final DaoContextSnapshot snapshot = mock(DaoContextSnapshot.class);
+      when(snapshot.getDocumentDao()).thenReturn(documentDao);
+      final Document document = new Document(new DataDocument());
+      document.setId("d1");
+      document.setCollectionId(COLLECTION_ID);
+      when(documentDao.getDocumentsByIds("d1")).thenReturn(List.of(document));
+
+      final FunctionTask source = createTask(null);
+      final FunctionTask dependent = new FunctionTask();
+      dependent.initialize(null, snapshot, null);
+      final Collection collection = new Collection("C", "Collection", "", "", null);
+      collection.setId(COLLECTION_ID);
+      dependent.setFunctionTask(new Attribute("a6"), collection, null, null);
+      dependent.addSource(source, FunctionRow.createForCollection(COLLECTION_ID, "a6", COLLECTION_ID, null, "a5"));
+
+      assertThat(dependent.getDocumentsToProcess()).isEmpty();
+      verifyZeroInteractions(documentDao);
+
+      source.addWrittenId("d1");
+      assertThat(dependent.getDocumentsToProcess()).containsExactly(document);
+   }
+
+   private FunctionTask createTask(final String xml) {
+      final Attribute attribute = new Attribute("a5");
+      attribute.setFunction(new Function("", xml, null, 0, false));
+
+      final FunctionTask task = new FunctionTask();
+      task.setFunctionTask(attribute, new Collection(COLLECTION_ID, "Collection", "", "", null), Collections.emptySet(), null);
+      return task;
+   }
+}
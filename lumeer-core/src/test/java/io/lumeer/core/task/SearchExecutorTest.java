@@ -0,0 +1,112 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.task;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public class SearchExecutorTest {
+
+   private ExecutorService executorService;
+
+   @Before
+   public void setUp() {
+      executorService = Executors.newFixedThreadPool(8);
+   }
+
+   @After
+   public void tearDown() {
+      executorService.shutdownNow();
+   }
+
+   @Test
+   public void testResultsKeepInputOrder() {
+      final SearchExecutor searchExecutor = new SearchExecutor(executorService, 4);
+      final List<Integer> inputs = IntStream.range(0, 20).boxed().collect(Collectors.toList());
+      final QueryTimings timings = new QueryTimings();
+
+      final List<Integer> results = searchExecutor.map(inputs, i -> {
+         sleep((20 - i) * 2);
+         return i * 10;
+      }, String::valueOf, timings);
+
+      assertThat(results).isEqualTo(inputs.stream().map(i -> i * 10).collect(Collectors.toList()));
+      assertThat(timings.getTimings()).extracting(QueryTimings.Timing::getName)
+                                      .isEqualTo(inputs.stream().map(String::valueOf).collect(Collectors.toList()));
+      assertThat(timings.toServerTiming()).startsWith("q0;desc=\"0\";dur=");
+   }
+
+   @Test
+   public void testParallelismIsBounded() {
+      final SearchExecutor searchExecutor = new SearchExecutor(executorService, 3);
+      final AtomicInteger running = new AtomicInteger();
+      final AtomicInteger maxRunning = new AtomicInteger();
+
+      searchExecutor.map(IntStream.range(0, 30).boxed().collect(Collectors.toList()), i -> {
+         maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+         sleep(5);
+         running.decrementAndGet();
+         return i;
+      }, String::valueOf, null);
+
+      // three slots in the executor and the calling thread
+      assertThat(maxRunning.get()).isGreaterThan(1).isLessThanOrEqualTo(4);
+   }
+
+   @Test
+   public void testSerialExecution() {
+      final SearchExecutor searchExecutor = new SearchExecutor(executorService, 0);
+      final Thread caller = Thread.currentThread();
+
+      assertThat(searchExecutor.isParallel()).isFalse();
+      assertThat(searchExecutor.map(Arrays.asList("a", "b"), s -> Thread.currentThread() == caller, s -> s, null)).containsOnly(true);
+   }
+
+   @Test
+   public void testExceptionIsPropagated() {
+      final SearchExecutor searchExecutor = new SearchExecutor(executorService, 4);
+
+      assertThatThrownBy(() -> searchExecutor.map(Arrays.asList(1, 2, 3), i -> {
+         if (i == 1) {
+            throw new IllegalArgumentException("failed " + i);
+         }
+         return i;
+      }, String::valueOf, null)).isInstanceOf(IllegalArgumentException.class).hasMessage("failed 1");
+   }
+
+   private static void sleep(final long millis) {
+      try {
+         Thread.sleep(millis);
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+      }
+   }
+}
@@ -0,0 +1,162 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.task;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+public class TaskExecutorTest {
+
+   private ExecutorService executorService;
+
+   @Before
+   public void setUp() {
+      executorService = Executors.newFixedThreadPool(4);
+   }
+
+   @After
+   public void tearDown() {
+      executorService.shutdownNow();
+   }
+
+   @Test
+   public void testTenantsAreServedInTurns() throws InterruptedException {
+      final TaskExecutor taskExecutor = new TenantTaskExecutor(executorService, 1, 100);
+      final List<String> order = new CopyOnWriteArrayList<>();
+      final CountDownLatch blocker = new CountDownLatch(1);
+      final CountDownLatch done = new CountDownLatch(5);
+
+      taskExecutor.submitTask(new TestTask("x", () -> await(blocker)));
+      taskExecutor.submitTask(new TestTask("a1", () -> order.add("a1"), done));
+      taskExecutor.submitTask(new TestTask("a2", () -> order.add("a2"), done));
+      taskExecutor.submitTask(new TestTask("a3", () -> order.add("a3"), done));
+      taskExecutor.submitTask(new TestTask("b1", () -> order.add("b1"), done));
+      taskExecutor.submitTask(new TestTask("c1", () -> order.add("c1"), done));
+
+      assertThat(taskExecutor.getQueueLength()).isEqualTo(5);
+      blocker.countDown();
+      assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+
+      assertThat(order).containsExactly("a1", "b1", "c1", "a2", "a3");
+   }
+
+   @Test
+   public void testFullQueueRunsInCallerThread() throws InterruptedException {
+      final TaskExecutor taskExecutor = new TenantTaskExecutor(executorService, 1, 1);
+      final CountDownLatch blocker = new CountDownLatch(1);
+      final List<Thread> threads = new CopyOnWriteArrayList<>();
+
+      taskExecutor.submitTask(new TestTask("x", () -> await(blocker)));
+      taskExecutor.submitTask(new TestTask("a1", () -> threads.add(Thread.currentThread())));
+      taskExecutor.submitTask(new TestTask("a2", () -> threads.add(Thread.currentThread())));
+
+      assertThat(threads).containsExactly(Thread.currentThread());
+      blocker.countDown();
+
+      final TaskExecutor.Statistics statistics = taskExecutor.getStatistics().get(TestTask.class.getSimpleName());
+      assertThat(statistics.getSubmitted()).isEqualTo(3);
+      assertThat(statistics.getCallerRuns()).isEqualTo(1);
+   }
+
+   @Test
+   public void testFailuresAreCounted() throws InterruptedException {
+      final TaskExecutor taskExecutor = new TenantTaskExecutor(executorService, 2, 10);
+      final CountDownLatch done = new CountDownLatch(1);
+
+      taskExecutor.submitTask(new TestTask("a1", () -> {
+         throw new IllegalStateException("test");
+      }, done));
+      assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+
+      // the counters are updated after the task finishes
+      executorService.shutdown();
+      assertThat(executorService.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+
+      final TaskExecutor.Statistics statistics = taskExecutor.getStatistics().get(TestTask.class.getSimpleName());
+      assertThat(statistics.getFailed()).isEqualTo(1);
+      assertThat(statistics.getCompleted()).isEqualTo(1);
+      assertThat(taskExecutor.getRunning()).isEqualTo(0);
+   }
+
+   private static void await(final CountDownLatch latch) {
+      try {
+         latch.await(5, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+      }
+   }
+
+   private static class TenantTaskExecutor extends TaskExecutor {
+
+      private TenantTaskExecutor(final ExecutorService executorService, final int concurrency, final int maxQueueSize) {
+         super(executorService, concurrency, maxQueueSize);
+      }
+
+      @Override
+      String getTenant(final Task task) {
+         return ((TestTask) task).name.substring(0, 1);
+      }
+   }
+
+   private static class TestTask implements Task {
+
+      private final String name;
+      private final transient Runnable body;
+      private final transient List<CountDownLatch> latches;
+
+      private TestTask(final String name, final Runnable body) {
+         this(name, body, null);
+      }
+
+      private TestTask(final String name, final Runnable body, final CountDownLatch latch) {
+         this.name = name;
+         this.body = body;
+         this.latches = latch != null ? Collections.singletonList(latch) : Collections.emptyList();
+      }
+
+      @Override
+      public void setParent(final Task task) {
+      }
+
+      @Override
+      public Task getParent() {
+         return null;
+      }
+
+      @Override
+      public void process() {
+         try {
+            body.run();
+         } finally {
+            latches.forEach(CountDownLatch::countDown);
+         }
+      }
+   }
+}
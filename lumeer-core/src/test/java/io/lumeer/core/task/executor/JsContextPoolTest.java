@@ -0,0 +1,78 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.task.executor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+public class JsContextPoolTest {
+
+   public static class Recorder {
+      private final List<String> values = new ArrayList<>();
+
+      public void record(final String value) {
+         values.add(value);
+      }
+   }
+
+   @Test
+   public void testContextsAreReused() {
+      final JsContextPool pool = new JsContextPool(2, 10);
+      final Recorder recorder = new Recorder();
+      final String js = "var lumeer = Polyglot.import('lumeer'); var x = 'v' + input; lumeer.record(x);";
+
+      pool.execute("rule", js, Map.of("lumeer", recorder), Map.of("input", 1));
+      pool.execute("rule", js, Map.of("lumeer", recorder), Map.of("input", 2));
+
+      assertThat(recorder.values).containsExactly("v1", "v2");
+      assertThat(pool.getColdExecutions()).isEqualTo(1);
+      assertThat(pool.getWarmExecutions()).isEqualTo(1);
+      assertThat(pool.getSourceCacheStatistics().getHits()).isEqualTo(1);
+   }
+
+   @Test
+   public void testGlobalsAreReset() {
+      final JsContextPool pool = new JsContextPool(1, 10);
+      final Recorder recorder = new Recorder();
+
+      pool.execute("first", "var x = 1; leaked = 2;", Collections.emptyMap(), Map.of("input", 1));
+      pool.execute("second", "Polyglot.import('lumeer').record(typeof x + ',' + typeof leaked + ',' + typeof input);", Map.of("lumeer", recorder), Collections.emptyMap());
+
+      assertThat(recorder.values).containsExactly("undefined,undefined,undefined");
+      assertThat(pool.getWarmExecutions()).isEqualTo(1);
+   }
+
+   @Test
+   public void testChangedCodeIsReparsed() {
+      final JsContextPool pool = new JsContextPool(1, 10);
+      final Recorder recorder = new Recorder();
+
+      pool.execute("rule", "Polyglot.import('lumeer').record('a');", Map.of("lumeer", recorder), Collections.emptyMap());
+      pool.execute("rule", "Polyglot.import('lumeer').record('b');", Map.of("lumeer", recorder), Collections.emptyMap());
+
+      assertThat(recorder.values).containsExactly("a", "b");
+      assertThat(pool.getSourceCacheStatistics().getHits()).isEqualTo(0);
+   }
+}
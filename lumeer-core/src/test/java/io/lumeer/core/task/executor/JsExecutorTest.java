@@ -0,0 +1,105 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.task.executor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import io.lumeer.api.model.Attribute;
+import io.lumeer.api.model.Collection;
+import io.lumeer.api.model.Constraint;
+import io.lumeer.api.model.ConstraintType;
+import io.lumeer.api.model.Document;
+import io.lumeer.api.model.LinkInstance;
+import io.lumeer.api.model.LinkType;
+import io.lumeer.core.task.ContextualTask;
+import io.lumeer.engine.api.data.DataDocument;
+import io.lumeer.storage.api.dao.CollectionDao;
+import io.lumeer.storage.api.dao.LinkDataDao;
+import io.lumeer.storage.api.dao.LinkInstanceDao;
+import io.lumeer.storage.api.dao.LinkTypeDao;
+import io.lumeer.storage.api.dao.context.DaoContextSnapshot;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+
+public class JsExecutorTest {
+
+   private static final String COLLECTION_ID = "5c5b3f01b9437f682e35d3b5";
+   private static final String LINK_TYPE_ID = "5c5b3f01b9437f682e35d3b6";
+   private static final String LINK_ID = "5c5b3f01b9437f682e35d3b7";
+   private static final String DOCUMENT_ID = "5c5b3f01b9437f682e35d3b8";
+
+   @Test
+   public void testLinkAttributesAreEncodedForFunctions() {
+      final Collection collection = new Collection("C", "Collection", "", "", null);
+      collection.setId(COLLECTION_ID);
+      collection.setAttributes(List.of(new Attribute("a1", "Result", null, null, 0)));
+
+      final LinkType linkType = new LinkType("Links", List.of(COLLECTION_ID, COLLECTION_ID), List.of(new Attribute("a1", "Amount", new Constraint(ConstraintType.Number, null), null, 0)));
+      linkType.setId(LINK_TYPE_ID);
+
+      final Document document = new Document(new DataDocument());
+      document.setId(DOCUMENT_ID);
+      document.setCollectionId(COLLECTION_ID);
+
+      final LinkInstance link = new LinkInstance(LINK_TYPE_ID, List.of(DOCUMENT_ID, "5c5b3f01b9437f682e35d3b9"));
+      link.setId(LINK_ID);
+      final DataDocument linkData = new DataDocument("a1", "4410");
+      linkData.setId(LINK_ID);
+
+      final ContextualTask task = mockTask(collection, linkType, link, linkData);
+
+      final JsExecutor executor = new JsExecutor();
+      executor.execute(Map.of("thisDocument", new JsExecutor.DocumentBridge(document)), task, collection,
+            "var lumeer = Polyglot.import('lumeer');\n"
+                  + "var link = lumeer.getLinks(thisDocument, '" + LINK_TYPE_ID + "')[0];\n"
+                  + "lumeer.setDocumentAttribute(thisDocument, 'a1', lumeer.getLinkAttribute(link, 'a1') + 1);");
+
+      assertThat(executor.getCause()).isNull();
+      assertThat(executor.getChanges()).isEqualTo("Collection(d3b8): Result = 4411.0\n");
+   }
+
+   private static ContextualTask mockTask(final Collection collection, final LinkType linkType, final LinkInstance link, final DataDocument linkData) {
+      final CollectionDao collectionDao = mock(CollectionDao.class);
+      when(collectionDao.getCollectionById(COLLECTION_ID)).thenReturn(collection);
+      final LinkTypeDao linkTypeDao = mock(LinkTypeDao.class);
+      when(linkTypeDao.getLinkType(LINK_TYPE_ID)).thenReturn(linkType);
+      final LinkInstanceDao linkInstanceDao = mock(LinkInstanceDao.class);
+      when(linkInstanceDao.searchLinkInstances(any())).thenReturn(List.of(link));
+      final LinkDataDao linkDataDao = mock(LinkDataDao.class);
+      when(linkDataDao.getData(eq(LINK_TYPE_ID), anySet())).thenReturn(List.of(linkData));
+
+      final DaoContextSnapshot snapshot = mock(DaoContextSnapshot.class);
+      when(snapshot.getCollectionDao()).thenReturn(collectionDao);
+      when(snapshot.getLinkTypeDao()).thenReturn(linkTypeDao);
+      when(snapshot.getLinkInstanceDao()).thenReturn(linkInstanceDao);
+      when(snapshot.getLinkDataDao()).thenReturn(linkDataDao);
+
+      final ContextualTask task = mock(ContextualTask.class);
+      when(task.getDaoContextSnapshot()).thenReturn(snapshot);
+      return task;
+   }
+}
@@ -0,0 +1,181 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.lumeer.api.model.Document;
+import io.lumeer.core.facade.PusherFacade;
+import io.lumeer.engine.api.data.DataDocument;
+
+import org.junit.Test;
+import org.marvec.pusher.data.Event;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public class AsyncPusherClientTest {
+
+   private static final String CHANNEL = PusherFacade.PRIVATE_CHANNEL_PREFIX + "user";
+
+   @Test
+   public void testUpdatesAreCoalesced() {
+      final RecordingClient client = new RecordingClient(100);
+
+      final Document first = createDocument("d1", "first");
+      final Document second = createDocument("d1", "second");
+      client.trigger(Arrays.asList(updateEvent(first), updateEvent(createDocument("d2", "other")), updateEvent(second)));
+      client.flush();
+
+      assertThat(client.batches).hasSize(1);
+      final List<Event> sent = client.batches.get(0);
+      assertThat(sent).hasSize(2);
+      assertThat(((PusherFacade.ObjectWithParent) sent.get(1).getData()).getObject()).isSameAs(second);
+
+      final AsyncPusherClient.Statistics statistics = client.getStatistics();
+      assertThat(statistics.getEnqueued()).isEqualTo(3);
+      assertThat(statistics.getCoalesced()).isEqualTo(1);
+      assertThat(statistics.getSent()).isEqualTo(2);
+      assertThat(statistics.getQueueDepth()).isEqualTo(0);
+   }
+
+   @Test
+   public void testCreateAndRemoveEventsAreKept() {
+      final RecordingClient client = new RecordingClient(100);
+
+      final Event create = new Event(CHANNEL, "Document" + PusherFacade.CREATE_EVENT_SUFFIX, new PusherFacade.ObjectWithParent(createDocument("d1", "a"), "org"));
+      final Event remove = new Event(CHANNEL, "Document" + PusherFacade.REMOVE_EVENT_SUFFIX, new PusherFacade.ResourceId("d1"));
+      client.trigger(Arrays.asList(create, remove, create));
+      client.flush();
+
+      assertThat(client.batches.get(0)).containsExactly(create, remove, create);
+   }
+
+   @Test
+   public void testCoalescedUpdateDoesNotOvertakeEarlierEvents() {
+      final RecordingClient client = new RecordingClient(100);
+
+      final Event firstUpdate = updateEvent(createDocument("d1", "first"));
+      final Event create = new Event(CHANNEL, "Document" + PusherFacade.CREATE_EVENT_SUFFIX, new PusherFacade.ObjectWithParent(createDocument("d2", "a"), "org"));
+      final Event secondUpdate = updateEvent(createDocument("d1", "second"));
+      client.trigger(Arrays.asList(firstUpdate, create, secondUpdate));
+      client.flush();
+
+      assertThat(client.batches.get(0)).containsExactly(create, secondUpdate);
+   }
+
+   @Test
+   public void testChannelOrderIsKeptWithConcurrentSenders() {
+      final ScheduledExecutorService executorService = Executors.newScheduledThreadPool(4);
+      try {
+         final RecordingClient client = new RecordingClient(1000, 4);
+         client.start(executorService);
+
+         final List<Event> events = new ArrayList<>();
+         for (int i = 0; i < 50; i++) {
+            for (int channel = 0; channel < 5; channel++) {
+               events.add(new Event(CHANNEL + channel, "Document" + PusherFacade.CREATE_EVENT_SUFFIX, new PusherFacade.ObjectWithParent(createDocument("d" + i, "v"), "org")));
+            }
+         }
+         client.trigger(events);
+         client.flush();
+         client.close();
+
+         final List<Event> sent;
+         synchronized (client.batches) {
+            sent = client.batches.stream().flatMap(List::stream).collect(Collectors.toList());
+         }
+         assertThat(sent).hasSize(events.size());
+         for (int channel = 0; channel < 5; channel++) {
+            final String name = CHANNEL + channel;
+            assertThat(sent.stream().filter(event -> event.getChannel().equals(name)).collect(Collectors.toList()))
+                  .containsExactlyElementsOf(events.stream().filter(event -> event.getChannel().equals(name)).collect(Collectors.toList()));
+         }
+      } finally {
+         executorService.shutdownNow();
+      }
+   }
+
+   @Test
+   public void testBatchesAreLimited() {
+      final RecordingClient client = new RecordingClient(100);
+
+      client.trigger(IntStream.range(0, 25)
+                              .mapToObj(i -> updateEvent(createDocument("d" + i, "v")))
+                              .collect(Collectors.toList()));
+      client.flush();
+
+      assertThat(client.batches).extracting(List::size).containsExactly(10, 10, 5);
+      assertThat(client.getStatistics().getBatches()).isEqualTo(3);
+   }
+
+   @Test
+   public void testQueueIsBounded() {
+      final RecordingClient client = new RecordingClient(5);
+
+      client.trigger(IntStream.range(0, 8)
+                              .mapToObj(i -> updateEvent(createDocument("d" + i, "v")))
+                              .collect(Collectors.toList()));
+      // updates of already queued documents are still accepted
+      client.trigger(Collections.singletonList(updateEvent(createDocument("d0", "w"))));
+
+      final AsyncPusherClient.Statistics statistics = client.getStatistics();
+      assertThat(statistics.getQueueDepth()).isEqualTo(5);
+      assertThat(statistics.getDropped()).isEqualTo(3);
+      assertThat(statistics.getCoalesced()).isEqualTo(1);
+
+      client.close();
+      assertThat(client.getStatistics().getSent()).isEqualTo(5);
+   }
+
+   private static Document createDocument(final String id, final String value) {
+      final Document document = new Document(new DataDocument("a1", value));
+      document.setId(id);
+      return document;
+   }
+
+   private static Event updateEvent(final Document document) {
+      return new Event(CHANNEL, "Document" + PusherFacade.UPDATE_EVENT_SUFFIX, new PusherFacade.ObjectWithParent(document, "org", "project"));
+   }
+
+   private static class RecordingClient extends AsyncPusherClient {
+
+      private final List<List<Event>> batches = Collections.synchronizedList(new ArrayList<>());
+
+      private RecordingClient(final int maxQueueSize) {
+         this(maxQueueSize, 1);
+      }
+
+      private RecordingClient(final int maxQueueSize, final int senders) {
+         super("app", "key", "secret", "eu", maxQueueSize, 1000, senders);
+      }
+
+      @Override
+      protected void send(final List<Event> events) {
+         batches.add(events);
+         Thread.yield();
+      }
+   }
+}
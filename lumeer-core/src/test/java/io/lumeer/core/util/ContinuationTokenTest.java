@@ -0,0 +1,79 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.lumeer.core.exception.BadFormatException;
+import io.lumeer.engine.api.data.DataDocument;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class ContinuationTokenTest {
+
+   private static final String ID1 = "5c6f1f1a3a2b4c0001a1b2c3";
+   private static final String ID2 = "5c6f1f1a3a2b4c0001a1b2c4";
+
+   @Test
+   public void testFirstPage() {
+      final ContinuationToken token = ContinuationToken.decode(2, null);
+
+      assertThat(token.isExhausted("c1")).isFalse();
+      assertThat(token.getPagination("c1").isKeyset()).isTrue();
+      assertThat(token.getPagination("c1").getAfter()).isNull();
+      assertThat(token.getPagination("c1").getPageSize()).isEqualTo(2);
+   }
+
+   @Test
+   public void testRoundTrip() {
+      final ContinuationToken token = ContinuationToken.decode(2, null);
+      token.update("c1", data(ID1, ID2), DataDocument::getId);
+      token.update("c2", data(ID1), DataDocument::getId);
+
+      final ContinuationToken next = ContinuationToken.decode(2, token.encode());
+      assertThat(next.getPagination("c1").getAfter()).isEqualTo(ID2);
+      assertThat(next.isExhausted("c2")).isTrue();
+      assertThat(next.isExhausted("c3")).isFalse();
+   }
+
+   @Test
+   public void testAllExhausted() {
+      final ContinuationToken token = ContinuationToken.decode(2, null);
+      token.update("c1", data(ID1), DataDocument::getId);
+      token.update("c2", Collections.emptyList(), DataDocument::getId);
+
+      assertThat(token.encode()).isNull();
+   }
+
+   @Test
+   public void testInvalidToken() {
+      assertThatThrownBy(() -> ContinuationToken.decode(2, "not a token")).isInstanceOf(BadFormatException.class);
+      assertThatThrownBy(() -> ContinuationToken.decode(2, "YzE9eHl6")).isInstanceOf(BadFormatException.class);
+   }
+
+   private static List<DataDocument> data(final String... ids) {
+      return Arrays.stream(ids).map(id -> new DataDocument().append(DataDocument.ID, id)).collect(Collectors.toList());
+   }
+}
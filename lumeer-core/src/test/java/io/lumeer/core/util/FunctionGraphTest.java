@@ -0,0 +1,98 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.lumeer.api.model.function.FunctionParameter;
+import io.lumeer.api.model.function.FunctionResourceType;
+import io.lumeer.api.model.function.FunctionRow;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class FunctionGraphTest {
+
+   private static final String C1 = "c1";
+   private static final String C2 = "c2";
+   private static final String L1 = "l1";
+
+   // c1.a3 = f(c1.a1, c1.a2), c1.a4 = f(c1.a3), c2.a1 = f(c1.a4 via l1), l1.a1 = f(c2.a1)
+   private static final List<FunctionRow> ROWS = Arrays.asList(
+         FunctionRow.createForCollection(C1, "a3", C1, null, "a1"),
+         FunctionRow.createForCollection(C1, "a3", C1, null, "a2"),
+         FunctionRow.createForCollection(C1, "a4", C1, null, "a3"),
+         FunctionRow.createForCollection(C2, "a1", C1, L1, "a4"),
+         FunctionRow.createForLink(L1, "a1", C2, null, "a1")
+   );
+
+   @Test
+   public void testLookups() {
+      final FunctionGraph graph = new FunctionGraph(ROWS);
+
+      assertThat(graph.searchByDependentCollection(C1, "a3")).containsExactly(ROWS.get(2));
+      assertThat(graph.searchByDependentCollection(C1, null)).hasSize(4);
+      assertThat(graph.searchByDependentLinkType(L1, null)).containsExactly(ROWS.get(3));
+      assertThat(graph.searchByResource(C1, "a3", FunctionResourceType.COLLECTION)).containsExactly(ROWS.get(0), ROWS.get(1));
+      assertThat(graph.searchByResource(L1, null, FunctionResourceType.COLLECTION)).isEmpty();
+      assertThat(graph.searchByAnyLinkType(L1, null)).containsExactly(ROWS.get(4), ROWS.get(3));
+   }
+
+   @Test
+   public void testOrder() {
+      final FunctionGraph graph = new FunctionGraph(ROWS);
+
+      final FunctionParameter c1a3 = new FunctionParameter(FunctionResourceType.COLLECTION, C1, "a3");
+      final FunctionParameter c1a4 = new FunctionParameter(FunctionResourceType.COLLECTION, C1, "a4");
+      final FunctionParameter c2a1 = new FunctionParameter(FunctionResourceType.COLLECTION, C2, "a1");
+      final FunctionParameter l1a1 = new FunctionParameter(FunctionResourceType.LINK, L1, "a1");
+      final FunctionParameter unrelated = new FunctionParameter(FunctionResourceType.COLLECTION, C2, "a9");
+
+      assertThat(graph.hasCycle()).isFalse();
+      assertThat(graph.order(Arrays.asList(l1a1, c2a1, unrelated, c1a4, c1a3))).containsExactly(unrelated, c1a3, c1a4, c2a1, l1a1);
+   }
+
+   @Test
+   public void testCycleDetection() {
+      final FunctionGraph graph = new FunctionGraph(ROWS);
+      graph.addRows(Arrays.asList(FunctionRow.createForCollection(C1, "a1", C1, null, "a4")));
+
+      final FunctionParameter c1a3 = new FunctionParameter(FunctionResourceType.COLLECTION, C1, "a3");
+      assertThat(graph.hasCycle()).isTrue();
+      assertThat(graph.isInCycle(c1a3)).isTrue();
+      assertThat(graph.order(Arrays.asList(c1a3))).isNull();
+
+      graph.removeByResource(FunctionResourceType.COLLECTION, C1, "a1");
+      assertThat(graph.hasCycle()).isFalse();
+      assertThat(graph.size()).isEqualTo(ROWS.size());
+   }
+
+   @Test
+   public void testRemoveByResources() {
+      final FunctionGraph graph = new FunctionGraph(ROWS);
+
+      graph.removeByResources(FunctionResourceType.COLLECTION, C1, C2);
+
+      assertThat(graph.size()).isEqualTo(1);
+      assertThat(graph.searchByDependentCollection(C1, null)).isEmpty();
+      assertThat(graph.searchByDependentCollection(C2, "a1")).containsExactly(ROWS.get(4));
+   }
+}
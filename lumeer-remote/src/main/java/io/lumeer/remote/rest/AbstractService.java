@@ -19,6 +19,7 @@
 package io.lumeer.remote.rest;
 
 import io.lumeer.core.WorkspaceKeeper;
+import io.lumeer.core.auth.Auth0Filter;
 import io.lumeer.core.auth.PermissionsChecker;
 
 import java.net.URI;
@@ -26,6 +27,7 @@ import java.util.Arrays;
 import java.util.stream.Collectors;
 import javax.inject.Inject;
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import javax.ws.rs.core.UriBuilder;
 
 abstract class AbstractService {
@@ -75,6 +77,12 @@ abstract class AbstractService {
       return language;
    }
 
+   protected void setContinuationToken(final HttpServletResponse response, final String continuationToken) {
+      if (response != null && continuationToken != null) {
+         response.setHeader(Auth0Filter.CONTINUATION_TOKEN_HEADER, continuationToken);
+      }
+   }
+
    protected boolean isManager() {
       return permissionsChecker.isManager();
    }
@@ -19,14 +19,21 @@
 package io.lumeer.remote.rest;
 
 import io.lumeer.api.model.Document;
+import io.lumeer.api.model.Query;
+import io.lumeer.api.model.QueryStem;
 import io.lumeer.core.facade.DocumentFacade;
+import io.lumeer.core.facade.SearchFacade;
 import io.lumeer.engine.api.data.DataDocument;
 import io.lumeer.remote.rest.annotation.PATCH;
 
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 import javax.annotation.PostConstruct;
 import javax.enterprise.context.RequestScoped;
 import javax.inject.Inject;
+import javax.servlet.http.HttpServletResponse;
+import javax.ws.rs.BadRequestException;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.DELETE;
 import javax.ws.rs.GET;
@@ -35,6 +42,8 @@ import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 
@@ -56,6 +65,9 @@ public class DocumentService extends AbstractService {
    @Inject
    private DocumentFacade documentFacade;
 
+   @Inject
+   private SearchFacade searchFacade;
+
    @PostConstruct
    public void init() {
       workspaceKeeper.setWorkspace(organizationId, projectId);
@@ -88,6 +100,15 @@ public class DocumentService extends AbstractService {
       return storedDocument;
    }
 
+   @PATCH
+   @Path("data")
+   public List<Document> patchDocumentsData(final List<Document> documents) {
+      List<Document> storedDocuments = documentFacade.patchDocumentsData(collectionId, documents);
+      Set<String> favoriteDocumentIds = documentFacade.getFavoriteDocumentsIds();
+      storedDocuments.forEach(document -> document.setFavorite(favoriteDocumentIds.contains(document.getId())));
+      return storedDocuments;
+   }
+
    @PUT
    @Path("{documentId}/meta")
    public Document updateDocumentMetaData(@PathParam("documentId") final String documentId, final DataDocument metaData) {
@@ -112,6 +133,33 @@ public class DocumentService extends AbstractService {
       return Response.ok().link(getParentUri(documentId), "parent").build();
    }
 
+   @POST
+   @Path("delete")
+   public Response deleteDocuments(final Set<String> documentIds) {
+      documentFacade.deleteDocuments(collectionId, documentIds);
+
+      return Response.ok().build();
+   }
+
+   /**
+    * Gets documents of the collection ordered by their ids using keyset pagination. The token to get the next page
+    * is returned in the continuation token header, the header is missing on the last page.
+    */
+   @GET
+   public List<Document> getDocuments(@QueryParam("pageSize") final Integer pageSize, @QueryParam("after") final String after, @Context final HttpServletResponse response) {
+      if (pageSize == null || pageSize <= 0) {
+         throw new BadRequestException("pageSize");
+      }
+
+      Query query = new Query(Collections.singletonList(new QueryStem(collectionId)), Collections.emptySet(), null, pageSize, after);
+      Set<String> favoriteDocumentIds = documentFacade.getFavoriteDocumentsIds();
+      List<Document> documents = searchFacade.searchDocuments(query);
+      documents.forEach(document -> document.setFavorite(favoriteDocumentIds.contains(document.getId())));
+      setContinuationToken(response, searchFacade.getContinuationToken());
+
+      return documents;
+   }
+
    @GET
    @Path("{documentId}")
    public Document getDocument(@PathParam("documentId") String documentId) {
@@ -20,8 +20,10 @@ package io.lumeer.remote.rest;
 
 import io.lumeer.api.model.Collection;
 import io.lumeer.api.model.ImportedCollection;
+import io.lumeer.api.model.Permissions;
 import io.lumeer.core.facade.ImportFacade;
 
+import java.io.InputStream;
 import javax.annotation.PostConstruct;
 import javax.enterprise.context.RequestScoped;
 import javax.inject.Inject;
@@ -57,4 +59,11 @@ public class ImportService extends AbstractService {
    public Collection importDocuments(@QueryParam("format") String format, ImportedCollection importedCollection) {
       return importFacade.importDocuments(format, importedCollection);
    }
+
+   @POST
+   @Consumes({ "text/csv", MediaType.TEXT_PLAIN, MediaType.APPLICATION_OCTET_STREAM })
+   public Collection importDocuments(@QueryParam("format") String format, @QueryParam("name") String name, @QueryParam("code") String code,
+         @QueryParam("icon") String icon, @QueryParam("color") String color, InputStream data) {
+      return importFacade.importDocuments(format, new Collection(code, name, icon, color, new Permissions()), data);
+   }
 }
@@ -26,6 +26,7 @@ import io.lumeer.remote.rest.annotation.PATCH;
 import io.lumeer.remote.rest.request.LinkInstanceDuplicationRequest;
 
 import java.util.List;
+import java.util.Set;
 import javax.annotation.PostConstruct;
 import javax.enterprise.context.RequestScoped;
 import javax.inject.Inject;
@@ -93,6 +94,12 @@ public class LinkInstanceService extends AbstractService {
       return linkInstanceFacade.patchLinkInstanceData(id, data);
    }
 
+   @PATCH
+   @Path("data")
+   public List<LinkInstance> patchLinkInstancesData(final List<LinkInstance> linkInstances) {
+      return linkInstanceFacade.patchLinkInstancesData(linkInstances);
+   }
+
    @DELETE
    @Path("{linkInstanceId}")
    public Response deleteLinkInstance(@PathParam("linkInstanceId") String id) {
@@ -101,4 +108,12 @@ public class LinkInstanceService extends AbstractService {
       return Response.ok().link(getParentUri(id), "parent").build();
    }
 
+   @POST
+   @Path("delete")
+   public Response deleteLinkInstances(final Set<String> ids) {
+      linkInstanceFacade.deleteLinkInstances(ids);
+
+      return Response.ok().build();
+   }
+
 }
@@ -23,22 +23,41 @@ import io.lumeer.api.model.LinkInstance;
 import io.lumeer.api.model.Query;
 import io.lumeer.api.model.SuggestionQuery;
 import io.lumeer.api.model.Suggestions;
+import io.lumeer.api.model.aggregation.AggregationQuery;
+import io.lumeer.api.model.aggregation.AggregationRow;
+import io.lumeer.core.auth.Auth0Filter;
+import io.lumeer.core.facade.AggregationFacade;
 import io.lumeer.core.facade.DocumentFacade;
 import io.lumeer.core.facade.SearchFacade;
 import io.lumeer.core.facade.SuggestionFacade;
+import io.lumeer.core.task.QueryTimings;
 import io.lumeer.remote.rest.annotation.QueryProcessor;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.AnnotationIntrospector;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.introspect.JacksonAnnotationIntrospector;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+import com.fasterxml.jackson.module.jaxb.JaxbAnnotationIntrospector;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 import java.util.Set;
 import javax.annotation.PostConstruct;
 import javax.enterprise.context.RequestScoped;
 import javax.inject.Inject;
+import javax.servlet.http.HttpServletResponse;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.StreamingOutput;
 
 @RequestScoped
 @Produces(MediaType.APPLICATION_JSON)
@@ -46,6 +65,12 @@ import javax.ws.rs.core.MediaType;
 @Path("organizations/{organizationId}/projects/{projectId}/search")
 public class SearchService extends AbstractService {
 
+   public static final String APPLICATION_NDJSON = "application/x-ndjson";
+
+   private static final int STREAM_FLUSH_INTERVAL = 100;
+
+   private static final ObjectWriter documentWriter = createDocumentWriter();
+
    @PathParam("organizationId")
    private String organizationId;
 
@@ -61,6 +86,17 @@ public class SearchService extends AbstractService {
    @Inject
    private SuggestionFacade suggestionFacade;
 
+   @Inject
+   private AggregationFacade aggregationFacade;
+
+   private static ObjectWriter createDocumentWriter() {
+      // the same annotations as the JAX-RS provider uses, mainly for the date adapters
+      ObjectMapper mapper = new ObjectMapper();
+      mapper.setAnnotationIntrospector(AnnotationIntrospector.pair(new JacksonAnnotationIntrospector(), new JaxbAnnotationIntrospector(TypeFactory.defaultInstance())));
+
+      return mapper.writerFor(Document.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+   }
+
    @PostConstruct
    public void init() {
       workspaceKeeper.setWorkspace(organizationId, projectId);
@@ -79,18 +115,67 @@ public class SearchService extends AbstractService {
    @POST
    @Path("documents")
    @QueryProcessor
-   public List<Document> searchDocuments(Query query) {
+   public List<Document> searchDocuments(Query query, @Context final HttpServletResponse response) {
       Set<String> favoriteDocumentIds = documentFacade.getFavoriteDocumentsIds();
       List<Document> documents = searchFacade.searchDocuments(query);
       documents.forEach(document -> document.setFavorite(favoriteDocumentIds.contains(document.getId())));
+
+      QueryTimings timings = searchFacade.getQueryTimings();
+      if (response != null && !timings.getTimings().isEmpty()) {
+         response.addHeader(Auth0Filter.SERVER_TIMING_HEADER, timings.toServerTiming());
+      }
+      setContinuationToken(response, searchFacade.getContinuationToken());
+
       return documents;
    }
 
+   /**
+    * Streams the found documents as newline delimited JSON, one document per line.
+    */
+   @POST
+   @Path("documents/stream")
+   @Produces(APPLICATION_NDJSON)
+   @QueryProcessor
+   public StreamingOutput streamDocuments(Query query) {
+      Set<String> favoriteDocumentIds = documentFacade.getFavoriteDocumentsIds();
+
+      return output -> {
+         try (JsonGenerator generator = documentWriter.getFactory().createGenerator(output)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+            int[] written = { 0 };
+
+            searchFacade.streamDocuments(query, document -> {
+               document.setFavorite(favoriteDocumentIds.contains(document.getId()));
+               try {
+                  documentWriter.writeValue(generator, document);
+                  generator.writeRaw('\n');
+                  if (++written[0] % STREAM_FLUSH_INTERVAL == 0) {
+                     generator.flush();
+                  }
+               } catch (IOException e) {
+                  throw new UncheckedIOException(e);
+               }
+            });
+         } catch (UncheckedIOException e) {
+            throw e.getCause();
+         }
+      };
+   }
+
    @POST
    @Path("linkInstances")
    @QueryProcessor
-   public List<LinkInstance> getLinkInstances(Query query) {
-      return searchFacade.getLinkInstances(query);
+   public List<LinkInstance> getLinkInstances(Query query, @Context final HttpServletResponse response) {
+      List<LinkInstance> linkInstances = searchFacade.getLinkInstances(query);
+      setContinuationToken(response, searchFacade.getContinuationToken());
+      return linkInstances;
+   }
+
+   @POST
+   @Path("aggregations")
+   public List<AggregationRow> aggregate(AggregationQuery query) {
+      return aggregationFacade.aggregate(query);
    }
 
 }
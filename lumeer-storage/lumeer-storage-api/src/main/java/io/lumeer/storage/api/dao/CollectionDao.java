@@ -23,7 +23,9 @@ import io.lumeer.api.model.Project;
 import io.lumeer.storage.api.query.DatabaseQuery;
 import io.lumeer.storage.api.query.SearchSuggestionQuery;
 
+import java.time.ZonedDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 public interface CollectionDao {
@@ -40,7 +42,14 @@ public interface CollectionDao {
 
    Collection updateCollection(String id, Collection collection, Collection originalCollection, boolean pushNotification);
 
-   void deleteCollection(String id);
+   /**
+    * Deletes the collection.
+    *
+    * @param id
+    *       Id of the collection.
+    * @return The collection as it was stored right before the deletion.
+    */
+   Collection deleteCollection(String id);
 
    Collection getCollectionByCode(String code);
 
@@ -65,4 +74,20 @@ public interface CollectionDao {
    Set<String> getAllCollectionIds();
 
    Collection bookAttributesNum(String id, Collection collection, int count);
+
+   /**
+    * Adds to the usage statistics of the collection with targeted increments, the rest of the collection is not rewritten.
+    * No event is fired, the version of the collection is increased.
+    *
+    * @param id
+    *       Id of the collection.
+    * @param attributesUsage
+    *       Change of the usage count of each attribute.
+    * @param documentsCount
+    *       Change of the number of documents.
+    * @param lastTimeUsed
+    *       Time of the last use, the stored one is kept when it is newer.
+    * @return The updated collection, or null when the collection does not exist.
+    */
+   Collection updateCollectionUsage(String id, Map<String, Integer> attributesUsage, int documentsCount, ZonedDateTime lastTimeUsed);
 }
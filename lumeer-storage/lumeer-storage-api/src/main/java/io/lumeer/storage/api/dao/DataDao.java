@@ -19,7 +19,11 @@
 package io.lumeer.storage.api.dao;
 
 import io.lumeer.api.model.Collection;
+import io.lumeer.api.model.LinkType;
 import io.lumeer.api.model.Pagination;
+import io.lumeer.api.model.aggregation.AggregationGroup;
+import io.lumeer.api.model.aggregation.AggregationRow;
+import io.lumeer.api.model.aggregation.AggregationValue;
 import io.lumeer.engine.api.data.DataDocument;
 import io.lumeer.storage.api.query.SearchQueryStem;
 
@@ -34,6 +38,16 @@ public interface DataDao {
 
    void deleteDataRepository(String collectionId);
 
+   /**
+    * Creates the missing indexes of the data repository and brings the data written before the indexes were
+    * declared in line with them.
+    *
+    * @param collectionId
+    *       Owner of the data repository.
+    * @return Names of the created indexes.
+    */
+   List<String> ensureIndexes(String collectionId);
+
    DataDocument createData(String collectionId, String documentId, DataDocument data);
 
    List<DataDocument> createData(String collectionId, List<DataDocument> data);
@@ -42,8 +56,22 @@ public interface DataDao {
 
    DataDocument patchData(String collectionId, String documentId, DataDocument data);
 
+   /**
+    * Partially updates data of multiple documents. The stored data are read by one query and written by one bulk write,
+    * only the data written concurrently in the meantime are updated one by one.
+    *
+    * @param collectionId
+    *       Collection of the documents.
+    * @param data
+    *       Attributes to set mapped by the ids of the documents.
+    * @return Data of the documents after the update.
+    */
+   List<DataDocument> patchData(String collectionId, Map<String, DataDocument> data);
+
    void deleteData(String collectionId, String documentId);
 
+   void deleteData(String collectionId, Set<String> documentIds);
+
    long deleteAttribute(String collectionId, String attributeId);
 
    DataDocument getData(String collectionId, String documentId);
@@ -54,10 +82,55 @@ public interface DataDao {
 
    List<DataDocument> getData(String collectionId, Set<String> documentIds);
 
+   /**
+    * Gets data of the given documents limited to the given attributes.
+    *
+    * @param collectionId
+    *       Collection of the documents.
+    * @param documentIds
+    *       Ids of the documents.
+    * @param attributeIds
+    *       Attributes to read, null to read all of them.
+    * @return Data of the documents.
+    */
+   List<DataDocument> getData(String collectionId, Set<String> documentIds, Set<String> attributeIds);
+
    List<DataDocument> searchData(SearchQueryStem stem, Pagination pagination, Collection collection);
 
+   /**
+    * Searches data the same way as {@link #searchData(SearchQueryStem, Pagination, Collection)} without loading
+    * all the results into memory. The returned stream holds a database cursor and must be closed.
+    *
+    * @param stem
+    *       Query stem to search by.
+    * @param pagination
+    *       Optional pagination.
+    * @param collection
+    *       Collection to search in.
+    * @return Stream of the found data.
+    */
+   Stream<DataDocument> searchDataStream(SearchQueryStem stem, Pagination pagination, Collection collection);
+
    List<DataDocument> searchDataByFulltexts(Set<String> fulltexts, Pagination pagination, List<Collection> projectCollections);
 
+   /**
+    * Groups the data matching the query stem and aggregates their values in the database.
+    * The keys and values of the returned rows are not decoded.
+    *
+    * @param collection
+    *       Collection to aggregate.
+    * @param stem
+    *       Query stem to filter the data by.
+    * @param linkType
+    *       Optional link type, when present each document is paired with the documents linked to it.
+    * @param groups
+    *       Attributes to group by, of the collection or of the linked collection.
+    * @param values
+    *       Attributes to aggregate, of the collection or of the linked collection.
+    * @return Row for each group sorted by the group keys.
+    */
+   List<AggregationRow> aggregateData(Collection collection, SearchQueryStem stem, LinkType linkType, List<AggregationGroup> groups, List<AggregationValue> values);
+
    List<DataDocument> duplicateData(String collectionId, Map<String, String> documentIds);
 
 }
@@ -0,0 +1,79 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.storage.api.dao;
+
+import java.util.Date;
+
+/**
+ * Number of documents stored in each project. The counters are maintained incrementally when documents are created
+ * or deleted, so that the number can be read without going through all the collections of the project. They are
+ * recomputed from the collections from time to time as documents may also change in ways the counters do not follow.
+ */
+public interface DocumentCounterDao {
+
+   String COLLECTION_NAME = "documentCounters";
+
+   void createDocumentCounterRepository();
+
+   /**
+    * Adds to the counter of the project, the counter is created when it does not exist yet.
+    *
+    * @param projectId
+    *       Project whose documents changed.
+    * @param count
+    *       Number of created documents, negative for deleted documents.
+    */
+   void incrementDocumentsCount(final String projectId, final long count);
+
+   /**
+    * Gets the counter of the project if it was recomputed recently enough.
+    *
+    * @param projectId
+    *       Project whose documents are counted.
+    * @param reconciledAfter
+    *       Oldest acceptable time of the last recomputation.
+    * @return Number of documents in the project, or null when the counter does not exist or should be recomputed.
+    */
+   Long getDocumentsCount(final String projectId, final Date reconciledAfter);
+
+   /**
+    * Gets the counter of the project no matter when it was recomputed.
+    *
+    * @param projectId
+    *       Project whose documents are counted.
+    * @return Value of the counter, or null when the counter does not exist.
+    */
+   Long getDocumentsCount(final String projectId);
+
+   /**
+    * Replaces the counter of the project with a recomputed number, unless the counter changed since it was read
+    * before the recomputation started.
+    *
+    * @param projectId
+    *       Project whose documents were counted.
+    * @param expectedCount
+    *       Value of the counter read before the recomputation, null when the counter did not exist.
+    * @param count
+    *       Number of documents in the project.
+    * @return Whether the counter was replaced.
+    */
+   boolean setDocumentsCount(final String projectId, final Long expectedCount, final long count);
+
+   void deleteDocumentsCount(final String projectId);
+}
@@ -23,6 +23,7 @@ import io.lumeer.api.model.Project;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 
 public interface DocumentDao {
 
@@ -30,14 +31,31 @@ public interface DocumentDao {
 
    void deleteDocumentsRepository(Project project);
 
+   List<String> ensureIndexes(Project project);
+
+   List<String> getUnusedIndexes(Project project);
+
    Document createDocument(Document document);
 
    List<Document> createDocuments(List<Document> documents);
 
    Document updateDocument(String id, Document document, Document originalDocument);
 
+   /**
+    * Updates multiple documents by one bulk write and reads them back by one query. Unlike
+    * {@link #deleteDocument(String)}, the batch operations do not fire any events, the caller is responsible for
+    * firing a single event for the whole batch.
+    *
+    * @param documents
+    *       Documents to update.
+    * @return Documents after the update.
+    */
+   List<Document> updateDocuments(List<Document> documents);
+
    void deleteDocument(String id);
 
+   void deleteDocumentsByIds(Set<String> ids);
+
    void deleteDocuments(String collectionId);
 
    Document getDocumentById(String id);
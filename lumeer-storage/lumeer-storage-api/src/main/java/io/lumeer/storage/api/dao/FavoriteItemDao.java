@@ -36,6 +36,8 @@ public interface FavoriteItemDao {
 
    void removeFavoriteDocumentFromUsers(String projectId, String collectionId, String documentId);
 
+   void removeFavoriteDocumentsFromUsers(String projectId, String collectionId, Set<String> documentIds);
+
    void removeFavoriteDocumentsByProjectFromUsers(String projectId);
 
    void removeFavoriteDocumentsByCollectionFromUsers(String projectId, String collectionId);
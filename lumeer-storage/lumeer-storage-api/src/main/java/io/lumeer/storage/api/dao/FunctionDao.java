@@ -34,6 +34,8 @@ public interface FunctionDao {
 
    void createRows(List<FunctionRow> rows);
 
+   List<FunctionRow> getAllRows();
+
    List<FunctionRow> searchByAnyCollection(String collectionId, String attributeId);
 
    List<FunctionRow> searchByDependentCollection(String collectionId, String attributeId);
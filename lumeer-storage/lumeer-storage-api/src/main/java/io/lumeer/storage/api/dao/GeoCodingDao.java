@@ -0,0 +1,48 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.storage.api.dao;
+
+import io.lumeer.api.model.geocoding.Coordinates;
+import io.lumeer.api.model.geocoding.Location;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Persistent store of geocoding results. Getters return at most the given number of the most recently stored entries,
+ * ordered from the oldest to the newest one.
+ */
+public interface GeoCodingDao {
+
+   String COLLECTION_NAME = "geoCoding";
+
+   void createGeoCodingRepository();
+
+   void saveQueryCoordinates(final Map<String, Coordinates> queryCoordinates);
+
+   Map<String, Coordinates> getQueryCoordinates(final int limit);
+
+   void saveCoordinatesLocation(final String key, final Location location);
+
+   Map<String, Location> getCoordinatesLocations(final int limit);
+
+   void saveQueryLocations(final String key, final List<Location> locations);
+
+   Map<String, List<Location>> getQueryLocations(final int limit);
+}
@@ -34,6 +34,16 @@ public interface LinkDataDao {
 
    void deleteDataRepository(String linkTypeId);
 
+   /**
+    * Creates the missing indexes of the data repository and brings the data written before the indexes were
+    * declared in line with them.
+    *
+    * @param linkTypeId
+    *       Owner of the data repository.
+    * @return Names of the created indexes.
+    */
+   List<String> ensureIndexes(String linkTypeId);
+
    DataDocument createData(String linkTypeId, String linkInstanceId, DataDocument data);
 
    List<DataDocument> createData(final String linkTypeId, final List<DataDocument> data);
@@ -42,6 +52,18 @@ public interface LinkDataDao {
 
    DataDocument patchData(String linkTypeId, String linkInstanceId, DataDocument data);
 
+   /**
+    * Partially updates data of multiple link instances. The stored data are read by one query and written by one bulk
+    * write, only the data written concurrently in the meantime are updated one by one.
+    *
+    * @param linkTypeId
+    *       Link type of the link instances.
+    * @param data
+    *       Attributes to set mapped by the ids of the link instances.
+    * @return Data of the link instances after the update.
+    */
+   List<DataDocument> patchData(String linkTypeId, Map<String, DataDocument> data);
+
    void deleteData(String linkTypeId, String linkInstanceId);
 
    void deleteData(String linkTypeId, Set<String> linkInstanceIds);
@@ -56,6 +78,19 @@ public interface LinkDataDao {
 
    List<DataDocument> getData(String linkTypeId, Set<String> linkInstanceIds);
 
+   /**
+    * Gets data of the given link instances limited to the given attributes.
+    *
+    * @param linkTypeId
+    *       Link type of the link instances.
+    * @param linkInstanceIds
+    *       Ids of the link instances.
+    * @param attributeIds
+    *       Attributes to read, null to read all of them.
+    * @return Data of the link instances.
+    */
+   List<DataDocument> getData(String linkTypeId, Set<String> linkInstanceIds, Set<String> attributeIds);
+
    List<DataDocument> searchData(SearchQueryStem stem, Pagination pagination, LinkType linkType);
 
    List<DataDocument> searchDataByFulltexts(Set<String> fulltexts, Pagination pagination, List<LinkType> linkTypes);
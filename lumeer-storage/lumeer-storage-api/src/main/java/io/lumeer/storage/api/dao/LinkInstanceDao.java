@@ -33,6 +33,10 @@ public interface LinkInstanceDao {
 
    void deleteLinkInstanceRepository(Project project);
 
+   List<String> ensureIndexes(Project project);
+
+   List<String> getUnusedIndexes(Project project);
+
    void setProject(Project project);
 
    LinkInstance createLinkInstance(LinkInstance linkInstance);
@@ -43,8 +47,21 @@ public interface LinkInstanceDao {
 
    LinkInstance updateLinkInstance(String id, LinkInstance linkInstance);
 
+   /**
+    * Updates multiple link instances by one bulk write and reads them back by one query. Unlike
+    * {@link #deleteLinkInstance(String)}, the batch operations do not fire any events, the caller is responsible for
+    * firing a single event for the whole batch.
+    *
+    * @param linkInstances
+    *       Link instances to update.
+    * @return Link instances after the update.
+    */
+   List<LinkInstance> updateLinkInstances(List<LinkInstance> linkInstances);
+
    void deleteLinkInstance(String id);
 
+   void deleteLinkInstancesByIds(Set<String> ids);
+
    long deleteLinkInstances(final SearchQuery query);
 
    void deleteLinkInstancesByLinkTypesIds(Set<String> linkTypeIds);
@@ -43,6 +43,7 @@ public class SearchQueryStem {
    private final Set<CollectionSearchAttributeFilter> filters;
    private final Set<LinkSearchAttributeFilter> linkFilters;
    private final Set<String> fulltexts;
+   private final Set<String> attributeIds;
 
    public SearchQueryStem(QueryStem stem, Set<String> fulltexts) {
       this.collectionId = stem.getCollectionId();
@@ -52,6 +53,7 @@ public class SearchQueryStem {
       this.filters = stem.getFilters() != null ? stem.getFilters().stream().map(this::convertFilter).collect(Collectors.toSet()) : Collections.emptySet();
       this.linkFilters = stem.getLinkFilters() != null ? stem.getLinkFilters().stream().map(this::convertLinkFilter).collect(Collectors.toSet()) : Collections.emptySet();
       this.fulltexts = fulltexts;
+      this.attributeIds = null;
    }
 
    public SearchQueryStem(Builder builder) {
@@ -62,6 +64,7 @@ public class SearchQueryStem {
       this.filters = builder.filters;
       this.linkFilters = builder.linkFilters;
       this.fulltexts = builder.fulltexts;
+      this.attributeIds = builder.attributeIds;
    }
 
    private CollectionSearchAttributeFilter convertFilter(final CollectionAttributeFilter attr) {
@@ -102,6 +105,15 @@ public class SearchQueryStem {
       return linkFilters != null ? Collections.unmodifiableSet(linkFilters) : Collections.emptySet();
    }
 
+   /**
+    * Gets the attributes to read from the searched data, the id is always read.
+    *
+    * @return Ids of the attributes to read, null to read all of them.
+    */
+   public Set<String> getAttributeIds() {
+      return attributeIds != null ? Collections.unmodifiableSet(attributeIds) : null;
+   }
+
    public boolean containsLinkTypeIdsQuery() {
       return linkTypeIds != null && !linkTypeIds.isEmpty();
    }
@@ -126,6 +138,10 @@ public class SearchQueryStem {
       return fulltexts != null && !fulltexts.isEmpty();
    }
 
+   public boolean containsProjection() {
+      return attributeIds != null;
+   }
+
    public static Builder createBuilder(String collectionId) {
       return new Builder(collectionId);
    }
@@ -139,6 +155,7 @@ public class SearchQueryStem {
       private Set<CollectionSearchAttributeFilter> filters;
       private Set<LinkSearchAttributeFilter> linkFilters;
       private Set<String> fulltexts;
+      private Set<String> attributeIds;
 
       private Builder(String collectionId) {
          this.collectionId = collectionId;
@@ -174,6 +191,11 @@ public class SearchQueryStem {
          return this;
       }
 
+      public Builder attributeIds(Set<String> attributeIds) {
+         this.attributeIds = attributeIds;
+         return this;
+      }
+
       public SearchQueryStem build() {
          return new SearchQueryStem(this);
       }
@@ -189,6 +211,7 @@ public class SearchQueryStem {
             ", filters=" + filters +
             ", linkFilters=" + linkFilters +
             ", fulltexts=" + fulltexts +
+            ", attributeIds=" + attributeIds +
             '}';
    }
 }
@@ -38,6 +38,7 @@ import io.lumeer.storage.mongodb.codecs.providers.AttributeCodecProvider;
 import io.lumeer.storage.mongodb.codecs.providers.AttributeFilterCodecProvider;
 import io.lumeer.storage.mongodb.codecs.providers.CollectionCodecProvider;
 import io.lumeer.storage.mongodb.codecs.providers.CompanyContactCodedProvider;
+import io.lumeer.storage.mongodb.codecs.providers.DataDocumentCodecProvider;
 import io.lumeer.storage.mongodb.codecs.providers.ConstraintCodecProvider;
 import io.lumeer.storage.mongodb.codecs.providers.DocumentCodecProvider;
 import io.lumeer.storage.mongodb.codecs.providers.FeedbackCodecProvider;
@@ -139,7 +140,9 @@ public class MongoDbStorage implements DataStorage {
             new ConstraintCodecProvider(), new RuleCodecProvider(), new FunctionCodecProvider(), new FunctionRowCodecProvider(),
             new LinkAttributeFilterCodecProvider(), new FileAttachmentCodecProvider()
       );
-      final CodecRegistry registry = CodecRegistries.fromRegistries(defaultRegistry, codecRegistry, providersRegistry);
+      // must precede the default registry, whose map codec would otherwise handle data documents
+      final CodecRegistry dataRegistry = CodecRegistries.fromProviders(new DataDocumentCodecProvider());
+      final CodecRegistry registry = CodecRegistries.fromRegistries(dataRegistry, defaultRegistry, codecRegistry, providersRegistry);
 
       if (credential != null) {
          this.mongoClient = new MongoClient(addresses, credential, optionsBuilder.codecRegistry(registry).build());
@@ -50,10 +50,8 @@ public class MongoUtils {
    }
 
    public static List<DataDocument> convertIterableToList(MongoIterable<Document> documents) {
-      final List<DataDocument> result = new ArrayList<>();
-      documents.into(new ArrayList<>()).forEach(d -> result.add(MongoUtils.convertDocument(d)));
-
-      return result;
+      // converted while iterating the cursor, so the raw documents are not all held in memory at once
+      return documents.map(MongoUtils::convertDocument).into(new ArrayList<>());
    }
 
    public static String convertBsonToJson(Bson object) {
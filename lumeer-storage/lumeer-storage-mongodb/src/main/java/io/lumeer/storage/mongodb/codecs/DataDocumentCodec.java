@@ -0,0 +1,193 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.storage.mongodb.codecs;
+
+import io.lumeer.engine.api.data.DataDocument;
+import io.lumeer.storage.mongodb.util.MongoFulltexts;
+
+import org.bson.BsonObjectId;
+import org.bson.BsonReader;
+import org.bson.BsonString;
+import org.bson.BsonType;
+import org.bson.BsonValue;
+import org.bson.BsonWriter;
+import org.bson.codecs.BsonTypeClassMap;
+import org.bson.codecs.CollectibleCodec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.Encoder;
+import org.bson.codecs.EncoderContext;
+import org.bson.codecs.configuration.CodecRegistry;
+import org.bson.types.ObjectId;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads and writes {@link DataDocument} directly, without an intermediate {@link org.bson.Document}.
+ * Object ids are exposed as hex strings, Decimal128 values as {@link java.math.BigDecimal} and nested documents as
+ * {@link DataDocument}, all in a single pass over the BSON input. The fulltext tokens maintained by
+ * {@link MongoFulltexts} and their revision are skipped, they never leave the storage.
+ */
+public class DataDocumentCodec implements CollectibleCodec<DataDocument> {
+
+   public static final String ID = DataDocument.ID;
+
+   private static final BsonTypeClassMap BSON_TYPE_CLASS_MAP = new BsonTypeClassMap();
+
+   private final CodecRegistry registry;
+
+   public DataDocumentCodec(final CodecRegistry registry) {
+      this.registry = registry;
+   }
+
+   @Override
+   public DataDocument decode(final BsonReader reader, final DecoderContext decoderContext) {
+      return readDocument(reader, decoderContext, true);
+   }
+
+   private DataDocument readDocument(final BsonReader reader, final DecoderContext decoderContext, final boolean root) {
+      final DataDocument document = new DataDocument();
+
+      reader.readStartDocument();
+      while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+         final String name = reader.readName();
+         if (ID.equals(name) && reader.getCurrentBsonType() == BsonType.OBJECT_ID) {
+            document.put(name, reader.readObjectId().toHexString());
+         } else if (root && (MongoFulltexts.FIELD.equals(name) || MongoFulltexts.REVISION.equals(name))) {
+            reader.skipValue();
+         } else {
+            document.put(name, readValue(reader, decoderContext));
+         }
+      }
+      reader.readEndDocument();
+
+      return document;
+   }
+
+   private Object readValue(final BsonReader reader, final DecoderContext decoderContext) {
+      final BsonType type = reader.getCurrentBsonType();
+      switch (type) {
+         case DOCUMENT:
+            return readDocument(reader, decoderContext, false);
+         case ARRAY:
+            return readList(reader, decoderContext);
+         case DECIMAL128:
+            return reader.readDecimal128().bigDecimalValue();
+         case NULL:
+            reader.readNull();
+            return null;
+         default:
+            return registry.get(BSON_TYPE_CLASS_MAP.get(type)).decode(reader, decoderContext);
+      }
+   }
+
+   private List<Object> readList(final BsonReader reader, final DecoderContext decoderContext) {
+      final List<Object> list = new ArrayList<>();
+
+      reader.readStartArray();
+      while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+         list.add(readValue(reader, decoderContext));
+      }
+      reader.readEndArray();
+
+      return list;
+   }
+
+   @Override
+   public void encode(final BsonWriter writer, final DataDocument document, final EncoderContext encoderContext) {
+      writeMap(writer, document, encoderContext);
+   }
+
+   private void writeMap(final BsonWriter writer, final Map<?, ?> map, final EncoderContext encoderContext) {
+      writer.writeStartDocument();
+
+      // the id goes first, as the server would move it there anyway
+      if (map.containsKey(ID)) {
+         writer.writeName(ID);
+         writeId(writer, map.get(ID), encoderContext);
+      }
+
+      for (final Map.Entry<?, ?> entry : map.entrySet()) {
+         final String name = String.valueOf(entry.getKey());
+         if (!ID.equals(name)) {
+            writer.writeName(name);
+            writeValue(writer, entry.getValue(), encoderContext);
+         }
+      }
+
+      writer.writeEndDocument();
+   }
+
+   private void writeId(final BsonWriter writer, final Object id, final EncoderContext encoderContext) {
+      if (id instanceof String && ObjectId.isValid((String) id)) {
+         writer.writeObjectId(new ObjectId((String) id));
+      } else {
+         writeValue(writer, id, encoderContext);
+      }
+   }
+
+   @SuppressWarnings("unchecked")
+   private void writeValue(final BsonWriter writer, final Object value, final EncoderContext encoderContext) {
+      if (value == null) {
+         writer.writeNull();
+      } else if (value instanceof Map) {
+         writeMap(writer, (Map<?, ?>) value, encoderContext);
+      } else if (value instanceof Iterable) {
+         writer.writeStartArray();
+         for (final Object item : (Iterable<?>) value) {
+            writeValue(writer, item, encoderContext);
+         }
+         writer.writeEndArray();
+      } else {
+         encoderContext.encodeWithChildContext((Encoder<Object>) registry.get(value.getClass()), writer, value);
+      }
+   }
+
+   @Override
+   public Class<DataDocument> getEncoderClass() {
+      return DataDocument.class;
+   }
+
+   @Override
+   public DataDocument generateIdIfAbsentFromDocument(final DataDocument document) {
+      if (!documentHasId(document)) {
+         document.setId(new ObjectId().toHexString());
+      }
+      return document;
+   }
+
+   @Override
+   public boolean documentHasId(final DataDocument document) {
+      return document.get(ID) != null;
+   }
+
+   @Override
+   public BsonValue getDocumentId(final DataDocument document) {
+      if (!documentHasId(document)) {
+         throw new IllegalStateException("The document does not contain an id");
+      }
+
+      final Object id = document.get(ID);
+      if (id instanceof String && ObjectId.isValid((String) id)) {
+         return new BsonObjectId(new ObjectId((String) id));
+      }
+      return new BsonString(String.valueOf(id));
+   }
+}
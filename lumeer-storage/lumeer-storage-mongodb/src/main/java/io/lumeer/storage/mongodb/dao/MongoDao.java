@@ -24,13 +24,21 @@ import io.lumeer.storage.api.query.DatabaseQuery;
 import com.mongodb.client.FindIterable;
 import com.mongodb.client.MongoDatabase;
 import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.Sorts;
 
 import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 public abstract class MongoDao {
 
+   private static final String ID = "_id";
+
    protected MongoDatabase database;
 
    public void setDatabase(final MongoDatabase database) {
@@ -48,9 +56,53 @@ public abstract class MongoDao {
       if (page != null && pageSize != null) {
          findIterable.skip(page * pageSize)
                      .limit(pageSize);
+      } else if (pagination != null && pagination.isKeyset()) {
+         findIterable.sort(Sorts.ascending(ID))
+                     .limit(pageSize);
       }
    }
 
+   /**
+    * Limits the fields returned by the query to the given attributes, the id is returned always.
+    *
+    * @param findIterable
+    *       Query to limit.
+    * @param attributeIds
+    *       Attributes to return, null to return all of them.
+    */
+   public <T> void addProjectionToQuery(FindIterable<T> findIterable, Collection<String> attributeIds) {
+      if (attributeIds != null) {
+         findIterable.projection(attributeIds.isEmpty() ? Projections.include(ID) : Projections.include(new ArrayList<>(attributeIds)));
+      }
+   }
+
+   public Bson addPaginationToFilter(Bson filter, DatabaseQuery query) {
+      return addPaginationToFilter(filter, query.getPagination());
+   }
+
+   /**
+    * Restricts the filter to the results following the last result of the previous page when using keyset pagination.
+    * Must be used together with {@link #addPaginationToQuery(FindIterable, Pagination)} which sorts the results by id.
+    *
+    * @param filter
+    *       Filter of the query, may be null.
+    * @param pagination
+    *       Requested pagination.
+    * @return The filter to be used in the query.
+    */
+   public Bson addPaginationToFilter(Bson filter, Pagination pagination) {
+      if (pagination == null || !pagination.isKeyset() || pagination.getAfter() == null) {
+         return filter;
+      }
+
+      if (!ObjectId.isValid(pagination.getAfter())) {
+         throw new IllegalArgumentException("Invalid pagination position " + pagination.getAfter());
+      }
+
+      final Bson afterFilter = Filters.gt(ID, new ObjectId(pagination.getAfter()));
+      return filter != null ? Filters.and(filter, afterFilter) : afterFilter;
+   }
+
    public void addPaginationToAggregates(List<Bson> aggregates, DatabaseQuery query) {
       if (query.getPage() != null && query.getPageSize() != null) {
          aggregates.add(Aggregates.skip(query.getPage() * query.getPageSize()));
@@ -18,8 +18,169 @@
  */
 package io.lumeer.storage.mongodb.dao.collection;
 
+import static io.lumeer.storage.mongodb.util.MongoFilters.idFilter;
+
+import io.lumeer.engine.api.data.DataDocument;
 import io.lumeer.storage.mongodb.dao.project.ProjectScopedDao;
+import io.lumeer.storage.mongodb.util.MongoFilters;
+import io.lumeer.storage.mongodb.util.MongoFulltexts;
+
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.MongoWriteException;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.WriteModel;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.Codec;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 abstract class CollectionScopedDao extends ProjectScopedDao {
 
+   // a partial update is repeated when concurrent writers keep changing the same data
+   private static final int PATCH_ATTEMPTS = 10;
+
+   /**
+    * Sets the given attributes of a data document, creating it when it does not exist. The stored data are read,
+    * and the attributes are written together with the fulltext tokens of the whole patched data by a single update,
+    * which is repeated when the data were written concurrently in the meantime.
+    *
+    * @param collection
+    *       Database collection with the data.
+    * @param id
+    *       Id of the data document.
+    * @param patch
+    *       Attributes to set.
+    * @return Data document after the update, or null when it could not be updated.
+    */
+   protected DataDocument patchData(final MongoCollection<DataDocument> collection, final String id, final DataDocument patch) {
+      final DataDocument attributes = new DataDocument(patch);
+      attributes.remove(DataDocument.ID);
+
+      for (int attempt = 0; attempt < PATCH_ATTEMPTS; attempt++) {
+         final RawBsonDocument storedData = rawCollection(collection).find(idFilter(id)).first();
+         final DataDocument patchedData = patchedData(collection, id, storedData, attributes);
+
+         try {
+            final UpdateOneModel<DataDocument> update = createPatch(id, storedData, attributes, patchedData, new ObjectId());
+            if (collection.updateOne(update.getFilter(), update.getUpdate(), update.getOptions()).getMatchedCount() > 0 || storedData == null) {
+               return patchedData;
+            }
+         } catch (MongoWriteException e) {
+            // the data were created concurrently
+            if (e.getError().getCategory() != ErrorCategory.DUPLICATE_KEY) {
+               throw e;
+            }
+         }
+      }
+
+      return null;
+   }
+
+   /**
+    * Sets the given attributes of multiple data documents. The stored data are read by one query, and the attributes
+    * together with the fulltext tokens of the whole patched data are written by one bulk write. Only the data written
+    * concurrently in the meantime are found by another query and patched one by one.
+    *
+    * @param collection
+    *       Database collection with the data.
+    * @param data
+    *       Attributes to set mapped by the ids of the data documents.
+    * @return Data documents after the update.
+    */
+   protected List<DataDocument> patchData(final MongoCollection<DataDocument> collection, final Map<String, DataDocument> data) {
+      final Bson filter = MongoFilters.idsFilter(data.keySet());
+      if (filter == null) {
+         return Collections.emptyList();
+      }
+
+      final Map<String, RawBsonDocument> storedData = new HashMap<>();
+      for (final RawBsonDocument raw : rawCollection(collection).find(filter)) {
+         storedData.put(decode(collection, raw).getId(), raw);
+      }
+
+      final Map<String, DataDocument> patchedData = new HashMap<>();
+      final Map<String, DataDocument> patches = new HashMap<>();
+      final List<WriteModel<DataDocument>> updates = new ArrayList<>();
+      final List<ObjectId> revisions = new ArrayList<>();
+      data.forEach((id, patch) -> {
+         final DataDocument attributes = new DataDocument(patch);
+         attributes.remove(DataDocument.ID);
+         final DataDocument patched = patchedData(collection, id, storedData.get(id), attributes);
+
+         if (!attributes.isEmpty()) {
+            final ObjectId revision = new ObjectId();
+            patches.put(id, attributes);
+            revisions.add(revision);
+            updates.add(createPatch(id, storedData.get(id), attributes, patched, revision));
+            patchedData.put(id, patched);
+         } else if (storedData.containsKey(id)) {
+            patchedData.put(id, patched);
+         }
+      });
+
+      if (!updates.isEmpty() && !isWritten(collection, updates)) {
+         final Set<String> writtenIds = new HashSet<>();
+         for (final DataDocument written : collection.find(Filters.in(MongoFulltexts.REVISION, revisions)).projection(Projections.include(DataDocument.ID))) {
+            writtenIds.add(written.getId());
+         }
+
+         patches.forEach((id, attributes) -> {
+            if (!writtenIds.contains(id)) {
+               final DataDocument patched = patchData(collection, id, attributes);
+               if (patched != null) {
+                  patchedData.put(id, patched);
+               } else {
+                  patchedData.remove(id);
+               }
+            }
+         });
+      }
+
+      return new ArrayList<>(patchedData.values());
+   }
+
+   private boolean isWritten(final MongoCollection<DataDocument> collection, final List<WriteModel<DataDocument>> updates) {
+      try {
+         final BulkWriteResult result = collection.bulkWrite(updates, new BulkWriteOptions().ordered(false));
+         return result.getMatchedCount() + result.getUpserts().size() == updates.size();
+      } catch (MongoBulkWriteException e) {
+         // some of the data were created concurrently
+         return false;
+      }
+   }
+
+   private static UpdateOneModel<DataDocument> createPatch(final String id, final RawBsonDocument storedData, final DataDocument attributes, final DataDocument patchedData, final ObjectId revision) {
+      return new UpdateOneModel<>(Filters.and(idFilter(id), MongoFulltexts.revisionFilter(storedData)), MongoFulltexts.createPatch(attributes, patchedData, revision),
+            new UpdateOptions().upsert(storedData == null));
+   }
+
+   private static DataDocument patchedData(final MongoCollection<DataDocument> collection, final String id, final RawBsonDocument storedData, final DataDocument attributes) {
+      final DataDocument patchedData = storedData != null ? decode(collection, storedData) : new DataDocument().append(DataDocument.ID, id);
+      patchedData.putAll(attributes);
+      return patchedData;
+   }
+
+   private static DataDocument decode(final MongoCollection<DataDocument> collection, final RawBsonDocument raw) {
+      final Codec<DataDocument> codec = collection.getCodecRegistry().get(DataDocument.class);
+      return raw.decode(codec);
+   }
+
+   private static MongoCollection<RawBsonDocument> rawCollection(final MongoCollection<DataDocument> collection) {
+      return collection.withDocumentClass(RawBsonDocument.class);
+   }
 }
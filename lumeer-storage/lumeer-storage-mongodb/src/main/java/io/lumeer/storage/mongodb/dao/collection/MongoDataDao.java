@@ -18,35 +18,38 @@
  */
 package io.lumeer.storage.mongodb.dao.collection;
 
-import static io.lumeer.storage.mongodb.util.MongoFilters.createFilterForFulltexts;
 import static io.lumeer.storage.mongodb.util.MongoFilters.idFilter;
 
 import io.lumeer.api.model.Collection;
+import io.lumeer.api.model.LinkType;
 import io.lumeer.api.model.Pagination;
 import io.lumeer.api.model.ResourceType;
+import io.lumeer.api.model.aggregation.AggregationGroup;
+import io.lumeer.api.model.aggregation.AggregationRow;
+import io.lumeer.api.model.aggregation.AggregationValue;
 import io.lumeer.engine.api.data.DataDocument;
 import io.lumeer.storage.api.dao.DataDao;
 import io.lumeer.storage.api.exception.ResourceNotFoundException;
 import io.lumeer.storage.api.exception.StorageException;
 import io.lumeer.storage.api.filter.CollectionSearchAttributeFilter;
 import io.lumeer.storage.api.query.SearchQueryStem;
-import io.lumeer.storage.mongodb.MongoUtils;
+import io.lumeer.storage.mongodb.dao.project.MongoLinkInstanceDao;
+import io.lumeer.storage.mongodb.util.MongoAggregations;
 import io.lumeer.storage.mongodb.util.MongoFilters;
+import io.lumeer.storage.mongodb.util.MongoFulltexts;
+import io.lumeer.storage.mongodb.util.MongoIndexes;
 
 import com.mongodb.client.FindIterable;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoCursor;
 import com.mongodb.client.model.Filters;
 import com.mongodb.client.model.FindOneAndReplaceOptions;
-import com.mongodb.client.model.FindOneAndUpdateOptions;
-import com.mongodb.client.model.Indexes;
 import com.mongodb.client.model.ReturnDocument;
 import com.mongodb.client.model.Updates;
 import com.mongodb.client.result.UpdateResult;
 import org.bson.BsonDocument;
 import org.bson.Document;
 import org.bson.conversions.Bson;
-import org.bson.types.ObjectId;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -54,6 +57,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -65,15 +70,19 @@ public class MongoDataDao extends CollectionScopedDao implements DataDao {
 
    private static final String ID = "_id";
    private static final String PREFIX = "data_c-";
+   private static final int STREAM_BATCH_SIZE = 500;
 
    @Override
    public void createDataRepository(final String collectionId) {
       database.createCollection(dataCollectionName(collectionId));
-      createFulltextIndexOnAllFields(collectionId);
+      MongoIndexes.createIndexes(dataCollection(collectionId), MongoIndexes.DATA, false);
    }
 
-   private void createFulltextIndexOnAllFields(final String collectionId) {
-      dataCollection(collectionId).createIndex(Indexes.text("$**"));
+   @Override
+   public List<String> ensureIndexes(final String collectionId) {
+      final List<String> created = MongoIndexes.createIndexes(dataCollection(collectionId), MongoIndexes.DATA, true);
+      MongoFulltexts.backfill(dataCollection(collectionId));
+      return created;
    }
 
    @Override
@@ -83,34 +92,32 @@ public class MongoDataDao extends CollectionScopedDao implements DataDao {
 
    @Override
    public DataDocument createData(final String collectionId, final String documentId, final DataDocument data) {
-      Document document = new Document(data).append(ID, new ObjectId(documentId));
+      DataDocument document = MongoFulltexts.addTokens(new DataDocument(data).append(ID, documentId));
       dataCollection(collectionId).insertOne(document);
       return data;
    }
 
    @Override
    public List<DataDocument> createData(final String collectionId, final List<DataDocument> data) {
-      List<Document> documents = data.stream().map(dataDocument -> new Document(dataDocument).append(ID, new ObjectId(dataDocument.getId()))).collect(Collectors.toList());
+      List<DataDocument> documents = data.stream().map(d -> MongoFulltexts.addTokens(new DataDocument(d))).collect(Collectors.toList());
       dataCollection(collectionId).insertMany(documents);
 
       for (int i = 0; i < documents.size(); i++) {
-         Object idObj = documents.get(i).get(ID);
-         String id = idObj instanceof String ? (String) idObj : ((ObjectId) idObj).toHexString();
-         data.get(i).setId(id);
+         data.get(i).setId(documents.get(i).getId());
       }
       return data;
    }
 
    @Override
    public DataDocument updateData(final String collectionId, final String documentId, final DataDocument data) {
-      Document document = new Document(data);
+      DataDocument document = MongoFulltexts.addTokens(new DataDocument(data));
       FindOneAndReplaceOptions options = new FindOneAndReplaceOptions().returnDocument(ReturnDocument.AFTER).upsert(true);
 
-      Document updatedDocument = dataCollection(collectionId).findOneAndReplace(idFilter(documentId), document, options);
+      DataDocument updatedDocument = dataCollection(collectionId).findOneAndReplace(idFilter(documentId), document, options);
       if (updatedDocument == null) {
          throw new StorageException("Document '" + documentId + "' has not been updated (replaced).");
       }
-      return MongoUtils.convertDocument(updatedDocument);
+      return updatedDocument;
    }
 
    @Override
@@ -121,14 +128,16 @@ public class MongoDataDao extends CollectionScopedDao implements DataDao {
          return getData(collectionId, documentId);
       }
 
-      Document updateDocument = new Document("$set", new Document(data));
-      FindOneAndUpdateOptions options = new FindOneAndUpdateOptions().returnDocument(ReturnDocument.AFTER).upsert(true);
-
-      Document patchedDocument = dataCollection(collectionId).findOneAndUpdate(idFilter(documentId), updateDocument, options);
+      DataDocument patchedDocument = patchData(dataCollection(collectionId), documentId, data);
       if (patchedDocument == null) {
          throw new StorageException("Document '" + documentId + "' has not been patched (partially updated).");
       }
-      return MongoUtils.convertDocument(patchedDocument);
+      return patchedDocument;
+   }
+
+   @Override
+   public List<DataDocument> patchData(final String collectionId, final Map<String, DataDocument> data) {
+      return patchData(dataCollection(collectionId), data);
    }
 
    @Override
@@ -136,46 +145,75 @@ public class MongoDataDao extends CollectionScopedDao implements DataDao {
       dataCollection(collectionId).deleteOne(idFilter(documentId));
    }
 
+   @Override
+   public void deleteData(final String collectionId, final Set<String> documentIds) {
+      Bson filter = MongoFilters.idsFilter(documentIds);
+      if (filter == null) {
+         return;
+      }
+      dataCollection(collectionId).deleteMany(filter);
+   }
+
    @Override
    public long deleteAttribute(final String collectionId, final String attributeId) {
-      final UpdateResult updateResult = dataCollection(collectionId).updateMany(new BsonDocument(), Updates.unset(attributeId));
+      final UpdateResult updateResult = dataCollection(collectionId).updateMany(new BsonDocument(), Updates.combine(Updates.unset(attributeId), MongoFulltexts.removeAttributeToken(attributeId)));
       return updateResult.getModifiedCount();
    }
 
    @Override
    public DataDocument getData(final String collectionId, final String documentId) {
-      MongoCursor<Document> mongoCursor = dataCollection(collectionId).find(idFilter(documentId)).iterator();
+      MongoCursor<DataDocument> mongoCursor = dataCollection(collectionId).find(idFilter(documentId)).iterator();
       if (!mongoCursor.hasNext()) {
          throw new ResourceNotFoundException(ResourceType.DOCUMENT);
       }
-      return MongoUtils.convertDocument(mongoCursor.next());
+      return mongoCursor.next();
    }
 
    @Override
    public List<DataDocument> getData(final String collectionId) {
-      return MongoUtils.convertIterableToList(dataCollection(collectionId).find());
+      return dataCollection(collectionId).find().into(new ArrayList<>());
    }
 
    @Override
    public Stream<DataDocument> getDataStream(String collectionId) {
-      return StreamSupport.stream(dataCollection(collectionId).find().map(MongoUtils::convertDocument).spliterator(), false);
+      return StreamSupport.stream(dataCollection(collectionId).find().spliterator(), false);
    }
 
    @Override
    public List<DataDocument> getData(final String collectionId, final Set<String> documentIds) {
+      return getData(collectionId, documentIds, null);
+   }
+
+   @Override
+   public List<DataDocument> getData(final String collectionId, final Set<String> documentIds, final Set<String> attributeIds) {
       Bson idsFilter = MongoFilters.idsFilter(documentIds);
       if (idsFilter == null) {
          return Collections.emptyList();
       }
-      return MongoUtils.convertIterableToList(dataCollection(collectionId).find(idsFilter));
+      FindIterable<DataDocument> iterable = dataCollection(collectionId).find(idsFilter);
+      addProjectionToQuery(iterable, attributeIds);
+      return iterable.into(new ArrayList<>());
    }
 
    @Override
    public List<DataDocument> searchData(final SearchQueryStem stem, final Pagination pagination, final Collection collection) {
       Bson filter = createFilterForStem(stem, collection);
-      FindIterable<Document> iterable = dataCollection(collection.getId()).find(filter);
+      FindIterable<DataDocument> iterable = dataCollection(collection.getId()).find(addPaginationToFilter(filter, pagination));
       addPaginationToQuery(iterable, pagination);
-      return MongoUtils.convertIterableToList(iterable);
+      addProjectionToQuery(iterable, stem.getAttributeIds());
+      return iterable.into(new ArrayList<>());
+   }
+
+   @Override
+   public Stream<DataDocument> searchDataStream(final SearchQueryStem stem, final Pagination pagination, final Collection collection) {
+      Bson filter = createFilterForStem(stem, collection);
+      FindIterable<DataDocument> iterable = dataCollection(collection.getId()).find(addPaginationToFilter(filter, pagination)).batchSize(STREAM_BATCH_SIZE);
+      addPaginationToQuery(iterable, pagination);
+      addProjectionToQuery(iterable, stem.getAttributeIds());
+
+      MongoCursor<DataDocument> cursor = iterable.iterator();
+      return StreamSupport.stream(Spliterators.spliteratorUnknownSize(cursor, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                          .onClose(cursor::close);
    }
 
    private Bson createFilterForStem(final SearchQueryStem stem, Collection collection) {
@@ -199,7 +237,7 @@ public class MongoDataDao extends CollectionScopedDao implements DataDao {
       }
 
       if (stem.containsFulltextsQuery()) {
-         Bson fulltextsFilter = createFilterForFulltexts(collection.getAttributes(), stem.getFulltexts());
+         Bson fulltextsFilter = MongoFulltexts.createFilter(collection.getAttributes(), stem.getFulltexts());
          if (fulltextsFilter != null) {
             filters.add(fulltextsFilter);
          }
@@ -216,26 +254,45 @@ public class MongoDataDao extends CollectionScopedDao implements DataDao {
    public List<DataDocument> searchDataByFulltexts(final Set<String> fulltexts, final Pagination pagination, final List<Collection> projectCollections) {
       List<DataDocument> documents = new ArrayList<>();
       for (Collection collection : projectCollections) {
-         Bson filter = createFilterForFulltexts(collection.getAttributes(), fulltexts);
+         Bson filter = MongoFulltexts.createFilter(collection.getAttributes(), fulltexts);
          if (filter != null) {
-            FindIterable<Document> iterable = dataCollection(collection.getId()).find(filter);
+            FindIterable<DataDocument> iterable = dataCollection(collection.getId()).find(addPaginationToFilter(filter, pagination));
             addPaginationToQuery(iterable, pagination);
-            documents.addAll(MongoUtils.convertIterableToList(iterable));
+            iterable.into(documents);
          }
       }
 
       return documents;
    }
 
+   @Override
+   public List<AggregationRow> aggregateData(final Collection collection, final SearchQueryStem stem, final LinkType linkType, final List<AggregationGroup> groups, final List<AggregationValue> values) {
+      MongoAggregations.Link link = null;
+      if (linkType != null) {
+         if (!getProject().isPresent()) {
+            throw new ResourceNotFoundException(ResourceType.PROJECT);
+         }
+
+         final String linkedCollectionId = linkType.getCollectionIds().stream().filter(id -> !id.equals(collection.getId())).findFirst().orElse(collection.getId());
+         link = new MongoAggregations.Link(linkType.getId(), MongoLinkInstanceDao.databaseCollectionName(getProject().get()), linkedCollectionId, dataCollectionName(linkedCollectionId));
+      }
+
+      final Bson filter = stem != null ? createFilterForStem(stem, collection) : null;
+      final List<Bson> pipeline = MongoAggregations.createPipeline(filter, collection.getId(), link, groups, values);
+
+      final List<AggregationRow> rows = new ArrayList<>();
+      dataCollection(collection.getId()).aggregate(pipeline).allowDiskUse(true)
+                                        .forEach((Consumer<? super DataDocument>) result -> rows.add(MongoAggregations.toRow(result, groups.size(), values.size())));
+      return rows;
+   }
+
    @Override
    public List<DataDocument> duplicateData(final String collectionId, final Map<String, String> documentIds) {
       final List<DataDocument> newData = new ArrayList<>();
 
       final Bson idsFilter = MongoFilters.idsFilter(documentIds.keySet());
       if (idsFilter != null) {
-         dataCollection(collectionId).find(idsFilter).forEach((Consumer<? super Document>) d -> {
-            final DataDocument doc = MongoUtils.convertDocument(d);
-
+         dataCollection(collectionId).find(idsFilter).forEach((Consumer<? super DataDocument>) doc -> {
             if (documentIds.containsKey(doc.getId())) {
                doc.setId(documentIds.get(doc.getId()));
                newData.add(doc);
@@ -243,18 +300,15 @@ public class MongoDataDao extends CollectionScopedDao implements DataDao {
          });
 
          if (newData.size() > 0) {
-            var documents = newData.stream()
-                                   .map(data -> new Document(data).append(ID, new ObjectId(data.getId())))
-                                   .collect(Collectors.toList());
-            dataCollection(collectionId).insertMany(documents);
+            dataCollection(collectionId).insertMany(newData.stream().map(d -> MongoFulltexts.addTokens(new DataDocument(d))).collect(Collectors.toList()));
          }
       }
 
       return newData;
    }
 
-   MongoCollection<Document> dataCollection(String collectionId) {
-      return database.getCollection(dataCollectionName(collectionId));
+   MongoCollection<DataDocument> dataCollection(String collectionId) {
+      return database.getCollection(dataCollectionName(collectionId), DataDocument.class);
    }
 
    String dataCollectionName(String collectionId) {
@@ -18,7 +18,6 @@
  */
 package io.lumeer.storage.mongodb.dao.collection;
 
-import static io.lumeer.storage.mongodb.util.MongoFilters.createFilterForFulltexts;
 import static io.lumeer.storage.mongodb.util.MongoFilters.idFilter;
 
 import io.lumeer.api.model.LinkType;
@@ -28,23 +27,21 @@ import io.lumeer.storage.api.dao.LinkDataDao;
 import io.lumeer.storage.api.exception.StorageException;
 import io.lumeer.storage.api.filter.LinkSearchAttributeFilter;
 import io.lumeer.storage.api.query.SearchQueryStem;
-import io.lumeer.storage.mongodb.MongoUtils;
 import io.lumeer.storage.mongodb.util.MongoFilters;
+import io.lumeer.storage.mongodb.util.MongoFulltexts;
+import io.lumeer.storage.mongodb.util.MongoIndexes;
 
 import com.mongodb.client.FindIterable;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoCursor;
 import com.mongodb.client.model.Filters;
 import com.mongodb.client.model.FindOneAndReplaceOptions;
-import com.mongodb.client.model.FindOneAndUpdateOptions;
-import com.mongodb.client.model.Indexes;
 import com.mongodb.client.model.ReturnDocument;
 import com.mongodb.client.model.Updates;
 import com.mongodb.client.result.UpdateResult;
 import org.bson.BsonDocument;
 import org.bson.Document;
 import org.bson.conversions.Bson;
-import org.bson.types.ObjectId;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -67,11 +64,14 @@ public class MongoLinkDataDao extends CollectionScopedDao implements LinkDataDao
    @Override
    public void createDataRepository(final String linkTypeId) {
       database.createCollection(linkDataCollectionName(linkTypeId));
-      createFulltextIndexOnAllFields(linkTypeId);
+      MongoIndexes.createIndexes(linkDataCollection(linkTypeId), MongoIndexes.DATA, false);
    }
 
-   private void createFulltextIndexOnAllFields(final String linkTypeId) {
-      linkDataCollection(linkTypeId).createIndex(Indexes.text("$**"));
+   @Override
+   public List<String> ensureIndexes(final String linkTypeId) {
+      final List<String> created = MongoIndexes.createIndexes(linkDataCollection(linkTypeId), MongoIndexes.DATA, true);
+      MongoFulltexts.backfill(linkDataCollection(linkTypeId));
+      return created;
    }
 
    @Override
@@ -81,20 +81,18 @@ public class MongoLinkDataDao extends CollectionScopedDao implements LinkDataDao
 
    @Override
    public DataDocument createData(final String linkTypeId, final String linkInstanceId, final DataDocument data) {
-      Document document = new Document(data).append(ID, new ObjectId(linkInstanceId));
+      DataDocument document = MongoFulltexts.addTokens(new DataDocument(data).append(ID, linkInstanceId));
       linkDataCollection(linkTypeId).insertOne(document);
       return data;
    }
 
    @Override
    public List<DataDocument> createData(final String linkTypeId, final List<DataDocument> data) {
-      List<Document> documents = data.stream().map(dataDocument -> new Document(dataDocument).append(ID, new ObjectId(dataDocument.getId()))).collect(Collectors.toList());
+      List<DataDocument> documents = data.stream().map(d -> MongoFulltexts.addTokens(new DataDocument(d))).collect(Collectors.toList());
       linkDataCollection(linkTypeId).insertMany(documents);
 
       for (int i = 0; i < documents.size(); i++) {
-         Object idObj = documents.get(i).get(ID);
-         String id = idObj instanceof String ? (String) idObj : ((ObjectId) idObj).toHexString();
-         data.get(i).setId(id);
+         data.get(i).setId(documents.get(i).getId());
       }
 
       return data;
@@ -102,27 +100,29 @@ public class MongoLinkDataDao extends CollectionScopedDao implements LinkDataDao
 
    @Override
    public DataDocument updateData(final String linkTypeId, final String linkInstanceId, final DataDocument data) {
-      Document document = new Document(data);
+      DataDocument document = MongoFulltexts.addTokens(new DataDocument(data));
       FindOneAndReplaceOptions options = new FindOneAndReplaceOptions().returnDocument(ReturnDocument.AFTER).upsert(true);
 
-      Document updatedDocument = linkDataCollection(linkTypeId).findOneAndReplace(idFilter(linkInstanceId), document, options);
+      DataDocument updatedDocument = linkDataCollection(linkTypeId).findOneAndReplace(idFilter(linkInstanceId), document, options);
       if (updatedDocument == null) {
          throw new StorageException("LinkInstance '" + linkInstanceId + "' has not been updated (replaced).");
       }
-      return MongoUtils.convertDocument(updatedDocument);
+      return updatedDocument;
    }
 
    @Override
    public DataDocument patchData(final String linkTypeId, final String linkInstanceId, final DataDocument data) {
       data.remove(ID);
-      Document updateDocument = new Document("$set", new Document(data));
-      FindOneAndUpdateOptions options = new FindOneAndUpdateOptions().returnDocument(ReturnDocument.AFTER).upsert(true);
-
-      Document patchedDocument = linkDataCollection(linkTypeId).findOneAndUpdate(idFilter(linkInstanceId), updateDocument, options);
+      DataDocument patchedDocument = patchData(linkDataCollection(linkTypeId), linkInstanceId, data);
       if (patchedDocument == null) {
          throw new StorageException("LinkInstance '" + linkInstanceId + "' has not been patched (partially updated).");
       }
-      return MongoUtils.convertDocument(patchedDocument);
+      return patchedDocument;
+   }
+
+   @Override
+   public List<DataDocument> patchData(final String linkTypeId, final Map<String, DataDocument> data) {
+      return patchData(linkDataCollection(linkTypeId), data);
    }
 
    @Override
@@ -141,55 +141,63 @@ public class MongoLinkDataDao extends CollectionScopedDao implements LinkDataDao
 
    @Override
    public long deleteAttribute(final String linkTypeId, final String attributeId) {
-      final UpdateResult updateResult = linkDataCollection(linkTypeId).updateMany(new BsonDocument(), Updates.unset(attributeId));
+      final UpdateResult updateResult = linkDataCollection(linkTypeId).updateMany(new BsonDocument(), Updates.combine(Updates.unset(attributeId), MongoFulltexts.removeAttributeToken(attributeId)));
       return updateResult.getModifiedCount();
    }
 
    @Override
    public DataDocument getData(final String linkTypeId, final String linkInstanceId) {
-      MongoCursor<Document> mongoCursor = linkDataCollection(linkTypeId).find(idFilter(linkInstanceId)).iterator();
+      MongoCursor<DataDocument> mongoCursor = linkDataCollection(linkTypeId).find(idFilter(linkInstanceId)).iterator();
       if (!mongoCursor.hasNext()) {
          return new DataDocument();
       }
-      return MongoUtils.convertDocument(mongoCursor.next());
+      return mongoCursor.next();
    }
 
    @Override
    public List<DataDocument> getData(final String linkTypeId) {
-      return MongoUtils.convertIterableToList(linkDataCollection(linkTypeId).find());
+      return linkDataCollection(linkTypeId).find().into(new ArrayList<>());
    }
 
    @Override
    public Stream<DataDocument> getDataStream(final String linkTypeId) {
-      return StreamSupport.stream(linkDataCollection(linkTypeId).find().map(MongoUtils::convertDocument).spliterator(), false);
+      return StreamSupport.stream(linkDataCollection(linkTypeId).find().spliterator(), false);
    }
 
    @Override
    public List<DataDocument> getData(final String linkTypeId, final Set<String> linkInstanceIds) {
+      return getData(linkTypeId, linkInstanceIds, null);
+   }
+
+   @Override
+   public List<DataDocument> getData(final String linkTypeId, final Set<String> linkInstanceIds, final Set<String> attributeIds) {
       Bson idsFilter = MongoFilters.idsFilter(linkInstanceIds);
       if (idsFilter == null) {
          return Collections.emptyList();
       }
-      return MongoUtils.convertIterableToList(linkDataCollection(linkTypeId).find(idsFilter));
+      FindIterable<DataDocument> iterable = linkDataCollection(linkTypeId).find(idsFilter);
+      addProjectionToQuery(iterable, attributeIds);
+      return iterable.into(new ArrayList<>());
    }
 
    @Override
    public List<DataDocument> searchData(final SearchQueryStem stem, final Pagination pagination, final LinkType linkType) {
       Bson filter = createFilterForStem(stem, linkType);
-      FindIterable<Document> iterable = linkDataCollection(linkType.getId()).find(filter);
+      FindIterable<DataDocument> iterable = linkDataCollection(linkType.getId()).find(addPaginationToFilter(filter, pagination));
       addPaginationToQuery(iterable, pagination);
-      return MongoUtils.convertIterableToList(iterable);
+      addProjectionToQuery(iterable, stem.getAttributeIds());
+      return iterable.into(new ArrayList<>());
    }
 
    @Override
    public List<DataDocument> searchDataByFulltexts(final Set<String> fulltexts, final Pagination pagination, final List<LinkType> linkTypes) {
       List<DataDocument> documents = new ArrayList<>();
       for (LinkType linkType : linkTypes) {
-         Bson filter = createFilterForFulltexts(linkType.getAttributes(), fulltexts);
+         Bson filter = MongoFulltexts.createFilter(linkType.getAttributes(), fulltexts);
          if (filter != null) {
-            FindIterable<Document> iterable = linkDataCollection(linkType.getId()).find(filter);
+            FindIterable<DataDocument> iterable = linkDataCollection(linkType.getId()).find(addPaginationToFilter(filter, pagination));
             addPaginationToQuery(iterable, pagination);
-            documents.addAll(MongoUtils.convertIterableToList(iterable));
+            iterable.into(documents);
          }
       }
 
@@ -202,9 +210,7 @@ public class MongoLinkDataDao extends CollectionScopedDao implements LinkDataDao
 
       final Bson idsFilter = MongoFilters.idsFilter(linkIds.keySet());
       if (idsFilter != null) {
-         linkDataCollection(linkTypeId).find(idsFilter).forEach((Consumer<? super Document>) d -> {
-            final DataDocument doc = MongoUtils.convertDocument(d);
-
+         linkDataCollection(linkTypeId).find(idsFilter).forEach((Consumer<? super DataDocument>) doc -> {
             if (linkIds.containsKey(doc.getId())) {
                doc.setId(linkIds.get(doc.getId()));
                newData.add(doc);
@@ -212,7 +218,7 @@ public class MongoLinkDataDao extends CollectionScopedDao implements LinkDataDao
          });
 
          if (newData.size() > 0) {
-            linkDataCollection(linkTypeId).insertMany(newData.stream().map(Document::new).collect(Collectors.toList()));
+            linkDataCollection(linkTypeId).insertMany(newData.stream().map(d -> MongoFulltexts.addTokens(new DataDocument(d))).collect(Collectors.toList()));
          }
       }
 
@@ -240,7 +246,7 @@ public class MongoLinkDataDao extends CollectionScopedDao implements LinkDataDao
       }
 
       if (stem.containsFulltextsQuery()) {
-         Bson fulltextsFilter = createFilterForFulltexts(linkType.getAttributes(), stem.getFulltexts());
+         Bson fulltextsFilter = MongoFulltexts.createFilter(linkType.getAttributes(), stem.getFulltexts());
          if (fulltextsFilter != null) {
             filters.add(fulltextsFilter);
          }
@@ -253,8 +259,8 @@ public class MongoLinkDataDao extends CollectionScopedDao implements LinkDataDao
       return MongoFilters.attributeFilter(filter);
    }
 
-   MongoCollection<Document> linkDataCollection(String linkTypeId) {
-      return database.getCollection(linkDataCollectionName(linkTypeId));
+   MongoCollection<DataDocument> linkDataCollection(String linkTypeId) {
+      return database.getCollection(linkDataCollectionName(linkTypeId), DataDocument.class);
    }
 
    String linkDataCollectionName(String linkTypeId) {
@@ -220,6 +220,12 @@ public class MongoFavoriteItemDao extends OrganizationScopedDao implements Favor
       favoriteDocumentsDBCollection().deleteMany(filter);
    }
 
+   @Override
+   public void removeFavoriteDocumentsFromUsers(final String projectId, final String collectionId, final Set<String> documentIds) {
+      Bson filter = and(eq(PROJECT_ID, projectId), eq(COLLECTION_ID, collectionId), in(DOCUMENT_ID, documentIds));
+      favoriteDocumentsDBCollection().deleteMany(filter);
+   }
+
    @Override
    public void removeFavoriteDocumentsByProjectFromUsers(final String projectId) {
       Bson filter = eq(PROJECT_ID, projectId);
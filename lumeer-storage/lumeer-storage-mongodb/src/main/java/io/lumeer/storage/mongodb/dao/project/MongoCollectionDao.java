@@ -56,9 +56,12 @@ import org.bson.Document;
 import org.bson.conversions.Bson;
 import org.bson.types.ObjectId;
 
+import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -130,6 +133,35 @@ public class MongoCollectionDao extends ProjectScopedDao implements CollectionDa
       }
    }
 
+   @Override
+   public Collection updateCollectionUsage(final String id, final Map<String, Integer> attributesUsage, final int documentsCount, final ZonedDateTime lastTimeUsed) {
+      final Document inc = new Document(CollectionCodec.DOCUMENTS_COUNT, documentsCount).append(CollectionCodec.VERSION, 1L);
+      final List<Bson> arrayFilters = new ArrayList<>();
+      attributesUsage.forEach((attributeId, usage) -> {
+         final String identifier = "a" + arrayFilters.size();
+         inc.append(CollectionCodec.ATTRIBUTES + ".$[" + identifier + "]." + AttributeCodec.USAGE_COUNT, usage);
+         arrayFilters.add(Filters.eq(identifier + "." + AttributeCodec.ID, attributeId));
+      });
+
+      final Bson update = new Document("$inc", inc).append("$max", new Document(CollectionCodec.LAST_TIME_USED, Date.from(lastTimeUsed.toInstant())));
+      final FindOneAndUpdateOptions options = new FindOneAndUpdateOptions().returnDocument(ReturnDocument.AFTER).arrayFilters(arrayFilters);
+
+      try {
+         final Collection updatedCollection = databaseCollection().findOneAndUpdate(idFilter(id), update, options);
+
+         if (updatedCollection != null && (documentsCount < 0 || attributesUsage.values().stream().anyMatch(usage -> usage < 0))) {
+            // counts never go below zero, a decrement can outrun the increment it belongs to
+            final Bson clamp = new Document("$max", new Document(CollectionCodec.DOCUMENTS_COUNT, 0).append(CollectionCodec.ATTRIBUTES + ".$[]." + AttributeCodec.USAGE_COUNT, 0));
+            final Collection clampedCollection = databaseCollection().findOneAndUpdate(idFilter(id), clamp, new FindOneAndUpdateOptions().returnDocument(ReturnDocument.AFTER));
+            return clampedCollection != null ? clampedCollection : updatedCollection;
+         }
+
+         return updatedCollection;
+      } catch (MongoException ex) {
+         throw new StorageException("Cannot update usage of collection " + id, ex);
+      }
+   }
+
    @Override
    public Collection updateCollection(final String id, final Collection collection, final Collection originalCollection, final boolean pushNotification) {
       FindOneAndUpdateOptions options = new FindOneAndUpdateOptions().returnDocument(ReturnDocument.AFTER);
@@ -150,7 +182,7 @@ public class MongoCollectionDao extends ProjectScopedDao implements CollectionDa
    }
 
    @Override
-   public void deleteCollection(final String id) {
+   public Collection deleteCollection(final String id) {
       final Collection collection = databaseCollection().findOneAndDelete(idFilter(id));
       if (collection == null) {
          throw new StorageException("Collection '" + id + "' has not been deleted.");
@@ -158,6 +190,7 @@ public class MongoCollectionDao extends ProjectScopedDao implements CollectionDa
       if (removeResourceEvent != null) {
          removeResourceEvent.fire(new RemoveResource(collection));
       }
+      return collection;
    }
 
    @Override
@@ -30,14 +30,16 @@ import io.lumeer.storage.api.exception.StorageException;
 import io.lumeer.storage.mongodb.MongoUtils;
 import io.lumeer.storage.mongodb.codecs.DocumentCodec;
 import io.lumeer.storage.mongodb.util.MongoFilters;
+import io.lumeer.storage.mongodb.util.MongoIndexes;
 
 import com.mongodb.MongoException;
 import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.BulkWriteOptions;
 import com.mongodb.client.model.Filters;
 import com.mongodb.client.model.FindOneAndUpdateOptions;
-import com.mongodb.client.model.IndexOptions;
-import com.mongodb.client.model.Indexes;
 import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.WriteModel;
 import org.bson.conversions.Bson;
 import org.bson.types.ObjectId;
 
@@ -46,6 +48,7 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 import javax.enterprise.context.RequestScoped;
 import javax.enterprise.event.Event;
@@ -64,7 +67,17 @@ public class MongoDocumentDao extends ProjectScopedDao implements DocumentDao {
       database.createCollection(databaseCollectionName(project));
 
       MongoCollection<org.bson.Document> collection = database.getCollection(databaseCollectionName(project));
-      collection.createIndex(Indexes.ascending(DocumentCodec.COLLECTION_ID), new IndexOptions().unique(false));
+      MongoIndexes.createIndexes(collection, MongoIndexes.DOCUMENTS, false);
+   }
+
+   @Override
+   public List<String> ensureIndexes(final Project project) {
+      return MongoIndexes.createIndexes(database.getCollection(databaseCollectionName(project)), MongoIndexes.DOCUMENTS, true);
+   }
+
+   @Override
+   public List<String> getUnusedIndexes(final Project project) {
+      return MongoIndexes.getUnusedIndexes(database.getCollection(databaseCollectionName(project)));
    }
 
    @Override
@@ -111,6 +124,25 @@ public class MongoDocumentDao extends ProjectScopedDao implements DocumentDao {
       }
    }
 
+   @Override
+   public List<Document> updateDocuments(final List<Document> documents) {
+      if (documents.isEmpty()) {
+         return new ArrayList<>();
+      }
+
+      try {
+         final List<WriteModel<Document>> updates = documents.stream().map(document -> {
+            Bson update = new org.bson.Document("$set", document).append("$inc", new org.bson.Document(DocumentCodec.DATA_VERSION, 1));
+            return new UpdateOneModel<Document>(idFilter(document.getId()), update);
+         }).collect(Collectors.toList());
+         databaseCollection().bulkWrite(updates, new BulkWriteOptions().ordered(false));
+      } catch (MongoException ex) {
+         throw new StorageException("Cannot update documents: " + documents.size(), ex);
+      }
+
+      return getDocumentsByIds(documents.stream().map(Document::getId).toArray(String[]::new));
+   }
+
    @Override
    public void deleteDocument(final String id) {
       Document document = databaseCollection().findOneAndDelete(idFilter(id));
@@ -122,6 +154,15 @@ public class MongoDocumentDao extends ProjectScopedDao implements DocumentDao {
       }
    }
 
+   @Override
+   public void deleteDocumentsByIds(final Set<String> ids) {
+      Bson filter = MongoFilters.idsFilter(ids);
+      if (filter == null) {
+         return;
+      }
+      databaseCollection().deleteMany(filter);
+   }
+
    @Override
    public void deleteDocuments(final String collectionId) {
       final Bson filter = Filters.eq(DocumentCodec.COLLECTION_ID, collectionId);
@@ -31,15 +31,18 @@ import io.lumeer.storage.api.exception.StorageException;
 import io.lumeer.storage.api.query.SearchQuery;
 import io.lumeer.storage.api.query.SearchQueryStem;
 import io.lumeer.storage.mongodb.codecs.LinkInstanceCodec;
+import io.lumeer.storage.mongodb.util.MongoFilters;
+import io.lumeer.storage.mongodb.util.MongoIndexes;
 
 import com.mongodb.MongoException;
 import com.mongodb.client.FindIterable;
 import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.BulkWriteOptions;
 import com.mongodb.client.model.Filters;
 import com.mongodb.client.model.FindOneAndUpdateOptions;
-import com.mongodb.client.model.IndexOptions;
-import com.mongodb.client.model.Indexes;
 import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.WriteModel;
 import com.mongodb.client.result.DeleteResult;
 import org.bson.Document;
 import org.bson.conversions.Bson;
@@ -70,7 +73,21 @@ public class MongoLinkInstanceDao extends ProjectScopedDao implements LinkInstan
       database.createCollection(databaseCollectionName(project));
 
       MongoCollection<Document> projectCollection = database.getCollection(databaseCollectionName(project));
-      projectCollection.createIndex(Indexes.ascending(LinkInstanceCodec.LINK_TYPE_ID), new IndexOptions().unique(false));
+      MongoIndexes.createIndexes(projectCollection, MongoIndexes.LINK_INSTANCES, false);
+   }
+
+   @Override
+   public List<String> ensureIndexes(final Project project) {
+      final MongoCollection<Document> collection = database.getCollection(databaseCollectionName(project));
+      final List<String> created = MongoIndexes.createIndexes(collection, MongoIndexes.LINK_INSTANCES, true);
+      MongoIndexes.dropIndexes(collection, MongoIndexes.OBSOLETE_LINK_INSTANCES);
+
+      return created;
+   }
+
+   @Override
+   public List<String> getUnusedIndexes(final Project project) {
+      return MongoIndexes.getUnusedIndexes(database.getCollection(databaseCollectionName(project)));
    }
 
    @Override
@@ -124,6 +141,25 @@ public class MongoLinkInstanceDao extends ProjectScopedDao implements LinkInstan
       }
    }
 
+   @Override
+   public List<LinkInstance> updateLinkInstances(final List<LinkInstance> linkInstances) {
+      if (linkInstances.isEmpty()) {
+         return new ArrayList<>();
+      }
+
+      try {
+         final List<WriteModel<LinkInstance>> updates = linkInstances.stream().map(linkInstance -> {
+            Bson update = new Document("$set", linkInstance).append("$inc", new Document(LinkInstanceCodec.DATA_VERSION, 1));
+            return new UpdateOneModel<LinkInstance>(idFilter(linkInstance.getId()), update);
+         }).collect(Collectors.toList());
+         databaseCollection().bulkWrite(updates, new BulkWriteOptions().ordered(false));
+      } catch (MongoException ex) {
+         throw new StorageException("Cannot update link instances: " + linkInstances.size(), ex);
+      }
+
+      return getLinkInstances(linkInstances.stream().map(LinkInstance::getId).collect(Collectors.toSet()));
+   }
+
    @Override
    public void deleteLinkInstance(final String id) {
       LinkInstance linkInstance = databaseCollection().findOneAndDelete(idFilter(id));
@@ -135,6 +171,15 @@ public class MongoLinkInstanceDao extends ProjectScopedDao implements LinkInstan
       }
    }
 
+   @Override
+   public void deleteLinkInstancesByIds(final Set<String> ids) {
+      Bson filter = MongoFilters.idsFilter(ids);
+      if (filter == null) {
+         return;
+      }
+      databaseCollection().deleteMany(filter);
+   }
+
    @Override
    public void deleteLinkInstancesByLinkTypesIds(final Set<String> linkTypeIds) {
       Bson filter = Filters.in(LinkInstanceCodec.LINK_TYPE_ID, linkTypeIds);
@@ -180,7 +225,7 @@ public class MongoLinkInstanceDao extends ProjectScopedDao implements LinkInstan
 
    @Override
    public List<LinkInstance> searchLinkInstances(final SearchQuery query) {
-      final FindIterable<LinkInstance> linkInstances = databaseCollection().find(linkInstancesFilter(query));
+      final FindIterable<LinkInstance> linkInstances = databaseCollection().find(addPaginationToFilter(linkInstancesFilter(query), query));
       addPaginationToQuery(linkInstances, query);
       return linkInstances.into(new ArrayList<>());
    }
@@ -238,7 +283,7 @@ public class MongoLinkInstanceDao extends ProjectScopedDao implements LinkInstan
       return filters.size() > 0 ? Filters.or(filters) : new Document();
    }
 
-   private String databaseCollectionName(Project project) {
+   public static String databaseCollectionName(Project project) {
       return PREFIX + project.getId();
    }
 
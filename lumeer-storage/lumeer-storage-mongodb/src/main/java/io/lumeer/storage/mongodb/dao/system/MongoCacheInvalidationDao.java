@@ -0,0 +1,90 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.storage.mongodb.dao.system;
+
+import io.lumeer.api.model.CacheInvalidation;
+import io.lumeer.storage.api.dao.CacheInvalidationDao;
+import io.lumeer.storage.api.exception.StorageException;
+
+import com.mongodb.MongoException;
+import com.mongodb.client.model.CreateCollectionOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Sorts;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+
+@ApplicationScoped
+public class MongoCacheInvalidationDao extends SystemScopedDao implements CacheInvalidationDao {
+
+   private static final String ID = "_id";
+
+   // invalidations are only relevant for a couple of seconds, old entries get overwritten by the capped collection
+   private static final long COLLECTION_SIZE_BYTES = 4 * 1024 * 1024;
+   private static final long COLLECTION_MAX_DOCUMENTS = 20_000;
+
+   @PostConstruct
+   public void initDb() {
+      createInvalidationRepository();
+   }
+
+   @Override
+   public void createInvalidationRepository() {
+      if (!database.listCollectionNames().into(new ArrayList<>()).contains(COLLECTION_NAME)) {
+         database.createCollection(COLLECTION_NAME, new CreateCollectionOptions().capped(true).sizeInBytes(COLLECTION_SIZE_BYTES).maxDocuments(COLLECTION_MAX_DOCUMENTS));
+      }
+   }
+
+   @Override
+   public void publish(final CacheInvalidation invalidation) {
+      final Document document = new Document(CacheInvalidation.ORIGIN, invalidation.getOrigin())
+            .append(CacheInvalidation.CACHE_NAME, invalidation.getCacheName())
+            .append(CacheInvalidation.KEY, invalidation.getKey());
+
+      try {
+         database.getCollection(COLLECTION_NAME).insertOne(document);
+         invalidation.setId(document.getObjectId(ID).toHexString());
+      } catch (MongoException ex) {
+         throw new StorageException("Cannot publish cache invalidation " + invalidation, ex);
+      }
+   }
+
+   @Override
+   public List<CacheInvalidation> getInvalidationsSince(final Date since) {
+      return database.getCollection(COLLECTION_NAME)
+                     .find(Filters.gte(ID, new ObjectId(since)))
+                     .sort(Sorts.ascending(ID))
+                     .into(new ArrayList<>())
+                     .stream()
+                     .map(MongoCacheInvalidationDao::convertDocument)
+                     .collect(Collectors.toList());
+   }
+
+   private static CacheInvalidation convertDocument(final Document document) {
+      final CacheInvalidation invalidation = new CacheInvalidation(document.getString(CacheInvalidation.ORIGIN), document.getString(CacheInvalidation.CACHE_NAME), document.getString(CacheInvalidation.KEY));
+      invalidation.setId(document.getObjectId(ID).toHexString());
+      return invalidation;
+   }
+}
@@ -0,0 +1,122 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.storage.mongodb.dao.system;
+
+import io.lumeer.storage.api.dao.DocumentCounterDao;
+import io.lumeer.storage.api.exception.StorageException;
+
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoException;
+import com.mongodb.MongoWriteException;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+
+import java.util.ArrayList;
+import java.util.Date;
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+
+@ApplicationScoped
+public class MongoDocumentCounterDao extends SystemScopedDao implements DocumentCounterDao {
+
+   private static final String ID = "_id";
+   private static final String COUNT = "count";
+   private static final String RECONCILED = "reconciled";
+
+   @PostConstruct
+   public void initDb() {
+      createDocumentCounterRepository();
+   }
+
+   @Override
+   public void createDocumentCounterRepository() {
+      if (!database.listCollectionNames().into(new ArrayList<>()).contains(COLLECTION_NAME)) {
+         database.createCollection(COLLECTION_NAME);
+      }
+   }
+
+   @Override
+   public void incrementDocumentsCount(final String projectId, final long count) {
+      if (count == 0 || projectId == null) {
+         return;
+      }
+
+      try {
+         databaseCollection().updateOne(Filters.eq(ID, projectId), Updates.inc(COUNT, count), new UpdateOptions().upsert(true));
+      } catch (MongoException ex) {
+         throw new StorageException("Cannot update documents count of project " + projectId, ex);
+      }
+   }
+
+   @Override
+   public Long getDocumentsCount(final String projectId, final Date reconciledAfter) {
+      final Document counter = databaseCollection().find(Filters.and(Filters.eq(ID, projectId), Filters.gte(RECONCILED, reconciledAfter)))
+                                                   .projection(Projections.include(COUNT))
+                                                   .first();
+      if (counter == null || !(counter.get(COUNT) instanceof Number)) {
+         return null;
+      }
+
+      return Math.max(((Number) counter.get(COUNT)).longValue(), 0L);
+   }
+
+   @Override
+   public Long getDocumentsCount(final String projectId) {
+      final Document counter = databaseCollection().find(Filters.eq(ID, projectId)).projection(Projections.include(COUNT)).first();
+      if (counter == null || !(counter.get(COUNT) instanceof Number)) {
+         return null;
+      }
+
+      return ((Number) counter.get(COUNT)).longValue();
+   }
+
+   @Override
+   public boolean setDocumentsCount(final String projectId, final Long expectedCount, final long count) {
+      // a counter incremented in the meantime does not match, a missing counter is inserted unless another one appears
+      final Bson filter = Filters.and(Filters.eq(ID, projectId), expectedCount != null ? Filters.eq(COUNT, expectedCount) : Filters.exists(COUNT, false));
+      final Bson update = Updates.combine(Updates.set(COUNT, count), Updates.set(RECONCILED, new Date()));
+
+      try {
+         final UpdateResult result = databaseCollection().updateOne(filter, update, new UpdateOptions().upsert(expectedCount == null));
+         return result.getMatchedCount() > 0 || result.getUpsertedId() != null;
+      } catch (MongoWriteException ex) {
+         if (ex.getError().getCategory() == ErrorCategory.DUPLICATE_KEY) {
+            return false;
+         }
+         throw new StorageException("Cannot set documents count of project " + projectId, ex);
+      } catch (MongoException ex) {
+         throw new StorageException("Cannot set documents count of project " + projectId, ex);
+      }
+   }
+
+   @Override
+   public void deleteDocumentsCount(final String projectId) {
+      databaseCollection().deleteOne(Filters.eq(ID, projectId));
+   }
+
+   private MongoCollection<Document> databaseCollection() {
+      return database.getCollection(COLLECTION_NAME);
+   }
+}
@@ -0,0 +1,187 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.storage.mongodb.dao.system;
+
+import io.lumeer.api.model.geocoding.Address;
+import io.lumeer.api.model.geocoding.Coordinates;
+import io.lumeer.api.model.geocoding.Location;
+import io.lumeer.storage.api.dao.GeoCodingDao;
+import io.lumeer.storage.api.exception.StorageException;
+
+import com.mongodb.MongoException;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.WriteModel;
+import org.bson.Document;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+
+@ApplicationScoped
+public class MongoGeoCodingDao extends SystemScopedDao implements GeoCodingDao {
+
+   private static final String TYPE = "type";
+   private static final String KEY = "key";
+   private static final String VALUE = "value";
+   private static final String UPDATED = "updated";
+
+   private static final String TYPE_QUERY_COORDINATES = "queryCoordinates";
+   private static final String TYPE_COORDINATES_LOCATION = "coordinatesLocation";
+   private static final String TYPE_QUERY_LOCATIONS = "queryLocations";
+
+   private static final String LATITUDE = "lat";
+   private static final String LONGITUDE = "lng";
+   private static final String ADDRESS = "address";
+   private static final String COORDINATES = "coordinates";
+   private static final String CITY = "city";
+   private static final String COUNTRY = "country";
+   private static final String COUNTY = "county";
+   private static final String HOUSE_NUMBER = "houseNumber";
+   private static final String POSTAL_CODE = "postalCode";
+   private static final String STATE = "state";
+   private static final String STREET = "street";
+
+   @PostConstruct
+   public void initDb() {
+      createGeoCodingRepository();
+   }
+
+   @Override
+   public void createGeoCodingRepository() {
+      if (!database.listCollectionNames().into(new ArrayList<>()).contains(COLLECTION_NAME)) {
+         database.createCollection(COLLECTION_NAME);
+
+         MongoCollection<Document> geoCodingCollection = database.getCollection(COLLECTION_NAME);
+         geoCodingCollection.createIndex(Indexes.ascending(TYPE, KEY), new IndexOptions().unique(true));
+         geoCodingCollection.createIndex(Indexes.ascending(TYPE, UPDATED));
+      }
+   }
+
+   @Override
+   public void saveQueryCoordinates(final Map<String, Coordinates> queryCoordinates) {
+      save(TYPE_QUERY_COORDINATES, queryCoordinates, MongoGeoCodingDao::convertCoordinates);
+   }
+
+   @Override
+   public Map<String, Coordinates> getQueryCoordinates(final int limit) {
+      return load(TYPE_QUERY_COORDINATES, limit, value -> convertCoordinates((Document) value));
+   }
+
+   @Override
+   public void saveCoordinatesLocation(final String key, final Location location) {
+      save(TYPE_COORDINATES_LOCATION, Collections.singletonMap(key, location), MongoGeoCodingDao::convertLocation);
+   }
+
+   @Override
+   public Map<String, Location> getCoordinatesLocations(final int limit) {
+      return load(TYPE_COORDINATES_LOCATION, limit, value -> convertLocation((Document) value));
+   }
+
+   @Override
+   public void saveQueryLocations(final String key, final List<Location> locations) {
+      save(TYPE_QUERY_LOCATIONS, Collections.singletonMap(key, locations), value -> value.stream().map(MongoGeoCodingDao::convertLocation).collect(Collectors.toList()));
+   }
+
+   @Override
+   @SuppressWarnings("unchecked")
+   public Map<String, List<Location>> getQueryLocations(final int limit) {
+      return load(TYPE_QUERY_LOCATIONS, limit, value -> ((List<Document>) value).stream().map(MongoGeoCodingDao::convertLocation).collect(Collectors.toList()));
+   }
+
+   private <T> void save(final String type, final Map<String, T> values, final Function<T, Object> converter) {
+      if (values.isEmpty()) {
+         return;
+      }
+
+      final Date updated = new Date();
+      final List<WriteModel<Document>> writes = values.entrySet().stream().map(entry -> {
+         final Document document = new Document(TYPE, type).append(KEY, entry.getKey()).append(VALUE, converter.apply(entry.getValue())).append(UPDATED, updated);
+         return new ReplaceOneModel<>(Filters.and(Filters.eq(TYPE, type), Filters.eq(KEY, entry.getKey())), document, new ReplaceOptions().upsert(true));
+      }).collect(Collectors.toList());
+
+      try {
+         database.getCollection(COLLECTION_NAME).bulkWrite(writes);
+      } catch (MongoException ex) {
+         throw new StorageException("Cannot store geocoding results: " + ex.getMessage(), ex);
+      }
+   }
+
+   private <T> Map<String, T> load(final String type, final int limit, final Function<Object, T> converter) {
+      final List<Document> documents = database.getCollection(COLLECTION_NAME)
+                                               .find(Filters.eq(TYPE, type))
+                                               .sort(Sorts.descending(UPDATED))
+                                               .limit(limit)
+                                               .into(new ArrayList<>());
+      Collections.reverse(documents);
+
+      final Map<String, T> result = new LinkedHashMap<>();
+      documents.forEach(document -> result.put(document.getString(KEY), converter.apply(document.get(VALUE))));
+
+      return result;
+   }
+
+   private static Document convertCoordinates(final Coordinates coordinates) {
+      return new Document(LATITUDE, (double) coordinates.getLatitude()).append(LONGITUDE, (double) coordinates.getLongitude());
+   }
+
+   private static Coordinates convertCoordinates(final Document document) {
+      return new Coordinates(document.getDouble(LATITUDE).floatValue(), document.getDouble(LONGITUDE).floatValue());
+   }
+
+   private static Document convertLocation(final Location location) {
+      final Document document = new Document();
+      if (location.getAddress() != null) {
+         final Address address = location.getAddress();
+         document.append(ADDRESS, new Document(CITY, address.getCity())
+               .append(COUNTRY, address.getCountry())
+               .append(COUNTY, address.getCounty())
+               .append(HOUSE_NUMBER, address.getHouseNumber())
+               .append(POSTAL_CODE, address.getPostalCode())
+               .append(STATE, address.getState())
+               .append(STREET, address.getStreet()));
+      }
+      if (location.getCoordinates() != null) {
+         document.append(COORDINATES, convertCoordinates(location.getCoordinates()));
+      }
+      return document;
+   }
+
+   private static Location convertLocation(final Document document) {
+      final Document address = document.get(ADDRESS, Document.class);
+      final Document coordinates = document.get(COORDINATES, Document.class);
+
+      return new Location(
+            address != null ? new Address(address.getString(CITY), address.getString(COUNTRY), address.getString(COUNTY), address.getString(HOUSE_NUMBER),
+                  address.getString(POSTAL_CODE), address.getString(STATE), address.getString(STREET)) : null,
+            coordinates != null ? convertCoordinates(coordinates) : null);
+   }
+}
@@ -0,0 +1,248 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.storage.mongodb.util;
+
+import io.lumeer.api.model.aggregation.AggregationGroup;
+import io.lumeer.api.model.aggregation.AggregationRow;
+import io.lumeer.api.model.aggregation.AggregationValue;
+import io.lumeer.api.model.aggregation.DateBucket;
+import io.lumeer.engine.api.data.DataDocument;
+import io.lumeer.storage.mongodb.codecs.LinkInstanceCodec;
+
+import com.mongodb.client.model.Accumulators;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.BsonField;
+import com.mongodb.client.model.Field;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.UnwindOptions;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Builds aggregation pipelines that group the data of a collection, optionally paired with the data linked to them,
+ * and aggregate the values within the groups.
+ *
+ * The pipelines use $toString and $toObjectId to join the data through link instances, so they need MongoDB 4.0.
+ */
+public class MongoAggregations {
+
+   private static final String ID = "_id";
+   private static final String COUNT = "count";
+   private static final String KEY_PREFIX = "k";
+   private static final String VALUE_PREFIX = "v";
+
+   // temporary fields of the joined documents
+   private static final String DOCUMENT_ID = "_documentId";
+   private static final String LINKS = "_links";
+   private static final String LINKED_ID = "_linkedId";
+   private static final String LINKED = "_linked";
+
+   private MongoAggregations() {
+   }
+
+   /**
+    * Creates the aggregation pipeline. Each group of the result is a single document with the group keys in its id,
+    * see {@link #toRow(DataDocument, int, int)}.
+    *
+    * @param filter
+    *       Filter of the aggregated data, may be null.
+    * @param collectionId
+    *       Collection of the aggregated data.
+    * @param link
+    *       The data linked to the aggregated data, may be null.
+    * @param groups
+    *       Attributes to group by.
+    * @param values
+    *       Attributes to aggregate.
+    * @return The aggregation pipeline.
+    */
+   public static List<Bson> createPipeline(final Bson filter, final String collectionId, final Link link, final List<AggregationGroup> groups, final List<AggregationValue> values) {
+      final List<Bson> pipeline = new ArrayList<>();
+
+      if (filter != null) {
+         pipeline.add(Aggregates.match(filter));
+      }
+
+      // only the attributes of the collection are carried through the pipeline
+      final Set<String> attributeIds = new LinkedHashSet<>();
+      groups.stream().filter(group -> !isLinked(link, group.getCollectionId())).forEach(group -> attributeIds.add(group.getAttributeId()));
+      values.stream().filter(value -> !isLinked(link, value.getCollectionId())).forEach(value -> attributeIds.add(value.getAttributeId()));
+      pipeline.add(Aggregates.project(attributeIds.isEmpty() ? Projections.include(ID) : Projections.include(new ArrayList<>(attributeIds))));
+
+      if (link != null) {
+         pipeline.addAll(createLinkStages(link));
+      }
+
+      final Document keys = new Document();
+      for (int i = 0; i < groups.size(); i++) {
+         final AggregationGroup group = groups.get(i);
+         keys.append(KEY_PREFIX + i, createKeyExpression(fieldPath(link, group.getCollectionId(), group.getAttributeId()), group.getBucket()));
+      }
+
+      final List<BsonField> accumulators = new ArrayList<>();
+      accumulators.add(Accumulators.sum(COUNT, 1));
+      for (int i = 0; i < values.size(); i++) {
+         accumulators.add(createAccumulator(VALUE_PREFIX + i, link, values.get(i)));
+      }
+
+      pipeline.add(Aggregates.group(keys.isEmpty() ? null : keys, accumulators));
+      pipeline.add(Aggregates.sort(Sorts.ascending(ID)));
+
+      return pipeline;
+   }
+
+   /**
+    * Converts a single result of the pipeline created by {@link #createPipeline(Bson, String, Link, List, List)}.
+    *
+    * @param result
+    *       Result of the pipeline.
+    * @param groups
+    *       Number of the groups in the pipeline.
+    * @param values
+    *       Number of the values in the pipeline.
+    * @return The aggregated row.
+    */
+   public static AggregationRow toRow(final DataDocument result, final int groups, final int values) {
+      final Object id = result.get(ID);
+      final List<Object> keys = new ArrayList<>(groups);
+      for (int i = 0; i < groups; i++) {
+         keys.add(id instanceof DataDocument ? ((DataDocument) id).get(KEY_PREFIX + i) : null);
+      }
+
+      final List<Object> aggregated = new ArrayList<>(values);
+      for (int i = 0; i < values; i++) {
+         aggregated.add(result.get(VALUE_PREFIX + i));
+      }
+
+      final Object count = result.get(COUNT);
+      return new AggregationRow(keys, aggregated, count instanceof Number ? ((Number) count).longValue() : 0);
+   }
+
+   private static List<Bson> createLinkStages(final Link link) {
+      final Document otherDocumentIds = new Document("$filter", new Document("input", "$" + LINKS + "." + LinkInstanceCodec.DOCUMENTS_IDS)
+            .append("cond", new Document("$ne", Arrays.asList("$$this", "$" + DOCUMENT_ID))));
+      final Document linksOfType = new Document("$filter", new Document("input", "$" + LINKS)
+            .append("cond", new Document("$eq", Arrays.asList("$$this." + LinkInstanceCodec.LINK_TYPE_ID, link.linkTypeId))));
+
+      // equality lookups, so that the indexes on link instance document ids and on data ids are used
+      return Arrays.asList(
+            Aggregates.addFields(new Field<>(DOCUMENT_ID, new Document("$toString", "$" + ID))),
+            Aggregates.lookup(link.linkInstancesCollection, DOCUMENT_ID, LinkInstanceCodec.DOCUMENTS_IDS, LINKS),
+            Aggregates.addFields(new Field<>(LINKS, linksOfType)),
+            Aggregates.unwind("$" + LINKS, new UnwindOptions().preserveNullAndEmptyArrays(true)),
+            Aggregates.addFields(new Field<>(LINKED_ID, new Document("$toObjectId", new Document("$arrayElemAt", Arrays.asList(otherDocumentIds, 0))))),
+            Aggregates.lookup(link.linkedDataCollection, LINKED_ID, ID, LINKED),
+            Aggregates.unwind("$" + LINKED, new UnwindOptions().preserveNullAndEmptyArrays(true))
+      );
+   }
+
+   private static BsonField createAccumulator(final String name, final Link link, final AggregationValue value) {
+      final String field = "$" + fieldPath(link, value.getCollectionId(), value.getAttributeId());
+
+      switch (value.getFunction()) {
+         case SUM:
+            return Accumulators.sum(name, field);
+         case AVG:
+            return Accumulators.avg(name, field);
+         case MIN:
+            return Accumulators.min(name, field);
+         case MAX:
+            return Accumulators.max(name, field);
+         default:
+            // counts the non empty values
+            return Accumulators.sum(name, new Document("$cond", Arrays.asList(new Document("$gt", Arrays.asList(field, null)), 1, 0)));
+      }
+   }
+
+   private static Object createKeyExpression(final String path, final DateBucket bucket) {
+      final String field = "$" + path;
+      if (bucket == null) {
+         return field;
+      }
+
+      final Object formatted;
+      switch (bucket) {
+         case YEAR:
+            formatted = dateToString("%Y", field);
+            break;
+         case QUARTER:
+            final Document quarter = new Document("$ceil", new Document("$divide", Arrays.asList(new Document("$month", field), 3)));
+            formatted = new Document("$concat", Arrays.asList(dateToString("%Y", field), "-Q", new Document("$toString", quarter)));
+            break;
+         case MONTH:
+            formatted = dateToString("%Y-%m", field);
+            break;
+         case WEEK:
+            formatted = dateToString("%G-W%V", field);
+            break;
+         default:
+            formatted = dateToString("%Y-%m-%d", field);
+      }
+
+      // values that are not dates would fail the date operators
+      return new Document("$cond", Arrays.asList(new Document("$eq", Arrays.asList(new Document("$type", field), "date")), formatted, null));
+   }
+
+   private static Document dateToString(final String format, final String field) {
+      return new Document("$dateToString", new Document("format", format).append("date", field));
+   }
+
+   private static String fieldPath(final Link link, final String collectionId, final String attributeId) {
+      return isLinked(link, collectionId) ? LINKED + "." + attributeId : attributeId;
+   }
+
+   private static boolean isLinked(final Link link, final String collectionId) {
+      return link != null && link.linkedCollectionId.equals(collectionId);
+   }
+
+   /**
+    * Data linked to the aggregated data through a link type.
+    */
+   public static class Link {
+
+      private final String linkTypeId;
+      private final String linkInstancesCollection;
+      private final String linkedCollectionId;
+      private final String linkedDataCollection;
+
+      /**
+       * @param linkTypeId
+       *       Id of the link type.
+       * @param linkInstancesCollection
+       *       Name of the database collection with the link instances.
+       * @param linkedCollectionId
+       *       Id of the linked collection.
+       * @param linkedDataCollection
+       *       Name of the database collection with the data of the linked collection.
+       */
+      public Link(final String linkTypeId, final String linkInstancesCollection, final String linkedCollectionId, final String linkedDataCollection) {
+         this.linkTypeId = linkTypeId;
+         this.linkInstancesCollection = linkInstancesCollection;
+         this.linkedCollectionId = linkedCollectionId;
+         this.linkedDataCollection = linkedDataCollection;
+      }
+   }
+}
@@ -0,0 +1,265 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.storage.mongodb.util;
+
+import io.lumeer.api.model.Attribute;
+import io.lumeer.engine.api.data.DataDocument;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.WriteModel;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Maintains an indexed token field in document data so that fulltext searches do not scan whole collections.
+ *
+ * The field holds every substring of up to {@link #GRAM_LENGTH} characters of the lower cased string values, and
+ * a token for each attribute present in the data. A search term is looked up by its grams in the index and the
+ * candidates are verified by the original case insensitive regular expression, so the semantics of the substring
+ * search are kept. Data without the field (not migrated yet) or with too many grams are always verified.
+ *
+ * Every write of the field also changes the {@link #REVISION} of the data, a partial update recomputes the tokens
+ * of the whole data and is applied only when the revision it has read is still stored. Both fields are stripped
+ * when the data are read, see {@link io.lumeer.storage.mongodb.codecs.DataDocumentCodec}.
+ */
+public class MongoFulltexts {
+
+   private static final Logger log = Logger.getLogger(MongoFulltexts.class.getName());
+
+   public static final String FIELD = "_fulltext";
+   public static final String REVISION = "_revision";
+
+   static final int GRAM_LENGTH = 3;
+   static final int MAX_GRAMS = 2000;
+
+   // tokens are longer than any gram, so they cannot collide with the grams of the values
+   static final String PARTIAL = "*partial";
+   private static final String ATTRIBUTE_TOKEN = "attribute:";
+
+   private static final int BACKFILL_BATCH_SIZE = 500;
+
+   private MongoFulltexts() {
+   }
+
+   /**
+    * Adds the token field to data that are about to be written.
+    *
+    * @param data
+    *       Data to write.
+    * @return The same data with the token field.
+    */
+   public static DataDocument addTokens(final DataDocument data) {
+      data.remove(FIELD);
+      data.remove(REVISION);
+      data.put(FIELD, createTokens(data));
+      data.put(REVISION, new ObjectId());
+      return data;
+   }
+
+   /**
+    * Creates an update setting the given attributes together with the tokens of the whole data after the update.
+    * It must be applied with {@link #revisionFilter(BsonDocument)} of the data it was computed from.
+    *
+    * @param attributes
+    *       Attributes to set.
+    * @param patchedData
+    *       Stored data with the attributes set.
+    * @param revision
+    *       New revision of the data.
+    * @return The update.
+    */
+   public static Bson createPatch(final DataDocument attributes, final DataDocument patchedData, final ObjectId revision) {
+      final Document set = new Document(attributes);
+      set.put(FIELD, createTokens(patchedData));
+      set.put(REVISION, revision);
+      return new Document("$set", set);
+   }
+
+   /**
+    * @param storedData
+    *       Raw stored data, null when the data do not exist yet.
+    * @return Filter matching the data only until their tokens are written again.
+    */
+   public static Bson revisionFilter(final BsonDocument storedData) {
+      final BsonValue revision = storedData != null ? storedData.get(REVISION) : null;
+      return revision != null ? Filters.eq(REVISION, revision) : Filters.exists(REVISION, false);
+   }
+
+   /**
+    * @param data
+    *       Data of a document.
+    * @return Grams of the values and tokens of the attributes present in the data.
+    */
+   public static List<String> createTokens(final Map<String, Object> data) {
+      final Set<String> grams = new LinkedHashSet<>();
+      final List<String> tokens = new ArrayList<>();
+
+      data.forEach((key, value) -> {
+         if (!DataDocument.ID.equals(key) && !FIELD.equals(key) && !REVISION.equals(key)) {
+            tokens.add(attributeToken(key));
+            addGrams(grams, value);
+         }
+      });
+
+      if (grams.size() > MAX_GRAMS) {
+         tokens.add(PARTIAL);
+      } else {
+         tokens.addAll(grams);
+      }
+
+      return tokens;
+   }
+
+   /**
+    * Creates the filter of data matching all the fulltexts. A fulltext matches the data when it is contained in one of
+    * the values, or in the name of one of the attributes present in the data.
+    *
+    * @param attributes
+    *       Attributes of the searched collection or link type.
+    * @param fulltexts
+    *       Searched fulltexts.
+    * @return The filter, or null when nothing can match.
+    */
+   public static Bson createFilter(final Collection<Attribute> attributes, final Set<String> fulltexts) {
+      final List<Bson> filters = fulltexts.stream()
+                                          .map(fulltext -> createFilter(attributes, fulltext))
+                                          .filter(Objects::nonNull)
+                                          .collect(Collectors.toList());
+
+      return filters.size() > 0 ? Filters.and(filters) : null;
+   }
+
+   private static Bson createFilter(final Collection<Attribute> attributes, final String fulltext) {
+      final List<Bson> filters = new ArrayList<>();
+
+      if (!attributes.isEmpty() && !fulltext.isEmpty()) {
+         final Pattern pattern = Pattern.compile(Pattern.quote(fulltext), Pattern.CASE_INSENSITIVE);
+         final Bson contentFilter = Filters.or(attributes.stream().map(attr -> Filters.regex(attr.getId(), pattern)).collect(Collectors.toList()));
+
+         filters.add(Filters.and(Filters.all(FIELD, searchGrams(fulltext)), contentFilter));
+         // matches data without the field as well
+         filters.add(Filters.and(Filters.in(FIELD, PARTIAL, null), contentFilter));
+      }
+
+      final List<Attribute> namedAttributes = attributes.stream()
+                                                        .filter(attr -> attr.getName().toLowerCase().contains(fulltext.toLowerCase()))
+                                                        .collect(Collectors.toList());
+      if (!namedAttributes.isEmpty()) { // we search by presence of the matching attributes
+         filters.add(Filters.in(FIELD, namedAttributes.stream().map(attr -> attributeToken(attr.getId())).collect(Collectors.toList())));
+         filters.add(Filters.and(Filters.eq(FIELD, null), Filters.or(namedAttributes.stream().map(attr -> Filters.exists(attr.getId())).collect(Collectors.toList()))));
+      }
+
+      return filters.size() > 0 ? Filters.or(filters) : null;
+   }
+
+   /**
+    * @param attributeId
+    *       Removed attribute.
+    * @return Update removing the attribute token.
+    */
+   public static Bson removeAttributeToken(final String attributeId) {
+      return Updates.combine(Updates.pull(FIELD, attributeToken(attributeId)), Updates.set(REVISION, new ObjectId()));
+   }
+
+   /**
+    * Adds the token field to all the data written before the field was introduced.
+    *
+    * @param collection
+    *       Database collection with the data.
+    * @return Number of updated documents.
+    */
+   public static long backfill(final MongoCollection<DataDocument> collection) {
+      final Bson missing = Filters.exists(FIELD, false);
+      long updated = 0;
+
+      final List<WriteModel<DataDocument>> batch = new ArrayList<>();
+      for (final DataDocument data : collection.find(missing).batchSize(BACKFILL_BATCH_SIZE)) {
+         // the data can be rewritten in the meantime, the writer takes care of the field then
+         batch.add(new UpdateOneModel<>(Filters.and(MongoFilters.idFilter(data.getId()), missing), Updates.set(FIELD, createTokens(data))));
+
+         if (batch.size() >= BACKFILL_BATCH_SIZE) {
+            updated += collection.bulkWrite(batch).getModifiedCount();
+            batch.clear();
+         }
+      }
+
+      if (!batch.isEmpty()) {
+         updated += collection.bulkWrite(batch).getModifiedCount();
+      }
+
+      if (updated > 0) {
+         log.info(String.format("Added fulltext tokens to %d documents in %s.", updated, collection.getNamespace()));
+      }
+
+      return updated;
+   }
+
+   static List<String> searchGrams(final String fulltext) {
+      final String text = fulltext.toLowerCase(Locale.ROOT);
+      if (text.length() <= GRAM_LENGTH) {
+         return List.of(text);
+      }
+
+      final Set<String> grams = new LinkedHashSet<>();
+      for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+         grams.add(text.substring(i, i + GRAM_LENGTH));
+      }
+      return new ArrayList<>(grams);
+   }
+
+   private static void addGrams(final Set<String> grams, final Object value) {
+      if (value instanceof String) {
+         final String text = ((String) value).toLowerCase(Locale.ROOT);
+         for (int i = 0; i < text.length() && grams.size() <= MAX_GRAMS; i++) {
+            for (int length = 1; length <= GRAM_LENGTH && i + length <= text.length(); length++) {
+               grams.add(text.substring(i, i + length));
+            }
+         }
+      } else if (value instanceof Iterable) {
+         // a regular expression matches the string elements of arrays too
+         for (final Object item : (Iterable<?>) value) {
+            if (item instanceof String) {
+               addGrams(grams, item);
+            }
+         }
+      }
+   }
+
+   private static String attributeToken(final String attributeId) {
+      return ATTRIBUTE_TOKEN + attributeId;
+   }
+}
@@ -0,0 +1,208 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.storage.mongodb.util;
+
+import io.lumeer.api.model.Document;
+import io.lumeer.storage.mongodb.MongoUtils;
+import io.lumeer.storage.mongodb.codecs.DocumentCodec;
+import io.lumeer.storage.mongodb.codecs.LinkInstanceCodec;
+
+import com.mongodb.MongoException;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.IndexModel;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import org.bson.conversions.Bson;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+/**
+ * Declares the indexes each project repository needs and keeps the database in line with the declarations.
+ *
+ * Index names follow the MongoDB default naming (field_1), so indexes created before they were declared here
+ * are recognized and not built twice.
+ */
+public class MongoIndexes {
+
+   private static final Logger log = Logger.getLogger(MongoIndexes.class.getName());
+
+   private static final String ID_INDEX = "_id_";
+   private static final String INDEX_STATS = "$indexStats";
+
+   public static final List<IndexDefinition> DOCUMENTS = Collections.unmodifiableList(Arrays.asList(
+         new IndexDefinition(DocumentCodec.COLLECTION_ID),
+         new IndexDefinition(MongoUtils.concatParams(DocumentCodec.META_DATA, Document.META_PARENT_ID))
+   ));
+
+   // documentIds is an array, so both indexes containing it are multikey; the compound one serves lookups within a single link type
+   public static final List<IndexDefinition> LINK_INSTANCES = Collections.unmodifiableList(Arrays.asList(
+         new IndexDefinition(LinkInstanceCodec.DOCUMENTS_IDS),
+         new IndexDefinition(LinkInstanceCodec.LINK_TYPE_ID, LinkInstanceCodec.DOCUMENTS_IDS)
+   ));
+
+   // linkTypeId_1 is a prefix of the compound linkTypeId_1_documentIds_1 index, which serves the same queries
+   public static final List<IndexDefinition> OBSOLETE_LINK_INSTANCES = Collections.singletonList(
+         new IndexDefinition(LinkInstanceCodec.LINK_TYPE_ID)
+   );
+
+   public static final List<IndexDefinition> DATA = Collections.singletonList(
+         new IndexDefinition(MongoFulltexts.FIELD)
+   );
+
+   private MongoIndexes() {
+   }
+
+   /**
+    * Creates all the declared indexes that do not exist in the collection yet.
+    *
+    * @param collection
+    *       Collection to index.
+    * @param definitions
+    *       Declared indexes.
+    * @param background
+    *       Whether to build the indexes in background, which should be used for collections that already contain data.
+    * @return Names of the created indexes.
+    */
+   public static List<String> createIndexes(final MongoCollection<?> collection, final List<IndexDefinition> definitions, final boolean background) {
+      final Set<String> missing = new HashSet<>(getMissingIndexes(collection, definitions));
+      if (missing.isEmpty()) {
+         return Collections.emptyList();
+      }
+
+      final List<IndexModel> models = definitions.stream()
+                                                 .filter(definition -> missing.contains(definition.getName()))
+                                                 .map(definition -> definition.toModel(background))
+                                                 .collect(Collectors.toList());
+
+      return collection.createIndexes(models);
+   }
+
+   /**
+    * Drops the indexes that are no longer declared, the declared indexes must be created first.
+    *
+    * @param collection
+    *       Collection to clean.
+    * @param definitions
+    *       Obsolete indexes.
+    * @return Names of the dropped indexes.
+    */
+   public static List<String> dropIndexes(final MongoCollection<?> collection, final List<IndexDefinition> definitions) {
+      final Set<String> existing = getIndexNames(collection);
+      final List<String> dropped = new ArrayList<>();
+
+      definitions.stream()
+                 .map(IndexDefinition::getName)
+                 .filter(existing::contains)
+                 .forEach(name -> {
+                    collection.dropIndex(name);
+                    dropped.add(name);
+                 });
+
+      return dropped;
+   }
+
+   /**
+    * @param collection
+    *       Collection to check.
+    * @param definitions
+    *       Declared indexes.
+    * @return Names of the declared indexes that do not exist in the collection.
+    */
+   public static List<String> getMissingIndexes(final MongoCollection<?> collection, final List<IndexDefinition> definitions) {
+      final Set<String> existing = getIndexNames(collection);
+
+      return definitions.stream()
+                        .map(IndexDefinition::getName)
+                        .filter(name -> !existing.contains(name))
+                        .collect(Collectors.toList());
+   }
+
+   private static Set<String> getIndexNames(final MongoCollection<?> collection) {
+      return collection.listIndexes().into(new ArrayList<>()).stream()
+                       .map(index -> index.getString("name"))
+                       .collect(Collectors.toSet());
+   }
+
+   /**
+    * Reads the index usage counters, which are reset whenever the database server restarts. An index reported here
+    * was not used since then, so the result is meaningful only on a server that has been running for a while.
+    *
+    * @param collection
+    *       Collection to check.
+    * @return Names of the indexes not used by any operation, or an empty list when the statistics are not available.
+    */
+   public static List<String> getUnusedIndexes(final MongoCollection<?> collection) {
+      final List<String> unused = new ArrayList<>();
+
+      try {
+         final List<org.bson.Document> indexStats = collection.aggregate(Collections.singletonList(new org.bson.Document(INDEX_STATS, new org.bson.Document())), org.bson.Document.class)
+                                                              .into(new ArrayList<>());
+
+         for (final org.bson.Document stats : indexStats) {
+            final String name = stats.getString("name");
+            final org.bson.Document accesses = stats.get("accesses", org.bson.Document.class);
+            final Object ops = accesses != null ? accesses.get("ops") : null;
+
+            if (!ID_INDEX.equals(name) && ops instanceof Number && ((Number) ops).longValue() == 0) {
+               unused.add(name);
+            }
+         }
+      } catch (MongoException e) {
+         log.log(Level.FINE, "Index statistics are not available for " + collection.getNamespace(), e);
+         return Collections.emptyList();
+      }
+
+      return unused;
+   }
+
+   public static class IndexDefinition {
+
+      private final List<String> fields;
+      private final String name;
+
+      public IndexDefinition(final String... fields) {
+         this.fields = Arrays.asList(fields);
+         this.name = this.fields.stream().map(field -> field + "_1").collect(Collectors.joining("_"));
+      }
+
+      public List<String> getFields() {
+         return fields;
+      }
+
+      public String getName() {
+         return name;
+      }
+
+      public Bson getKeys() {
+         return Indexes.ascending(fields);
+      }
+
+      IndexModel toModel(final boolean background) {
+         return new IndexModel(getKeys(), new IndexOptions().name(name).unique(false).background(background));
+      }
+   }
+}
@@ -0,0 +1,104 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.storage.mongodb.codecs;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.lumeer.engine.api.data.DataDocument;
+import io.lumeer.storage.mongodb.codecs.providers.DataDocumentCodecProvider;
+import io.lumeer.storage.mongodb.util.MongoFulltexts;
+
+import com.mongodb.MongoClient;
+import org.bson.BsonDocument;
+import org.bson.BsonDocumentReader;
+import org.bson.BsonDocumentWriter;
+import org.bson.BsonType;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.codecs.configuration.CodecRegistries;
+import org.bson.codecs.configuration.CodecRegistry;
+import org.bson.types.ObjectId;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+public class DataDocumentCodecTest {
+
+   private static final String ID = "59a58ba7d412bc562eea2e6a";
+
+   private final CodecRegistry registry = CodecRegistries.fromRegistries(
+         CodecRegistries.fromProviders(new DataDocumentCodecProvider()), MongoClient.getDefaultCodecRegistry());
+
+   private final DataDocumentCodec codec = (DataDocumentCodec) registry.get(DataDocument.class);
+
+   @Test
+   public void testRoundTrip() {
+      final Date date = new Date();
+      final DataDocument data = new DataDocument("a", "text")
+            .append(DataDocument.ID, ID)
+            .append("b", 42)
+            .append("c", new BigDecimal("3.14"))
+            .append("d", date)
+            .append("e", null)
+            .append("f", new DataDocument("g", new BigDecimal("1")).append("h", Arrays.asList(1, new DataDocument("i", "j"))));
+
+      final BsonDocument bson = encode(data);
+      assertThat(bson.getFirstKey()).isEqualTo(DataDocument.ID);
+      assertThat(bson.get(DataDocument.ID).getBsonType()).isEqualTo(BsonType.OBJECT_ID);
+      assertThat(bson.get("c").getBsonType()).isEqualTo(BsonType.DECIMAL128);
+
+      final DataDocument decoded = codec.decode(new BsonDocumentReader(bson), DecoderContext.builder().build());
+      assertThat(decoded).isEqualTo(data);
+      assertThat(decoded.getId()).isEqualTo(ID);
+      assertThat(decoded.getDate("d")).isEqualTo(date);
+      assertThat(decoded.getDataDocument("f").get("g")).isEqualTo(new BigDecimal("1"));
+      assertThat((List<?>) decoded.getDataDocument("f").get("h")).element(1).isInstanceOf(DataDocument.class);
+   }
+
+   @Test
+   public void testGeneratedId() {
+      final DataDocument data = new DataDocument("a", "text");
+
+      codec.generateIdIfAbsentFromDocument(data);
+
+      assertThat(ObjectId.isValid(data.getId())).isTrue();
+      assertThat(codec.getDocumentId(data).asObjectId().getValue().toHexString()).isEqualTo(data.getId());
+   }
+
+   @Test
+   public void testFulltextTokensAreSkipped() {
+      final DataDocument data = MongoFulltexts.addTokens(new DataDocument("a", "text").append("b", new DataDocument(MongoFulltexts.FIELD, "nested")));
+
+      final BsonDocument bson = encode(data);
+      assertThat(bson.containsKey(MongoFulltexts.FIELD)).isTrue();
+
+      final DataDocument decoded = codec.decode(new BsonDocumentReader(bson), DecoderContext.builder().build());
+      assertThat(decoded).containsOnlyKeys("a", "b");
+      assertThat(decoded.getDataDocument("b")).containsKey(MongoFulltexts.FIELD);
+   }
+
+   private BsonDocument encode(final DataDocument data) {
+      final BsonDocument bson = new BsonDocument();
+      codec.encode(new BsonDocumentWriter(bson), data, EncoderContext.builder().build());
+      return bson;
+   }
+}
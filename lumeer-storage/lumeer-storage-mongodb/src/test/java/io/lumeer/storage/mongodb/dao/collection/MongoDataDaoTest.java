@@ -30,6 +30,7 @@ import io.lumeer.storage.api.dao.CollectionDao;
 import io.lumeer.storage.api.filter.CollectionSearchAttributeFilter;
 import io.lumeer.storage.api.query.SearchQueryStem;
 import io.lumeer.storage.mongodb.MongoDbTestBase;
+import io.lumeer.storage.mongodb.util.MongoFulltexts;
 
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoCursor;
@@ -42,6 +43,8 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class MongoDataDaoTest extends MongoDbTestBase {
 
@@ -157,6 +160,22 @@ public class MongoDataDaoTest extends MongoDbTestBase {
       assertThat(document).containsEntry(KEY2, VALUE2);
    }
 
+   @Test
+   public void testPatchDataReplacesFulltextTokens() {
+      dataDao.createData(COLLECTION_ID, DOCUMENT_ID, new DataDocument(KEY1, VALUE1).append(KEY2, VALUE2));
+
+      DataDocument patchedData = dataDao.patchData(COLLECTION_ID, DOCUMENT_ID, new DataDocument(KEY1, "zzz"));
+      assertThat(patchedData).containsEntry(KEY1, "zzz").containsEntry(KEY2, VALUE2)
+                             .doesNotContainKeys(MongoFulltexts.FIELD, MongoFulltexts.REVISION);
+
+      Document document = dataCollection().find().first();
+      assertThat(document.getList(MongoFulltexts.FIELD, String.class)).contains("zzz", "sec").doesNotContain("fir");
+
+      dataDao.patchData(COLLECTION_ID, Collections.singletonMap(DOCUMENT_ID, new DataDocument(KEY2, "yyy")));
+      document = dataCollection().find().first();
+      assertThat(document.getList(MongoFulltexts.FIELD, String.class)).contains("zzz", "yyy").doesNotContain("sec");
+   }
+
    @Test
    public void testPatchNestedAttributes() {
 
@@ -196,6 +215,23 @@ public class MongoDataDaoTest extends MongoDbTestBase {
 
    }
 
+   @Test
+   public void testGetDataWithProjection() {
+      String id = createDocument();
+
+      List<DataDocument> data = dataDao.getData(COLLECTION_ID, Collections.singleton(id), Collections.singleton(KEY2));
+      assertThat(data).hasSize(1);
+      assertThat(data.get(0)).containsOnlyKeys(DataDocument.ID, KEY2);
+
+      data = dataDao.getData(COLLECTION_ID, Collections.singleton(id), Collections.emptySet());
+      assertThat(data.get(0)).containsOnlyKeys(DataDocument.ID);
+
+      Collection collection = collectionDao.getCollectionById(COLLECTION_ID);
+      SearchQueryStem stem = SearchQueryStem.createBuilder(COLLECTION_ID).attributeIds(Collections.singleton(KEY1)).build();
+      data = dataDao.searchData(stem, null, collection);
+      assertThat(data.get(0)).containsOnlyKeys(DataDocument.ID, KEY1);
+   }
+
    @Test
    public void testSearchDataByFullTexts() {
       Collection collection = collectionDao.getCollectionById(COLLECTION_ID);
@@ -232,6 +268,22 @@ public class MongoDataDaoTest extends MongoDbTestBase {
       assertThat(data).extracting(DataDocument::getId).containsOnly(id3, id4);
    }
 
+   @Test
+   public void testSearchDataKeysetPagination() {
+      Collection collection = collectionDao.getCollectionById(COLLECTION_ID);
+      String id1 = createDocument(KEY1, VALUE1);
+      String id2 = createDocument(KEY1, VALUE2);
+      String id3 = createDocument(KEY1, VALUE1);
+
+      SearchQueryStem stem = SearchQueryStem.createBuilder(COLLECTION_ID).build();
+
+      List<DataDocument> data = dataDao.searchData(stem, new Pagination(null, 2, null), collection);
+      assertThat(data).extracting(DataDocument::getId).containsExactly(id1, id2);
+
+      data = dataDao.searchData(stem, new Pagination(null, 2, id2), collection);
+      assertThat(data).extracting(DataDocument::getId).containsExactly(id3);
+   }
+
    @Test
    public void testSearchDataByDocumenstIds() {
       Collection collection = collectionDao.getCollectionById(COLLECTION_ID);
@@ -254,6 +306,26 @@ public class MongoDataDaoTest extends MongoDbTestBase {
       assertThat(data).extracting(DataDocument::getId).containsOnly(id1, id3, id4);
    }
 
+   @Test
+   public void testSearchDataStream() {
+      Collection collection = collectionDao.getCollectionById(COLLECTION_ID);
+      String id1 = createDocument(KEY1, VALUE1);
+      String id2 = createDocument(KEY1, VALUE2);
+      String id3 = createDocument(KEY1, VALUE1);
+
+      SearchQueryStem stem = SearchQueryStem.createBuilder(COLLECTION_ID)
+                                            .documentIds(new HashSet<>(Arrays.asList(id1, id3)))
+                                            .build();
+
+      try (Stream<DataDocument> data = dataDao.searchDataStream(stem, null, collection)) {
+         assertThat(data.collect(Collectors.toList())).extracting(DataDocument::getId).containsOnly(id1, id3);
+      }
+
+      try (Stream<DataDocument> data = dataDao.searchDataStream(SearchQueryStem.createBuilder(COLLECTION_ID).build(), new Pagination(0, 2), collection)) {
+         assertThat(data.collect(Collectors.toList())).extracting(DataDocument::getId).containsExactly(id1, id2);
+      }
+   }
+
    @Test
    public void testSearchDataByFilters() {
       Collection collection = collectionDao.getCollectionById(COLLECTION_ID);
@@ -305,7 +377,7 @@ public class MongoDataDaoTest extends MongoDbTestBase {
    }
 
    private MongoCollection<Document> dataCollection() {
-      return dataDao.dataCollection(COLLECTION_ID);
+      return dataDao.dataCollection(COLLECTION_ID).withDocumentClass(Document.class);
    }
 
 }
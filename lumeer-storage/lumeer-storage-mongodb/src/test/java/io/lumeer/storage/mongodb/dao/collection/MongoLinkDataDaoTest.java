@@ -154,6 +154,6 @@ public class MongoLinkDataDaoTest extends MongoDbTestBase {
    }
 
    private MongoCollection<Document> dataCollection() {
-      return dataDao.linkDataCollection(LINK_TYPE_ID);
+      return dataDao.linkDataCollection(LINK_TYPE_ID).withDocumentClass(Document.class);
    }
 }
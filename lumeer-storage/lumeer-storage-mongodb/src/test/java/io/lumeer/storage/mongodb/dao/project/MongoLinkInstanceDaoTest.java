@@ -27,7 +27,11 @@ import io.lumeer.storage.api.exception.StorageException;
 import io.lumeer.storage.api.query.SearchQuery;
 import io.lumeer.storage.api.query.SearchQueryStem;
 import io.lumeer.storage.mongodb.MongoDbTestBase;
+import io.lumeer.storage.mongodb.codecs.LinkInstanceCodec;
 
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Indexes;
+import org.bson.Document;
 import org.bson.types.ObjectId;
 import org.junit.Before;
 import org.junit.Test;
@@ -86,6 +90,27 @@ public class MongoLinkInstanceDaoTest extends MongoDbTestBase {
       assertThat(database.listCollectionNames()).doesNotContain(linkInstanceDao.databaseCollectionName());
    }
 
+   @Test
+   public void testEnsureIndexes() {
+      assertThat(linkInstanceDao.ensureIndexes(project)).isEmpty();
+
+      database.getCollection(linkInstanceDao.databaseCollectionName()).dropIndex("documentIds_1");
+      assertThat(linkInstanceDao.ensureIndexes(project)).containsOnly("documentIds_1");
+      assertThat(linkInstanceDao.ensureIndexes(project)).isEmpty();
+   }
+
+   @Test
+   public void testEnsureIndexesDropsObsoleteIndex() {
+      final MongoCollection<Document> collection = database.getCollection(linkInstanceDao.databaseCollectionName());
+      collection.createIndex(Indexes.ascending(LinkInstanceCodec.LINK_TYPE_ID));
+
+      linkInstanceDao.ensureIndexes(project);
+
+      assertThat(collection.listIndexes().into(new ArrayList<>())).extracting(index -> index.getString("name"))
+                                                                 .doesNotContain("linkTypeId_1")
+                                                                 .contains("linkTypeId_1_documentIds_1");
+   }
+
    @Test
    public void testCreateLinkInstance() {
       LinkInstance linkInstance = prepareLinkInstance();
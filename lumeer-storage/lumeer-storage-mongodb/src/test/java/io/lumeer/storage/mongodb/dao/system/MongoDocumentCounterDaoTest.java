@@ -0,0 +1,81 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.storage.mongodb.dao.system;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.lumeer.storage.api.dao.DocumentCounterDao;
+import io.lumeer.storage.mongodb.MongoDbTestBase;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Date;
+
+public class MongoDocumentCounterDaoTest extends MongoDbTestBase {
+
+   private static final String PROJECT_ID = "5c6f9a4b1ed9d50001d0bd4e";
+   private static final Date PAST = new Date(0);
+
+   private MongoDocumentCounterDao mongoDocumentCounterDao;
+
+   @Before
+   public void initDocumentCounterDao() {
+      mongoDocumentCounterDao = new MongoDocumentCounterDao();
+      mongoDocumentCounterDao.setDatabase(database);
+
+      mongoDocumentCounterDao.createDocumentCounterRepository();
+      assertThat(database.listCollectionNames()).contains(DocumentCounterDao.COLLECTION_NAME);
+   }
+
+   @Test
+   public void testIncrementedCounterNeedsReconciliation() {
+      mongoDocumentCounterDao.incrementDocumentsCount(PROJECT_ID, 5);
+
+      assertThat(mongoDocumentCounterDao.getDocumentsCount(PROJECT_ID, PAST)).isNull();
+   }
+
+   @Test
+   public void testIncrementReconciledCounter() {
+      assertThat(mongoDocumentCounterDao.setDocumentsCount(PROJECT_ID, null, 10)).isTrue();
+      mongoDocumentCounterDao.incrementDocumentsCount(PROJECT_ID, 5);
+      mongoDocumentCounterDao.incrementDocumentsCount(PROJECT_ID, -2);
+
+      assertThat(mongoDocumentCounterDao.getDocumentsCount(PROJECT_ID, PAST)).isEqualTo(13L);
+      assertThat(mongoDocumentCounterDao.getDocumentsCount(PROJECT_ID, new Date(System.currentTimeMillis() + 60_000))).isNull();
+
+      mongoDocumentCounterDao.deleteDocumentsCount(PROJECT_ID);
+      assertThat(mongoDocumentCounterDao.getDocumentsCount(PROJECT_ID, PAST)).isNull();
+   }
+
+   @Test
+   public void testReconcileSkipsChangedCounter() {
+      mongoDocumentCounterDao.incrementDocumentsCount(PROJECT_ID, 5);
+      final Long expectedCount = mongoDocumentCounterDao.getDocumentsCount(PROJECT_ID);
+      mongoDocumentCounterDao.incrementDocumentsCount(PROJECT_ID, 1);
+
+      assertThat(expectedCount).isEqualTo(5L);
+      assertThat(mongoDocumentCounterDao.setDocumentsCount(PROJECT_ID, expectedCount, 3)).isFalse();
+      assertThat(mongoDocumentCounterDao.setDocumentsCount(PROJECT_ID, null, 3)).isFalse();
+      assertThat(mongoDocumentCounterDao.getDocumentsCount(PROJECT_ID)).isEqualTo(6L);
+
+      assertThat(mongoDocumentCounterDao.setDocumentsCount(PROJECT_ID, 6L, 3)).isTrue();
+      assertThat(mongoDocumentCounterDao.getDocumentsCount(PROJECT_ID, PAST)).isEqualTo(3L);
+   }
+}
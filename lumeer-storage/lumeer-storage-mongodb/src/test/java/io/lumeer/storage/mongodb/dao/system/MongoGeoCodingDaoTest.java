@@ -0,0 +1,72 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.storage.mongodb.dao.system;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.lumeer.api.model.geocoding.Address;
+import io.lumeer.api.model.geocoding.Coordinates;
+import io.lumeer.api.model.geocoding.Location;
+import io.lumeer.storage.api.dao.GeoCodingDao;
+import io.lumeer.storage.mongodb.MongoDbTestBase;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class MongoGeoCodingDaoTest extends MongoDbTestBase {
+
+   private static final Coordinates COORDINATES = new Coordinates(49.19f, 16.61f);
+   private static final Location LOCATION = new Location(new Address("Brno", "Czechia", null, "2", "60200", null, "Náměstí Svobody"), COORDINATES);
+
+   private MongoGeoCodingDao mongoGeoCodingDao;
+
+   @Before
+   public void initGeoCodingDao() {
+      mongoGeoCodingDao = new MongoGeoCodingDao();
+      mongoGeoCodingDao.setDatabase(database);
+
+      mongoGeoCodingDao.createGeoCodingRepository();
+      assertThat(database.listCollectionNames()).contains(GeoCodingDao.COLLECTION_NAME);
+   }
+
+   @Test
+   public void testSaveAndLoadQueryCoordinates() {
+      final Map<String, Coordinates> coordinates = new LinkedHashMap<>();
+      coordinates.put("Brno", COORDINATES);
+      coordinates.put("Praha", new Coordinates(50.08f, 14.43f));
+      mongoGeoCodingDao.saveQueryCoordinates(coordinates);
+      mongoGeoCodingDao.saveQueryCoordinates(Map.of("Brno", COORDINATES));
+
+      assertThat(mongoGeoCodingDao.getQueryCoordinates(10)).containsAllEntriesOf(coordinates).hasSize(2);
+      assertThat(mongoGeoCodingDao.getQueryCoordinates(1)).hasSize(1);
+   }
+
+   @Test
+   public void testSaveAndLoadLocations() {
+      mongoGeoCodingDao.saveCoordinatesLocation(COORDINATES.toString() + "_en", LOCATION);
+      mongoGeoCodingDao.saveQueryLocations("Brno_en", List.of(LOCATION, new Location(null, COORDINATES)));
+
+      assertThat(mongoGeoCodingDao.getCoordinatesLocations(10)).containsEntry(COORDINATES.toString() + "_en", LOCATION);
+      assertThat(mongoGeoCodingDao.getQueryLocations(10).get("Brno_en")).containsExactly(LOCATION, new Location(null, COORDINATES));
+   }
+}
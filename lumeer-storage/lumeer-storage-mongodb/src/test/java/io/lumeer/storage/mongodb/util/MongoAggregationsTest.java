@@ -0,0 +1,92 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.storage.mongodb.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.lumeer.api.model.aggregation.AggregationGroup;
+import io.lumeer.api.model.aggregation.AggregationRow;
+import io.lumeer.api.model.aggregation.AggregationValue;
+import io.lumeer.engine.api.data.DataDocument;
+
+import com.mongodb.MongoClient;
+import com.mongodb.client.model.Filters;
+import org.bson.BsonDocument;
+import org.bson.conversions.Bson;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class MongoAggregationsTest {
+
+   private static final String COLLECTION = "c1";
+   private static final String LINKED_COLLECTION = "c2";
+
+   @Test
+   public void testPipelineWithLink() {
+      final MongoAggregations.Link link = new MongoAggregations.Link("lt1", "linkinstances_p-p1", LINKED_COLLECTION, "data_c-" + LINKED_COLLECTION);
+      final List<AggregationGroup> groups = Arrays.asList(new AggregationGroup(COLLECTION, "a1", null), new AggregationGroup(LINKED_COLLECTION, "a2", "month"));
+      final List<AggregationValue> values = Arrays.asList(new AggregationValue(COLLECTION, "a3", "sum"), new AggregationValue(LINKED_COLLECTION, "a4", "count"));
+
+      final List<BsonDocument> pipeline = toBson(MongoAggregations.createPipeline(null, COLLECTION, link, groups, values));
+      final List<String> stages = pipeline.stream().map(BsonDocument::getFirstKey).collect(Collectors.toList());
+
+      assertThat(stages).containsExactly("$project", "$addFields", "$lookup", "$addFields", "$unwind", "$addFields", "$lookup", "$unwind", "$group", "$sort");
+      assertThat(pipeline.get(0).getDocument("$project").keySet()).containsExactly("a1", "a3");
+      assertThat(pipeline.get(2).getDocument("$lookup").getString("from").getValue()).isEqualTo("linkinstances_p-p1");
+      assertThat(pipeline.get(6).getDocument("$lookup").getString("from").getValue()).isEqualTo("data_c-c2");
+
+      final BsonDocument group = pipeline.get(8).getDocument("$group");
+      assertThat(group.getDocument("_id").getString("k0").getValue()).isEqualTo("$a1");
+      assertThat(group.getDocument("_id").getDocument("k1").containsKey("$cond")).isTrue();
+      assertThat(group.getDocument("v0").getString("$sum").getValue()).isEqualTo("$a3");
+      assertThat(group.getDocument("v1").getDocument("$sum").containsKey("$cond")).isTrue();
+      assertThat(group.getDocument("count").getInt32("$sum").getValue()).isEqualTo(1);
+   }
+
+   @Test
+   public void testPipelineWithoutGroups() {
+      final List<BsonDocument> pipeline = toBson(MongoAggregations.createPipeline(Filters.eq("a1", "x"), COLLECTION, null,
+            Collections.emptyList(), Collections.singletonList(new AggregationValue(COLLECTION, "a1", "max"))));
+
+      assertThat(pipeline.stream().map(BsonDocument::getFirstKey)).containsExactly("$match", "$project", "$group", "$sort");
+      assertThat(pipeline.get(2).getDocument("$group").get("_id").isNull()).isTrue();
+   }
+
+   @Test
+   public void testToRow() {
+      final DataDocument result = new DataDocument("_id", new DataDocument("k0", "a").append("k1", null))
+            .append("count", 3)
+            .append("v0", 42L);
+
+      final AggregationRow row = MongoAggregations.toRow(result, 2, 1);
+      assertThat(row.getKeys()).containsExactly("a", null);
+      assertThat(row.getValues()).containsExactly(42L);
+      assertThat(row.getCount()).isEqualTo(3);
+
+      assertThat(MongoAggregations.toRow(new DataDocument("_id", null).append("count", 5), 0, 0).getCount()).isEqualTo(5);
+   }
+
+   private static List<BsonDocument> toBson(final List<Bson> pipeline) {
+      return pipeline.stream().map(stage -> stage.toBsonDocument(BsonDocument.class, MongoClient.getDefaultCodecRegistry())).collect(Collectors.toList());
+   }
+}
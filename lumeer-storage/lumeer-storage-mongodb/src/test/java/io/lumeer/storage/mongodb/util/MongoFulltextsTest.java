@@ -0,0 +1,103 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.storage.mongodb.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.lumeer.api.model.Attribute;
+import io.lumeer.engine.api.data.DataDocument;
+
+import com.mongodb.MongoClient;
+import org.bson.BsonDocument;
+import org.bson.BsonObjectId;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class MongoFulltextsTest {
+
+   @Test
+   public void testTokens() {
+      final DataDocument data = new DataDocument(DataDocument.ID, "59a58ba7d412bc562eea2e6a")
+            .append("a1", "AbCd")
+            .append("a2", 42)
+            .append("a3", Arrays.asList("x", 1));
+
+      final List<String> tokens = MongoFulltexts.createTokens(data);
+      assertThat(tokens).containsOnly("attribute:a1", "attribute:a2", "attribute:a3",
+            "a", "ab", "abc", "b", "bc", "bcd", "c", "cd", "d", "x");
+
+      MongoFulltexts.addTokens(data);
+      assertThat(data.get(MongoFulltexts.FIELD)).isEqualTo(tokens);
+      assertThat(MongoFulltexts.createTokens(data)).isEqualTo(tokens);
+   }
+
+   @Test
+   public void testTooManyGrams() {
+      final StringBuilder text = new StringBuilder();
+      for (int i = 0; i < MongoFulltexts.MAX_GRAMS; i++) {
+         text.append((char) (0x4e00 + i));
+      }
+
+      final List<String> tokens = MongoFulltexts.createTokens(new DataDocument("a1", text.toString()));
+      assertThat(tokens).containsExactly("attribute:a1", MongoFulltexts.PARTIAL);
+   }
+
+   @Test
+   public void testSearchGrams() {
+      assertThat(MongoFulltexts.searchGrams("Ab")).containsExactly("ab");
+      assertThat(MongoFulltexts.searchGrams("lumeer")).containsExactly("lum", "ume", "mee", "eer");
+   }
+
+   @Test
+   public void testFilter() {
+      final Attribute attribute = new Attribute("a1", "Full name", null, null, 0);
+
+      final BsonDocument filter = toBson(MongoFulltexts.createFilter(Collections.singletonList(attribute), Collections.singleton("full")));
+      assertThat(filter.getArray("$or")).hasSize(4);
+      assertThat(filter.toJson()).contains("\"$all\": [\"ful\", \"ull\"]", "attribute:a1");
+
+      assertThat(MongoFulltexts.createFilter(Collections.emptyList(), Collections.singleton("full"))).isNull();
+   }
+
+   @Test
+   public void testPatchReplacesTokens() {
+      final DataDocument patchedData = new DataDocument("a1", "xyz").append("a2", "kl");
+      final ObjectId revision = new ObjectId();
+
+      final BsonDocument set = toBson(MongoFulltexts.createPatch(new DataDocument("a1", "xyz"), patchedData, revision)).getDocument("$set");
+      assertThat(set.getString("a1").getValue()).isEqualTo("xyz");
+      assertThat(set.getArray(MongoFulltexts.FIELD).getValues()).extracting(value -> value.asString().getValue())
+                                                                 .containsExactlyElementsOf(MongoFulltexts.createTokens(patchedData))
+                                                                 .doesNotContain("abc");
+      assertThat(set.getObjectId(MongoFulltexts.REVISION).getValue()).isEqualTo(revision);
+
+      final BsonDocument stored = new BsonDocument(MongoFulltexts.REVISION, new BsonObjectId(revision));
+      assertThat(toBson(MongoFulltexts.revisionFilter(stored)).getObjectId(MongoFulltexts.REVISION).getValue()).isEqualTo(revision);
+      assertThat(toBson(MongoFulltexts.revisionFilter(null)).toJson()).contains("\"$exists\": false");
+   }
+
+   private static BsonDocument toBson(final Bson filter) {
+      return filter.toBsonDocument(BsonDocument.class, MongoClient.getDefaultCodecRegistry());
+   }
+}
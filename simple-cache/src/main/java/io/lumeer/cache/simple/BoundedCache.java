@@ -0,0 +1,402 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.cache.simple;
+
+import io.lumeer.engine.api.cache.Cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Size bounded cache with segmented LRU eviction and optional time-to-live and time-to-idle expiration.
+ *
+ * New entries are placed in the probation segment and promoted to the protected segment on their first hit.
+ * When the protected segment is full, its least recently used entry is demoted back to probation. Entries are always
+ * evicted from the probation segment, so keys that were read at least once survive a scan of one-time keys.
+ *
+ * Reads do not take any lock. They only record the access in a buffer that is replayed on the segments by the next
+ * write, or by a read that finds the buffer full. When the buffer overflows, the accesses are dropped, which only makes
+ * the eviction order less precise.
+ *
+ * @param <T>
+ *       Type of values stored in the cache.
+ */
+public class BoundedCache<T> implements Cache<T> {
+
+   private static final double PROTECTED_RATIO = 0.8;
+
+   private static final int READ_BUFFER_DRAIN_THRESHOLD = 64;
+   private static final int READ_BUFFER_MAX_SIZE = 1024;
+
+   private final int maxSize;
+   private final int protectedMaxSize;
+   private final long timeToLiveNanos;
+   private final long timeToIdleNanos;
+   private final LongSupplier ticker;
+
+   // entries are looked up here without locking, the map is only modified together with the segments
+   private final Map<String, Entry<T>> data = new ConcurrentHashMap<>();
+
+   private final ReentrantLock evictionLock = new ReentrantLock();
+   private final Map<String, Entry<T>> probation = new LinkedHashMap<>();
+   private final Map<String, Entry<T>> protectedSegment = new LinkedHashMap<>();
+
+   private final Queue<Entry<T>> readBuffer = new ConcurrentLinkedQueue<>();
+   private final AtomicInteger readBufferSize = new AtomicInteger();
+
+   private final Map<String, KeyLock> locks = new ConcurrentHashMap<>();
+
+   private final LongAdder hits = new LongAdder();
+   private final LongAdder misses = new LongAdder();
+   private final LongAdder evictions = new LongAdder();
+   private final LongAdder expirations = new LongAdder();
+
+   /**
+    * Creates a new bounded cache.
+    *
+    * @param maxSize
+    *       Maximum number of entries held in the cache.
+    * @param timeToLiveMillis
+    *       Time since the last write after which an entry expires, zero or negative to disable.
+    * @param timeToIdleMillis
+    *       Time since the last access after which an entry expires, zero or negative to disable.
+    */
+   public BoundedCache(final int maxSize, final long timeToLiveMillis, final long timeToIdleMillis) {
+      this(maxSize, timeToLiveMillis, timeToIdleMillis, System::nanoTime);
+   }
+
+   BoundedCache(final int maxSize, final long timeToLiveMillis, final long timeToIdleMillis, final LongSupplier ticker) {
+      if (maxSize < 1) {
+         throw new IllegalArgumentException("Maximum cache size must be positive.");
+      }
+
+      this.maxSize = maxSize;
+      this.protectedMaxSize = (int) (maxSize * PROTECTED_RATIO);
+      this.timeToLiveNanos = timeToLiveMillis > 0 ? timeToLiveMillis * 1_000_000L : 0;
+      this.timeToIdleNanos = timeToIdleMillis > 0 ? timeToIdleMillis * 1_000_000L : 0;
+      this.ticker = ticker;
+   }
+
+   @Override
+   public T get(final String key) {
+      final Entry<T> entry = lookup(key, ticker.getAsLong());
+      if (entry == null) {
+         misses.increment();
+         return null;
+      }
+
+      hits.increment();
+      recordRead(entry);
+      return entry.value;
+   }
+
+   /**
+    * Gets the cached value or computes and stores a new one. The computation runs under the lock of the key, so
+    * concurrent callers asking for the same key compute the value only once.
+    */
+   @Override
+   public T computeIfAbsent(final String key, final Function<String, T> fce) {
+      final T cached = get(key);
+      if (cached != null) {
+         return cached;
+      }
+
+      lock(key);
+      try {
+         final Entry<T> concurrent = lookup(key, ticker.getAsLong());
+         if (concurrent != null) {
+            recordRead(concurrent);
+            return concurrent.value;
+         }
+
+         final T computed = fce.apply(key);
+         if (computed != null) {
+            set(key, computed);
+         }
+
+         return computed;
+      } finally {
+         unlock(key);
+      }
+   }
+
+   @Override
+   public void set(final String key, final T t) {
+      final long now = ticker.getAsLong();
+
+      evictionLock.lock();
+      try {
+         drainReadBuffer();
+
+         final Entry<T> existing = data.get(key);
+         if (existing != null) {
+            existing.value = t;
+            existing.writeTime = now;
+            existing.accessTime = now;
+
+            final Map<String, Entry<T>> segment = protectedSegment.containsKey(key) ? protectedSegment : probation;
+            segment.remove(key);
+            segment.put(key, existing);
+            return;
+         }
+
+         final Entry<T> entry = new Entry<>(key, t, now);
+         data.put(key, entry);
+         probation.put(key, entry);
+         evictIfNeeded(now);
+      } finally {
+         evictionLock.unlock();
+      }
+   }
+
+   @Override
+   public T remove(final String key) {
+      evictionLock.lock();
+      try {
+         final Entry<T> entry = data.remove(key);
+         if (entry == null) {
+            return null;
+         }
+
+         probation.remove(key);
+         protectedSegment.remove(key);
+         return entry.value;
+      } finally {
+         evictionLock.unlock();
+      }
+   }
+
+   @Override
+   public void lock(final String key) {
+      acquireKeyLock(key).lock.lock();
+   }
+
+   @Override
+   public void unlock(final String key) {
+      final KeyLock keyLock = locks.get(key);
+
+      if (keyLock != null) {
+         keyLock.lock.unlock();
+         releaseKeyLock(key);
+      }
+   }
+
+   @Override
+   public boolean tryLock(final String key) {
+      final KeyLock keyLock = acquireKeyLock(key);
+
+      if (keyLock.lock.tryLock()) {
+         return true;
+      }
+
+      releaseKeyLock(key);
+      return false;
+   }
+
+   /**
+    * Removes all the entries. The key locks are not affected, a lock held during the clearing still guards its key.
+    */
+   @Override
+   public void clear() {
+      evictionLock.lock();
+      try {
+         readBuffer.clear();
+         readBufferSize.set(0);
+         data.clear();
+         probation.clear();
+         protectedSegment.clear();
+      } finally {
+         evictionLock.unlock();
+      }
+   }
+
+   /**
+    * Removes all expired entries. Expired entries are otherwise removed lazily when they are accessed or when they reach
+    * the eviction end of the probation segment.
+    */
+   public void cleanUp() {
+      final long now = ticker.getAsLong();
+
+      evictionLock.lock();
+      try {
+         drainReadBuffer();
+         purgeExpired(probation, now);
+         purgeExpired(protectedSegment, now);
+      } finally {
+         evictionLock.unlock();
+      }
+   }
+
+   public int size() {
+      return data.size();
+   }
+
+   public int getMaxSize() {
+      return maxSize;
+   }
+
+   public CacheStatistics getStatistics() {
+      return new CacheStatistics(hits.sum(), misses.sum(), evictions.sum(), expirations.sum(), size());
+   }
+
+   private Entry<T> lookup(final String key, final long now) {
+      final Entry<T> entry = data.get(key);
+      if (entry == null) {
+         return null;
+      }
+
+      if (isExpired(entry, now)) {
+         expire(entry);
+         return null;
+      }
+
+      entry.accessTime = now;
+      return entry;
+   }
+
+   private void expire(final Entry<T> entry) {
+      evictionLock.lock();
+      try {
+         // the entry might have been replaced or removed in the meantime
+         if (data.remove(entry.key, entry)) {
+            probation.remove(entry.key);
+            protectedSegment.remove(entry.key);
+            expirations.increment();
+         }
+      } finally {
+         evictionLock.unlock();
+      }
+   }
+
+   private void recordRead(final Entry<T> entry) {
+      if (readBufferSize.get() < READ_BUFFER_MAX_SIZE) {
+         readBuffer.offer(entry);
+         readBufferSize.incrementAndGet();
+      }
+
+      if (readBufferSize.get() >= READ_BUFFER_DRAIN_THRESHOLD && evictionLock.tryLock()) {
+         try {
+            drainReadBuffer();
+         } finally {
+            evictionLock.unlock();
+         }
+      }
+   }
+
+   // must be called under the eviction lock
+   private void drainReadBuffer() {
+      Entry<T> entry;
+      while ((entry = readBuffer.poll()) != null) {
+         readBufferSize.decrementAndGet();
+
+         if (protectedSegment.get(entry.key) == entry) {
+            protectedSegment.remove(entry.key);
+            protectedSegment.put(entry.key, entry);
+         } else if (probation.get(entry.key) == entry) {
+            probation.remove(entry.key);
+            promote(entry);
+         }
+      }
+   }
+
+   private void promote(final Entry<T> entry) {
+      protectedSegment.put(entry.key, entry);
+
+      if (protectedSegment.size() > protectedMaxSize) {
+         final Iterator<Map.Entry<String, Entry<T>>> it = protectedSegment.entrySet().iterator();
+         final Map.Entry<String, Entry<T>> demoted = it.next();
+         it.remove();
+         probation.put(demoted.getKey(), demoted.getValue());
+      }
+   }
+
+   private void evictIfNeeded(final long now) {
+      while (data.size() > maxSize) {
+         final Map<String, Entry<T>> segment = probation.isEmpty() ? protectedSegment : probation;
+         final Iterator<Map.Entry<String, Entry<T>>> it = segment.entrySet().iterator();
+         final Entry<T> victim = it.next().getValue();
+         it.remove();
+         data.remove(victim.key);
+
+         if (isExpired(victim, now)) {
+            expirations.increment();
+         } else {
+            evictions.increment();
+         }
+      }
+   }
+
+   private void purgeExpired(final Map<String, Entry<T>> segment, final long now) {
+      final Iterator<Entry<T>> it = segment.values().iterator();
+      while (it.hasNext()) {
+         final Entry<T> entry = it.next();
+         if (isExpired(entry, now)) {
+            it.remove();
+            data.remove(entry.key);
+            expirations.increment();
+         }
+      }
+   }
+
+   private boolean isExpired(final Entry<T> entry, final long now) {
+      return (timeToLiveNanos > 0 && now - entry.writeTime >= timeToLiveNanos)
+            || (timeToIdleNanos > 0 && now - entry.accessTime >= timeToIdleNanos);
+   }
+
+   private KeyLock acquireKeyLock(final String key) {
+      return locks.compute(key, (k, keyLock) -> {
+         final KeyLock result = keyLock != null ? keyLock : new KeyLock();
+         result.users++;
+         return result;
+      });
+   }
+
+   private void releaseKeyLock(final String key) {
+      // drops the lock once nobody holds or waits for it, so the lock map does not grow with every key ever locked
+      locks.computeIfPresent(key, (k, keyLock) -> --keyLock.users > 0 ? keyLock : null);
+   }
+
+   private static class Entry<T> {
+      private final String key;
+      private volatile T value;
+      private volatile long writeTime;
+      private volatile long accessTime;
+
+      private Entry(final String key, final T value, final long now) {
+         this.key = key;
+         this.value = value;
+         this.writeTime = now;
+         this.accessTime = now;
+      }
+   }
+
+   private static class KeyLock {
+      private final ReentrantLock lock = new ReentrantLock();
+      private int users;
+   }
+}
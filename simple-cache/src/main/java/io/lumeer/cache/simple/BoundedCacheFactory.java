@@ -0,0 +1,58 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.cache.simple;
+
+import io.lumeer.engine.api.cache.Cache;
+import io.lumeer.engine.api.cache.CacheFactory;
+
+import java.io.Serializable;
+
+/**
+ * Creates {@link BoundedCache} instances sharing the same limits. This is not a CDI bean on its own,
+ * it is meant to be produced based on the application configuration.
+ */
+public class BoundedCacheFactory implements CacheFactory, Serializable {
+
+   private final int maxSize;
+   private final long timeToLiveMillis;
+   private final long timeToIdleMillis;
+
+   public BoundedCacheFactory(final int maxSize, final long timeToLiveMillis, final long timeToIdleMillis) {
+      this.maxSize = maxSize;
+      this.timeToLiveMillis = timeToLiveMillis;
+      this.timeToIdleMillis = timeToIdleMillis;
+   }
+
+   @Override
+   public <T> Cache<T> getCache() {
+      return new BoundedCache<>(maxSize, timeToLiveMillis, timeToIdleMillis);
+   }
+
+   public int getMaxSize() {
+      return maxSize;
+   }
+
+   public long getTimeToLiveMillis() {
+      return timeToLiveMillis;
+   }
+
+   public long getTimeToIdleMillis() {
+      return timeToIdleMillis;
+   }
+}
@@ -0,0 +1,183 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.cache.simple;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class BoundedCacheTest {
+
+   @Test
+   public void testSizeBound() {
+      final BoundedCache<Integer> cache = new BoundedCache<>(10, 0, 0);
+
+      for (int i = 0; i < 100; i++) {
+         cache.set("k" + i, i);
+      }
+
+      assertThat(cache.size()).isEqualTo(10);
+      assertThat(cache.get("k99")).isEqualTo(99);
+      assertThat(cache.get("k0")).isNull();
+      assertThat(cache.getStatistics().getEvictions()).isEqualTo(90);
+   }
+
+   @Test
+   public void testFrequentlyReadEntriesSurviveScan() {
+      final BoundedCache<Integer> cache = new BoundedCache<>(10, 0, 0);
+
+      for (int i = 0; i < 5; i++) {
+         cache.set("hot" + i, i);
+         cache.get("hot" + i);
+      }
+
+      for (int i = 0; i < 1000; i++) {
+         cache.set("cold" + i, i);
+      }
+
+      for (int i = 0; i < 5; i++) {
+         assertThat(cache.get("hot" + i)).isEqualTo(i);
+      }
+      assertThat(cache.size()).isEqualTo(10);
+   }
+
+   @Test
+   public void testTimeToLive() {
+      final AtomicLong time = new AtomicLong();
+      final BoundedCache<String> cache = new BoundedCache<>(10, 100, 0, time::get);
+
+      cache.set("a", "A");
+      time.addAndGet(50_000_000L);
+      assertThat(cache.get("a")).isEqualTo("A");
+
+      time.addAndGet(60_000_000L);
+      assertThat(cache.get("a")).isNull();
+      assertThat(cache.getStatistics().getExpirations()).isEqualTo(1);
+   }
+
+   @Test
+   public void testTimeToIdle() {
+      final AtomicLong time = new AtomicLong();
+      final BoundedCache<String> cache = new BoundedCache<>(10, 0, 100, time::get);
+
+      cache.set("a", "A");
+      cache.set("b", "B");
+      for (int i = 0; i < 5; i++) {
+         time.addAndGet(50_000_000L);
+         assertThat(cache.get("a")).isEqualTo("A");
+      }
+
+      assertThat(cache.get("b")).isNull();
+      cache.cleanUp();
+      assertThat(cache.size()).isEqualTo(1);
+   }
+
+   @Test
+   public void testComputeIfAbsentAndStatistics() {
+      final BoundedCache<String> cache = new BoundedCache<>(10, 0, 0);
+
+      assertThat(cache.computeIfAbsent("a", String::toUpperCase)).isEqualTo("A");
+      assertThat(cache.computeIfAbsent("a", k -> "other")).isEqualTo("A");
+      assertThat(cache.computeIfAbsent("b", k -> null)).isNull();
+      assertThat(cache.get("b")).isNull();
+
+      final CacheStatistics statistics = cache.getStatistics();
+      assertThat(statistics.getHits()).isEqualTo(1);
+      assertThat(statistics.getMisses()).isEqualTo(3);
+      assertThat(statistics.getSize()).isEqualTo(1);
+   }
+
+   @Test
+   public void testLocksAreReleased() {
+      final BoundedCache<String> cache = new BoundedCache<>(10, 0, 0);
+
+      cache.lock("a");
+      assertThat(cache.tryLock("a")).isTrue();
+      cache.unlock("a");
+      cache.unlock("a");
+
+      final Thread other = new Thread(() -> assertThat(cache.tryLock("a")).isTrue());
+      other.start();
+      try {
+         other.join();
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+      }
+   }
+
+   @Test
+   public void testClearKeepsHeldLocks() throws InterruptedException {
+      final BoundedCache<String> cache = new BoundedCache<>(10, 0, 0);
+
+      cache.lock("a");
+      cache.clear();
+
+      final AtomicInteger acquired = new AtomicInteger();
+      final Thread other = new Thread(() -> {
+         if (cache.tryLock("a")) {
+            acquired.incrementAndGet();
+            cache.unlock("a");
+         }
+      });
+      other.start();
+      other.join();
+
+      assertThat(acquired.get()).isEqualTo(0);
+      cache.unlock("a");
+   }
+
+   @Test
+   public void testComputeIfAbsentComputesOnce() throws InterruptedException {
+      final BoundedCache<String> cache = new BoundedCache<>(10, 0, 0);
+      final AtomicInteger computations = new AtomicInteger();
+      final CountDownLatch start = new CountDownLatch(1);
+      final ExecutorService executorService = Executors.newFixedThreadPool(8);
+
+      try {
+         for (int i = 0; i < 8; i++) {
+            executorService.submit(() -> {
+               start.await();
+               return cache.computeIfAbsent("a", key -> {
+                  computations.incrementAndGet();
+                  try {
+                     Thread.sleep(20);
+                  } catch (InterruptedException e) {
+                     Thread.currentThread().interrupt();
+                  }
+                  return "A";
+               });
+            });
+         }
+         start.countDown();
+      } finally {
+         executorService.shutdown();
+         executorService.awaitTermination(5, TimeUnit.SECONDS);
+      }
+
+      assertThat(computations.get()).isEqualTo(1);
+      assertThat(cache.get("a")).isEqualTo("A");
+   }
+}
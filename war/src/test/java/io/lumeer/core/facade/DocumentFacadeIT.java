@@ -50,6 +50,8 @@ import org.junit.runner.RunWith;
 
 import java.math.BigDecimal;
 import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -298,6 +300,35 @@ public class DocumentFacadeIT extends IntegrationTestBase {
       assertThat(storedCollection.getDocumentsCount()).isEqualTo(1);
    }
 
+   @Test
+   public void testPatchDocumentsData() {
+      String id1 = createDocument().getId();
+      String id2 = createDocument().getId();
+
+      Document patch1 = new Document(new DataDocument(KEY1, VALUE2));
+      patch1.setId(id1);
+      Document patch2 = new Document(new DataDocument(KEY2, VALUE1));
+      patch2.setId(id2);
+
+      List<Document> updatedDocuments = documentFacade.patchDocumentsData(collection.getId(), Arrays.asList(patch1, patch2));
+      assertThat(updatedDocuments).extracting(Document::getId).containsOnly(id1, id2);
+      assertThat(updatedDocuments).allSatisfy(document -> {
+         assertThat(document.getUpdatedBy()).isEqualTo(this.user.getId());
+         assertThat(document.getDataVersion()).isEqualTo(1);
+      });
+
+      DataDocument storedData1 = dataDao.getData(collection.getId(), id1);
+      assertThat(storedData1).containsEntry(KEY1, VALUE2);
+      assertThat(storedData1).containsEntry(KEY2, VALUE2);
+
+      DataDocument storedData2 = dataDao.getData(collection.getId(), id2);
+      assertThat(storedData2).containsEntry(KEY1, VALUE1);
+      assertThat(storedData2).containsEntry(KEY2, VALUE1);
+
+      Collection storedCollection = collectionDao.getCollectionById(collection.getId());
+      assertThat(storedCollection.getDocumentsCount()).isEqualTo(2);
+   }
+
    @Test
    public void testDeleteDocument() {
       String id = createDocument().getId();
@@ -318,6 +349,21 @@ public class DocumentFacadeIT extends IntegrationTestBase {
       assertThat(storedCollection.getDocumentsCount()).isEqualTo(0);
    }
 
+   @Test
+   public void testDeleteDocuments() {
+      String id1 = createDocument().getId();
+      String id2 = createDocument().getId();
+      String id3 = createDocument().getId();
+
+      documentFacade.deleteDocuments(collection.getId(), new HashSet<>(Arrays.asList(id1, id2)));
+
+      assertThat(documentDao.getDocumentsByIds(id1, id2, id3)).extracting(Document::getId).containsOnly(id3);
+      assertThat(dataDao.getData(collection.getId(), new HashSet<>(Arrays.asList(id1, id2, id3)))).extracting(DataDocument::getId).containsOnly(id3);
+
+      Collection storedCollection = collectionDao.getCollectionById(collection.getId());
+      assertThat(storedCollection.getDocumentsCount()).isEqualTo(1);
+   }
+
    @Test
    public void testGetDocument() {
       String id = createDocument().getId();
@@ -39,6 +39,7 @@ import io.lumeer.core.auth.AuthenticatedUser;
 import io.lumeer.core.task.FunctionTask;
 import io.lumeer.engine.IntegrationTestBase;
 import io.lumeer.engine.api.data.DataDocument;
+import io.lumeer.engine.api.event.UpdateDocument;
 import io.lumeer.storage.api.dao.CollectionDao;
 import io.lumeer.storage.api.dao.DocumentDao;
 import io.lumeer.storage.api.dao.FunctionDao;
@@ -173,6 +174,30 @@ public class FunctionFacadeIT extends IntegrationTestBase {
       assertThat(queue3).hasSize(5);
    }
 
+   @Test
+   public void testCreateTaskForUpdatedDocuments() {
+      createTestData();
+      // C1(a1) = C1(a2) + C1(a3)
+
+      FunctionRow row1 = FunctionRow.createForCollection(c1.getId(), "a1", c1.getId(), null, "a2");
+      FunctionRow row2 = FunctionRow.createForCollection(c1.getId(), "a1", c1.getId(), null, "a3");
+      functionDao.createRows(Arrays.asList(row1, row2));
+
+      List<Document> documents = getDocuments(c1);
+      documents.forEach(document -> document.setData(new DataDocument()));
+      Document changedA2 = new Document(documents.get(0));
+      changedA2.setData(new DataDocument("a2", 1));
+      Document changedA3 = new Document(documents.get(1));
+      changedA3.setData(new DataDocument("a3", 1));
+
+      FunctionTask task = functionFacade.createTaskForUpdatedDocuments(c1, Arrays.asList(
+            new UpdateDocument(changedA2, documents.get(0)), new UpdateDocument(changedA3, documents.get(1))));
+      assertThat(task.getCollection().getId()).isEqualTo(c1.getId());
+      assertThat(task.getAttribute().getId()).isEqualTo("a1");
+      assertThat(task.getDocuments()).extracting(Document::getId).containsOnly(documents.get(0).getId(), documents.get(1).getId());
+      assertThat(task.getParent()).isNull();
+   }
+
    @Test
    public void testCreateCollectionQueueSameCollectionMultiple() {
       createTestData();
@@ -336,7 +361,8 @@ public class FunctionFacadeIT extends IntegrationTestBase {
 
       task = (FunctionTask) task.getParent();
       assertThat(task.getLinkType().getId()).isEqualTo(l12.getId());
-      assertThat(task.getLinkInstances()).hasSize(2);
+      // derived from the documents the previous function actually changes
+      assertThat(task.getLinkInstances()).isNull();
       assertThat(task.getParent()).isNull();
    }
 
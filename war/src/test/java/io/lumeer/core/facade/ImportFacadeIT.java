@@ -22,6 +22,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 
 import io.lumeer.api.model.Attribute;
 import io.lumeer.api.model.Collection;
+import io.lumeer.api.model.ConstraintType;
 import io.lumeer.api.model.ImportedCollection;
 import io.lumeer.api.model.Organization;
 import io.lumeer.api.model.Permission;
@@ -44,7 +45,10 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 import javax.inject.Inject;
 
@@ -285,6 +289,31 @@ public class ImportFacadeIT extends IntegrationTestBase {
       assertThat(h3Num).isEqualTo(2);
    }
 
+   @Test
+   public void testImportFromStream() {
+      final StringBuilder csv = new StringBuilder("h1;h2;h3;h4\n");
+      for (int i = 0; i < 2500; i++) {
+         csv.append(i).append(";").append(i % 2 == 0).append(";").append(i % 10).append("%;text").append(i).append("\n");
+      }
+
+      Collection collection = importFacade.importDocuments(ImportFacade.FORMAT_CSV,
+            new Collection(COLLECTION_CODE, COLLECTION_NAME, COLLECTION_ICON, COLLECTION_COLOR, new Permissions()),
+            new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.UTF_8)));
+      assertThat(collection).isNotNull();
+      assertThat(collection.getDocumentsCount()).isEqualTo(2500);
+
+      Map<String, Attribute> attributes = collection.getAttributes().stream().collect(Collectors.toMap(Attribute::getName, a -> a));
+      assertThat(attributes.get("h1").getConstraint().getType()).isEqualTo(ConstraintType.Number);
+      assertThat(attributes.get("h2").getConstraint().getType()).isEqualTo(ConstraintType.Boolean);
+      assertThat(attributes.get("h3").getConstraint().getType()).isEqualTo(ConstraintType.Percentage);
+      assertThat(attributes.get("h4").getConstraint()).isNull();
+      assertThat(attributes.get("h1").getUsageCount()).isEqualTo(2500);
+
+      List<DataDocument> data = dataDao.getData(collection.getId());
+      assertThat(data).hasSize(2500);
+      assertThat(data).allMatch(document -> document.get(PREFIX + 2) instanceof Boolean);
+   }
+
    private ImportedCollection createImportObject(String data) {
       return new ImportedCollection(new Collection(COLLECTION_CODE, COLLECTION_NAME, COLLECTION_ICON, COLLECTION_COLOR, new Permissions()), data);
    }
@@ -57,6 +57,7 @@ import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
@@ -285,6 +286,25 @@ public class LinkInstanceFacadeIT extends IntegrationTestBase {
       assertThat(storedLinkInstance.getData()).containsEntry("k4", "v4");
    }
 
+   @Test
+   public void testPatchLinkInstancesData() {
+      String id1 = linkInstanceFacade.createLinkInstance(prepareLinkInstance()).getId();
+      String id2 = linkInstanceFacade.createLinkInstance(prepareLinkInstance()).getId();
+
+      LinkInstance patch1 = new LinkInstance(linkTypeId1, null);
+      patch1.setId(id1);
+      patch1.setData(new DataDocument("k1", "v1"));
+      LinkInstance patch2 = new LinkInstance(linkTypeId1, null);
+      patch2.setId(id2);
+      patch2.setData(new DataDocument("k2", "v2"));
+
+      List<LinkInstance> patchedLinkInstances = linkInstanceFacade.patchLinkInstancesData(Arrays.asList(patch1, patch2));
+      assertThat(patchedLinkInstances).extracting(LinkInstance::getId).containsOnly(id1, id2);
+
+      assertThat(linkInstanceFacade.getLinkInstance(linkTypeId1, id1).getData()).containsEntry("k1", "v1").doesNotContainKey("k2");
+      assertThat(linkInstanceFacade.getLinkInstance(linkTypeId1, id2).getData()).containsEntry("k2", "v2").doesNotContainKey("k1");
+   }
+
    @Test
    public void testDeleteLinkInstance() {
       LinkInstance created = linkInstanceFacade.createLinkInstance(prepareLinkInstance());
@@ -296,6 +316,17 @@ public class LinkInstanceFacadeIT extends IntegrationTestBase {
             .isInstanceOf(StorageException.class);
    }
 
+   @Test
+   public void testDeleteLinkInstances() {
+      String id1 = linkInstanceFacade.createLinkInstance(prepareLinkInstance()).getId();
+      String id2 = linkInstanceFacade.createLinkInstance(prepareLinkInstance()).getId();
+      String id3 = linkInstanceFacade.createLinkInstance(prepareLinkInstance()).getId();
+
+      linkInstanceFacade.deleteLinkInstances(new HashSet<>(Arrays.asList(id1, id2)));
+
+      assertThat(linkInstanceDao.getLinkInstances(new HashSet<>(Arrays.asList(id1, id2, id3)))).extracting(LinkInstance::getId).containsOnly(id3);
+   }
+
    @Test
    public void testDuplicateLinkInstances() {
       var masterDocument = createDocument(collection1Id);